@@ -0,0 +1,166 @@
+package db.schema;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Replaces the unique index of the front content of all the cards with a unique index of the hash of the front
+ * content within the deck. The hash is computed in Java, so the existing cards are filled in here rather than in SQL,
+ * the same way on every database.
+ * <p>
+ * Fronts that were unique before may only differ in whitespace or normalization, so they collide within a deck once
+ * hashed. The first card of such a deck keeps its front, the fronts of the others get a numbered suffix, e.g.
+ * "Hello (2)", and each renamed card is logged.
+ * <p>
+ * The hash and the names are copies of the ones of the card entity at the time of the migration, so later changes of
+ * the entity do not change what the migration does.
+ */
+public class V13__scope_front_content_uniqueness_to_decks extends BaseJavaMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(V13__scope_front_content_uniqueness_to_decks.class);
+
+    private static final int BATCH_SIZE = 1000;
+    private static final int FRONT_CONTENT_MAX_LENGTH = 750;
+    private static final String FRONT_CONTENT_UNIQUE_CONSTRAINT = "UK_cards_deck_id_front_content_hash";
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("alter table cards add column front_content_hash bigint");
+        }
+
+        fillFrontContentHashes(connection);
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("alter table cards alter column front_content_hash set not null");
+            statement.execute("alter table cards drop constraint UK_2v21n4svo7rkuo1e3q9nciel1");
+        }
+
+        renameCollidingFrontContents(connection);
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("alter table cards add constraint " + FRONT_CONTENT_UNIQUE_CONSTRAINT +
+                    " unique (deck_id, front_content_hash)");
+        }
+    }
+
+    // in batches of cards in the order of ids, each one read after the last id of the previous one
+    private static void fillFrontContentHashes(Connection connection) throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement(
+                "select id, front_content from cards where id > ? order by id limit " + BATCH_SIZE);
+             PreparedStatement update = connection.prepareStatement(
+                     "update cards set front_content_hash = ? where id = ?")) {
+            long after = 0;
+            int cards;
+            do {
+                cards = 0;
+                select.setLong(1, after);
+                try (ResultSet rows = select.executeQuery()) {
+                    while (rows.next()) {
+                        after = rows.getLong(1);
+                        update.setLong(1, hashFrontContent(rows.getString(2)));
+                        update.setLong(2, after);
+                        update.addBatch();
+                        cards++;
+                    }
+                }
+                if (cards > 0) update.executeBatch();
+            } while (cards == BATCH_SIZE);
+        }
+    }
+
+    // every card of a colliding group but the one with the lowest id gets the lowest free suffix within its deck
+    private static void renameCollidingFrontContents(Connection connection) throws SQLException {
+        List<long[]> collisions = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("select deck_id, front_content_hash from cards " +
+                     "where deck_id is not null group by deck_id, front_content_hash having count(*) > 1")) {
+            while (rows.next()) {
+                collisions.add(new long[]{rows.getLong(1), rows.getLong(2)});
+            }
+        }
+        if (collisions.isEmpty()) return;
+
+        try (PreparedStatement selectColliding = connection.prepareStatement(
+                "select id, front_content from cards where deck_id = ? and front_content_hash = ? order by id");
+             PreparedStatement selectTaken = connection.prepareStatement(
+                     "select count(*) from cards where deck_id = ? and front_content_hash = ?");
+             PreparedStatement update = connection.prepareStatement(
+                     "update cards set front_content = ?, front_content_hash = ? where id = ?")) {
+            for (long[] collision : collisions) {
+                long deckId = collision[0];
+                List<Long> ids = new ArrayList<>();
+                List<String> frontContents = new ArrayList<>();
+                selectColliding.setLong(1, deckId);
+                selectColliding.setLong(2, collision[1]);
+                try (ResultSet rows = selectColliding.executeQuery()) {
+                    while (rows.next()) {
+                        ids.add(rows.getLong(1));
+                        frontContents.add(rows.getString(2));
+                    }
+                }
+                int suffix = 1;
+                for (int i = 1; i < ids.size(); i++) {
+                    String renamed;
+                    long hash;
+                    do {
+                        renamed = withSuffix(frontContents.get(i), ++suffix);
+                        hash = hashFrontContent(renamed);
+                    } while (isTaken(selectTaken, deckId, hash));
+                    update.setString(1, renamed);
+                    update.setLong(2, hash);
+                    update.setLong(3, ids.get(i));
+                    update.executeUpdate();
+                    log.warn("Renamed the front content of card {} in deck {} to \"{}\", it collided with card {}",
+                            ids.get(i), deckId, renamed, ids.get(0));
+                }
+            }
+        }
+    }
+
+    // cut to keep the front within the length of the column
+    private static String withSuffix(String frontContent, int number) {
+        String suffix = " (" + number + ")";
+        String stripped = frontContent.strip();
+        return stripped.substring(0, Math.min(stripped.length(), FRONT_CONTENT_MAX_LENGTH - suffix.length())) + suffix;
+    }
+
+    private static boolean isTaken(PreparedStatement selectTaken, long deckId, long hash) throws SQLException {
+        selectTaken.setLong(1, deckId);
+        selectTaken.setLong(2, hash);
+        try (ResultSet rows = selectTaken.executeQuery()) {
+            rows.next();
+            return rows.getLong(1) > 0;
+        }
+    }
+
+    // the first 8 bytes of the SHA-256 hash of the front content, with NFC normalized and collapsed whitespace
+    private static long hashFrontContent(String frontContent) {
+        String normalized = WHITESPACE.matcher(Normalizer.normalize(frontContent, Normalizer.Form.NFC).strip())
+                .replaceAll(" ");
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(normalized.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(hash).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e); // required on every Java platform
+        }
+    }
+}
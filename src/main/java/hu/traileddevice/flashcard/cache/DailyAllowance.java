@@ -0,0 +1,30 @@
+package hu.traileddevice.flashcard.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Number of new cards and reviews a deck still allows on the current day.
+ */
+@Getter
+@AllArgsConstructor
+public class DailyAllowance {
+
+    public static final DailyAllowance UNLIMITED = new DailyAllowance(Integer.MAX_VALUE, Integer.MAX_VALUE);
+
+    private final int remainingNewCards;
+
+    private final int remainingReviews;
+
+    public boolean allowsNewCards() {
+        return remainingNewCards > 0;
+    }
+
+    public boolean allowsReviews() {
+        return remainingReviews > 0;
+    }
+
+    public boolean isExhausted() {
+        return !allowsNewCards() && !allowsReviews();
+    }
+}
@@ -0,0 +1,77 @@
+package hu.traileddevice.flashcard.cache;
+
+/**
+ * New cards and reviews learned in a deck on a day, against the limits of the deck. The counts include reviews not
+ * committed yet, while only the committed ones are waiting to be written to the database. New cards handed out to
+ * study sessions but not reviewed yet are reserved, so they are not handed out twice.
+ */
+public class DailyCounter {
+
+    private int newCardsPerDay;
+    private int reviewsPerDay;
+
+    private int newCards;
+    private int reviews;
+
+    private int reservedNewCards;
+
+    private int unflushedNewCards;
+    private int unflushedReviews;
+
+    // the counts of a day without reviews are null, as they are read with an outer join
+    public DailyCounter(int newCardsPerDay, int reviewsPerDay, Integer newCards, Integer reviews) {
+        this.newCardsPerDay = newCardsPerDay;
+        this.reviewsPerDay = reviewsPerDay;
+        this.newCards = newCards != null ? newCards : 0;
+        this.reviews = reviews != null ? reviews : 0;
+    }
+
+    synchronized DailyAllowance getAllowance() {
+        return new DailyAllowance(Math.max(0, newCardsPerDay - newCards - reservedNewCards),
+                Math.max(0, reviewsPerDay - reviews));
+    }
+
+    // reserves as many of the new cards as the limit still allows, and returns their number
+    synchronized int reserveNewCards(int cards) {
+        int reserved = Math.min(cards, Math.max(0, newCardsPerDay - newCards - reservedNewCards));
+        reservedNewCards += reserved;
+        return reserved;
+    }
+
+    synchronized void releaseNewCards(int cards) {
+        reservedNewCards = Math.max(0, reservedNewCards - cards);
+    }
+
+    synchronized void setLimits(int newCardsPerDay, int reviewsPerDay) {
+        this.newCardsPerDay = newCardsPerDay;
+        this.reviewsPerDay = reviewsPerDay;
+    }
+
+    synchronized void count(int newCards, int reviews) {
+        this.newCards += newCards;
+        this.reviews += reviews;
+    }
+
+    synchronized void committed(int newCards, int reviews) {
+        unflushedNewCards += newCards;
+        unflushedReviews += reviews;
+    }
+
+    // returns the new cards and reviews to be written, and forgets them
+    synchronized int[] takeUnflushed() {
+        int[] unflushed = {unflushedNewCards, unflushedReviews};
+        unflushedNewCards = 0;
+        unflushedReviews = 0;
+        return unflushed;
+    }
+
+    // puts back what failed to be written
+    synchronized void restoreUnflushed(int[] unflushed) {
+        unflushedNewCards += unflushed[0];
+        unflushedReviews += unflushed[1];
+    }
+
+    synchronized boolean hasUnflushed() {
+        return unflushedNewCards > 0 || unflushedReviews > 0;
+    }
+}
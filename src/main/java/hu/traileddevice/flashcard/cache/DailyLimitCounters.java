@@ -0,0 +1,193 @@
+package hu.traileddevice.flashcard.cache;
+
+import hu.traileddevice.flashcard.repository.DeckDailyCountRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Enforces the daily new card and review limits of decks without counting reviews in the database. The counters of a
+ * deck are read once a day on first use, incremented in memory with each review, and the increments are added to the
+ * stored counters every {@code flushInterval} milliseconds and on shutdown. Instances sharing a database see each
+ * other's reviews when they read the counters of a deck, so the limits are approximate across instances. Decks found
+ * missing are remembered for the day as well, so requests for them do not query the database each time.
+ */
+@Component
+public class DailyLimitCounters {
+
+    private static final Logger log = LoggerFactory.getLogger(DailyLimitCounters.class);
+
+    private final DeckDailyCountRepository deckDailyCountRepository;
+    private final TransactionTemplate flushTransaction;
+
+    private final Map<DeckDay, DailyCounter> counters = new ConcurrentHashMap<>();
+    private final Set<DeckDay> missingDecks = ConcurrentHashMap.newKeySet();
+
+    public DailyLimitCounters(DeckDailyCountRepository deckDailyCountRepository,
+                              PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.deckDailyCountRepository = deckDailyCountRepository;
+        this.flushTransaction = new TransactionTemplate(transactionManager);
+        this.flushTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        Gauge.builder("flashcard.daily-limits.counters", counters, Map::size).register(meterRegistry);
+        Gauge.builder("flashcard.daily-limits.missing-decks", missingDecks, Set::size).register(meterRegistry);
+    }
+
+    /**
+     * New cards and reviews the deck still allows today, unlimited if the deck does not exist.
+     */
+    public DailyAllowance getAllowance(Long deckId) {
+        return findCounter(deckId, LocalDate.now()).map(DailyCounter::getAllowance).orElse(DailyAllowance.UNLIMITED);
+    }
+
+    /**
+     * Holds back new cards of the deck on the day for a study session until they are reviewed, so the allowance of
+     * the deck does not hand them out again in the meantime.
+     *
+     * @return the number of new cards reserved, fewer than asked for when the limit does not allow all of them
+     */
+    public int reserveNewCards(Long deckId, LocalDate day, int newCards) {
+        return findCounter(deckId, day).map(counter -> counter.reserveNewCards(newCards)).orElse(newCards);
+    }
+
+    /**
+     * Gives back new cards reserved by {@link #reserveNewCards(Long, LocalDate, int)}, once they have been counted as
+     * reviews or are not going to be reviewed.
+     */
+    public void releaseNewCards(Long deckId, LocalDate day, int newCards) {
+        DailyCounter counter = counters.get(new DeckDay(deckId, day));
+        if (counter != null) counter.releaseNewCards(newCards);
+    }
+
+    /**
+     * Counts a review towards today's limits of its deck right away, and uncounts it if the current transaction is
+     * rolled back.
+     *
+     * @param isNew whether the reviewed card was a new card
+     */
+    public void reviewed(Long deckId, boolean isNew) {
+        reviewed(deckId, isNew ? 1 : 0, isNew ? 0 : 1);
+    }
+
+    /**
+     * Same as {@link #reviewed(Long, boolean)}, for several reviews of a deck at once.
+     */
+    public void reviewed(Long deckId, int newCards, int reviews) {
+        Optional<DailyCounter> optionalCounter = findCounter(deckId, LocalDate.now());
+        if (optionalCounter.isEmpty()) return;
+
+        DailyCounter counter = optionalCounter.get();
+        counter.count(newCards, reviews);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            counter.committed(newCards, reviews);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) counter.committed(newCards, reviews);
+                else counter.count(-newCards, -reviews);
+            }
+        });
+    }
+
+    /**
+     * Forgets that the deck was missing, once the current transaction creating it commits.
+     */
+    public void deckCreated(Long deckId) {
+        Runnable update = () -> missingDecks.removeIf(deckDay -> deckDay.deckId.equals(deckId));
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            update.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                update.run();
+            }
+        });
+    }
+
+    /**
+     * Applies the new limits of a deck to its counters, once the current transaction commits.
+     */
+    public void limitsChanged(Long deckId, int newCardsPerDay, int reviewsPerDay) {
+        Runnable update = () -> counters.forEach((deckDay, counter) -> {
+            if (deckDay.deckId.equals(deckId)) counter.setLimits(newCardsPerDay, reviewsPerDay);
+        });
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            update.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                update.run();
+            }
+        });
+    }
+
+    /**
+     * Adds the committed reviews counted since the last flush to the stored counters in a separate transaction, and
+     * forgets the counters and missing decks of past days.
+     */
+    @Scheduled(fixedDelayString = "${flashcard.daily-limits.flush-interval:10000}")
+    @PreDestroy
+    public synchronized void flush() {
+        Map<DeckDay, int[]> batch = new HashMap<>();
+        counters.forEach((deckDay, counter) -> {
+            if (counter.hasUnflushed()) batch.put(deckDay, counter.takeUnflushed());
+        });
+
+        if (!batch.isEmpty()) {
+            try {
+                flushTransaction.executeWithoutResult(status -> batch.forEach((deckDay, unflushed) ->
+                        deckDailyCountRepository.addCounts(deckDay.deckId, deckDay.day, unflushed[0], unflushed[1])));
+            } catch (RuntimeException e) {
+                log.error("Failed to flush the daily counters of {} decks, retrying later: {}", batch.size(), e.getMessage());
+                batch.forEach((deckDay, unflushed) -> counters.get(deckDay).restoreUnflushed(unflushed));
+                return;
+            }
+        }
+
+        LocalDate today = LocalDate.now();
+        counters.entrySet().removeIf(entry -> entry.getKey().day.isBefore(today) && !entry.getValue().hasUnflushed());
+        missingDecks.removeIf(deckDay -> deckDay.day.isBefore(today));
+    }
+
+    private Optional<DailyCounter> findCounter(Long deckId, LocalDate day) {
+        DeckDay deckDay = new DeckDay(deckId, day);
+        DailyCounter counter = counters.get(deckDay);
+        if (counter != null) return Optional.of(counter);
+        if (missingDecks.contains(deckDay)) return Optional.empty();
+
+        Optional<DailyCounter> optionalCounter = deckDailyCountRepository.findCounterOfDeck(deckId, day);
+        if (optionalCounter.isEmpty()) {
+            missingDecks.add(deckDay);
+            return Optional.empty();
+        }
+        return Optional.of(counters.computeIfAbsent(deckDay, key -> optionalCounter.get()));
+    }
+
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static final class DeckDay {
+        private final Long deckId;
+        private final LocalDate day;
+    }
+}
@@ -0,0 +1,23 @@
+package hu.traileddevice.flashcard.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@AllArgsConstructor
+public class DueCard {
+
+    private final Long cardId;
+
+    private final String frontContent;
+
+    private final LocalDateTime dueDate;
+
+    private final boolean learned;
+
+    boolean isNew() {
+        return !learned;
+    }
+}
@@ -0,0 +1,215 @@
+package hu.traileddevice.flashcard.cache;
+
+import hu.traileddevice.flashcard.model.CardTiming;
+import hu.traileddevice.flashcard.repository.CardTimingRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the due order of the cards of recently learned decks in memory, so the next question of a deck can be served
+ * without querying the timings table. A deck is loaded on its first lookup, and kept up to date by the services that
+ * modify cards and timings. Once more than {@code maxCards} cards are cached, least recently used decks are evicted.
+ */
+@Component
+public class DueCardCache {
+
+    private static final Comparator<DueCard> DUE_ORDER =
+            Comparator.comparing(DueCard::getDueDate).thenComparing(DueCard::getCardId);
+
+    private final CardTimingRepository cardTimingRepository;
+    private final boolean enabled;
+    private final long maxCards;
+
+    private final Map<Long, DeckQueue> deckQueues = new ConcurrentHashMap<>();
+    private final AtomicLong cachedCards = new AtomicLong();
+    // decks being loaded, and whether they were modified meanwhile, in which case the loaded queue may be stale
+    private final Map<Long, Boolean> loadingDecks = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public DueCardCache(CardTimingRepository cardTimingRepository, MeterRegistry meterRegistry,
+                        @Value("${flashcard.due-card-cache.enabled:false}") boolean enabled,
+                        @Value("${flashcard.due-card-cache.max-cards:100000}") long maxCards) {
+        this.cardTimingRepository = cardTimingRepository;
+        this.enabled = enabled;
+        this.maxCards = maxCards;
+
+        this.hits = meterRegistry.counter("flashcard.due-card-cache.requests", "result", "hit");
+        this.misses = meterRegistry.counter("flashcard.due-card-cache.requests", "result", "miss");
+        this.evictions = meterRegistry.counter("flashcard.due-card-cache.evictions");
+        Gauge.builder("flashcard.due-card-cache.cards", cachedCards, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("flashcard.due-card-cache.decks", deckQueues, Map::size).register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Same criteria as {@link CardTimingRepository#findMostDueCardInDeck(Long)}: cards due until the end of the given
+     * day qualify, new and failed cards are due right away; the one with the earliest due date is returned.
+     */
+    public Optional<DueCard> findMostDueCard(Long deckId, LocalDate today) {
+        return findMostDueCard(deckId, today, true, true);
+    }
+
+    /**
+     * Same as {@link #findMostDueCard(Long, LocalDate)}, restricted to new cards or reviews, for decks that reached
+     * one of their daily limits.
+     */
+    public Optional<DueCard> findMostDueCard(Long deckId, LocalDate today, boolean includeNew, boolean includeReviews) {
+        DeckQueue deckQueue = deckQueues.get(deckId);
+        if (deckQueue != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            deckQueue = load(deckId);
+        }
+        return deckQueue.findMostDue(today.plusDays(1).atStartOfDay(), includeNew, includeReviews);
+    }
+
+    /**
+     * Inserts or replaces the card of the timing, if its deck is cached.
+     */
+    public void put(CardTiming cardTiming) {
+        if (!enabled) return;
+        DueCard dueCard = new DueCard(cardTiming.getId(), cardTiming.getCard().getFrontContent(),
+                cardTiming.calculateDueDate(), cardTiming.isLearned());
+        Long deckId = cardTiming.getDeckId();
+        afterCommit(() -> {
+            loadingDecks.replace(deckId, Boolean.TRUE);
+            deckQueues.computeIfPresent(deckId, (id, deckQueue) -> {
+                cachedCards.addAndGet(deckQueue.put(dueCard));
+                return deckQueue;
+            });
+            evictIfFull(deckId);
+        });
+    }
+
+    public void remove(Long deckId, Long cardId) {
+        if (!enabled) return;
+        afterCommit(() -> {
+            loadingDecks.replace(deckId, Boolean.TRUE);
+            deckQueues.computeIfPresent(deckId, (id, deckQueue) -> {
+                cachedCards.addAndGet(deckQueue.remove(cardId));
+                return deckQueue;
+            });
+        });
+    }
+
+    public void evictDeck(Long deckId) {
+        if (!enabled) return;
+        afterCommit(() -> {
+            loadingDecks.replace(deckId, Boolean.TRUE);
+            DeckQueue deckQueue = deckQueues.remove(deckId);
+            if (deckQueue != null) cachedCards.addAndGet(-deckQueue.size());
+        });
+    }
+
+    // changes made inside a transaction must not be visible in the cache if it is rolled back
+    private void afterCommit(Runnable cacheUpdate) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cacheUpdate.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cacheUpdate.run();
+            }
+        });
+    }
+
+    /**
+     * Reads the deck outside the map, so other decks are not blocked meanwhile. The loaded queue is only cached if the
+     * deck was not modified while it was read, and if no other thread has cached it first; it still answers the
+     * lookup that loaded it either way, like a query of the timings table would.
+     */
+    private DeckQueue load(Long deckId) {
+        loadingDecks.putIfAbsent(deckId, Boolean.FALSE);
+        DeckQueue deckQueue = new DeckQueue();
+        cardTimingRepository.findDueCardQueueOfDeck(deckId).forEach(deckQueue::put);
+        if (!Boolean.FALSE.equals(loadingDecks.remove(deckId))) return deckQueue; // modified, or another load's
+
+        DeckQueue cached = deckQueues.putIfAbsent(deckId, deckQueue);
+        if (cached != null) return cached;
+        cachedCards.addAndGet(deckQueue.size());
+        evictIfFull(deckId);
+        return deckQueue;
+    }
+
+    private void evictIfFull(Long usedDeckId) {
+        while (cachedCards.get() > maxCards) {
+            Optional<Long> leastRecentlyUsed = deckQueues.entrySet().stream()
+                    .filter(entry -> !entry.getKey().equals(usedDeckId))
+                    .min(Comparator.comparingLong(entry -> entry.getValue().lastAccess))
+                    .map(Map.Entry::getKey);
+            if (leastRecentlyUsed.isEmpty()) return; // the single used deck is allowed to exceed the limit
+            DeckQueue evicted = deckQueues.remove(leastRecentlyUsed.get());
+            if (evicted != null) cachedCards.addAndGet(-evicted.size());
+            evictions.increment();
+        }
+    }
+
+    private static class DeckQueue {
+
+        private final NavigableSet<DueCard> byDueDate = new TreeSet<>(DUE_ORDER);
+        private final NavigableSet<DueCard> newByDueDate = new TreeSet<>(DUE_ORDER);
+        private final NavigableSet<DueCard> learnedByDueDate = new TreeSet<>(DUE_ORDER);
+        private final Map<Long, DueCard> byCardId = new HashMap<>();
+        private volatile long lastAccess = System.nanoTime();
+
+        synchronized Optional<DueCard> findMostDue(LocalDateTime dueBefore, boolean includeNew, boolean includeReviews) {
+            lastAccess = System.nanoTime();
+            if (!includeReviews)
+                return includeNew && !newByDueDate.isEmpty() ? Optional.of(newByDueDate.first()) : Optional.empty();
+            if (!includeNew) {
+                if (learnedByDueDate.isEmpty() || !learnedByDueDate.first().getDueDate().isBefore(dueBefore))
+                    return Optional.empty();
+                return Optional.of(learnedByDueDate.first());
+            }
+            if (byDueDate.isEmpty()) return Optional.empty();
+            DueCard first = byDueDate.first();
+            if (first.getDueDate().isBefore(dueBefore)) return Optional.of(first);
+            // nothing is due by date, but new and failed cards are always due
+            return newByDueDate.isEmpty() ? Optional.empty() : Optional.of(newByDueDate.first());
+        }
+
+        // returns the change in size
+        synchronized int put(DueCard dueCard) {
+            int removed = remove(dueCard.getCardId());
+            byCardId.put(dueCard.getCardId(), dueCard);
+            byDueDate.add(dueCard);
+            if (dueCard.isNew()) newByDueDate.add(dueCard);
+            else learnedByDueDate.add(dueCard);
+            return removed + 1;
+        }
+
+        // returns the change in size
+        synchronized int remove(Long cardId) {
+            DueCard removed = byCardId.remove(cardId);
+            if (removed == null) return 0;
+            byDueDate.remove(removed);
+            newByDueDate.remove(removed);
+            learnedByDueDate.remove(removed);
+            return -1;
+        }
+
+        synchronized int size() {
+            return byCardId.size();
+        }
+    }
+}
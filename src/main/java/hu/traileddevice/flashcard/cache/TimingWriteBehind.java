@@ -0,0 +1,375 @@
+package hu.traileddevice.flashcard.cache;
+
+import hu.traileddevice.flashcard.exception.TemporarilyUnavailableException;
+import hu.traileddevice.flashcard.model.Card;
+import hu.traileddevice.flashcard.model.CardTiming;
+import hu.traileddevice.flashcard.repository.CardRepository;
+import hu.traileddevice.flashcard.repository.DeckRepository;
+import hu.traileddevice.flashcard.repository.TimingArraysRepository;
+import hu.traileddevice.flashcard.scheduler.TimingArrays;
+import hu.traileddevice.flashcard.service.DeckStatsService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps reviewed timings in memory instead of updating them one by one, coalescing repeated reviews of the same card,
+ * and writes them back in JDBC batches every {@code flushInterval} milliseconds, once {@code maxDirty} timings are
+ * waiting, and on shutdown. The changes of the deck counters are summed up in memory as well, and written along with
+ * the timings. Off by default.
+ * <p>
+ * Flushes run on a thread of their own, never on the request threads. While the database cannot keep up, or is down,
+ * reviews of further cards are rejected as temporarily unavailable once twice {@code maxDirty} timings are waiting,
+ * which bounds the memory held.
+ * <p>
+ * A timing updated this way is detached from the persistence context, so JPA does not write it either. Lookups of
+ * due cards merge the unflushed state with the database, and other writers of timings take the unflushed state over.
+ */
+@Component
+public class TimingWriteBehind {
+
+    private static final Logger log = LoggerFactory.getLogger(TimingWriteBehind.class);
+
+    private final CardRepository cardRepository;
+    private final DeckRepository deckRepository;
+    private final TimingArraysRepository timingArraysRepository;
+    private final DeckStatsService deckStatsService;
+    private final EntityManager entityManager;
+    private final TransactionTemplate flushTransaction;
+    private final boolean enabled;
+    private final int maxDirty;
+
+    private final Map<Long, DirtyTiming> dirtyTimings = new ConcurrentHashMap<>();
+
+    private DeckStatsService.Deltas unflushedStatsDeltas; // of committed timings, guarded by dirtyTimings
+
+    private final ExecutorService flushExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "timing-write-behind-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private final Counter flushedTimings;
+    private final Timer flushTimer;
+
+    public TimingWriteBehind(CardRepository cardRepository, DeckRepository deckRepository,
+                             TimingArraysRepository timingArraysRepository, DeckStatsService deckStatsService,
+                             EntityManager entityManager, PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry,
+                             @Value("${flashcard.timing-write-behind.enabled:false}") boolean enabled,
+                             @Value("${flashcard.timing-write-behind.max-dirty:10000}") int maxDirty) {
+        this.cardRepository = cardRepository;
+        this.deckRepository = deckRepository;
+        this.timingArraysRepository = timingArraysRepository;
+        this.deckStatsService = deckStatsService;
+        this.entityManager = entityManager;
+        this.flushTransaction = new TransactionTemplate(transactionManager);
+        this.flushTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = enabled;
+        this.maxDirty = maxDirty;
+
+        this.flushedTimings = meterRegistry.counter("flashcard.timing-write-behind.flushed");
+        this.flushTimer = meterRegistry.timer("flashcard.timing-write-behind.flush");
+        Gauge.builder("flashcard.timing-write-behind.dirty", dirtyTimings, Map::size).register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Prepares a timing loaded from the database for an update through {@link #save(CardTiming)}: applies its
+     * unflushed state, and detaches it so the persistence context does not write it.
+     */
+    public void load(CardTiming cardTiming) {
+        if (!enabled) return;
+        entityManager.detach(cardTiming);
+        DirtyTiming dirtyTiming = dirtyTimings.get(cardTiming.getId());
+        if (dirtyTiming != null) dirtyTiming.applyTo(cardTiming);
+    }
+
+    /**
+     * Keeps the state of a timing to be written later, along with the changes of the deck counters. It is visible to
+     * lookups right away, and dropped again if the current transaction rolls back.
+     *
+     * @param previousState the state of the timing before the review, see {@link DeckStatsService#snapshot(CardTiming)}
+     * @throws TemporarilyUnavailableException if too many timings are waiting to be written
+     */
+    public void save(CardTiming cardTiming, DeckStatsService.CardState previousState) {
+        if (dirtyTimings.size() >= 2L * maxDirty && !dirtyTimings.containsKey(cardTiming.getId()))
+            throw new TemporarilyUnavailableException("Too many reviews are waiting to be saved, try again later");
+        DirtyTiming dirtyTiming = new DirtyTiming(cardTiming);
+        DeckStatsService.Deltas statsDeltas =
+                deckStatsService.deltasOf(Map.of(cardTiming.getId(), previousState), List.of(cardTiming));
+        DirtyTiming previousDirtyTiming = dirtyTimings.put(cardTiming.getId(), dirtyTiming);
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            committed(dirtyTiming, statsDeltas);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                committed(dirtyTiming, statsDeltas);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) return;
+                if (previousDirtyTiming == null) dirtyTimings.remove(dirtyTiming.cardId, dirtyTiming);
+                else dirtyTimings.replace(dirtyTiming.cardId, dirtyTiming, previousDirtyTiming);
+            }
+        });
+    }
+
+    /**
+     * For writers of timings that bypass the write-behind: applies the unflushed state to a managed timing, so it is
+     * written by the persistence context instead, and forgets the unflushed state once the transaction commits.
+     */
+    public void takeOver(CardTiming cardTiming) {
+        if (!enabled || cardTiming == null) return;
+        DirtyTiming dirtyTiming = dirtyTimings.get(cardTiming.getId());
+        if (dirtyTiming == null) return;
+
+        dirtyTiming.applyTo(cardTiming);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            dirtyTimings.remove(dirtyTiming.cardId, dirtyTiming);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                dirtyTimings.remove(dirtyTiming.cardId, dirtyTiming);
+            }
+        });
+    }
+
+    /**
+     * Same as {@link CardRepository#findDueCardsInDecks(Collection, Collection, LocalDateTime, LocalDateTime, Long,
+     * Pageable)}, with the unflushed state of timings taking precedence over the database.
+     */
+    public List<Card> findDueCardsInDecks(Set<Long> newCardDeckIds, Set<Long> reviewDeckIds, LocalDateTime dueBefore,
+                                          LocalDateTime afterDueDate, Long after, int limit) {
+        return findDueCards(dirtyTiming -> newCardDeckIds.contains(dirtyTiming.deckId)
+                        || reviewDeckIds.contains(dirtyTiming.deckId),
+                dirtyTiming -> (dirtyTiming.isNew() ? newCardDeckIds : reviewDeckIds).contains(dirtyTiming.deckId)
+                        && (after == null || dirtyTiming.isAfter(afterDueDate, after)),
+                dueBefore, limit, pageSize -> cardRepository.findDueCardsInDecks(newCardDeckIds, reviewDeckIds,
+                        dueBefore, afterDueDate, after, PageRequest.of(0, pageSize)));
+    }
+
+    // merges the due unflushed timings in scope with the due cards queried from the database, given the page size;
+    // every unflushed timing of the decks in scope replaces its database row, even if it does not match the query
+    private List<Card> findDueCards(Predicate<DirtyTiming> inScope, Predicate<DirtyTiming> matches,
+                                    LocalDateTime dueBefore, int limit, IntFunction<List<Card>> query) {
+        List<DirtyTiming> dirtyTimingsInScope = dirtyTimings.values().stream()
+                .filter(inScope)
+                .collect(Collectors.toList());
+        if (dirtyTimingsInScope.isEmpty()) return query.apply(limit);
+
+        Map<Long, LocalDateTime> dueDates = new HashMap<>();
+        dirtyTimingsInScope.stream()
+                .filter(dirtyTiming -> dirtyTiming.isDue(dueBefore))
+                .filter(matches)
+                .forEach(dirtyTiming -> dueDates.put(dirtyTiming.cardId, dirtyTiming.dueDate));
+        List<Card> dueCards = new ArrayList<>(cardRepository.findAllById(dueDates.keySet()));
+
+        // stale database rows of unflushed timings are skipped, so enough rows are read to fill the limit without them
+        Set<Long> dirtyCardIds = dirtyTimingsInScope.stream().map(dirtyTiming -> dirtyTiming.cardId).collect(Collectors.toSet());
+        query.apply(limit + dirtyTimingsInScope.size())
+                .stream()
+                .filter(card -> !dirtyCardIds.contains(card.getId()))
+                .forEach(card -> {
+                    dueDates.put(card.getId(), card.getCardTiming().getDueDate());
+                    dueCards.add(card);
+                });
+
+        return dueCards.stream()
+                .sorted(Comparator.comparing((Card card) -> dueDates.get(card.getId())).thenComparing(Card::getId))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Due date of the card, according to the unflushed state of its timing if there is one.
+     */
+    public LocalDateTime dueDateOf(Card card) {
+        DirtyTiming dirtyTiming = enabled ? dirtyTimings.get(card.getId()) : null;
+        if (dirtyTiming != null) return dirtyTiming.dueDate;
+        return card.getCardTiming().getDueDate();
+    }
+
+    /**
+     * Whether the card is a new card, according to the unflushed state of its timing if there is one.
+     */
+    public boolean isNew(Card card) {
+        DirtyTiming dirtyTiming = enabled ? dirtyTimings.get(card.getId()) : null;
+        if (dirtyTiming != null) return dirtyTiming.isNew();
+        return card.getCardTiming().isNew();
+    }
+
+    /**
+     * Writes all committed unflushed timings, and the changes of the deck counters, to the database in a separate
+     * transaction.
+     *
+     * @return false if the timings could not be written, and are kept to be retried later
+     */
+    @Scheduled(fixedDelayString = "${flashcard.timing-write-behind.flush-interval:1000}")
+    public synchronized boolean flush() {
+        if (!enabled) return true;
+        List<DirtyTiming> batch = dirtyTimings.values().stream()
+                .filter(DirtyTiming::isCommitted)
+                .collect(Collectors.toList());
+        DeckStatsService.Deltas statsDeltas = takeUnflushedStatsDeltas();
+        if (batch.isEmpty() && statsDeltas == null) return true;
+
+        TimingArrays timingArrays = new TimingArrays(batch.size());
+        batch.forEach(dirtyTiming -> dirtyTiming.addTo(timingArrays));
+        try {
+            flushTimer.record(() -> flushTransaction.executeWithoutResult(status -> {
+                timingArraysRepository.updateAll(timingArrays);
+                if (statsDeltas == null) return;
+                statsDeltas.retainDecks(deckRepository.findExistingIds(statsDeltas.deckIds()));
+                statsDeltas.apply();
+            }));
+        } catch (RuntimeException e) {
+            log.error("Failed to flush {} timings, retrying later: {}", batch.size(), e.getMessage());
+            if (statsDeltas != null) addUnflushedStatsDeltas(statsDeltas);
+            return false;
+        }
+
+        batch.forEach(dirtyTiming -> dirtyTimings.remove(dirtyTiming.cardId, dirtyTiming)); // unless updated since
+        flushedTimings.increment(batch.size());
+        return true;
+    }
+
+    @PreDestroy
+    public void close() {
+        flushExecutor.shutdown();
+        flush();
+    }
+
+    private void committed(DirtyTiming dirtyTiming, DeckStatsService.Deltas statsDeltas) {
+        addUnflushedStatsDeltas(statsDeltas);
+        dirtyTiming.committed = true;
+        if (dirtyTimings.size() >= maxDirty) requestFlush();
+    }
+
+    // at most one flush is waiting on the flush thread, and the request thread carries on without waiting for it
+    private void requestFlush() {
+        if (!flushRequested.compareAndSet(false, true)) return;
+        try {
+            flushExecutor.execute(() -> {
+                flushRequested.set(false);
+                flush();
+            });
+        } catch (RejectedExecutionException e) { // shutting down, flushed by close
+            flushRequested.set(false);
+        }
+    }
+
+    private void addUnflushedStatsDeltas(DeckStatsService.Deltas statsDeltas) {
+        synchronized (dirtyTimings) {
+            if (unflushedStatsDeltas == null) unflushedStatsDeltas = statsDeltas;
+            else unflushedStatsDeltas.addAll(statsDeltas);
+        }
+    }
+
+    private DeckStatsService.Deltas takeUnflushedStatsDeltas() {
+        synchronized (dirtyTimings) {
+            DeckStatsService.Deltas statsDeltas = unflushedStatsDeltas;
+            unflushedStatsDeltas = null;
+            return statsDeltas;
+        }
+    }
+
+    /**
+     * Snapshot of the scheduling state of a timing, not yet written to the database.
+     */
+    private static final class DirtyTiming {
+
+        private final Long cardId;
+        private final Long deckId;
+        private final int repetitionNumber;
+        private final double easinessFactor;
+        private final int repetitionInterval;
+        private final double stability;
+        private final double memoryDifficulty;
+        private final LocalDateTime lastReviewDate;
+        private final LocalDateTime dueDate;
+        private final boolean learned;
+
+        @Getter
+        private volatile boolean committed;
+
+        DirtyTiming(CardTiming cardTiming) {
+            this.cardId = cardTiming.getId();
+            this.deckId = cardTiming.getDeckId();
+            this.repetitionNumber = cardTiming.getRepetitionNumber();
+            this.easinessFactor = cardTiming.getEasinessFactor();
+            this.repetitionInterval = cardTiming.getRepetitionInterval();
+            this.stability = cardTiming.getStability();
+            this.memoryDifficulty = cardTiming.getMemoryDifficulty();
+            this.lastReviewDate = cardTiming.getLastReviewDate();
+            this.dueDate = cardTiming.calculateDueDate();
+            this.learned = cardTiming.isLearned();
+        }
+
+        boolean isNew() {
+            return !learned;
+        }
+
+        boolean isDue(LocalDateTime dueBefore) {
+            return isNew() || dueDate.isBefore(dueBefore);
+        }
+
+        // in the order of due cards, after the card with the given due date and id
+        boolean isAfter(LocalDateTime afterDueDate, long after) {
+            return dueDate.isAfter(afterDueDate) || (dueDate.isEqual(afterDueDate) && cardId > after);
+        }
+
+        void applyTo(CardTiming cardTiming) {
+            cardTiming.setRepetitionNumber(repetitionNumber);
+            cardTiming.setEasinessFactor(easinessFactor);
+            cardTiming.setRepetitionInterval(repetitionInterval);
+            cardTiming.setStability(stability);
+            cardTiming.setMemoryDifficulty(memoryDifficulty);
+            cardTiming.setLastReviewDate(lastReviewDate);
+            cardTiming.setDueDate(dueDate);
+            cardTiming.setLearned(learned);
+        }
+
+        void addTo(TimingArrays timingArrays) {
+            timingArrays.add(cardId, repetitionNumber, easinessFactor, repetitionInterval,
+                    stability, memoryDifficulty, lastReviewDate, learned);
+        }
+    }
+}
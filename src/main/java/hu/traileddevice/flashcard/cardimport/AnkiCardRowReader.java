@@ -0,0 +1,192 @@
+package hu.traileddevice.flashcard.cardimport;
+
+import hu.traileddevice.flashcard.dto.card.CardCreateInput;
+import hu.traileddevice.flashcard.model.CardTiming;
+import org.sqlite.SQLiteConfig;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Reads the notes of an Anki collection as cards, in the order of their ids: the first field of a note is the front
+ * content and the second one the back content, with the HTML formatting of Anki turned into plain text. The review
+ * state of the first card of the note (e.g. front to back, when Anki also has a reversed one) becomes the timing.
+ * <p>
+ * Only the review state of the cards is held in memory, the notes are read one at a time through the SQLite JDBC
+ * driver, from a read-only connection. Errors of SQLite are reported as {@link MalformedDatabaseException}, as the
+ * collection is an uploaded file.
+ */
+public class AnkiCardRowReader implements CardRowReader, Closeable {
+
+    private static final String SELECT_COLLECTION_CREATED = "SELECT crt FROM col";
+    private static final String SELECT_CARDS =
+            "SELECT nid, ord, type, due, ivl, factor, reps, lapses, odue, odid FROM cards";
+    private static final String SELECT_NOTES = "SELECT id, flds FROM notes ORDER BY id";
+
+    private static final int TYPE_REVIEW = 2;
+    private static final int TYPE_RELEARNING = 3;
+
+    private static final double MIN_EASINESS = 1.3; // same as the SM-2 scheduler
+
+    private static final String FIELD_SEPARATOR = "\u001f";
+    private static final Pattern LINE_BREAKS = Pattern.compile("(?i)<br\\s*/?>|</div>|</p>");
+    private static final Pattern TAGS = Pattern.compile("<[^>]*>");
+
+    private final Connection connection;
+    private final LocalDateTime collectionCreated; // due days of review cards count from here
+    private final Map<Long, AnkiCard> firstCardsOfNotes = new HashMap<>();
+    private final ResultSet notes;
+    private final long skippedRows;
+    private final LocalDateTime now = LocalDateTime.now();
+    private long row;
+
+    /**
+     * @param skippedRows number of notes handled by an earlier, interrupted import of the same collection
+     */
+    public AnkiCardRowReader(Path collection, long skippedRows) throws IOException {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setReadOnly(true);
+        try {
+            this.connection = DriverManager.getConnection("jdbc:sqlite:" + collection, config.toProperties());
+        } catch (SQLException e) {
+            throw new MalformedDatabaseException(e);
+        }
+        try {
+            try (Statement statement = connection.createStatement();
+                 ResultSet col = statement.executeQuery(SELECT_COLLECTION_CREATED)) {
+                if (!col.next()) throw new IOException("The collection has no creation time");
+                this.collectionCreated = LocalDateTime.ofInstant(
+                        Instant.ofEpochSecond(col.getLong(1)), ZoneId.systemDefault());
+            }
+
+            readFirstCardsOfNotes();
+            this.notes = connection.createStatement().executeQuery(SELECT_NOTES); // closed with the connection
+        } catch (SQLException e) {
+            closeConnection();
+            throw new MalformedDatabaseException(e);
+        } catch (IOException | RuntimeException e) {
+            closeConnection();
+            throw e;
+        }
+        this.skippedRows = skippedRows;
+    }
+
+    @Override
+    public CardImportRow next() throws IOException {
+        long noteId;
+        String noteFields;
+        try {
+            do {
+                if (!notes.next()) return null;
+                row++;
+            } while (row <= skippedRows);
+            noteId = notes.getLong(1);
+            noteFields = notes.getString(2);
+        } catch (SQLException e) {
+            throw new MalformedDatabaseException(e);
+        }
+
+        if (noteFields == null) return CardImportRow.failed(row, "The note has no fields");
+        String[] fields = noteFields.split(FIELD_SEPARATOR, -1);
+        if (fields.length < 2) return CardImportRow.failed(row, "The note has a single field");
+
+        CardCreateInput card = new CardCreateInput(toPlainText(fields[0]), toPlainText(fields[1]));
+        AnkiCard ankiCard = firstCardsOfNotes.get(noteId);
+        return CardImportRow.of(row, card, ankiCard == null ? null : ankiCard.toCardTiming(collectionCreated, now));
+    }
+
+    @Override
+    public long skippedRows() {
+        return Math.min(row, skippedRows);
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeConnection();
+    }
+
+    // closing the connection closes its statements and result sets as well
+    private void closeConnection() throws IOException {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            throw new IOException(e);
+        }
+    }
+
+    static String toPlainText(String html) {
+        String text = TAGS.matcher(LINE_BREAKS.matcher(html).replaceAll("\n")).replaceAll("");
+        return text.replace("&nbsp;", " ")
+                .replace("&lt;", "<")
+                .replace("&gt;", ">")
+                .replace("&quot;", "\"")
+                .replace("&#39;", "'")
+                .replace("&amp;", "&")
+                .strip();
+    }
+
+    private void readFirstCardsOfNotes() throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet cards = statement.executeQuery(SELECT_CARDS)) {
+            while (cards.next()) {
+                AnkiCard ankiCard = new AnkiCard(cards);
+                firstCardsOfNotes.merge(cards.getLong(1), ankiCard,
+                        (first, other) -> other.ordinal < first.ordinal ? other : first);
+            }
+        }
+    }
+
+    /**
+     * The review state of a card of Anki.
+     */
+    private static final class AnkiCard {
+
+        private final int ordinal;
+        private final int type;
+        private final long dueDay;
+        private final int interval;
+        private final int factor; // easiness factor in permille
+        private final int repetitions;
+        private final int lapses;
+
+        // columns of SELECT_CARDS, null ones read as 0
+        AnkiCard(ResultSet card) throws SQLException {
+            this.ordinal = card.getInt(2);
+            this.type = card.getInt(3);
+            // a card moved to a filtered deck keeps its own due day aside
+            this.dueDay = card.getLong(10) != 0 ? card.getLong(9) : card.getLong(4);
+            this.interval = card.getInt(5);
+            this.factor = card.getInt(6);
+            this.repetitions = card.getInt(7);
+            this.lapses = card.getInt(8);
+        }
+
+        // null for cards not learned yet, which become new cards
+        CardTiming toCardTiming(LocalDateTime collectionCreated, LocalDateTime now) {
+            if (type != TYPE_REVIEW && type != TYPE_RELEARNING) return null;
+
+            CardTiming cardTiming = new CardTiming(null, now);
+            cardTiming.setLearned(true);
+            if (factor > 0) cardTiming.setEasinessFactor(Math.max(MIN_EASINESS, factor / 1000.0));
+            if (type == TYPE_RELEARNING) return cardTiming; // learned again from the start, keeping its easiness
+
+            int repetitionInterval = Math.max(1, interval);
+            cardTiming.setRepetitionInterval(repetitionInterval);
+            cardTiming.setRepetitionNumber(Math.max(1, repetitions - lapses));
+            cardTiming.setLastReviewDate(collectionCreated.plusDays(dueDay - repetitionInterval));
+            return cardTiming;
+        }
+    }
+}
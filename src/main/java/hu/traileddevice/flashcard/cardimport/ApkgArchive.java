@@ -0,0 +1,111 @@
+package hu.traileddevice.flashcard.cardimport;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Takes the SQLite collection out of an Anki package (.apkg), a zip archive of the collection and the media files.
+ * The archive is read as a stream, and the collection is copied to a temporary file, as SQLite needs random access.
+ * The copy stops at a maximum size, as a small archive can inflate to any size.
+ */
+public final class ApkgArchive {
+
+    // written by Anki 2.1 when exporting with "Support older Anki versions", preferred over the legacy one
+    private static final String COLLECTION = "collection.anki21";
+    private static final String LEGACY_COLLECTION = "collection.anki2";
+    // zstd compressed collection of recent Anki versions, next to a legacy collection with a single placeholder note
+    private static final String COMPRESSED_COLLECTION = "collection.anki21b";
+
+    private ApkgArchive() {
+    }
+
+    /**
+     * Copies the collection of the archive to a temporary file, which the caller has to delete.
+     *
+     * @param maxCollectionSize number of bytes the collection may take up once decompressed
+     * @throws IOException if the upload is not an Anki package with a readable collection
+     */
+    public static ExtractedCollection extractCollection(InputStream upload, long maxCollectionSize)
+            throws IOException {
+        ExtractedCollection collection = null;
+        boolean compressedCollection = false;
+
+        ZipInputStream zipInputStream = new ZipInputStream(upload);
+        try {
+            ZipEntry entry;
+            while ((entry = zipInputStream.getNextEntry()) != null) {
+                String name = entry.getName();
+                if (name.equals(COMPRESSED_COLLECTION)) compressedCollection = true;
+                if (name.equals(COLLECTION) || (name.equals(LEGACY_COLLECTION) && collection == null)) {
+                    if (collection != null) Files.delete(collection.getPath());
+                    collection = copy(zipInputStream, name.equals(LEGACY_COLLECTION), maxCollectionSize);
+                }
+            }
+        } catch (IOException e) {
+            if (collection != null) Files.delete(collection.getPath());
+            throw e;
+        }
+
+        if (collection == null) throw new IOException("The upload is not an Anki package");
+        if (collection.isLegacy() && compressedCollection) {
+            Files.delete(collection.getPath());
+            throw new IOException("Collections of this Anki version are not supported, " +
+                    "please export the deck with \"Support older Anki versions\" checked");
+        }
+        return collection;
+    }
+
+    private static ExtractedCollection copy(InputStream entry, boolean legacy, long maxSize) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // every Java platform has SHA-256
+        }
+
+        Path path = Files.createTempFile("apkg-", ".anki2");
+        try (OutputStream outputStream = new DigestOutputStream(Files.newOutputStream(path), digest)) {
+            byte[] buffer = new byte[8192];
+            long size = 0;
+            int read;
+            while ((read = entry.read(buffer)) >= 0) {
+                size += read;
+                if (size > maxSize)
+                    throw new IOException("The collection of the Anki package is larger than " + maxSize + " bytes");
+                outputStream.write(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            Files.delete(path);
+            throw e;
+        }
+
+        StringBuilder checksum = new StringBuilder();
+        for (byte b : digest.digest()) checksum.append(String.format("%02x", b));
+        return new ExtractedCollection(path, checksum.toString(), legacy);
+    }
+
+    /**
+     * The collection copied to a temporary file, with the SHA-256 checksum of its content.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static final class ExtractedCollection {
+
+        private final Path path;
+
+        private final String checksum;
+
+        private final boolean legacy;
+    }
+}
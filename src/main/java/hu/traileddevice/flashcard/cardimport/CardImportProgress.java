@@ -0,0 +1,18 @@
+package hu.traileddevice.flashcard.cardimport;
+
+/**
+ * Keeps track of how far an import got, so it can be resumed after an interruption.
+ */
+@FunctionalInterface
+public interface CardImportProgress {
+
+    CardImportProgress NONE = (rowsRead, savedCards) -> {};
+
+    /**
+     * Called in the transaction of each saved chunk, so the progress is committed along with the cards.
+     *
+     * @param rowsRead   the number of rows read so far, all of them either saved or reported as failed
+     * @param savedCards the number of cards saved in the chunk
+     */
+    void chunkSaved(long rowsRead, int savedCards);
+}
@@ -0,0 +1,47 @@
+package hu.traileddevice.flashcard.cardimport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hu.traileddevice.flashcard.dto.card.CardImportErrorOutput;
+import hu.traileddevice.flashcard.dto.card.CardImportOutput;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Writes the report of an import as newline delimited JSON while the import runs: one
+ * {@link CardImportErrorOutput} line for each failed row, and a {@link CardImportOutput} line at the end.
+ */
+public class CardImportReport {
+
+    private static final byte NEWLINE = '\n';
+
+    private final OutputStream outputStream;
+    private final ObjectMapper objectMapper;
+
+    public CardImportReport(OutputStream outputStream, ObjectMapper objectMapper) {
+        this.outputStream = outputStream;
+        this.objectMapper = objectMapper;
+    }
+
+    public void rowFailed(long row, List<String> errors) throws IOException {
+        writeLine(new CardImportErrorOutput(row, errors));
+    }
+
+    public void finished(CardImportOutput cardImportOutput) throws IOException {
+        writeLine(cardImportOutput);
+        flush();
+    }
+
+    /**
+     * Sends the lines written so far to the client.
+     */
+    public void flush() throws IOException {
+        outputStream.flush();
+    }
+
+    private void writeLine(Object line) throws IOException {
+        outputStream.write(objectMapper.writeValueAsBytes(line));
+        outputStream.write(NEWLINE);
+    }
+}
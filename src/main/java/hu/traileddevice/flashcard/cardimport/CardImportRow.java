@@ -0,0 +1,40 @@
+package hu.traileddevice.flashcard.cardimport;
+
+import hu.traileddevice.flashcard.dto.card.CardCreateInput;
+import hu.traileddevice.flashcard.model.CardTiming;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A row of an import: either the card it describes, or the reason it could not be parsed.
+ */
+@Getter
+@AllArgsConstructor
+public class CardImportRow {
+
+    // number of the row among the data rows of the upload, starting from 1
+    private final long row;
+
+    private final CardCreateInput card;
+
+    // review state brought along from elsewhere, without card and id, or null for a new card
+    private final CardTiming cardTiming;
+
+    private final String parseError;
+
+    public static CardImportRow of(long row, CardCreateInput card) {
+        return new CardImportRow(row, card, null, null);
+    }
+
+    public static CardImportRow of(long row, CardCreateInput card, CardTiming cardTiming) {
+        return new CardImportRow(row, card, cardTiming, null);
+    }
+
+    public static CardImportRow failed(long row, String parseError) {
+        return new CardImportRow(row, null, null, parseError);
+    }
+
+    public boolean isParsed() {
+        return parseError == null;
+    }
+}
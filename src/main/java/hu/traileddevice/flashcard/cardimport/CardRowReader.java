@@ -0,0 +1,21 @@
+package hu.traileddevice.flashcard.cardimport;
+
+import java.io.IOException;
+
+/**
+ * Reads the rows of an upload one at a time, so the upload is never held in memory as a whole.
+ */
+public interface CardRowReader {
+
+    /**
+     * @return the next row, or {@code null} at the end of the upload
+     */
+    CardImportRow next() throws IOException;
+
+    /**
+     * @return the number of rows passed over because an earlier, interrupted import of the same upload handled them
+     */
+    default long skippedRows() {
+        return 0;
+    }
+}
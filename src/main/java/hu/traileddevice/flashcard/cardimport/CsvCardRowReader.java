@@ -0,0 +1,106 @@
+package hu.traileddevice.flashcard.cardimport;
+
+import hu.traileddevice.flashcard.dto.card.CardCreateInput;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads RFC 4180 CSV records of two columns, the front and the back content of a card. Fields may be quoted, with
+ * {@code ""} standing for a quote and line breaks allowed inside the quotes. A first record of
+ * {@code frontContent,backContent} is taken as a header, and blank lines are skipped.
+ */
+public class CsvCardRowReader implements CardRowReader {
+
+    private static final String[] HEADER = {"frontContent", "backContent"};
+
+    // longer than any valid content, so an over-long field still fails the validation without being kept in whole
+    static final int MAX_FIELD_LENGTH = 3001;
+
+    private final BufferedReader reader;
+    private long row;
+    private boolean firstRecord = true;
+    private boolean unterminatedQuote;
+
+    public CsvCardRowReader(Reader reader) {
+        this.reader = new BufferedReader(reader);
+    }
+
+    @Override
+    public CardImportRow next() throws IOException {
+        List<String> fields;
+        do {
+            fields = readRecord();
+            if (fields == null) return null;
+        } while (fields.size() == 1 && fields.get(0).isEmpty() && !unterminatedQuote);
+
+        if (firstRecord) {
+            firstRecord = false;
+            if (isHeader(fields)) return next();
+        }
+
+        row++;
+        if (unterminatedQuote) return CardImportRow.failed(row, "Quoted field is not terminated");
+        if (fields.size() != HEADER.length)
+            return CardImportRow.failed(row, "Expected " + HEADER.length + " columns, found " + fields.size());
+        return CardImportRow.of(row, new CardCreateInput(fields.get(0), fields.get(1)));
+    }
+
+    // the fields of the next record, or null at the end of the input
+    private List<String> readRecord() throws IOException {
+        int c = reader.read();
+        if (c == -1) return null;
+
+        List<String> fields = new ArrayList<>(HEADER.length);
+        StringBuilder field = new StringBuilder();
+        boolean inQuotes = false;
+        boolean quoted = false;
+        unterminatedQuote = false;
+
+        while (true) {
+            if (inQuotes) {
+                if (c == -1) {
+                    unterminatedQuote = true;
+                    fields.add(field.toString());
+                    return fields;
+                }
+                if (c == '"') {
+                    c = reader.read();
+                    if (c != '"') {
+                        inQuotes = false;
+                        continue;
+                    }
+                }
+                append(field, c);
+            } else if (c == -1 || c == '\n') {
+                fields.add(field.toString());
+                return fields;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+                quoted = false;
+            } else if (c == '"' && field.length() == 0 && !quoted) {
+                inQuotes = true;
+                quoted = true;
+            } else if (c != '\r') {
+                append(field, c);
+            }
+            c = reader.read();
+        }
+    }
+
+    private static void append(StringBuilder field, int c) {
+        if (field.length() < MAX_FIELD_LENGTH) field.append((char) c);
+    }
+
+    private static boolean isHeader(List<String> fields) {
+        if (fields.size() != HEADER.length) return false;
+        for (int i = 0; i < HEADER.length; i++) {
+            if (!HEADER[i].equalsIgnoreCase(fields.get(i).trim())) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,14 @@
+package hu.traileddevice.flashcard.cardimport;
+
+import java.io.IOException;
+import java.sql.SQLException;
+
+/**
+ * Thrown when SQLite fails to read a database file, e.g. an uploaded file that is damaged, crafted or not a database at
+ * all, as opposed to a failure of copying the file itself.
+ */
+public class MalformedDatabaseException extends IOException {
+    public MalformedDatabaseException(SQLException cause) {
+        super(cause.getMessage(), cause);
+    }
+}
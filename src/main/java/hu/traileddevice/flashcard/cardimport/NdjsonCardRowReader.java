@@ -0,0 +1,44 @@
+package hu.traileddevice.flashcard.cardimport;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import hu.traileddevice.flashcard.dto.card.CardCreateInput;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads one {@link CardCreateInput} JSON object per line. Blank lines are skipped, and a line that is not valid JSON
+ * fails on its own without stopping the import.
+ */
+public class NdjsonCardRowReader implements CardRowReader {
+
+    private final BufferedReader reader;
+    private final ObjectReader objectReader;
+    private long row;
+
+    public NdjsonCardRowReader(Reader reader, ObjectMapper objectMapper) {
+        this.reader = new BufferedReader(reader);
+        this.objectReader = objectMapper.readerFor(CardCreateInput.class);
+    }
+
+    @Override
+    public CardImportRow next() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) return null;
+        } while (line.isBlank());
+
+        row++;
+        try {
+            CardCreateInput card = objectReader.readValue(line);
+            if (card == null) return CardImportRow.failed(row, "Invalid JSON: expected an object");
+            return CardImportRow.of(row, card);
+        } catch (JsonProcessingException e) {
+            return CardImportRow.failed(row, "Invalid JSON: " + e.getOriginalMessage());
+        }
+    }
+}
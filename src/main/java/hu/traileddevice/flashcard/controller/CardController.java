@@ -1,11 +1,21 @@
 package hu.traileddevice.flashcard.controller;
 
+import hu.traileddevice.flashcard.dto.KeysetPage;
 import hu.traileddevice.flashcard.dto.card.CardCreateInput;
+import hu.traileddevice.flashcard.dto.card.CardExportOutput;
+import hu.traileddevice.flashcard.dto.card.CardImportErrorOutput;
+import hu.traileddevice.flashcard.dto.card.CardImportOutput;
 import hu.traileddevice.flashcard.dto.card.CardOfDeckOutputModel;
+import hu.traileddevice.flashcard.dto.card.CardOutput;
 import hu.traileddevice.flashcard.dto.card.CardOutputModel;
+import hu.traileddevice.flashcard.dto.card.CardSearchOutputModel;
 import hu.traileddevice.flashcard.dto.card.CardUpdateInput;
 import hu.traileddevice.flashcard.hateoas.card.CardOfDeckOutputModelAssembler;
 import hu.traileddevice.flashcard.hateoas.card.CardOutputModelAssembler;
+import hu.traileddevice.flashcard.hateoas.card.CardSearchOutputModelAssembler;
+import hu.traileddevice.flashcard.service.ApkgImportService;
+import hu.traileddevice.flashcard.service.CardExportService;
+import hu.traileddevice.flashcard.service.CardImportService;
 import hu.traileddevice.flashcard.service.CardService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -15,12 +25,19 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.Size;
+import java.io.IOException;
 
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
@@ -32,25 +49,83 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 public class CardController {
 
     private final CardService cardService;
+    private final CardImportService cardImportService;
+    private final CardExportService cardExportService;
+    private final ApkgImportService apkgImportService;
     private final CardOutputModelAssembler cardOutputModelAssembler;
     private final CardOfDeckOutputModelAssembler cardOfDeckOutputModelAssembler;
+    private final CardSearchOutputModelAssembler cardSearchOutputModelAssembler;
 
-    public CardController(CardService cardService, CardOutputModelAssembler cardOutputModelAssembler,
-                          CardOfDeckOutputModelAssembler cardOfDeckOutputModelAssembler) {
+    public CardController(CardService cardService, CardImportService cardImportService,
+                          CardExportService cardExportService, ApkgImportService apkgImportService,
+                          CardOutputModelAssembler cardOutputModelAssembler,
+                          CardOfDeckOutputModelAssembler cardOfDeckOutputModelAssembler,
+                          CardSearchOutputModelAssembler cardSearchOutputModelAssembler) {
         this.cardService = cardService;
+        this.cardImportService = cardImportService;
+        this.cardExportService = cardExportService;
+        this.apkgImportService = apkgImportService;
         this.cardOutputModelAssembler = cardOutputModelAssembler;
         this.cardOfDeckOutputModelAssembler = cardOfDeckOutputModelAssembler;
+        this.cardSearchOutputModelAssembler = cardSearchOutputModelAssembler;
     }
 
     @GetMapping
-    @Operation(summary = "Get all cards", description = "Retrieve all cards from the database",
+    @Operation(summary = "Get a page of cards",
+            description = "Retrieve cards from the database in the order of their ids, the next link leads to the "
+                    + "following page",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Cards retrieved",
                             content = @Content(mediaType = "application/hal+json",
-                                    schema = @Schema(implementation = CardOutputModel.class)))
+                                    schema = @Schema(implementation = CardOutputModel.class))),
+                    @ApiResponse(responseCode = "400", description = "Invalid input data",
+                            content = @Content(mediaType = "application/problem+json"))
             })
-    public CollectionModel<CardOutputModel> findAll() {
-        return cardOutputModelAssembler.toCollectionModel(cardService.findAll());
+    public CollectionModel<CardOutputModel> findAll(
+            @Parameter(description = "Id of the card after which the page starts, from the next link of the previous page")
+            @RequestParam(required = false) Long after,
+            @Parameter(description = "Maximum number of cards on the page", example = "100")
+            @Min(value = 1, message = "Limit must be positive")
+            @Max(value = 1000, message = "Limit must not be greater than 1000")
+            @RequestParam(defaultValue = "100") int limit
+    ) {
+        return cardOutputModelAssembler.toCollectionModel(cardService.findAll(after, limit), after, limit);
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "Search the cards of a user",
+            description = "Find the cards in the decks of a user whose front or back content matches a query of "
+                    + "words, \"quoted phrases\", OR and -excluded words, with the best matches first. The next "
+                    + "link leads to the following page",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Cards found",
+                            content = @Content(mediaType = "application/hal+json",
+                                    schema = @Schema(implementation = CardSearchOutputModel.class))),
+                    @ApiResponse(responseCode = "400", description = "Invalid input data",
+                            content = @Content(mediaType = "application/problem+json")),
+                    @ApiResponse(responseCode = "404", description = "User not found",
+                            content = @Content(mediaType = "application/problem+json"))
+            })
+    public CollectionModel<CardSearchOutputModel> search(
+            @Parameter(description = "Id of the user who owns the decks", example = "1")
+            @Min(value = 1, message = "User id must be positive")
+            @RequestParam Long userId,
+            @Parameter(description = "Words to search for", example = "spring bean")
+            @NotBlank(message = "Query must not be blank")
+            @Size(max = 200, message = "Query must not be longer than 200 characters")
+            @RequestParam String query,
+            @Parameter(description = "Rank of the card after which the page starts, from the next link of the "
+                    + "previous page")
+            @RequestParam(required = false) Float afterRank,
+            @Parameter(description = "Id of the card after which the page starts, from the next link of the previous page")
+            @RequestParam(required = false) Long after,
+            @Parameter(description = "Maximum number of cards on the page", example = "20")
+            @Min(value = 1, message = "Limit must be positive")
+            @Max(value = 100, message = "Limit must not be greater than 100")
+            @RequestParam(defaultValue = "20") int limit
+    ) {
+        return cardSearchOutputModelAssembler.toCollectionModel(
+                cardService.search(userId, query, afterRank, after, limit), userId, query, afterRank, after, limit);
     }
 
     @PostMapping
@@ -75,6 +150,62 @@ public class CardController {
                 .body(cardOutputModel);
     }
 
+    @PostMapping(value = "/import", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    @Operation(summary = "Import cards to a deck",
+            description = "Add the cards of a CSV upload (front and back content, optionally with a " +
+                    "frontContent,backContent header) or of a newline delimited JSON upload to a deck. The upload " +
+                    "is streamed and written in large batches. Rows that fail validation, repeat a front content " +
+                    "or match an existing card are skipped and reported one per line as they come, followed by " +
+                    "a summary line.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Cards imported, with the report of the rows",
+                            content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                                    schema = @Schema(oneOf = {CardImportErrorOutput.class, CardImportOutput.class}))),
+                    @ApiResponse(responseCode = "400", description = "Invalid deck id",
+                            content = @Content(mediaType = "application/problem+json")),
+                    @ApiResponse(responseCode = "404", description = "Deck not found",
+                            content = @Content(mediaType = "application/problem+json"))
+            })
+    public void importCards(
+            @Parameter(description = "Id of the deck where the cards belong", example = "1")
+            @Min(value = 1, message = "Deck id must be positive")
+            @RequestParam Long deckId,
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) throws IOException {
+        cardImportService.checkDeckExists(deckId); // while an error response can still be sent
+
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        cardImportService.importCards(deckId, MediaType.parseMediaType(request.getContentType()),
+                request.getInputStream(), response.getOutputStream());
+    }
+
+    @PostMapping(value = "/import/apkg", consumes = {MediaType.APPLICATION_OCTET_STREAM_VALUE, "application/zip"})
+    @Operation(summary = "Import an Anki package to a deck",
+            description = "Add the notes of an Anki package (.apkg) to a deck as cards, with the first field on the " +
+                    "front and the second one on the back, keeping the review state of the first card of each " +
+                    "note. Failed notes are reported one per line as they come, followed by a summary line. " +
+                    "Uploading the same package to the same deck again resumes an interrupted import.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Cards imported, with the report of the notes",
+                            content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                                    schema = @Schema(oneOf = {CardImportErrorOutput.class, CardImportOutput.class}))),
+                    @ApiResponse(responseCode = "400", description = "Invalid deck id or upload",
+                            content = @Content(mediaType = "application/problem+json")),
+                    @ApiResponse(responseCode = "404", description = "Deck not found",
+                            content = @Content(mediaType = "application/problem+json"))
+            })
+    public void importApkg(
+            @Parameter(description = "Id of the deck where the cards belong", example = "1")
+            @Min(value = 1, message = "Deck id must be positive")
+            @RequestParam Long deckId,
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        apkgImportService.importApkg(deckId, request.getInputStream(), response.getOutputStream());
+    }
+
     @PutMapping("/{id}")
     @Operation(summary = "Update card by id", description = "Update a card specified by its id in the database",
             responses = {
@@ -139,21 +270,59 @@ public class CardController {
     }
 
     @GetMapping(value = "/deck/{deckId}", produces = {"application/hal+json"})
-    @Operation(summary = "Get all cards of a deck",
-            description = "Retrieve all decks of a user specified by his id from the database",
+    @Operation(summary = "Get a page of cards of a deck",
+            description = "Retrieve cards of a deck specified by its id from the database in the order of their ids, "
+                    + "the next link leads to the following page",
             responses = {
-                    @ApiResponse(responseCode = "200", description = "Decks retrieved",
+                    @ApiResponse(responseCode = "200", description = "Cards retrieved",
                             content = @Content(mediaType = "application/hal+json",
-                                    schema = @Schema(implementation = CardOutputModel.class)))
+                                    schema = @Schema(implementation = CardOutputModel.class))),
+                    @ApiResponse(responseCode = "400", description = "Invalid input data",
+                            content = @Content(mediaType = "application/problem+json"))
             })
     public CollectionModel<CardOfDeckOutputModel> findAllOfDeck(
             @Parameter(description = "Id of the deck who owns the cards", example = "1")
             @Min(value = 1, message = "Deck id must be positive")
-            @PathVariable Long deckId
+            @PathVariable Long deckId,
+            @Parameter(description = "Id of the card after which the page starts, from the next link of the previous page")
+            @RequestParam(required = false) Long after,
+            @Parameter(description = "Maximum number of cards on the page", example = "100")
+            @Min(value = 1, message = "Limit must be positive")
+            @Max(value = 1000, message = "Limit must not be greater than 1000")
+            @RequestParam(defaultValue = "100") int limit
     ) {
+        KeysetPage<CardOutput> page = cardService.findAllOfDeck(deckId, after, limit);
         CollectionModel<CardOfDeckOutputModel> cardOfDeckOutputModels =
-                cardOfDeckOutputModelAssembler.toCollectionModel(cardService.findAllOfDeck(deckId));
-        cardOfDeckOutputModels.add(linkTo(methodOn(CardController.class).findAllOfDeck(deckId)).withSelfRel());
+                cardOfDeckOutputModelAssembler.toCollectionModel(page.getContent());
+        cardOfDeckOutputModels.add(
+                linkTo(methodOn(CardController.class).findAllOfDeck(deckId, after, limit)).withSelfRel().expand());
+        if (page.hasNext()) {
+            cardOfDeckOutputModels.add(linkTo(methodOn(CardController.class)
+                    .findAllOfDeck(deckId, page.getNextAfter(), limit)).withRel(IanaLinkRelations.NEXT));
+        }
         return cardOfDeckOutputModels;
     }
+
+    @GetMapping(value = "/deck/{deckId}/export")
+    @Operation(summary = "Export all cards of a deck",
+            description = "Stream all cards of a deck, along with their timings, as newline delimited JSON, " +
+                    "without loading the whole deck in memory",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Cards exported",
+                            content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                                    schema = @Schema(implementation = CardExportOutput.class))),
+                    @ApiResponse(responseCode = "400", description = "Invalid deck id",
+                            content = @Content(mediaType = "application/problem+json")),
+                    @ApiResponse(responseCode = "404", description = "Deck not found",
+                            content = @Content(mediaType = "application/problem+json"))
+            })
+    public void exportAllOfDeck(
+            @Parameter(description = "Id of the deck who owns the cards", example = "1")
+            @Min(value = 1, message = "Deck id must be positive")
+            @PathVariable Long deckId,
+            HttpServletResponse response
+    ) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        cardExportService.exportAllOfDeck(deckId, response.getOutputStream());
+    }
 }
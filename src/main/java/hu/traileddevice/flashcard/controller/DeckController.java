@@ -1,12 +1,17 @@
 package hu.traileddevice.flashcard.controller;
 
+import hu.traileddevice.flashcard.dto.KeysetPage;
 import hu.traileddevice.flashcard.dto.deck.DeckCreateInput;
 import hu.traileddevice.flashcard.dto.deck.DeckOfUserOutputModel;
+import hu.traileddevice.flashcard.dto.deck.DeckOutput;
 import hu.traileddevice.flashcard.dto.deck.DeckOutputModel;
+import hu.traileddevice.flashcard.dto.deck.DeckStatsOutputModel;
 import hu.traileddevice.flashcard.dto.deck.DeckUpdateInput;
 import hu.traileddevice.flashcard.hateoas.deck.DeckOfUserOutputModelAssembler;
 import hu.traileddevice.flashcard.hateoas.deck.DeckOutputModelAssembler;
+import hu.traileddevice.flashcard.hateoas.deck.DeckStatsOutputModelAssembler;
 import hu.traileddevice.flashcard.service.DeckService;
+import hu.traileddevice.flashcard.service.DeckStatsService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -20,6 +25,7 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
@@ -34,22 +40,38 @@ public class DeckController {
     private final DeckService deckService;
     private final DeckOutputModelAssembler deckOutputModelAssembler;
     private final DeckOfUserOutputModelAssembler deckOfUserOutputModelAssembler;
+    private final DeckStatsService deckStatsService;
+    private final DeckStatsOutputModelAssembler deckStatsOutputModelAssembler;
 
-    public DeckController(DeckService deckService, DeckOutputModelAssembler deckOutputModelAssembler, DeckOfUserOutputModelAssembler deckOfUserOutputModelAssembler) {
+    public DeckController(DeckService deckService, DeckOutputModelAssembler deckOutputModelAssembler, DeckOfUserOutputModelAssembler deckOfUserOutputModelAssembler,
+                          DeckStatsService deckStatsService, DeckStatsOutputModelAssembler deckStatsOutputModelAssembler) {
         this.deckService = deckService;
         this.deckOutputModelAssembler = deckOutputModelAssembler;
         this.deckOfUserOutputModelAssembler = deckOfUserOutputModelAssembler;
+        this.deckStatsService = deckStatsService;
+        this.deckStatsOutputModelAssembler = deckStatsOutputModelAssembler;
     }
 
     @GetMapping
-    @Operation(summary = "Get all decks", description = "Retrieve all decks from the database",
+    @Operation(summary = "Get a page of decks",
+            description = "Retrieve decks from the database in the order of their ids, the next link leads to the "
+                    + "following page",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Decks retrieved",
                             content = @Content(mediaType = "application/hal+json",
-                                    schema = @Schema(implementation = DeckOutputModel.class)))
+                                    schema = @Schema(implementation = DeckOutputModel.class))),
+                    @ApiResponse(responseCode = "400", description = "Invalid input data",
+                            content = @Content(mediaType = "application/problem+json"))
             })
-    public CollectionModel<DeckOutputModel> findAll() {
-        return deckOutputModelAssembler.toCollectionModel(deckService.findAll());
+    public CollectionModel<DeckOutputModel> findAll(
+            @Parameter(description = "Id of the deck after which the page starts, from the next link of the previous page")
+            @RequestParam(required = false) Long after,
+            @Parameter(description = "Maximum number of decks on the page", example = "20")
+            @Min(value = 1, message = "Limit must be positive")
+            @Max(value = 100, message = "Limit must not be greater than 100")
+            @RequestParam(defaultValue = "20") int limit
+    ) {
+        return deckOutputModelAssembler.toCollectionModel(deckService.findAll(after, limit), after, limit);
     }
 
     @PostMapping
@@ -138,23 +160,79 @@ public class DeckController {
     }
 
     @GetMapping(value = "/user/{userId}", produces = {"application/hal+json"})
-    @Operation(summary = "Get all decks of a user",
-            description = "Retrieve all decks of a user specified by his id from the database",
+    @Operation(summary = "Get a page of decks of a user",
+            description = "Retrieve decks of a user specified by his id from the database in the order of their ids, "
+                    + "the next link leads to the following page",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Decks retrieved",
                             content = @Content(mediaType = "application/hal+json",
                                     schema = @Schema(implementation = DeckOutputModel.class))),
+                    @ApiResponse(responseCode = "400", description = "Invalid input data",
+                            content = @Content(mediaType = "application/problem+json")),
                     @ApiResponse(responseCode = "404", description = "User or decks not found",
                             content = @Content(mediaType = "application/problem+json"))
             })
     public CollectionModel<DeckOfUserOutputModel> findAllOfUser(
             @Parameter(description = "Id of the user who owns the decks", example = "1")
             @Min(value = 1, message = "User id must be positive")
-            @PathVariable Long userId
+            @PathVariable Long userId,
+            @Parameter(description = "Id of the deck after which the page starts, from the next link of the previous page")
+            @RequestParam(required = false) Long after,
+            @Parameter(description = "Maximum number of decks on the page", example = "20")
+            @Min(value = 1, message = "Limit must be positive")
+            @Max(value = 100, message = "Limit must not be greater than 100")
+            @RequestParam(defaultValue = "20") int limit
     ) {
+        KeysetPage<DeckOutput> page = deckService.findAllOfUser(userId, after, limit);
         CollectionModel<DeckOfUserOutputModel> deckOfUserOutputModels =
-                deckOfUserOutputModelAssembler.toCollectionModel(deckService.findAllOfUser(userId));
-        deckOfUserOutputModels.add(linkTo(methodOn(DeckController.class).findAllOfUser(userId)).withSelfRel());
+                deckOfUserOutputModelAssembler.toCollectionModel(page.getContent());
+        deckOfUserOutputModels.add(
+                linkTo(methodOn(DeckController.class).findAllOfUser(userId, after, limit)).withSelfRel().expand());
+        if (page.hasNext()) {
+            deckOfUserOutputModels.add(linkTo(methodOn(DeckController.class)
+                    .findAllOfUser(userId, page.getNextAfter(), limit)).withRel(IanaLinkRelations.NEXT));
+        }
         return deckOfUserOutputModels;
     }
+
+    @GetMapping(value = "/{id}/stats", produces = {"application/hal+json"})
+    @Operation(summary = "Get card counters of a deck",
+            description = "Retrieve the number of total, new, and due cards of a deck specified by its id",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Counters retrieved",
+                            content = @Content(mediaType = "application/hal+json",
+                                    schema = @Schema(implementation = DeckStatsOutputModel.class))),
+                    @ApiResponse(responseCode = "400", description = "Invalid deck id",
+                            content = @Content(mediaType = "application/problem+json")),
+                    @ApiResponse(responseCode = "404", description = "Deck not found",
+                            content = @Content(mediaType = "application/problem+json"))
+            })
+    public DeckStatsOutputModel findStatsById(
+            @Parameter(description = "Id of the deck", example = "1")
+            @Min(value = 1, message = "Deck id must be positive")
+            @PathVariable Long id
+    ) {
+        return deckStatsOutputModelAssembler.toModel(deckStatsService.findByDeckId(id));
+    }
+
+    @GetMapping(value = "/user/{userId}/stats", produces = {"application/hal+json"})
+    @Operation(summary = "Get card counters of all decks of a user",
+            description = "Retrieve the number of total, new, and due cards of each deck of a user specified by his id",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Counters retrieved",
+                            content = @Content(mediaType = "application/hal+json",
+                                    schema = @Schema(implementation = DeckStatsOutputModel.class))),
+                    @ApiResponse(responseCode = "404", description = "User or decks not found",
+                            content = @Content(mediaType = "application/problem+json"))
+            })
+    public CollectionModel<DeckStatsOutputModel> findStatsOfUser(
+            @Parameter(description = "Id of the user who owns the decks", example = "1")
+            @Min(value = 1, message = "User id must be positive")
+            @PathVariable Long userId
+    ) {
+        CollectionModel<DeckStatsOutputModel> deckStatsOutputModels =
+                deckStatsOutputModelAssembler.toCollectionModel(deckStatsService.findAllOfUser(userId));
+        deckStatsOutputModels.add(linkTo(methodOn(DeckController.class).findStatsOfUser(userId)).withSelfRel());
+        return deckStatsOutputModels;
+    }
 }
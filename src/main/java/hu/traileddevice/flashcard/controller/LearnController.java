@@ -3,11 +3,19 @@ package hu.traileddevice.flashcard.controller;
 import hu.traileddevice.flashcard.dto.card.CardOutput;
 import hu.traileddevice.flashcard.dto.card.CardOutputModel;
 import hu.traileddevice.flashcard.dto.learn.AnswerOutputModel;
+import hu.traileddevice.flashcard.dto.learn.ForecastOutputModel;
+import hu.traileddevice.flashcard.dto.learn.NextCardOutput;
+import hu.traileddevice.flashcard.dto.learn.NextCardOutputModel;
 import hu.traileddevice.flashcard.dto.learn.QuestionOutputModel;
+import hu.traileddevice.flashcard.dto.learn.ReviewInput;
+import hu.traileddevice.flashcard.dto.learn.ReviewStepOutput;
+import hu.traileddevice.flashcard.dto.learn.ReviewStepOutputModel;
 import hu.traileddevice.flashcard.hateoas.card.CardOutputModelAssembler;
 import hu.traileddevice.flashcard.hateoas.learn.AnswerOutputModelAssembler;
+import hu.traileddevice.flashcard.hateoas.learn.ForecastOutputModelAssembler;
 import hu.traileddevice.flashcard.hateoas.learn.QuestionOutputModelAssembler;
 import hu.traileddevice.flashcard.model.Difficulty;
+import hu.traileddevice.flashcard.service.DeckStatsService;
 import hu.traileddevice.flashcard.service.LearnService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -15,13 +23,20 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.hateoas.Link;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import javax.validation.Valid;
+import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
@@ -36,14 +51,19 @@ public class LearnController {
     private final QuestionOutputModelAssembler questionOutputModelAssembler;
     private final AnswerOutputModelAssembler answerOutputModelAssembler;
     private final CardOutputModelAssembler cardOutputModelAssembler;
+    private final DeckStatsService deckStatsService;
+    private final ForecastOutputModelAssembler forecastOutputModelAssembler;
 
     public LearnController(LearnService learnService, QuestionOutputModelAssembler questionOutputModelAssembler,
                            AnswerOutputModelAssembler answerOutputModelAssembler,
-                           CardOutputModelAssembler cardOutputModelAssembler) {
+                           CardOutputModelAssembler cardOutputModelAssembler, DeckStatsService deckStatsService,
+                           ForecastOutputModelAssembler forecastOutputModelAssembler) {
         this.learnService = learnService;
         this.questionOutputModelAssembler = questionOutputModelAssembler;
         this.answerOutputModelAssembler = answerOutputModelAssembler;
         this.cardOutputModelAssembler = cardOutputModelAssembler;
+        this.deckStatsService = deckStatsService;
+        this.forecastOutputModelAssembler = forecastOutputModelAssembler;
     }
 
     @GetMapping(value = "/{deckId}")
@@ -71,6 +91,117 @@ public class LearnController {
         return questionOutputModel;
     }
 
+    @GetMapping(value = "/{deckId}/queue", produces = {"application/hal+json"})
+    @Operation(summary = "Find the next due cards in a deck",
+            description = "Retrieve the questions on the most due cards of a deck, in the order they should be learned",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Questions retrieved",
+                            content = @Content(mediaType = "application/hal+json",
+                                    schema = @Schema(implementation = QuestionOutputModel.class))),
+                    @ApiResponse(responseCode = "400", description = "Invalid input data",
+                            content = @Content(mediaType = "application/problem+json")),
+                    @ApiResponse(responseCode = "404", description = "There are no due cards in this deck",
+                            content = @Content(mediaType = "application/problem+json"))
+            })
+    public CollectionModel<QuestionOutputModel> getDueCardsFromDeck(
+            @Parameter(description = "Id of the deck", example = "1")
+            @Min(value = 1, message = "Deck id must be positive")
+            @PathVariable Long deckId,
+            @Parameter(description = "Maximum number of questions to retrieve", example = "20")
+            @Min(value = 1, message = "Limit must be positive")
+            @Max(value = 100, message = "Limit must not be greater than 100")
+            @RequestParam(defaultValue = "20") int limit
+    ) {
+        CollectionModel<QuestionOutputModel> questionOutputModels =
+                questionOutputModelAssembler.toCollectionModel(learnService.getDueCardsFromDeck(deckId, limit));
+        questionOutputModels.forEach(questionOutputModel -> questionOutputModel.add(
+                linkTo(methodOn(LearnController.class).getSolutionToQuestion(questionOutputModel.getId())).withRel("get-solution")
+        ));
+        questionOutputModels.add(linkTo(methodOn(LearnController.class).getDueCardsFromDeck(deckId, limit)).withSelfRel());
+        return questionOutputModels;
+    }
+
+    @GetMapping(value = "/user/{userId}", produces = {"application/hal+json"})
+    @Operation(summary = "Find the next due cards of a user",
+            description = "Retrieve the questions on the most due cards across all decks of a user",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Questions retrieved",
+                            content = @Content(mediaType = "application/hal+json",
+                                    schema = @Schema(implementation = QuestionOutputModel.class))),
+                    @ApiResponse(responseCode = "400", description = "Invalid input data",
+                            content = @Content(mediaType = "application/problem+json")),
+                    @ApiResponse(responseCode = "404", description = "There are no due cards in the decks of this user",
+                            content = @Content(mediaType = "application/problem+json"))
+            })
+    public CollectionModel<QuestionOutputModel> getDueCardsOfUser(
+            @Parameter(description = "Id of the user who owns the decks", example = "1")
+            @Min(value = 1, message = "User id must be positive")
+            @PathVariable Long userId,
+            @Parameter(description = "Maximum number of questions to retrieve", example = "20")
+            @Min(value = 1, message = "Limit must be positive")
+            @Max(value = 100, message = "Limit must not be greater than 100")
+            @RequestParam(defaultValue = "20") int limit,
+            @Parameter(description = "Alternate between decks instead of keeping the strict due order", example = "false")
+            @RequestParam(defaultValue = "false") boolean interleave
+    ) {
+        CollectionModel<QuestionOutputModel> questionOutputModels = questionOutputModelAssembler
+                .toCollectionModel(learnService.getDueCardsOfUser(userId, limit, interleave));
+        questionOutputModels.forEach(questionOutputModel -> questionOutputModel.add(
+                linkTo(methodOn(LearnController.class).getSolutionToQuestion(questionOutputModel.getId())).withRel("get-solution")
+        ));
+        questionOutputModels.add(
+                linkTo(methodOn(LearnController.class).getDueCardsOfUser(userId, limit, interleave)).withSelfRel());
+        return questionOutputModels;
+    }
+
+    @GetMapping(value = "/{deckId}/forecast", produces = {"application/hal+json"})
+    @Operation(summary = "Forecast the workload of a deck",
+            description = "Retrieve the number of cards of a deck becoming due on each of the next days",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Forecast retrieved",
+                            content = @Content(mediaType = "application/hal+json",
+                                    schema = @Schema(implementation = ForecastOutputModel.class))),
+                    @ApiResponse(responseCode = "400", description = "Invalid input data",
+                            content = @Content(mediaType = "application/problem+json")),
+                    @ApiResponse(responseCode = "404", description = "Deck not found",
+                            content = @Content(mediaType = "application/problem+json"))
+            })
+    public ForecastOutputModel getForecastOfDeck(
+            @Parameter(description = "Id of the deck", example = "1")
+            @Min(value = 1, message = "Deck id must be positive")
+            @PathVariable Long deckId,
+            @Parameter(description = "Number of days to forecast, starting with today", example = "30")
+            @Min(value = 1, message = "Days must be positive")
+            @Max(value = 365, message = "Days must not be greater than 365")
+            @RequestParam(defaultValue = "30") int days
+    ) {
+        return forecastOutputModelAssembler.toModel(deckStatsService.forecastOfDeck(deckId, days));
+    }
+
+    @GetMapping(value = "/user/{userId}/forecast", produces = {"application/hal+json"})
+    @Operation(summary = "Forecast the workload of a user",
+            description = "Retrieve the number of cards across all decks of a user becoming due on each of the next days",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Forecast retrieved",
+                            content = @Content(mediaType = "application/hal+json",
+                                    schema = @Schema(implementation = ForecastOutputModel.class))),
+                    @ApiResponse(responseCode = "400", description = "Invalid input data",
+                            content = @Content(mediaType = "application/problem+json")),
+                    @ApiResponse(responseCode = "404", description = "User not found or has no decks",
+                            content = @Content(mediaType = "application/problem+json"))
+            })
+    public ForecastOutputModel getForecastOfUser(
+            @Parameter(description = "Id of the user who owns the decks", example = "1")
+            @Min(value = 1, message = "User id must be positive")
+            @PathVariable Long userId,
+            @Parameter(description = "Number of days to forecast, starting with today", example = "30")
+            @Min(value = 1, message = "Days must be positive")
+            @Max(value = 365, message = "Days must not be greater than 365")
+            @RequestParam(defaultValue = "30") int days
+    ) {
+        return forecastOutputModelAssembler.toModel(deckStatsService.forecastOfUser(userId, days));
+    }
+
     @GetMapping("/solution/{cardId}")
     @Operation(summary = "Get the back of a card",
             description = "Retrieve the solution to a question on a card by its card id from the database",
@@ -134,4 +265,73 @@ public class LearnController {
                 .body(cardOutputModel);
     }
 
+    @PutMapping(value = "/{cardId}/next", produces = {"application/hal+json"})
+    @Operation(summary = "Set difficulty of card by id, and get the next due card",
+            description = "Update timing data of a card, and retrieve the next due card of its deck with its solution",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Card updated",
+                            content = @Content(mediaType = "application/hal+json",
+                                    schema = @Schema(implementation = ReviewStepOutputModel.class))),
+                    @ApiResponse(responseCode = "400", description = "Invalid input data",
+                            content = @Content(mediaType = "application/problem+json")),
+                    @ApiResponse(responseCode = "404", description = "Card not found",
+                            content = @Content(mediaType = "application/problem+json"))
+            })
+    public ReviewStepOutputModel updateTimingsAndGetNext(
+            @Parameter(description = "Id of the card", example = "1")
+            @Min(value = 1, message = "Card id must be positive")
+            @PathVariable Long cardId,
+            @RequestParam Difficulty difficulty
+    ) {
+        ReviewStepOutput reviewStepOutput = learnService.updateTimingAndGetNext(cardId, difficulty);
+
+        ReviewStepOutputModel reviewStepOutputModel = ReviewStepOutputModel.builder()
+                .reviewedCard(cardOutputModelAssembler.toModel(reviewStepOutput.getReviewedCard()))
+                .build();
+        reviewStepOutputModel.add(
+                linkTo(methodOn(LearnController.class).updateTimingsAndGetNext(cardId, difficulty)).withSelfRel()
+        );
+
+        NextCardOutput nextCard = reviewStepOutput.getNextCard();
+        if (nextCard != null) {
+            reviewStepOutputModel.setNextCard(NextCardOutputModel.builder()
+                    .id(nextCard.getId())
+                    .deckId(nextCard.getDeckId())
+                    .frontContent(nextCard.getFrontContent())
+                    .backContent(nextCard.getBackContent())
+                    .build());
+            reviewStepOutputModel.add(
+                    linkTo(methodOn(LearnController.class).updateTimingsAndGetNext(nextCard.getId(), null))
+                            .withRel("update-next-timings")
+            );
+        }
+
+        return reviewStepOutputModel;
+    }
+
+    @PostMapping(value = "/reviews", produces = {"application/hal+json"})
+    @Operation(summary = "Submit a batch of reviews",
+            description = "Update timing data of several cards at once, e.g. to sync a session studied offline",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Cards updated",
+                            content = @Content(mediaType = "application/hal+json",
+                                    schema = @Schema(implementation = CardOutputModel.class))),
+                    @ApiResponse(responseCode = "400", description = "Invalid input data",
+                            content = @Content(mediaType = "application/problem+json")),
+                    @ApiResponse(responseCode = "404", description = "Card not found",
+                            content = @Content(mediaType = "application/problem+json"))
+            })
+    public CollectionModel<CardOutputModel> updateTimingsInBulk(
+            @NotEmpty(message = "Reviews must not be empty")
+            @Size(max = 1000, message = "At most 1000 reviews can be submitted at once")
+            @RequestBody List<@Valid ReviewInput> reviewInputs
+    ) {
+        List<CardOutputModel> cardOutputModels = learnService.updateTimings(reviewInputs).stream()
+                .map(cardOutputModelAssembler::toModel)
+                .collect(Collectors.toList());
+
+        return CollectionModel.of(cardOutputModels,
+                linkTo(methodOn(LearnController.class).updateTimingsInBulk(null)).withSelfRel());
+    }
+
 }
@@ -0,0 +1,41 @@
+package hu.traileddevice.flashcard.controller;
+
+import hu.traileddevice.flashcard.dto.optimizer.OptimizationOutputModel;
+import hu.traileddevice.flashcard.hateoas.optimizer.OptimizationOutputModelAssembler;
+import hu.traileddevice.flashcard.optimizer.FsrsWeightsOptimizer;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/optimizer")
+@Tag(name = "Scheduler optimization", description = "Fit the parameters of the scheduling algorithms to the review log.")
+public class OptimizerController {
+
+    private final FsrsWeightsOptimizer fsrsWeightsOptimizer;
+    private final OptimizationOutputModelAssembler optimizationOutputModelAssembler;
+
+    public OptimizerController(FsrsWeightsOptimizer fsrsWeightsOptimizer,
+                               OptimizationOutputModelAssembler optimizationOutputModelAssembler) {
+        this.fsrsWeightsOptimizer = fsrsWeightsOptimizer;
+        this.optimizationOutputModelAssembler = optimizationOutputModelAssembler;
+    }
+
+    @PostMapping(value = "/fsrs", produces = {"application/hal+json"})
+    @Operation(summary = "Fit the FSRS weights of all users",
+            description = "Fit the FSRS weights of every user with enough reviews to their review log, and use them " +
+                    "from then on for the users whose recall they predict better than the default weights",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Weights fitted",
+                            content = @Content(mediaType = "application/hal+json",
+                                    schema = @Schema(implementation = OptimizationOutputModel.class)))
+            })
+    public OptimizationOutputModel optimizeFsrsWeights() {
+        return optimizationOutputModelAssembler.toModel(fsrsWeightsOptimizer.optimize());
+    }
+}
@@ -0,0 +1,139 @@
+package hu.traileddevice.flashcard.controller;
+
+import hu.traileddevice.flashcard.dto.reschedule.RescheduleOutputModel;
+import hu.traileddevice.flashcard.hateoas.reschedule.RescheduleOutputModelAssembler;
+import hu.traileddevice.flashcard.model.Difficulty;
+import hu.traileddevice.flashcard.service.RescheduleService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+@RestController
+@RequestMapping("/reschedule")
+@Tag(name = "Bulk reschedule", description = "Change the timings of all cards of a deck at once.")
+@Validated
+public class RescheduleController {
+
+    private final RescheduleService rescheduleService;
+    private final RescheduleOutputModelAssembler rescheduleOutputModelAssembler;
+
+    public RescheduleController(RescheduleService rescheduleService,
+                                RescheduleOutputModelAssembler rescheduleOutputModelAssembler) {
+        this.rescheduleService = rescheduleService;
+        this.rescheduleOutputModelAssembler = rescheduleOutputModelAssembler;
+    }
+
+    @PutMapping(value = "/{deckId}/reset", produces = {"application/hal+json"})
+    @Operation(summary = "Reset all cards of a deck",
+            description = "Make every card of a deck new again, as if it was never reviewed",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Deck rescheduled",
+                            content = @Content(mediaType = "application/hal+json",
+                                    schema = @Schema(implementation = RescheduleOutputModel.class))),
+                    @ApiResponse(responseCode = "400", description = "Invalid deck id",
+                            content = @Content(mediaType = "application/problem+json")),
+                    @ApiResponse(responseCode = "404", description = "Deck not found",
+                            content = @Content(mediaType = "application/problem+json"))
+            })
+    public RescheduleOutputModel reset(
+            @Parameter(description = "Id of the deck", example = "1")
+            @Min(value = 1, message = "Deck id must be positive")
+            @PathVariable Long deckId
+    ) {
+        RescheduleOutputModel rescheduleOutputModel = rescheduleOutputModelAssembler.toModel(rescheduleService.reset(deckId));
+        rescheduleOutputModel.add(linkTo(methodOn(RescheduleController.class).reset(deckId)).withSelfRel());
+        return rescheduleOutputModel;
+    }
+
+    @PutMapping(value = "/{deckId}/shift", produces = {"application/hal+json"})
+    @Operation(summary = "Shift the due dates of all cards of a deck",
+            description = "Move the due date of every card of a deck by the given number of days, e.g. after a vacation",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Deck rescheduled",
+                            content = @Content(mediaType = "application/hal+json",
+                                    schema = @Schema(implementation = RescheduleOutputModel.class))),
+                    @ApiResponse(responseCode = "400", description = "Invalid input data",
+                            content = @Content(mediaType = "application/problem+json")),
+                    @ApiResponse(responseCode = "404", description = "Deck not found",
+                            content = @Content(mediaType = "application/problem+json"))
+            })
+    public RescheduleOutputModel shift(
+            @Parameter(description = "Id of the deck", example = "1")
+            @Min(value = 1, message = "Deck id must be positive")
+            @PathVariable Long deckId,
+            @Parameter(description = "Number of days to move the due dates with, negative to bring them earlier", example = "7")
+            @Min(value = -3650, message = "Days must be between -3650 and 3650")
+            @Max(value = 3650, message = "Days must be between -3650 and 3650")
+            @RequestParam int days
+    ) {
+        RescheduleOutputModel rescheduleOutputModel =
+                rescheduleOutputModelAssembler.toModel(rescheduleService.shift(deckId, days));
+        rescheduleOutputModel.add(linkTo(methodOn(RescheduleController.class).shift(deckId, days)).withSelfRel());
+        return rescheduleOutputModel;
+    }
+
+    @PutMapping(value = "/{deckId}/easiness", produces = {"application/hal+json"})
+    @Operation(summary = "Set the easiness factor of all cards of a deck",
+            description = "Set the SM-2 easiness factor of every card of a deck, and scale the intervals of mature cards accordingly",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Deck rescheduled",
+                            content = @Content(mediaType = "application/hal+json",
+                                    schema = @Schema(implementation = RescheduleOutputModel.class))),
+                    @ApiResponse(responseCode = "400", description = "Invalid input data",
+                            content = @Content(mediaType = "application/problem+json")),
+                    @ApiResponse(responseCode = "404", description = "Deck not found",
+                            content = @Content(mediaType = "application/problem+json"))
+            })
+    public RescheduleOutputModel setEasiness(
+            @Parameter(description = "Id of the deck", example = "1")
+            @Min(value = 1, message = "Deck id must be positive")
+            @PathVariable Long deckId,
+            @Parameter(description = "The new easiness factor", example = "2.5")
+            @DecimalMin(value = "1.3", message = "Easiness factor must be between 1.3 and 5")
+            @DecimalMax(value = "5", message = "Easiness factor must be between 1.3 and 5")
+            @RequestParam double easinessFactor
+    ) {
+        RescheduleOutputModel rescheduleOutputModel =
+                rescheduleOutputModelAssembler.toModel(rescheduleService.setEasiness(deckId, easinessFactor));
+        rescheduleOutputModel.add(
+                linkTo(methodOn(RescheduleController.class).setEasiness(deckId, easinessFactor)).withSelfRel());
+        return rescheduleOutputModel;
+    }
+
+    @PutMapping(value = "/{deckId}/grade", produces = {"application/hal+json"})
+    @Operation(summary = "Review all cards of a deck with the same difficulty",
+            description = "Update the timings of every card of a deck as if all of them were reviewed now",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Deck rescheduled",
+                            content = @Content(mediaType = "application/hal+json",
+                                    schema = @Schema(implementation = RescheduleOutputModel.class))),
+                    @ApiResponse(responseCode = "400", description = "Invalid input data",
+                            content = @Content(mediaType = "application/problem+json")),
+                    @ApiResponse(responseCode = "404", description = "Deck not found",
+                            content = @Content(mediaType = "application/problem+json"))
+            })
+    public RescheduleOutputModel grade(
+            @Parameter(description = "Id of the deck", example = "1")
+            @Min(value = 1, message = "Deck id must be positive")
+            @PathVariable Long deckId,
+            @RequestParam Difficulty difficulty
+    ) {
+        RescheduleOutputModel rescheduleOutputModel =
+                rescheduleOutputModelAssembler.toModel(rescheduleService.grade(deckId, difficulty));
+        rescheduleOutputModel.add(linkTo(methodOn(RescheduleController.class).grade(deckId, difficulty)).withSelfRel());
+        return rescheduleOutputModel;
+    }
+}
@@ -0,0 +1,46 @@
+package hu.traileddevice.flashcard.controller;
+
+import hu.traileddevice.flashcard.dto.simulation.SimulationInput;
+import hu.traileddevice.flashcard.dto.simulation.SimulationOutputModel;
+import hu.traileddevice.flashcard.hateoas.simulation.SimulationOutputModelAssembler;
+import hu.traileddevice.flashcard.simulation.Simulator;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.validation.Valid;
+
+@RestController
+@RequestMapping("/simulation")
+@Tag(name = "Simulation", description = "Estimate the review load of synthetic users, without touching the database.")
+public class SimulationController {
+
+    private final Simulator simulator;
+    private final SimulationOutputModelAssembler simulationOutputModelAssembler;
+
+    public SimulationController(Simulator simulator, SimulationOutputModelAssembler simulationOutputModelAssembler) {
+        this.simulator = simulator;
+        this.simulationOutputModelAssembler = simulationOutputModelAssembler;
+    }
+
+    @PostMapping(produces = {"application/hal+json"})
+    @Operation(summary = "Simulate synthetic users learning their decks",
+            description = "Run the scheduling algorithm over synthetic users and decks in memory for the given number " +
+                    "of days, and count the due cards and reviews of each day",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Simulation finished",
+                            content = @Content(mediaType = "application/hal+json",
+                                    schema = @Schema(implementation = SimulationOutputModel.class))),
+                    @ApiResponse(responseCode = "400", description = "Invalid input data",
+                            content = @Content(mediaType = "application/problem+json"))
+            })
+    public SimulationOutputModel simulate(@Valid @RequestBody SimulationInput simulationInput) {
+        return simulationOutputModelAssembler.toModel(simulator.simulate(simulationInput));
+    }
+}
@@ -0,0 +1,182 @@
+package hu.traileddevice.flashcard.controller;
+
+import hu.traileddevice.flashcard.dto.card.CardOutputModel;
+import hu.traileddevice.flashcard.dto.learn.AnswerOutput;
+import hu.traileddevice.flashcard.dto.learn.AnswerOutputModel;
+import hu.traileddevice.flashcard.dto.learn.QuestionOutput;
+import hu.traileddevice.flashcard.dto.learn.QuestionOutputModel;
+import hu.traileddevice.flashcard.dto.session.StudySessionOutputModel;
+import hu.traileddevice.flashcard.hateoas.card.CardOutputModelAssembler;
+import hu.traileddevice.flashcard.hateoas.session.StudySessionOutputModelAssembler;
+import hu.traileddevice.flashcard.model.Difficulty;
+import hu.traileddevice.flashcard.service.StudySessionService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+@RestController
+@RequestMapping("/session")
+@Tag(name = "Study sessions", description = "Memorize a batch of flashcards without reloading them for every step")
+@Validated
+public class StudySessionController {
+
+    private final StudySessionService studySessionService;
+    private final StudySessionOutputModelAssembler studySessionOutputModelAssembler;
+    private final CardOutputModelAssembler cardOutputModelAssembler;
+
+    public StudySessionController(StudySessionService studySessionService,
+                                  StudySessionOutputModelAssembler studySessionOutputModelAssembler,
+                                  CardOutputModelAssembler cardOutputModelAssembler) {
+        this.studySessionService = studySessionService;
+        this.studySessionOutputModelAssembler = studySessionOutputModelAssembler;
+        this.cardOutputModelAssembler = cardOutputModelAssembler;
+    }
+
+    @PostMapping
+    @Operation(summary = "Start a study session",
+            description = "Load the most due cards of a deck into a new study session",
+            responses = {
+                    @ApiResponse(responseCode = "201", description = "Study session started",
+                            content = @Content(mediaType = "application/hal+json",
+                                    schema = @Schema(implementation = StudySessionOutputModel.class))),
+                    @ApiResponse(responseCode = "400", description = "Invalid input data",
+                            content = @Content(mediaType = "application/problem+json")),
+                    @ApiResponse(responseCode = "404", description = "There are no due cards in this deck",
+                            content = @Content(mediaType = "application/problem+json"))
+            })
+    public ResponseEntity<StudySessionOutputModel> start(
+            @Parameter(description = "Id of the deck", example = "1")
+            @Min(value = 1, message = "Deck id must be positive")
+            @RequestParam Long deckId,
+            @Parameter(description = "Maximum number of cards in the session", example = "20")
+            @Min(value = 1, message = "Size must be positive")
+            @Max(value = 100, message = "Size must not be greater than 100")
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        StudySessionOutputModel studySessionOutputModel =
+                studySessionOutputModelAssembler.toModel(studySessionService.start(deckId, size));
+
+        return ResponseEntity
+                .created(studySessionOutputModel.getRequiredLink(IanaLinkRelations.SELF).toUri())
+                .body(studySessionOutputModel);
+    }
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Find study session by id", description = "Retrieve the progress of a study session",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Study session retrieved",
+                            content = @Content(mediaType = "application/hal+json",
+                                    schema = @Schema(implementation = StudySessionOutputModel.class))),
+                    @ApiResponse(responseCode = "404", description = "Study session not found",
+                            content = @Content(mediaType = "application/problem+json"))
+            })
+    public StudySessionOutputModel findById(
+            @Parameter(description = "Id of the study session") @PathVariable String id
+    ) {
+        return studySessionOutputModelAssembler.toModel(studySessionService.findById(id));
+    }
+
+    @GetMapping("/{id}/question")
+    @Operation(summary = "Get the current question", description = "Retrieve the front of the current card of the session",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Question retrieved",
+                            content = @Content(mediaType = "application/hal+json",
+                                    schema = @Schema(implementation = QuestionOutputModel.class))),
+                    @ApiResponse(responseCode = "404", description = "Study session not found or has no cards left",
+                            content = @Content(mediaType = "application/problem+json"))
+            })
+    public QuestionOutputModel getQuestion(
+            @Parameter(description = "Id of the study session") @PathVariable String id
+    ) {
+        QuestionOutput questionOutput = studySessionService.getQuestion(id);
+
+        QuestionOutputModel questionOutputModel = QuestionOutputModel.builder()
+                .id(questionOutput.getId())
+                .deckId(questionOutput.getDeckId())
+                .frontContent(questionOutput.getFrontContent())
+                .build();
+        questionOutputModel.add(linkTo(methodOn(StudySessionController.class).getQuestion(id)).withSelfRel());
+        questionOutputModel.add(linkTo(methodOn(StudySessionController.class).getSolution(id)).withRel("get-solution"));
+        return questionOutputModel;
+    }
+
+    @GetMapping("/{id}/solution")
+    @Operation(summary = "Get the current solution", description = "Retrieve the back of the current card of the session",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Answer retrieved",
+                            content = @Content(mediaType = "application/hal+json",
+                                    schema = @Schema(implementation = AnswerOutputModel.class))),
+                    @ApiResponse(responseCode = "404", description = "Study session not found or has no cards left",
+                            content = @Content(mediaType = "application/problem+json"))
+            })
+    public AnswerOutputModel getSolution(
+            @Parameter(description = "Id of the study session") @PathVariable String id
+    ) {
+        AnswerOutput answerOutput = studySessionService.getSolution(id);
+
+        AnswerOutputModel answerOutputModel = AnswerOutputModel.builder()
+                .id(answerOutput.getId())
+                .deckId(answerOutput.getDeckId())
+                .backContent(answerOutput.getBackContent())
+                .build();
+        answerOutputModel.add(linkTo(methodOn(StudySessionController.class).getSolution(id)).withSelfRel());
+        answerOutputModel.add(linkTo(methodOn(StudySessionController.class).grade(id, null)).withRel("grade"));
+        return answerOutputModel;
+    }
+
+    @PutMapping("/{id}")
+    @Operation(summary = "Set difficulty of the current card",
+            description = "Record the review of the current card, and move on to the next one",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Review recorded",
+                            content = @Content(mediaType = "application/hal+json",
+                                    schema = @Schema(implementation = StudySessionOutputModel.class))),
+                    @ApiResponse(responseCode = "400", description = "Invalid input data",
+                            content = @Content(mediaType = "application/problem+json")),
+                    @ApiResponse(responseCode = "404", description = "Study session not found or has no cards left",
+                            content = @Content(mediaType = "application/problem+json"))
+            })
+    public StudySessionOutputModel grade(
+            @Parameter(description = "Id of the study session") @PathVariable String id,
+            @RequestParam Difficulty difficulty
+    ) {
+        return studySessionOutputModelAssembler.toModel(studySessionService.grade(id, difficulty));
+    }
+
+    @DeleteMapping("/{id}")
+    @Operation(summary = "Finish a study session",
+            description = "Save the reviews of the session in the database, and close the session",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Reviews saved",
+                            content = @Content(mediaType = "application/hal+json",
+                                    schema = @Schema(implementation = CardOutputModel.class))),
+                    @ApiResponse(responseCode = "404", description = "Study session or a reviewed card not found",
+                            content = @Content(mediaType = "application/problem+json"))
+            })
+    public CollectionModel<CardOutputModel> finish(
+            @Parameter(description = "Id of the study session") @PathVariable String id
+    ) {
+        List<CardOutputModel> cardOutputModels = studySessionService.finish(id).stream()
+                .map(cardOutputModelAssembler::toModel)
+                .collect(Collectors.toList());
+
+        return CollectionModel.of(cardOutputModels);
+    }
+
+}
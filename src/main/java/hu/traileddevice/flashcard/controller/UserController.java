@@ -18,6 +18,7 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 
 @RestController
@@ -35,14 +36,25 @@ public class UserController {
     }
 
     @GetMapping
-    @Operation(summary = "Get all users", description = "Retrieve all users from the database",
+    @Operation(summary = "Get a page of users",
+            description = "Retrieve users from the database in the order of their ids, the next link leads to the "
+                    + "following page",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Users retrieved",
                             content = @Content(mediaType = "application/hal+json",
-                                    schema = @Schema(implementation = UserOutputModel.class)))
+                                    schema = @Schema(implementation = UserOutputModel.class))),
+                    @ApiResponse(responseCode = "400", description = "Invalid input data",
+                            content = @Content(mediaType = "application/problem+json"))
             })
-    public CollectionModel<UserOutputModel> findAll() {
-        return userOutputModelAssembler.toCollectionModel(userService.findAll());
+    public CollectionModel<UserOutputModel> findAll(
+            @Parameter(description = "Id of the user after which the page starts, from the next link of the previous page")
+            @RequestParam(required = false) Long after,
+            @Parameter(description = "Maximum number of users on the page", example = "20")
+            @Min(value = 1, message = "Limit must be positive")
+            @Max(value = 100, message = "Limit must not be greater than 100")
+            @RequestParam(defaultValue = "20") int limit
+    ) {
+        return userOutputModelAssembler.toCollectionModel(userService.findAll(after, limit), after, limit);
     }
 
     @PostMapping
@@ -0,0 +1,48 @@
+package hu.traileddevice.flashcard.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A page of a collection in the order of ids, which the next page continues after the id of its last item. A page is
+ * found by a range scan of an index from that id, so every page costs the same, however far it is in the collection.
+ */
+@Getter
+@AllArgsConstructor
+public class KeysetPage<T> {
+
+    private final List<T> content;
+
+    private final Long nextAfter; // id of the last item, or null on the last page
+
+    public boolean hasNext() {
+        return nextAfter != null;
+    }
+
+    /**
+     * The rows to query for a page: one more than its limit, only to tell whether there is a next page.
+     */
+    public static Pageable request(int limit) {
+        return PageRequest.of(0, limit + 1);
+    }
+
+    /**
+     * @param rows  rows queried with {@link #request(int)}, in the order of ids
+     * @param idOf  id of a row, where the next page continues
+     */
+    public static <T> KeysetPage<T> of(List<T> rows, int limit, Function<T, Long> idOf) {
+        if (rows.size() <= limit) return new KeysetPage<>(rows, null);
+        List<T> content = rows.subList(0, limit);
+        return new KeysetPage<>(content, idOf.apply(content.get(limit - 1)));
+    }
+
+    // the first page starts before every id, which are all positive
+    public static long after(Long after) {
+        return after == null ? 0 : after;
+    }
+}
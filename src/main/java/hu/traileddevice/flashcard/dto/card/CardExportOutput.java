@@ -0,0 +1,59 @@
+package hu.traileddevice.flashcard.dto.card;
+
+import hu.traileddevice.flashcard.model.Card;
+import hu.traileddevice.flashcard.model.CardTiming;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class CardExportOutput {
+
+    @Schema(description = "Id of the card", example = "1")
+    private Long id;
+
+    @Schema(description = "Text on the front of the card", example = "Is HATEOAS required in REST?")
+    private String frontContent;
+
+    @Schema(description = "Text on the back of the card", example = "Well, it turns out it is.")
+    private String backContent;
+
+    @Schema(description = "Number of successful reviews in a row, 0 for a new card", example = "3")
+    private int repetitionNumber;
+
+    @Schema(description = "Easiness factor of SM-2", example = "2.5")
+    private double easinessFactor;
+
+    @Schema(description = "Days between the last review and the next one", example = "6")
+    private int repetitionInterval;
+
+    @Schema(description = "Stability of the memory in days, used by FSRS only", example = "12.4")
+    private double stability;
+
+    @Schema(description = "Difficulty of the memory from 1 to 10, used by FSRS only", example = "5.2")
+    private double memoryDifficulty;
+
+    private LocalDateTime lastReviewDate;
+
+    private LocalDateTime dueDate;
+
+    // mapped by hand, as it runs for every card of an export
+    public CardExportOutput(Card card) {
+        CardTiming cardTiming = card.getCardTiming();
+        this.id = card.getId();
+        this.frontContent = card.getFrontContent();
+        this.backContent = card.getBackContent();
+        this.repetitionNumber = cardTiming.getRepetitionNumber();
+        this.easinessFactor = cardTiming.getEasinessFactor();
+        this.repetitionInterval = cardTiming.getRepetitionInterval();
+        this.stability = cardTiming.getStability();
+        this.memoryDifficulty = cardTiming.getMemoryDifficulty();
+        this.lastReviewDate = cardTiming.getLastReviewDate();
+        this.dueDate = cardTiming.getDueDate();
+    }
+}
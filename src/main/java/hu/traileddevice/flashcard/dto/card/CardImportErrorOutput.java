@@ -0,0 +1,23 @@
+package hu.traileddevice.flashcard.dto.card;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CardImportErrorOutput {
+
+    @Schema(description = "Number of the row among the data rows of the upload, starting from 1", example = "42")
+    private long row;
+
+    @Schema(description = "Reasons the row was not imported")
+    private List<String> errors;
+
+}
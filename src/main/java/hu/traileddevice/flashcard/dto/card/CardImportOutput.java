@@ -0,0 +1,28 @@
+package hu.traileddevice.flashcard.dto.card;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CardImportOutput {
+
+    @Schema(description = "Id of the deck the cards were imported to", example = "1")
+    private Long deckId;
+
+    @Schema(description = "Number of cards imported", example = "49998")
+    private long importedCards;
+
+    @Schema(description = "Number of rows not imported", example = "2")
+    private long failedRows;
+
+    @Schema(description = "Number of rows passed over, as an earlier, interrupted import of the same upload " +
+            "handled them", example = "0")
+    private long skippedRows;
+
+}
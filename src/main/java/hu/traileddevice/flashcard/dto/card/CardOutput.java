@@ -1,12 +1,15 @@
 package hu.traileddevice.flashcard.dto.card;
 
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 @Getter
 @Setter
+@NoArgsConstructor
 public class CardOutput {
 
     private Long id;
@@ -19,4 +22,12 @@ public class CardOutput {
 
     private LocalDate dueDate;
 
+    // projection of the card and its timing in JPQL, same as CardToCardOutputConverter
+    public CardOutput(Long id, Long deckId, String frontContent, String backContent, LocalDateTime lastReviewDate) {
+        this.id = id;
+        this.deckId = deckId;
+        this.frontContent = frontContent;
+        this.backContent = backContent;
+        this.dueDate = lastReviewDate.toLocalDate();
+    }
 }
@@ -0,0 +1,24 @@
+package hu.traileddevice.flashcard.dto.card;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// result of the full text search of cards, see Card.search in ormH2.xml or ormPSQL.xml
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CardSearchOutput {
+
+    private Long id;
+
+    private Long deckId;
+
+    private String frontContent;
+
+    private String backContent;
+
+    private Float rank; // higher for better matches, matches on the front weigh more than on the back
+}
@@ -1,11 +1,14 @@
 package hu.traileddevice.flashcard.dto.deck;
 
+import hu.traileddevice.flashcard.model.SchedulingAlgorithm;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.Size;
 
 @Getter
@@ -17,4 +20,22 @@ public class DeckCreateInput {
     @Schema(description = "Name of the deck", example = "Spring")
     @Size(min = 1, max = 60, message = "Deck name length should be between 1-60 characters")
     private String name;
+
+    @Schema(description = "Spaced repetition algorithm used to schedule the cards of the deck (SM2 by default)",
+            example = "FSRS")
+    private SchedulingAlgorithm schedulingAlgorithm;
+
+    @Schema(description = "Maximum number of never reviewed cards to learn a day (20 by default)", example = "20")
+    @Min(value = 0, message = "New cards per day must not be negative")
+    @Max(value = 9999, message = "New cards per day must not be greater than 9999")
+    private Integer newCardsPerDay;
+
+    @Schema(description = "Maximum number of already learned cards to review a day (200 by default)", example = "200")
+    @Min(value = 0, message = "Reviews per day must not be negative")
+    @Max(value = 99999, message = "Reviews per day must not be greater than 99999")
+    private Integer reviewsPerDay;
+
+    public DeckCreateInput(String name) {
+        this.name = name;
+    }
 }
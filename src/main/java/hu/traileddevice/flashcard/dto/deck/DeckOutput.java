@@ -1,21 +1,43 @@
 package hu.traileddevice.flashcard.dto.deck;
 
 import hu.traileddevice.flashcard.dto.card.CardOutput;
+import hu.traileddevice.flashcard.model.SchedulingAlgorithm;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.util.List;
 
 @Getter
 @Setter
+@NoArgsConstructor
 public class DeckOutput {
 
+    // cards embedded in a single deck, all of them are paged through the cards link
+    public static final int EMBEDDED_CARDS = 100;
+
     private Long id;
 
     private String name;
 
     private Long userId;
 
+    private SchedulingAlgorithm schedulingAlgorithm;
+
+    private int newCardsPerDay;
+
+    private int reviewsPerDay;
+
     private List<CardOutput> cards;
 
+    // projection of the deck in JPQL, without cards: the first ones are only added to a single deck by a separate one
+    public DeckOutput(Long id, String name, Long userId, SchedulingAlgorithm schedulingAlgorithm, int newCardsPerDay,
+                      int reviewsPerDay) {
+        this.id = id;
+        this.name = name;
+        this.userId = userId;
+        this.schedulingAlgorithm = schedulingAlgorithm;
+        this.newCardsPerDay = newCardsPerDay;
+        this.reviewsPerDay = reviewsPerDay;
+    }
 }
@@ -2,6 +2,7 @@ package hu.traileddevice.flashcard.dto.deck;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import hu.traileddevice.flashcard.dto.card.CardOfDeckOutputModel;
+import hu.traileddevice.flashcard.model.SchedulingAlgorithm;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.*;
 import org.springframework.hateoas.RepresentationModel;
@@ -27,7 +28,16 @@ public class DeckOutputModel extends RepresentationModel<DeckOutputModel> {
     @Schema(description = "Id of the user who owns the deck", example = "1")
     private Long userId;
 
-    @Schema(description = "List of cards in the deck")
+    @Schema(description = "Spaced repetition algorithm used to schedule the cards of the deck", example = "SM2")
+    private SchedulingAlgorithm schedulingAlgorithm;
+
+    @Schema(description = "Maximum number of never reviewed cards to learn a day", example = "20")
+    private int newCardsPerDay;
+
+    @Schema(description = "Maximum number of already learned cards to review a day", example = "200")
+    private int reviewsPerDay;
+
+    @Schema(description = "First cards of the deck, only on a single deck, the cards link pages through all of them")
     private List<CardOfDeckOutputModel> cards;
 
 }
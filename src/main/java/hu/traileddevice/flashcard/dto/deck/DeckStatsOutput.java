@@ -0,0 +1,29 @@
+package hu.traileddevice.flashcard.dto.deck;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class DeckStatsOutput {
+
+    private Long deckId;
+
+    private String name;
+
+    private int totalCards;
+
+    private int newCards;
+
+    private long dueCards;
+
+    public DeckStatsOutput(Long deckId, String name, int totalCards, int newCards, Long dueLearnedCards) {
+        this.deckId = deckId;
+        this.name = name;
+        this.totalCards = totalCards;
+        this.newCards = newCards;
+        this.dueCards = newCards + (dueLearnedCards != null ? dueLearnedCards : 0);
+    }
+}
@@ -0,0 +1,33 @@
+package hu.traileddevice.flashcard.dto.deck;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+import org.springframework.hateoas.RepresentationModel;
+import org.springframework.hateoas.server.core.Relation;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Relation(collectionRelation = "deck stats")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DeckStatsOutputModel extends RepresentationModel<DeckStatsOutputModel> {
+
+    @Schema(description = "Id of the deck", example = "1")
+    private Long deckId;
+
+    @Schema(description = "Name of the deck", example = "Spring")
+    private String name;
+
+    @Schema(description = "Number of cards in the deck", example = "120")
+    private int totalCards;
+
+    @Schema(description = "Number of never reviewed cards in the deck", example = "20")
+    private int newCards;
+
+    @Schema(description = "Number of cards due today, including the new ones", example = "35")
+    private long dueCards;
+
+}
@@ -0,0 +1,25 @@
+package hu.traileddevice.flashcard.dto.learn;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class ForecastDayOutput {
+
+    @Schema(description = "Day of the forecast", example = "2021-08-20")
+    private LocalDate day;
+
+    @Schema(description = "Number of already learned cards becoming due on this day", example = "14")
+    private long dueCards;
+
+    public ForecastDayOutput(LocalDate day, Long dueCards) {
+        this.day = day;
+        this.dueCards = dueCards != null ? dueCards : 0;
+    }
+}
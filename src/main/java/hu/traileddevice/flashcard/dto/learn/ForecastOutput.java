@@ -0,0 +1,20 @@
+package hu.traileddevice.flashcard.dto.learn;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class ForecastOutput {
+
+    private Long deckId;
+
+    private Long userId;
+
+    private int newCards;
+
+    private List<ForecastDayOutput> days;
+
+}
@@ -0,0 +1,30 @@
+package hu.traileddevice.flashcard.dto.learn;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+import org.springframework.hateoas.RepresentationModel;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ForecastOutputModel extends RepresentationModel<ForecastOutputModel> {
+
+    @Schema(description = "Id of the deck, if the forecast is of a single deck", example = "1")
+    private Long deckId;
+
+    @Schema(description = "Id of the user, if the forecast is of all decks of a user", example = "1")
+    private Long userId;
+
+    @Schema(description = "Number of never reviewed cards, due any time", example = "20")
+    private int newCards;
+
+    @Schema(description = "Learned cards becoming due on each day starting from today, today including the overdue ones")
+    private List<ForecastDayOutput> days;
+
+}
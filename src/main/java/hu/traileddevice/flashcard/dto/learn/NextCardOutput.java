@@ -0,0 +1,18 @@
+package hu.traileddevice.flashcard.dto.learn;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class NextCardOutput {
+
+    private Long id;
+
+    private Long deckId;
+
+    private String frontContent;
+
+    private String backContent;
+
+}
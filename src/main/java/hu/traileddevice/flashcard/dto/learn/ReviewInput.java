@@ -0,0 +1,33 @@
+package hu.traileddevice.flashcard.dto.learn;
+
+import hu.traileddevice.flashcard.model.Difficulty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.PastOrPresent;
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReviewInput {
+
+    @Schema(description = "Id of the reviewed card", example = "1")
+    @Min(value = 1, message = "Card id must be positive")
+    @NotNull(message = "Card id must not be null.")
+    private Long cardId;
+
+    @Schema(description = "Perceived difficulty of the question", example = "SUCCESS_EASY")
+    @NotNull(message = "Difficulty must not be null.")
+    private Difficulty difficulty;
+
+    @Schema(description = "Time of the review, the time of the request is used if omitted", example = "2021-08-31T10:15:30")
+    @PastOrPresent(message = "Review date must not be in the future")
+    private LocalDateTime reviewedAt;
+}
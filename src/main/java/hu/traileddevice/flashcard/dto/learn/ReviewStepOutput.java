@@ -0,0 +1,15 @@
+package hu.traileddevice.flashcard.dto.learn;
+
+import hu.traileddevice.flashcard.dto.card.CardOutput;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class ReviewStepOutput {
+
+    private CardOutput reviewedCard;
+
+    private NextCardOutput nextCard;
+
+}
@@ -0,0 +1,23 @@
+package hu.traileddevice.flashcard.dto.learn;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import hu.traileddevice.flashcard.dto.card.CardOutputModel;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+import org.springframework.hateoas.RepresentationModel;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ReviewStepOutputModel extends RepresentationModel<ReviewStepOutputModel> {
+
+    @Schema(description = "The reviewed card with its new due date")
+    private CardOutputModel reviewedCard;
+
+    @Schema(description = "The next due card of the deck with its solution, missing if no more cards are due")
+    private NextCardOutputModel nextCard;
+
+}
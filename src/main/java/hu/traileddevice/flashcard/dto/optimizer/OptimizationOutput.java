@@ -0,0 +1,32 @@
+package hu.traileddevice.flashcard.dto.optimizer;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class OptimizationOutput {
+
+    private int users;
+
+    private int fittedUsers;
+
+    private int skippedUsers;
+
+    private int failedUsers;
+
+    private long reviews;
+
+    private long elapsedMillis;
+
+    private double reviewsPerSecond;
+
+    private Double meanLogLossBefore;
+
+    private Double meanLogLossAfter;
+
+}
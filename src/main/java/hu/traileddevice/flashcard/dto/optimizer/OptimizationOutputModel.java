@@ -0,0 +1,43 @@
+package hu.traileddevice.flashcard.dto.optimizer;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+import org.springframework.hateoas.RepresentationModel;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OptimizationOutputModel extends RepresentationModel<OptimizationOutputModel> {
+
+    @Schema(description = "Number of users with reviews", example = "120")
+    private int users;
+
+    @Schema(description = "Number of users whose fitted weights were stored", example = "80")
+    private int fittedUsers;
+
+    @Schema(description = "Number of users with too few reviews, or no improvement over the default weights", example = "39")
+    private int skippedUsers;
+
+    @Schema(description = "Number of users whose weights could not be fitted or stored", example = "1")
+    private int failedUsers;
+
+    @Schema(description = "Number of reviews read", example = "250000")
+    private long reviews;
+
+    @Schema(description = "Duration of the optimization in milliseconds", example = "5400")
+    private long elapsedMillis;
+
+    @Schema(description = "Number of reviews read and fitted per second", example = "46296.3")
+    private double reviewsPerSecond;
+
+    @Schema(description = "Mean log-loss of the fitted users with the default weights", example = "0.3412")
+    private Double meanLogLossBefore;
+
+    @Schema(description = "Mean log-loss of the fitted users with their fitted weights", example = "0.3175")
+    private Double meanLogLossAfter;
+
+}
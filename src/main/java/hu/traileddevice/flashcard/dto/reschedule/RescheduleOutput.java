@@ -0,0 +1,18 @@
+package hu.traileddevice.flashcard.dto.reschedule;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class RescheduleOutput {
+
+    private Long deckId;
+
+    private int rescheduledCards;
+
+}
@@ -0,0 +1,22 @@
+package hu.traileddevice.flashcard.dto.reschedule;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+import org.springframework.hateoas.RepresentationModel;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RescheduleOutputModel extends RepresentationModel<RescheduleOutputModel> {
+
+    @Schema(description = "Id of the rescheduled deck", example = "1")
+    private Long deckId;
+
+    @Schema(description = "Number of rescheduled cards", example = "1200")
+    private int rescheduledCards;
+
+}
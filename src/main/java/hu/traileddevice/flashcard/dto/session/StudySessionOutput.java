@@ -0,0 +1,18 @@
+package hu.traileddevice.flashcard.dto.session;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class StudySessionOutput {
+
+    private String id;
+
+    private Long deckId;
+
+    private int remainingCards;
+
+    private int reviewedCards;
+
+}
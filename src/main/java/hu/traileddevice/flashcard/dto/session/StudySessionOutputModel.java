@@ -0,0 +1,28 @@
+package hu.traileddevice.flashcard.dto.session;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+import org.springframework.hateoas.RepresentationModel;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class StudySessionOutputModel extends RepresentationModel<StudySessionOutputModel> {
+
+    @Schema(description = "Id of the study session", example = "0b7c0bd4-5f5e-4a4a-9a3c-2c1f3b7b9f0e")
+    private String id;
+
+    @Schema(description = "Id of the deck being learned", example = "1")
+    private Long deckId;
+
+    @Schema(description = "Number of cards left in the session", example = "19")
+    private int remainingCards;
+
+    @Schema(description = "Number of cards reviewed in the session", example = "1")
+    private int reviewedCards;
+
+}
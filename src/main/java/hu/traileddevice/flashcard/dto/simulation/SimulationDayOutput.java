@@ -0,0 +1,31 @@
+package hu.traileddevice.flashcard.dto.simulation;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class SimulationDayOutput {
+
+    @Schema(description = "Number of the simulated day, starting from 1", example = "1")
+    private int day;
+
+    @Schema(description = "Number of learned cards due at the start of the day, including the ones left from earlier days",
+            example = "1250")
+    private long dueCards;
+
+    @Schema(description = "Number of learned cards reviewed on the day", example = "1200")
+    private long reviews;
+
+    @Schema(description = "Number of never reviewed cards learned on the day", example = "400")
+    private long newCards;
+
+    @Schema(description = "Number of cards failed on the day", example = "160")
+    private long failedCards;
+
+}
@@ -0,0 +1,77 @@
+package hu.traileddevice.flashcard.dto.simulation;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import hu.traileddevice.flashcard.model.Difficulty;
+import hu.traileddevice.flashcard.model.SchedulingAlgorithm;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import java.util.Map;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class SimulationInput {
+
+    public static final long MAX_CARDS = 100_000_000;
+
+    @Schema(description = "Number of simulated users", example = "1000")
+    @Min(value = 1, message = "Users must be between 1 and 1000000")
+    @Max(value = 1_000_000, message = "Users must be between 1 and 1000000")
+    private int users = 1;
+
+    @Schema(description = "Number of decks of each user", example = "3")
+    @Min(value = 1, message = "Decks per user must be between 1 and 100")
+    @Max(value = 100, message = "Decks per user must be between 1 and 100")
+    private int decksPerUser = 1;
+
+    @Schema(description = "Number of cards in each deck", example = "500")
+    @Min(value = 1, message = "Cards per deck must be between 1 and 100000")
+    @Max(value = 100_000, message = "Cards per deck must be between 1 and 100000")
+    private int cardsPerDeck = 100;
+
+    @Schema(description = "Maximum number of never reviewed cards to learn a day in each deck", example = "20")
+    @Min(value = 0, message = "New cards per day must not be negative")
+    @Max(value = 9999, message = "New cards per day must not be greater than 9999")
+    private int newCardsPerDay = 20;
+
+    @Schema(description = "Maximum number of already learned cards to review a day in each deck", example = "200")
+    @Min(value = 0, message = "Reviews per day must not be negative")
+    @Max(value = 99999, message = "Reviews per day must not be greater than 99999")
+    private int reviewsPerDay = 200;
+
+    @Schema(description = "Number of simulated days", example = "180")
+    @Min(value = 1, message = "Days must be between 1 and 3650")
+    @Max(value = 3650, message = "Days must be between 1 and 3650")
+    private int days = 30;
+
+    @Schema(description = "Spaced repetition algorithm of the decks (SM2 by default)", example = "SM2")
+    private SchedulingAlgorithm schedulingAlgorithm;
+
+    @Schema(description = "Relative frequency of the answers given to a card, the same for every review by default",
+            example = "{\"FAIL_FAMILIAR\": 0.1, \"SUCCESS_HARD\": 0.2, \"SUCCESS_MEDIUM\": 0.5, \"SUCCESS_EASY\": 0.2}")
+    private Map<Difficulty, Double> gradeProbabilities;
+
+    @Schema(description = "Seed of the random answers, the same seed gives the same results", example = "42")
+    private long seed = 42;
+
+    @JsonIgnore
+    @AssertTrue(message = "Users, decks per user and cards per deck must not exceed " + MAX_CARDS + " cards in total")
+    public boolean isWithinMaxCards() {
+        return (long) users * decksPerUser * cardsPerDeck <= MAX_CARDS;
+    }
+
+    @JsonIgnore
+    @AssertTrue(message = "Grade probabilities must not be negative, and must not all be zero")
+    public boolean isGradeProbabilitiesValid() {
+        return gradeProbabilities == null || gradeProbabilities.values().stream().allMatch(p -> p != null && p >= 0)
+                && gradeProbabilities.values().stream().mapToDouble(Double::doubleValue).sum() > 0;
+    }
+}
@@ -0,0 +1,30 @@
+package hu.traileddevice.flashcard.dto.simulation;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class SimulationOutput {
+
+    private long cards;
+
+    private long cardReviews;
+
+    private long peakDueCards;
+
+    private long peakCardReviews;
+
+    private long elapsedMillis;
+
+    private double cardReviewsPerSecond;
+
+    private List<SimulationDayOutput> days;
+
+}
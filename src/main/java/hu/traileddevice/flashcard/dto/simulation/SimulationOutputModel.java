@@ -0,0 +1,40 @@
+package hu.traileddevice.flashcard.dto.simulation;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+import org.springframework.hateoas.RepresentationModel;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SimulationOutputModel extends RepresentationModel<SimulationOutputModel> {
+
+    @Schema(description = "Number of simulated cards of all users", example = "1500000")
+    private long cards;
+
+    @Schema(description = "Number of simulated reviews of new and learned cards, each one a timing update and a " +
+            "review log insert in the database", example = "48000000")
+    private long cardReviews;
+
+    @Schema(description = "Highest number of learned cards due at the start of a day", example = "310000")
+    private long peakDueCards;
+
+    @Schema(description = "Highest number of reviews of new and learned cards on a day", example = "290000")
+    private long peakCardReviews;
+
+    @Schema(description = "Duration of the simulation in milliseconds", example = "4100")
+    private long elapsedMillis;
+
+    @Schema(description = "Number of simulated reviews per second", example = "11707317.1")
+    private double cardReviewsPerSecond;
+
+    @Schema(description = "Counts of each simulated day")
+    private List<SimulationDayOutput> days;
+
+}
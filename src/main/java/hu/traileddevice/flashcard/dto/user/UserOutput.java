@@ -2,12 +2,15 @@ package hu.traileddevice.flashcard.dto.user;
 
 import hu.traileddevice.flashcard.dto.deck.DeckOutput;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Getter
 @Setter
+@NoArgsConstructor
 public class UserOutput {
 
     private Long id;
@@ -17,4 +20,12 @@ public class UserOutput {
     private String email;
 
     private List<DeckOutput> decks;
+
+    // projection of the user in JPQL, its decks are added by a separate one
+    public UserOutput(Long id, String name, String email) {
+        this.id = id;
+        this.name = name;
+        this.email = email;
+        this.decks = new ArrayList<>();
+    }
 }
@@ -1,5 +1,8 @@
 package hu.traileddevice.flashcard.exception;
 
+import hu.traileddevice.flashcard.model.Card;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.hateoas.mediatype.problem.Problem;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -17,6 +20,7 @@ import javax.validation.ConstraintViolationException;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.StringJoiner;
 import java.util.stream.Collectors;
 
@@ -51,6 +55,17 @@ public class ControllerAdvisor {
                 .body(problem);
     }
 
+    @ExceptionHandler(DataIntegrityViolationException.class) // unique constraint of the database
+    public ResponseEntity<Problem> handleDataIntegrityViolationException(DataIntegrityViolationException e) {
+        // the database names the violated constraint in its message, in upper or lower case
+        String message = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+        if (message == null || !message.toUpperCase(Locale.ROOT)
+                .contains(Card.FRONT_CONTENT_UNIQUE_CONSTRAINT.toUpperCase(Locale.ROOT))) throw e;
+
+        return handleDuplicateFrontContentException(
+                new DuplicateFrontContentException("Front content already exists!"));
+    }
+
     @ExceptionHandler(ConstraintViolationException.class) // repository structure violation
     public ResponseEntity<Problem> handleConstraintViolationException(ConstraintViolationException e) {
         List<String> errors = new ArrayList<>();
@@ -132,6 +147,34 @@ public class ControllerAdvisor {
                 .body(problem);
     }
 
+    @ExceptionHandler(InvalidUploadException.class) // uploaded file not in the expected format
+    public ResponseEntity<Problem> handleInvalidUploadException(InvalidUploadException e) {
+
+        Problem problem = Problem.create()
+                .withType(URI.create("invalid-upload"))
+                .withTitle("Uploaded file is not valid")
+                .withDetail(e.getMessage())
+                .withStatus(HttpStatus.BAD_REQUEST);
+
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                .body(problem);
+    }
+
+    @ExceptionHandler(TemporarilyUnavailableException.class) // worth retrying later
+    public ResponseEntity<Problem> handleTemporarilyUnavailableException(TemporarilyUnavailableException e) {
+
+        Problem problem = Problem.create()
+                .withType(URI.create("temporarily-unavailable"))
+                .withTitle("Temporarily unavailable")
+                .withDetail(e.getMessage())
+                .withStatus(HttpStatus.SERVICE_UNAVAILABLE);
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                .body(problem);
+    }
+
     @ExceptionHandler(HttpRequestMethodNotSupportedException.class) // invalid HttpMethod on URI
     public ResponseEntity<Problem> handleHttpRequestMethodNotSupportedException(HttpRequestMethodNotSupportedException e) {
         StringJoiner errorMessage =
@@ -0,0 +1,7 @@
+package hu.traileddevice.flashcard.exception;
+
+public class InvalidUploadException extends RuntimeException {
+    public InvalidUploadException(String message) {
+        super(message);
+    }
+}
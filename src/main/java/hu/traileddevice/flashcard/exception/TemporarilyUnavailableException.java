@@ -0,0 +1,7 @@
+package hu.traileddevice.flashcard.exception;
+
+public class TemporarilyUnavailableException extends RuntimeException {
+    public TemporarilyUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -2,9 +2,11 @@ package hu.traileddevice.flashcard.hateoas.card;
 
 import hu.traileddevice.flashcard.controller.CardController;
 import hu.traileddevice.flashcard.controller.DeckController;
+import hu.traileddevice.flashcard.dto.KeysetPage;
 import hu.traileddevice.flashcard.dto.card.CardOutput;
 import hu.traileddevice.flashcard.dto.card.CardOutputModel;
 import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.hateoas.server.mvc.RepresentationModelAssemblerSupport;
 import org.springframework.stereotype.Component;
 
@@ -33,11 +35,15 @@ public class CardOutputModelAssembler extends RepresentationModelAssemblerSuppor
         return cardOutputModel;
     }
 
-    @Override
-    public CollectionModel<CardOutputModel> toCollectionModel(Iterable<? extends CardOutput> entities) {
-        CollectionModel<CardOutputModel> cardOutputModels = super.toCollectionModel(entities);
+    public CollectionModel<CardOutputModel> toCollectionModel(KeysetPage<CardOutput> page, Long after, int limit) {
+        CollectionModel<CardOutputModel> cardOutputModels = super.toCollectionModel(page.getContent());
+
+        cardOutputModels.add(linkTo(methodOn(CardController.class).findAll(after, limit)).withSelfRel().expand());
 
-        cardOutputModels.add(linkTo(methodOn(CardController.class).findAll()).withSelfRel());
+        if (page.hasNext()) {
+            cardOutputModels.add(linkTo(methodOn(CardController.class).findAll(page.getNextAfter(), limit))
+                    .withRel(IanaLinkRelations.NEXT));
+        }
 
         return cardOutputModels;
     }
@@ -0,0 +1,59 @@
+package hu.traileddevice.flashcard.hateoas.card;
+
+import hu.traileddevice.flashcard.controller.CardController;
+import hu.traileddevice.flashcard.dto.KeysetPage;
+import hu.traileddevice.flashcard.dto.card.CardSearchOutput;
+import hu.traileddevice.flashcard.dto.card.CardSearchOutputModel;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.server.mvc.RepresentationModelAssemblerSupport;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+@Component
+public class CardSearchOutputModelAssembler extends
+        RepresentationModelAssemblerSupport<CardSearchOutput, CardSearchOutputModel> {
+
+    public CardSearchOutputModelAssembler() {
+        super(CardController.class, CardSearchOutputModel.class);
+    }
+
+    @Override
+    public CardSearchOutputModel toModel(CardSearchOutput entity) {
+        CardSearchOutputModel cardSearchOutputModel = instantiateModel(entity);
+
+        cardSearchOutputModel.setId(entity.getId());
+        cardSearchOutputModel.setDeckId(entity.getDeckId());
+        cardSearchOutputModel.setFrontContent(entity.getFrontContent());
+        cardSearchOutputModel.setBackContent(entity.getBackContent());
+        cardSearchOutputModel.setRank(entity.getRank());
+
+        cardSearchOutputModel.add(linkTo(methodOn(CardController.class).findById(entity.getId())).withSelfRel());
+
+        return cardSearchOutputModel;
+    }
+
+    // the next page continues after the rank and the id of the last card
+    public CollectionModel<CardSearchOutputModel> toCollectionModel(KeysetPage<CardSearchOutput> page, Long userId,
+                                                                    String query, Float afterRank, Long after,
+                                                                    int limit) {
+        CollectionModel<CardSearchOutputModel> cardSearchOutputModels = super.toCollectionModel(page.getContent());
+
+        cardSearchOutputModels.add(linkTo(methodOn(CardController.class)
+                .search(userId, query, afterRank, after, limit)).withSelfRel().expand());
+
+        if (page.hasNext()) {
+            List<CardSearchOutput> content = page.getContent();
+            Float lastRank = content.get(content.size() - 1).getRank();
+            cardSearchOutputModels.add(linkTo(methodOn(CardController.class)
+                    .search(userId, query, lastRank, page.getNextAfter(), limit)).withRel(IanaLinkRelations.NEXT));
+        }
+
+        return cardSearchOutputModels;
+    }
+
+}
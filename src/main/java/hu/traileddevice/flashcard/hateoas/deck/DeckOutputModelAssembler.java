@@ -2,11 +2,13 @@ package hu.traileddevice.flashcard.hateoas.deck;
 
 import hu.traileddevice.flashcard.controller.CardController;
 import hu.traileddevice.flashcard.controller.DeckController;
+import hu.traileddevice.flashcard.dto.KeysetPage;
 import hu.traileddevice.flashcard.dto.card.CardOfDeckOutputModel;
 import hu.traileddevice.flashcard.dto.card.CardOutput;
 import hu.traileddevice.flashcard.dto.deck.DeckOutput;
 import hu.traileddevice.flashcard.dto.deck.DeckOutputModel;
 import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.hateoas.server.mvc.RepresentationModelAssemblerSupport;
 import org.springframework.stereotype.Component;
 
@@ -31,11 +33,16 @@ public class DeckOutputModelAssembler extends RepresentationModelAssemblerSuppor
         deckOutputModel.setId(entity.getId());
         deckOutputModel.setName(entity.getName());
         deckOutputModel.setUserId(entity.getUserId());
-        deckOutputModel.setCards(toCardOfDeckOutputModel(entity.getCards()));
+        deckOutputModel.setSchedulingAlgorithm(entity.getSchedulingAlgorithm());
+        deckOutputModel.setNewCardsPerDay(entity.getNewCardsPerDay());
+        deckOutputModel.setReviewsPerDay(entity.getReviewsPerDay());
+        if (entity.getCards() != null) deckOutputModel.setCards(toCardOfDeckOutputModel(entity.getCards()));
 
         deckOutputModel.add(linkTo(methodOn(DeckController.class).findById(entity.getId())).withSelfRel());
+        deckOutputModel.add(linkTo(methodOn(CardController.class)
+                .findAllOfDeck(entity.getId(), null, DeckOutput.EMBEDDED_CARDS)).withRel("cards").expand());
 
-        if (entity.getCards().isEmpty()) {
+        if (entity.getCards() != null && entity.getCards().isEmpty()) {
             deckOutputModel.add(
                     linkTo(methodOn(CardController.class).save(entity.getId(), null)).withRel("create-card"));
         }
@@ -43,11 +50,15 @@ public class DeckOutputModelAssembler extends RepresentationModelAssemblerSuppor
         return deckOutputModel;
     }
 
-    @Override
-    public CollectionModel<DeckOutputModel> toCollectionModel(Iterable<? extends DeckOutput> entities) {
-        CollectionModel<DeckOutputModel> deckOutputModels = super.toCollectionModel(entities);
+    public CollectionModel<DeckOutputModel> toCollectionModel(KeysetPage<DeckOutput> page, Long after, int limit) {
+        CollectionModel<DeckOutputModel> deckOutputModels = super.toCollectionModel(page.getContent());
+
+        deckOutputModels.add(linkTo(methodOn(DeckController.class).findAll(after, limit)).withSelfRel().expand());
 
-        deckOutputModels.add(linkTo(methodOn(DeckController.class).findAll()).withSelfRel());
+        if (page.hasNext()) {
+            deckOutputModels.add(linkTo(methodOn(DeckController.class).findAll(page.getNextAfter(), limit))
+                    .withRel(IanaLinkRelations.NEXT));
+        }
 
         return deckOutputModels;
     }
@@ -0,0 +1,41 @@
+package hu.traileddevice.flashcard.hateoas.deck;
+
+import hu.traileddevice.flashcard.controller.DeckController;
+import hu.traileddevice.flashcard.controller.LearnController;
+import hu.traileddevice.flashcard.dto.deck.DeckStatsOutput;
+import hu.traileddevice.flashcard.dto.deck.DeckStatsOutputModel;
+import org.springframework.hateoas.server.mvc.RepresentationModelAssemblerSupport;
+import org.springframework.stereotype.Component;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+@Component
+public class DeckStatsOutputModelAssembler extends RepresentationModelAssemblerSupport<DeckStatsOutput, DeckStatsOutputModel> {
+
+    public DeckStatsOutputModelAssembler() {
+        super(DeckController.class, DeckStatsOutputModel.class);
+    }
+
+    @Override
+    public DeckStatsOutputModel toModel(DeckStatsOutput entity) {
+        DeckStatsOutputModel deckStatsOutputModel = instantiateModel(entity);
+
+        deckStatsOutputModel.setDeckId(entity.getDeckId());
+        deckStatsOutputModel.setName(entity.getName());
+        deckStatsOutputModel.setTotalCards(entity.getTotalCards());
+        deckStatsOutputModel.setNewCards(entity.getNewCards());
+        deckStatsOutputModel.setDueCards(entity.getDueCards());
+
+        deckStatsOutputModel.add(linkTo(methodOn(DeckController.class).findStatsById(entity.getDeckId())).withSelfRel());
+        deckStatsOutputModel.add(linkTo(methodOn(DeckController.class).findById(entity.getDeckId())).withRel("deck"));
+
+        if (entity.getDueCards() > 0) {
+            deckStatsOutputModel.add(
+                    linkTo(methodOn(LearnController.class).getDueCardFromDeck(entity.getDeckId())).withRel("get-due-card"));
+        }
+
+        return deckStatsOutputModel;
+    }
+
+}
@@ -0,0 +1,44 @@
+package hu.traileddevice.flashcard.hateoas.learn;
+
+import hu.traileddevice.flashcard.controller.DeckController;
+import hu.traileddevice.flashcard.controller.LearnController;
+import hu.traileddevice.flashcard.controller.UserController;
+import hu.traileddevice.flashcard.dto.learn.ForecastOutput;
+import hu.traileddevice.flashcard.dto.learn.ForecastOutputModel;
+import org.springframework.hateoas.server.mvc.RepresentationModelAssemblerSupport;
+import org.springframework.stereotype.Component;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+@Component
+public class ForecastOutputModelAssembler extends RepresentationModelAssemblerSupport<ForecastOutput, ForecastOutputModel> {
+
+    public ForecastOutputModelAssembler() {
+        super(LearnController.class, ForecastOutputModel.class);
+    }
+
+    @Override
+    public ForecastOutputModel toModel(ForecastOutput entity) {
+        ForecastOutputModel forecastOutputModel = instantiateModel(entity);
+
+        forecastOutputModel.setDeckId(entity.getDeckId());
+        forecastOutputModel.setUserId(entity.getUserId());
+        forecastOutputModel.setNewCards(entity.getNewCards());
+        forecastOutputModel.setDays(entity.getDays());
+
+        int days = entity.getDays().size();
+        if (entity.getDeckId() != null) {
+            forecastOutputModel.add(
+                    linkTo(methodOn(LearnController.class).getForecastOfDeck(entity.getDeckId(), days)).withSelfRel());
+            forecastOutputModel.add(linkTo(methodOn(DeckController.class).findById(entity.getDeckId())).withRel("deck"));
+        } else {
+            forecastOutputModel.add(
+                    linkTo(methodOn(LearnController.class).getForecastOfUser(entity.getUserId(), days)).withSelfRel());
+            forecastOutputModel.add(linkTo(methodOn(UserController.class).findById(entity.getUserId())).withRel("user"));
+        }
+
+        return forecastOutputModel;
+    }
+
+}
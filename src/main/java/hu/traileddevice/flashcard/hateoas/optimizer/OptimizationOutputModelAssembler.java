@@ -0,0 +1,39 @@
+package hu.traileddevice.flashcard.hateoas.optimizer;
+
+import hu.traileddevice.flashcard.controller.OptimizerController;
+import hu.traileddevice.flashcard.dto.optimizer.OptimizationOutput;
+import hu.traileddevice.flashcard.dto.optimizer.OptimizationOutputModel;
+import org.springframework.hateoas.server.mvc.RepresentationModelAssemblerSupport;
+import org.springframework.stereotype.Component;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+@Component
+public class OptimizationOutputModelAssembler extends
+        RepresentationModelAssemblerSupport<OptimizationOutput, OptimizationOutputModel> {
+
+    public OptimizationOutputModelAssembler() {
+        super(OptimizerController.class, OptimizationOutputModel.class);
+    }
+
+    @Override
+    public OptimizationOutputModel toModel(OptimizationOutput entity) {
+        OptimizationOutputModel optimizationOutputModel = instantiateModel(entity);
+
+        optimizationOutputModel.setUsers(entity.getUsers());
+        optimizationOutputModel.setFittedUsers(entity.getFittedUsers());
+        optimizationOutputModel.setSkippedUsers(entity.getSkippedUsers());
+        optimizationOutputModel.setFailedUsers(entity.getFailedUsers());
+        optimizationOutputModel.setReviews(entity.getReviews());
+        optimizationOutputModel.setElapsedMillis(entity.getElapsedMillis());
+        optimizationOutputModel.setReviewsPerSecond(entity.getReviewsPerSecond());
+        optimizationOutputModel.setMeanLogLossBefore(entity.getMeanLogLossBefore());
+        optimizationOutputModel.setMeanLogLossAfter(entity.getMeanLogLossAfter());
+
+        optimizationOutputModel.add(linkTo(methodOn(OptimizerController.class).optimizeFsrsWeights()).withSelfRel());
+
+        return optimizationOutputModel;
+    }
+
+}
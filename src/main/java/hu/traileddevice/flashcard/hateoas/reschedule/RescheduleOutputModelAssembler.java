@@ -0,0 +1,37 @@
+package hu.traileddevice.flashcard.hateoas.reschedule;
+
+import hu.traileddevice.flashcard.controller.DeckController;
+import hu.traileddevice.flashcard.controller.RescheduleController;
+import hu.traileddevice.flashcard.dto.reschedule.RescheduleOutput;
+import hu.traileddevice.flashcard.dto.reschedule.RescheduleOutputModel;
+import org.springframework.hateoas.server.mvc.RepresentationModelAssemblerSupport;
+import org.springframework.stereotype.Component;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+@Component
+public class RescheduleOutputModelAssembler extends
+        RepresentationModelAssemblerSupport<RescheduleOutput, RescheduleOutputModel> {
+
+    public RescheduleOutputModelAssembler() {
+        super(RescheduleController.class, RescheduleOutputModel.class);
+    }
+
+    /**
+     * The self link is added by the controller, as it depends on the operation.
+     */
+    @Override
+    public RescheduleOutputModel toModel(RescheduleOutput entity) {
+        RescheduleOutputModel rescheduleOutputModel = instantiateModel(entity);
+
+        rescheduleOutputModel.setDeckId(entity.getDeckId());
+        rescheduleOutputModel.setRescheduledCards(entity.getRescheduledCards());
+
+        rescheduleOutputModel.add(
+                linkTo(methodOn(DeckController.class).findStatsById(entity.getDeckId())).withRel("get-deck-stats"));
+
+        return rescheduleOutputModel;
+    }
+
+}
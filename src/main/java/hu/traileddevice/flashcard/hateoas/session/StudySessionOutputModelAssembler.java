@@ -0,0 +1,43 @@
+package hu.traileddevice.flashcard.hateoas.session;
+
+import hu.traileddevice.flashcard.controller.StudySessionController;
+import hu.traileddevice.flashcard.dto.session.StudySessionOutput;
+import hu.traileddevice.flashcard.dto.session.StudySessionOutputModel;
+import org.springframework.hateoas.server.mvc.RepresentationModelAssemblerSupport;
+import org.springframework.stereotype.Component;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+@Component
+public class StudySessionOutputModelAssembler extends
+        RepresentationModelAssemblerSupport<StudySessionOutput, StudySessionOutputModel> {
+
+    public StudySessionOutputModelAssembler() {
+        super(StudySessionController.class, StudySessionOutputModel.class);
+    }
+
+    @Override
+    public StudySessionOutputModel toModel(StudySessionOutput entity) {
+        StudySessionOutputModel studySessionOutputModel = instantiateModel(entity);
+
+        studySessionOutputModel.setId(entity.getId());
+        studySessionOutputModel.setDeckId(entity.getDeckId());
+        studySessionOutputModel.setRemainingCards(entity.getRemainingCards());
+        studySessionOutputModel.setReviewedCards(entity.getReviewedCards());
+
+        studySessionOutputModel.add(
+                linkTo(methodOn(StudySessionController.class).findById(entity.getId())).withSelfRel());
+
+        if (entity.getRemainingCards() > 0) {
+            studySessionOutputModel.add(
+                    linkTo(methodOn(StudySessionController.class).getQuestion(entity.getId())).withRel("get-question"));
+        }
+
+        studySessionOutputModel.add(
+                linkTo(methodOn(StudySessionController.class).finish(entity.getId())).withRel("finish"));
+
+        return studySessionOutputModel;
+    }
+
+}
@@ -0,0 +1,37 @@
+package hu.traileddevice.flashcard.hateoas.simulation;
+
+import hu.traileddevice.flashcard.controller.SimulationController;
+import hu.traileddevice.flashcard.dto.simulation.SimulationOutput;
+import hu.traileddevice.flashcard.dto.simulation.SimulationOutputModel;
+import org.springframework.hateoas.server.mvc.RepresentationModelAssemblerSupport;
+import org.springframework.stereotype.Component;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+@Component
+public class SimulationOutputModelAssembler extends
+        RepresentationModelAssemblerSupport<SimulationOutput, SimulationOutputModel> {
+
+    public SimulationOutputModelAssembler() {
+        super(SimulationController.class, SimulationOutputModel.class);
+    }
+
+    @Override
+    public SimulationOutputModel toModel(SimulationOutput entity) {
+        SimulationOutputModel simulationOutputModel = instantiateModel(entity);
+
+        simulationOutputModel.setCards(entity.getCards());
+        simulationOutputModel.setCardReviews(entity.getCardReviews());
+        simulationOutputModel.setPeakDueCards(entity.getPeakDueCards());
+        simulationOutputModel.setPeakCardReviews(entity.getPeakCardReviews());
+        simulationOutputModel.setElapsedMillis(entity.getElapsedMillis());
+        simulationOutputModel.setCardReviewsPerSecond(entity.getCardReviewsPerSecond());
+        simulationOutputModel.setDays(entity.getDays());
+
+        simulationOutputModel.add(linkTo(methodOn(SimulationController.class).simulate(null)).withSelfRel());
+
+        return simulationOutputModel;
+    }
+
+}
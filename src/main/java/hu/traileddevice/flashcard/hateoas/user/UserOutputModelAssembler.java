@@ -2,11 +2,13 @@ package hu.traileddevice.flashcard.hateoas.user;
 
 import hu.traileddevice.flashcard.controller.DeckController;
 import hu.traileddevice.flashcard.controller.UserController;
+import hu.traileddevice.flashcard.dto.KeysetPage;
 import hu.traileddevice.flashcard.dto.deck.DeckOfUserOutputModel;
 import hu.traileddevice.flashcard.dto.deck.DeckOutput;
 import hu.traileddevice.flashcard.dto.user.UserOutput;
 import hu.traileddevice.flashcard.dto.user.UserOutputModel;
 import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.hateoas.server.mvc.RepresentationModelAssemblerSupport;
 import org.springframework.stereotype.Component;
 
@@ -43,11 +45,15 @@ public class UserOutputModelAssembler extends RepresentationModelAssemblerSuppor
         return userOutputModel;
     }
 
-    @Override
-    public CollectionModel<UserOutputModel> toCollectionModel(Iterable<? extends UserOutput> entities) {
-        CollectionModel<UserOutputModel> userOutputModels = super.toCollectionModel(entities);
+    public CollectionModel<UserOutputModel> toCollectionModel(KeysetPage<UserOutput> page, Long after, int limit) {
+        CollectionModel<UserOutputModel> userOutputModels = super.toCollectionModel(page.getContent());
+
+        userOutputModels.add(linkTo(methodOn(UserController.class).findAll(after, limit)).withSelfRel().expand());
 
-        userOutputModels.add(linkTo(methodOn(UserController.class).findAll()).withSelfRel());
+        if (page.hasNext()) {
+            userOutputModels.add(linkTo(methodOn(UserController.class).findAll(page.getNextAfter(), limit))
+                    .withRel(IanaLinkRelations.NEXT));
+        }
 
         return userOutputModels;
     }
@@ -0,0 +1,47 @@
+package hu.traileddevice.flashcard.model;
+
+import lombok.*;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Table;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+// progress of importing an Anki collection, identified by its checksum, to a deck
+@Entity
+@Table(name = "apkg_imports")
+@IdClass(ApkgImport.ApkgImportId.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ApkgImport {
+
+    @Id
+    private Long deckId;
+
+    @Id
+    private String checksum; // SHA-256 of the collection, in hex
+
+    private long handledNotes; // in the order of their ids, either imported or reported as failed
+
+    private long importedCards;
+
+    private boolean finished;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime updatedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ApkgImportId implements Serializable {
+
+        private Long deckId;
+
+        private String checksum;
+    }
+}
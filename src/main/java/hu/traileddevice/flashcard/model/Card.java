@@ -1,5 +1,6 @@
 package hu.traileddevice.flashcard.model;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import org.hibernate.annotations.Type;
@@ -7,6 +8,12 @@ import org.hibernate.annotations.Type;
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.regex.Pattern;
 
 @Entity
 @Table(name = "cards")
@@ -14,18 +21,31 @@ import javax.validation.constraints.Size;
 @Setter
 public class Card {
 
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    // unique (deck_id, front_content_hash), see the V13 migration
+    public static final String FRONT_CONTENT_UNIQUE_CONSTRAINT = "UK_cards_deck_id_front_content_hash";
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    // ids are assigned in memory from blocks of the sequence, so inserts of cards and their timings can be batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cards_seq")
+    @SequenceGenerator(name = "cards_seq", sequenceName = "cards_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @ManyToOne
     private Deck deck;
 
-    @Column(columnDefinition = "VARCHAR(750)", unique = true)
+    @Column(columnDefinition = "VARCHAR(750)")
     @NotNull
     @Size(min = 1, max = 750)
     private String frontContent;
 
+    // unique within the deck instead of the front content itself, which keeps the index small
+    @Setter(AccessLevel.NONE)
+    private long frontContentHash;
+
     @Column(columnDefinition = "TEXT")
     @Lob
     @NotNull
@@ -35,4 +55,25 @@ public class Card {
 
     @OneToOne(mappedBy = "card", orphanRemoval = true)
     private CardTiming cardTiming;
+
+    public void setFrontContent(String frontContent) {
+        this.frontContent = frontContent;
+        this.frontContentHash = frontContent == null ? 0 : hashFrontContent(frontContent);
+    }
+
+    /**
+     * The first 8 bytes of the SHA-256 hash of the front content, normalized so that fronts differing only in the
+     * Unicode composition of their characters or in whitespace count as the same. The V13 migration hashed the
+     * existing cards with a copy of this, so changing it needs a migration hashing the cards again.
+     */
+    public static long hashFrontContent(String frontContent) {
+        String normalized = WHITESPACE.matcher(Normalizer.normalize(frontContent, Normalizer.Form.NFC).strip())
+                .replaceAll(" ");
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(normalized.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(hash).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e); // required on every Java platform
+        }
+    }
 }
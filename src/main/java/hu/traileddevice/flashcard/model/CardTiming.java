@@ -17,7 +17,7 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class CardTiming {
 
-    private static final double DEFAULT_EASINESS = 2.5;
+    public static final double DEFAULT_EASINESS = 2.5;
 
     @Id
     private Long id; // the name is just for the entity, the field uses card_id
@@ -28,18 +28,50 @@ public class CardTiming {
 
     private int repetitionInterval;
 
+    private double stability; // in days, used by FSRS only
+
+    private double memoryDifficulty; // from 1 to 10, used by FSRS only
+
     private LocalDateTime lastReviewDate;
 
+    private boolean learned; // reviewed at least once, failed cards start over with repetitionNumber 0 but are not new
+
+    private LocalDateTime dueDate; // kept in sync by the entity callback below, indexed with deckId
+
+    private Long deckId; // denormalized from Card, so the due card lookup does not need a join
+
     @OneToOne
     @MapsId // use Card's id as primary key
     @JoinColumn(name = "card_id")
     private Card card;
 
     public CardTiming(Card card) {
+        this(card.getDeck().getId(), LocalDateTime.now());
         this.card = card;
+    }
+
+    // timing of a new card, for cards inserted in bulk without entities
+    public CardTiming(Long deckId, LocalDateTime lastReviewDate) {
         this.setEasinessFactor(DEFAULT_EASINESS);
         this.setRepetitionInterval(1);
         this.setRepetitionNumber(0);
-        this.setLastReviewDate(LocalDateTime.now());
+        this.setLastReviewDate(lastReviewDate);
+        this.setDeckId(deckId);
+    }
+
+    // new and failed cards are due right away, so the due date alone tells whether a card is due
+    public LocalDateTime calculateDueDate() {
+        return repetitionNumber == 0 ? lastReviewDate : lastReviewDate.plusDays(repetitionInterval);
+    }
+
+    // a new card counts towards the new cards of the deck, and its daily new card limit
+    public boolean isNew() {
+        return !learned;
+    }
+
+    @PrePersist
+    @PreUpdate
+    private void updateDueDate() {
+        this.dueDate = calculateDueDate();
     }
 }
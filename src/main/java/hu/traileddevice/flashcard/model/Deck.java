@@ -14,8 +14,12 @@ import java.util.Set;
 @Setter
 public class Deck {
 
+    public static final int DEFAULT_NEW_CARDS_PER_DAY = 20;
+    public static final int DEFAULT_REVIEWS_PER_DAY = 200;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "decks_seq")
+    @SequenceGenerator(name = "decks_seq", sequenceName = "decks_seq", allocationSize = 50)
     private Long id;
 
     @Column(length = 60)
@@ -25,6 +29,14 @@ public class Deck {
     @ManyToOne
     private User user;
 
+    @Enumerated(EnumType.STRING)
+    @Column(length = 10)
+    private SchedulingAlgorithm schedulingAlgorithm = SchedulingAlgorithm.SM2;
+
+    private int newCardsPerDay = DEFAULT_NEW_CARDS_PER_DAY; // never reviewed cards to learn a day
+
+    private int reviewsPerDay = DEFAULT_REVIEWS_PER_DAY; // already learned cards to review a day
+
     @OneToMany(mappedBy = "deck", cascade = CascadeType.REMOVE)
     private Set<Card> cards = new HashSet<>();
 
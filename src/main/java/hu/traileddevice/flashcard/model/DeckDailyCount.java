@@ -0,0 +1,41 @@
+package hu.traileddevice.flashcard.model;
+
+import lombok.*;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Table;
+import java.io.Serializable;
+import java.time.LocalDate;
+
+// number of new cards and reviews learned in a deck on a given day, checked against the daily limits of the deck
+@Entity
+@Table(name = "deck_daily_counts")
+@IdClass(DeckDailyCount.DeckDailyCountId.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeckDailyCount {
+
+    @Id
+    private Long deckId;
+
+    @Id
+    private LocalDate reviewDay;
+
+    private int newCards;
+
+    private int reviews;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DeckDailyCountId implements Serializable {
+
+        private Long deckId;
+
+        private LocalDate reviewDay;
+    }
+}
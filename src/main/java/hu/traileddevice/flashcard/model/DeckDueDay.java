@@ -0,0 +1,39 @@
+package hu.traileddevice.flashcard.model;
+
+import lombok.*;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Table;
+import java.io.Serializable;
+import java.time.LocalDate;
+
+// number of already learned cards of a deck that become due on a given day
+@Entity
+@Table(name = "deck_due_days")
+@IdClass(DeckDueDay.DeckDueDayId.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeckDueDay {
+
+    @Id
+    private Long deckId;
+
+    @Id
+    private LocalDate dueDay;
+
+    private int cards;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DeckDueDayId implements Serializable {
+
+        private Long deckId;
+
+        private LocalDate dueDay;
+    }
+}
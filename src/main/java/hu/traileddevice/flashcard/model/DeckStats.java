@@ -0,0 +1,26 @@
+package hu.traileddevice.flashcard.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+@Entity
+@Table(name = "deck_stats")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeckStats {
+
+    @Id
+    private Long deckId;
+
+    private int totalCards;
+
+    private int newCards; // never reviewed cards, these are due regardless of their due date
+}
@@ -0,0 +1,6 @@
+package hu.traileddevice.flashcard.model;
+
+public enum SchedulingAlgorithm {
+    SM2,  // SuperMemo's SM-2, scheduling by easiness factor
+    FSRS  // Free Spaced Repetition Scheduler, scheduling by memory stability and difficulty
+}
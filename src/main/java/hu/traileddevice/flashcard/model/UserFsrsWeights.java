@@ -0,0 +1,32 @@
+package hu.traileddevice.flashcard.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+// FSRS weights fitted to the review history of a user, used instead of the defaults to schedule the cards of the user
+@Entity
+@Table(name = "user_fsrs_weights")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserFsrsWeights {
+
+    @Id
+    private Long userId;
+
+    private String weights; // comma separated
+
+    private int reviews;
+
+    private double logLoss;
+
+    private LocalDateTime fittedAt;
+}
@@ -0,0 +1,229 @@
+package hu.traileddevice.flashcard.optimizer;
+
+import hu.traileddevice.flashcard.dto.optimizer.OptimizationOutput;
+import hu.traileddevice.flashcard.scheduler.FsrsOptimizer;
+import hu.traileddevice.flashcard.scheduler.ReviewHistory;
+import hu.traileddevice.flashcard.service.FsrsWeightsService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * Fits the FSRS weights of every user to their review log, and stores the weights that predict the recall of the user
+ * better than the defaults. Off by default, it runs on {@code cron} or on demand.
+ * <p>
+ * The log is read by a single query ordered by user, streamed in {@code fetchSize} chunks, so only the reviews of the
+ * users being fitted are in memory: once all reviews of a user are read, the user is fitted on a fork-join pool of
+ * {@code parallelism} threads, and reading waits while twice as many users are queued or being fitted.
+ * <p>
+ * Scheduled runs are handed over to a thread of their own, so they do not hold up the other scheduled tasks sharing
+ * the scheduler thread, like the flushes of the write-behind caches.
+ */
+@Component
+public class FsrsWeightsOptimizer {
+
+    private static final Logger log = LoggerFactory.getLogger(FsrsWeightsOptimizer.class);
+
+    private static final String SELECT_REVIEWS =
+            "SELECT user_id, card_id, grade, reviewed_at FROM reviews ORDER BY user_id, reviewed_at";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readTransaction;
+    private final FsrsWeightsService fsrsWeightsService;
+    private final FsrsOptimizer fsrsOptimizer;
+    private final int parallelism;
+    private final int minReviews;
+
+    private final ExecutorService scheduledRunExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "fsrs-weights-optimizer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean scheduledRunPending = new AtomicBoolean();
+
+    private final Counter readReviews;
+    private final Counter fittedUsers;
+    private final Counter skippedUsers;
+    private final Counter failedUsers;
+    private final Timer runTimer;
+
+    public FsrsWeightsOptimizer(DataSource dataSource, PlatformTransactionManager transactionManager,
+                                FsrsWeightsService fsrsWeightsService, MeterRegistry meterRegistry,
+                                @Value("${flashcard.optimizer.parallelism:0}") int parallelism,
+                                @Value("${flashcard.optimizer.fetch-size:10000}") int fetchSize,
+                                @Value("${flashcard.optimizer.min-reviews:400}") int minReviews,
+                                @Value("${flashcard.optimizer.iterations:40}") int iterations,
+                                @Value("${flashcard.optimizer.learning-rate:0.05}") double learningRate) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.readTransaction = new TransactionTemplate(transactionManager); // cursors only stream within a transaction
+        this.readTransaction.setReadOnly(true);
+        this.fsrsWeightsService = fsrsWeightsService;
+        this.fsrsOptimizer = new FsrsOptimizer(iterations, learningRate);
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.minReviews = minReviews;
+
+        this.readReviews = meterRegistry.counter("flashcard.optimizer.reviews");
+        this.fittedUsers = meterRegistry.counter("flashcard.optimizer.users", "result", "fitted");
+        this.skippedUsers = meterRegistry.counter("flashcard.optimizer.users", "result", "skipped");
+        this.failedUsers = meterRegistry.counter("flashcard.optimizer.users", "result", "failed");
+        this.runTimer = meterRegistry.timer("flashcard.optimizer.run");
+    }
+
+    // at most one scheduled run is waiting on the optimizer thread, and the scheduler thread carries on without it
+    @Scheduled(cron = "${flashcard.optimizer.cron:-}")
+    public void scheduledOptimize() {
+        if (!scheduledRunPending.compareAndSet(false, true)) return;
+        try {
+            scheduledRunExecutor.execute(() -> {
+                scheduledRunPending.set(false);
+                optimize();
+            });
+        } catch (RejectedExecutionException e) { // shutting down
+            scheduledRunPending.set(false);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        scheduledRunExecutor.shutdownNow();
+    }
+
+    /**
+     * Fits the weights of all users with at least {@code minReviews} reviews, one run at a time.
+     */
+    public synchronized OptimizationOutput optimize() {
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        Run run = new Run(pool);
+        try {
+            readTransaction.executeWithoutResult(status -> jdbcTemplate.query(SELECT_REVIEWS, run));
+            run.submitCurrentUser();
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            pool.shutdownNow();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        runTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+
+        OptimizationOutput optimizationOutput = run.toOutput(elapsedNanos);
+        log.info("Fitted FSRS weights of {} of {} users from {} reviews in {} ms, {} reviews/s",
+                optimizationOutput.getFittedUsers(), optimizationOutput.getUsers(), optimizationOutput.getReviews(),
+                optimizationOutput.getElapsedMillis(), Math.round(optimizationOutput.getReviewsPerSecond()));
+        return optimizationOutput;
+    }
+
+    /**
+     * State of a single run: groups the streamed rows into the history of each user, and collects the results of the
+     * fits completed on the pool.
+     */
+    private final class Run implements RowCallbackHandler {
+
+        private final ForkJoinPool pool;
+        private final Semaphore queuedUsers = new Semaphore(parallelism * 2);
+
+        private ReviewHistory currentUser;
+        private int users;
+        private int skipped;
+        private long reviews;
+
+        private final AtomicInteger fitted = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final DoubleAdder logLossBefore = new DoubleAdder();
+        private final DoubleAdder logLossAfter = new DoubleAdder();
+
+        Run(ForkJoinPool pool) {
+            this.pool = pool;
+        }
+
+        @Override
+        public void processRow(ResultSet resultSet) throws SQLException {
+            long userId = resultSet.getLong(1);
+            if (currentUser == null || currentUser.getUserId() != userId) {
+                submitCurrentUser();
+                currentUser = new ReviewHistory(userId);
+            }
+            currentUser.add(resultSet.getLong(2), resultSet.getTimestamp(4).toLocalDateTime(), resultSet.getInt(3));
+            reviews++;
+            readReviews.increment();
+        }
+
+        void submitCurrentUser() {
+            if (currentUser == null) return;
+            ReviewHistory history = currentUser;
+            currentUser = null;
+            users++;
+            if (history.getSize() < minReviews) {
+                skipped();
+                return;
+            }
+
+            queuedUsers.acquireUninterruptibly();
+            pool.execute(() -> {
+                try {
+                    fit(history);
+                } catch (RuntimeException e) {
+                    log.error("Failed to fit FSRS weights of user {}: {}", history.getUserId(), e.getMessage());
+                    failed.incrementAndGet();
+                    failedUsers.increment();
+                } finally {
+                    queuedUsers.release();
+                }
+            });
+        }
+
+        private void fit(ReviewHistory history) {
+            FsrsOptimizer.Fit fit = fsrsOptimizer.fit(history);
+            if (!fit.isImprovement()) {
+                skipped();
+                return;
+            }
+            fsrsWeightsService.store(history.getUserId(), fit.getWeights(), history.getSize(), fit.getLogLoss());
+            logLossBefore.add(fit.getInitialLogLoss());
+            logLossAfter.add(fit.getLogLoss());
+            fitted.incrementAndGet();
+            fittedUsers.increment();
+        }
+
+        private synchronized void skipped() {
+            skipped++;
+            skippedUsers.increment();
+        }
+
+        synchronized OptimizationOutput toOutput(long elapsedNanos) {
+            int fittedCount = fitted.get();
+            double elapsedSeconds = elapsedNanos / 1e9;
+            return new OptimizationOutput(users, fittedCount, skipped, failed.get(), reviews,
+                    TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                    elapsedSeconds > 0 ? reviews / elapsedSeconds : 0,
+                    fittedCount > 0 ? logLossBefore.sum() / fittedCount : null,
+                    fittedCount > 0 ? logLossAfter.sum() / fittedCount : null);
+        }
+    }
+}
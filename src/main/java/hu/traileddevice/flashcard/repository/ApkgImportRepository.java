@@ -0,0 +1,24 @@
+package hu.traileddevice.flashcard.repository;
+
+import hu.traileddevice.flashcard.model.ApkgImport;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface ApkgImportRepository extends JpaRepository<ApkgImport, ApkgImport.ApkgImportId> {
+
+    // called in the transaction of the imported cards
+    @Modifying
+    @Query("UPDATE ApkgImport i SET i.handledNotes = :handledNotes, i.importedCards = i.importedCards + :cards, " +
+            "i.updatedAt = :updatedAt WHERE i.deckId = :deckId AND i.checksum = :checksum")
+    void addProgress(Long deckId, String checksum, long handledNotes, long cards, LocalDateTime updatedAt);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE ApkgImport i SET i.handledNotes = :handledNotes, i.finished = true, i.updatedAt = :updatedAt " +
+            "WHERE i.deckId = :deckId AND i.checksum = :checksum")
+    void finish(Long deckId, String checksum, long handledNotes, LocalDateTime updatedAt);
+}
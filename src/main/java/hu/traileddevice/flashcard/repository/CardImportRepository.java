@@ -0,0 +1,115 @@
+package hu.traileddevice.flashcard.repository;
+
+import hu.traileddevice.flashcard.dto.card.CardCreateInput;
+import hu.traileddevice.flashcard.model.Card;
+import hu.traileddevice.flashcard.model.CardTiming;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Inserts cards along with their timings in bulk, bypassing the persistence context: with {@code COPY} on
+ * PostgreSQL, and with JDBC batches on other databases. Callers are responsible for keeping the derived data
+ * (counters, caches) in sync.
+ */
+@Repository
+public class CardImportRepository {
+
+    private static final String CARD_COLUMNS = "id, deck_id, front_content, front_content_hash, back_content";
+    private static final String TIMING_COLUMNS = "card_id, deck_id, repetition_number, easiness_factor, " +
+            "repetition_interval, stability, memory_difficulty, last_review_date, due_date, learned";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CardImportRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Inserts the cards along with their timings, which carry the ids already allocated from the sequence of cards,
+     * the deck, and the due date.
+     */
+    public void insertAll(List<CardCreateInput> cards, List<CardTiming> cardTimings) {
+        Boolean copied = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            if (!connection.isWrapperFor(PGConnection.class)) return false;
+            copyAll(connection.unwrap(PGConnection.class).getCopyAPI(), cards, cardTimings);
+            return true;
+        });
+        if (!Boolean.TRUE.equals(copied)) batchInsertAll(cards, cardTimings);
+    }
+
+    private static void copyAll(CopyManager copyManager, List<CardCreateInput> cards, List<CardTiming> cardTimings)
+            throws SQLException {
+        StringBuilder cardRows = new StringBuilder();
+        StringBuilder timingRows = new StringBuilder();
+        for (int i = 0; i < cards.size(); i++) {
+            CardCreateInput card = cards.get(i);
+            CardTiming cardTiming = cardTimings.get(i);
+            cardRows.append(cardTiming.getId()).append(',').append(cardTiming.getDeckId()).append(',');
+            appendQuoted(cardRows, card.getFrontContent()).append(',');
+            cardRows.append(Card.hashFrontContent(card.getFrontContent())).append(',');
+            appendQuoted(cardRows, card.getBackContent()).append('\n');
+
+            timingRows.append(cardTiming.getId()).append(',')
+                    .append(cardTiming.getDeckId()).append(',')
+                    .append(cardTiming.getRepetitionNumber()).append(',')
+                    .append(cardTiming.getEasinessFactor()).append(',')
+                    .append(cardTiming.getRepetitionInterval()).append(',')
+                    .append(cardTiming.getStability()).append(',')
+                    .append(cardTiming.getMemoryDifficulty()).append(',')
+                    .append(toMicros(cardTiming.getLastReviewDate())).append(',')
+                    .append(toMicros(cardTiming.getDueDate())).append(',')
+                    .append(cardTiming.isLearned()).append('\n');
+        }
+
+        try {
+            copyManager.copyIn("COPY cards (" + CARD_COLUMNS + ") FROM STDIN WITH (FORMAT csv)",
+                    new StringReader(cardRows.toString()));
+            copyManager.copyIn("COPY timings (" + TIMING_COLUMNS + ") FROM STDIN WITH (FORMAT csv)",
+                    new StringReader(timingRows.toString()));
+        } catch (IOException e) {
+            throw new DataAccessResourceFailureException("Could not copy cards to the database", e);
+        }
+    }
+
+    private void batchInsertAll(List<CardCreateInput> cards, List<CardTiming> cardTimings) {
+        List<Object[]> cardRows = new ArrayList<>(cards.size());
+        List<Object[]> timingRows = new ArrayList<>(cards.size());
+        for (int i = 0; i < cards.size(); i++) {
+            CardCreateInput card = cards.get(i);
+            CardTiming cardTiming = cardTimings.get(i);
+            cardRows.add(new Object[]{cardTiming.getId(), cardTiming.getDeckId(),
+                    card.getFrontContent(), Card.hashFrontContent(card.getFrontContent()), card.getBackContent()});
+            timingRows.add(new Object[]{cardTiming.getId(), cardTiming.getDeckId(),
+                    cardTiming.getRepetitionNumber(), cardTiming.getEasinessFactor(),
+                    cardTiming.getRepetitionInterval(), cardTiming.getStability(), cardTiming.getMemoryDifficulty(),
+                    Timestamp.valueOf(toMicros(cardTiming.getLastReviewDate())),
+                    Timestamp.valueOf(toMicros(cardTiming.getDueDate())), cardTiming.isLearned()});
+        }
+
+        jdbcTemplate.batchUpdate("INSERT INTO cards (" + CARD_COLUMNS + ") VALUES (?, ?, ?, ?, ?)", cardRows);
+        jdbcTemplate.batchUpdate("INSERT INTO timings (" + TIMING_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                timingRows);
+    }
+
+    // the precision of the timestamp columns
+    private static LocalDateTime toMicros(LocalDateTime dateTime) {
+        return dateTime.truncatedTo(ChronoUnit.MICROS);
+    }
+
+    private static StringBuilder appendQuoted(StringBuilder row, String value) {
+        return row.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+}
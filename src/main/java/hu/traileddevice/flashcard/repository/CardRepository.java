@@ -1,13 +1,94 @@
 package hu.traileddevice.flashcard.repository;
 
+import hu.traileddevice.flashcard.dto.card.CardOutput;
+import hu.traileddevice.flashcard.dto.card.CardSearchOutput;
 import hu.traileddevice.flashcard.model.Card;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 public interface CardRepository extends JpaRepository<Card, Long> {
-    List<Card> findAllByDeckId(Long deckId);
+    // read-only projections of CardOutput, without managed entities; pages are range scans of the primary key or of
+    // the (deck_id, id) index from the last id of the previous page
+    @Query("SELECT new hu.traileddevice.flashcard.dto.card.CardOutput(c.id, c.deck.id, c.frontContent, " +
+            "c.backContent, t.lastReviewDate) " +
+            "FROM Card c JOIN c.cardTiming t WHERE c.id > :after ORDER BY c.id")
+    List<CardOutput> findOutputsAfter(long after, Pageable pageable);
+
+    @Query("SELECT new hu.traileddevice.flashcard.dto.card.CardOutput(c.id, c.deck.id, c.frontContent, " +
+            "c.backContent, t.lastReviewDate) " +
+            "FROM Card c JOIN c.cardTiming t WHERE c.deck.id = :deckId AND c.id > :after ORDER BY c.id")
+    List<CardOutput> findOutputsOfDeckAfter(Long deckId, long after, Pageable pageable);
+
+    @Query("SELECT new hu.traileddevice.flashcard.dto.card.CardOutput(c.id, c.deck.id, c.frontContent, " +
+            "c.backContent, t.lastReviewDate) " +
+            "FROM Card c JOIN c.cardTiming t WHERE c.id = :id")
+    Optional<CardOutput> findOutputById(Long id);
+
+    // read through a server-side cursor, so the caller has to consume it within a transaction and close it
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READONLY, value = "true")
+    })
+    @Query("SELECT c FROM Card c JOIN FETCH c.cardTiming WHERE c.deck.id = :deckId ORDER BY c.id")
+    Stream<Card> streamAllOfDeck(Long deckId);
+
+    // served by the unique (deck_id, front_content_hash) index, see Card.hashFrontContent
+    @Query("SELECT c.frontContentHash FROM Card c WHERE c.deck.id = :deckId AND c.frontContentHash IN :hashes")
+    Set<Long> findExistingFrontContentHashes(Long deckId, Collection<Long> hashes);
+
+    // the cards of the decks of the user matching the query, ranked with the best matches first and then in the order
+    // of ids; the page starts after the given rank and id, see ormH2.xml or ormPSQL.xml for specific implementations
+    @Query(nativeQuery = true)
+    List<CardSearchOutput> search(Long userId, String query, float afterRank, long after, Pageable pageable);
+
+    // the highest ids of blocks of Card.ID_ALLOCATION_SIZE ids, taken from the sequence the same way as Hibernate does
+    // see ormH2.xml or ormPSQL.xml for specific implementations
+    @Query(nativeQuery = true)
+    List<Number> allocateIdBlocks(int blocks);
+
+    // due cards in due order, new cards only of the decks allowing new cards and reviews only of the decks allowing
+    // reviews today, served by the (deck_id, due_date) index; the timing is fetched along with the card, so the size
+    // of the page does not add extra selects
+    @Query("SELECT c FROM Card c JOIN FETCH c.cardTiming t " +
+            "WHERE t.dueDate < :dueBefore " +
+            "AND ((t.learned = false AND t.deckId IN :newCardDeckIds) " +
+            "OR (t.learned = true AND t.deckId IN :reviewDeckIds)) " +
+            "ORDER BY t.dueDate, t.id")
+    List<Card> findDueCardsInDecks(Collection<Long> newCardDeckIds, Collection<Long> reviewDeckIds,
+                                   LocalDateTime dueBefore, Pageable pageable);
+
+    // same as above, the page starting after the due date and id of the last card of the previous page
+    @Query("SELECT c FROM Card c JOIN FETCH c.cardTiming t " +
+            "WHERE t.dueDate < :dueBefore " +
+            "AND ((t.learned = false AND t.deckId IN :newCardDeckIds) " +
+            "OR (t.learned = true AND t.deckId IN :reviewDeckIds)) " +
+            "AND (t.dueDate > :afterDueDate OR (t.dueDate = :afterDueDate AND t.id > :after)) " +
+            "ORDER BY t.dueDate, t.id")
+    List<Card> findDueCardsInDecksAfter(Collection<Long> newCardDeckIds, Collection<Long> reviewDeckIds,
+                                        LocalDateTime dueBefore, LocalDateTime afterDueDate, long after,
+                                        Pageable pageable);
 
-    Optional<Card> findByFrontContent(String frontContent);
+    // the first page when after is null; an empty IN list is not valid SQL, so it is replaced by an id no deck has
+    default List<Card> findDueCardsInDecks(Collection<Long> newCardDeckIds, Collection<Long> reviewDeckIds,
+                                           LocalDateTime dueBefore, LocalDateTime afterDueDate, Long after,
+                                           Pageable pageable) {
+        if (newCardDeckIds.isEmpty() && reviewDeckIds.isEmpty()) return List.of();
+        Collection<Long> newCardDecks = newCardDeckIds.isEmpty() ? List.of(0L) : newCardDeckIds;
+        Collection<Long> reviewDecks = reviewDeckIds.isEmpty() ? List.of(0L) : reviewDeckIds;
+        if (after == null) return findDueCardsInDecks(newCardDecks, reviewDecks, dueBefore, pageable);
+        return findDueCardsInDecksAfter(newCardDecks, reviewDecks, dueBefore, afterDueDate, after, pageable);
+    }
 }
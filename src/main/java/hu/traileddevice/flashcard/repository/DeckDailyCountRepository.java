@@ -0,0 +1,24 @@
+package hu.traileddevice.flashcard.repository;
+
+import hu.traileddevice.flashcard.cache.DailyCounter;
+import hu.traileddevice.flashcard.model.DeckDailyCount;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+public interface DeckDailyCountRepository extends JpaRepository<DeckDailyCount, DeckDailyCount.DeckDailyCountId> {
+
+    // the limits of the deck along with what has been counted on the day so far, empty if the deck does not exist
+    @Query("SELECT new hu.traileddevice.flashcard.cache.DailyCounter(d.newCardsPerDay, d.reviewsPerDay, c.newCards, c.reviews) " +
+            "FROM Deck d LEFT JOIN DeckDailyCount c ON c.deckId = d.id AND c.reviewDay = :reviewDay " +
+            "WHERE d.id = :deckId")
+    Optional<DailyCounter> findCounterOfDeck(Long deckId, LocalDate reviewDay);
+
+    // inserts the row if it does not exist yet // see ormH2.xml or ormPSQL.xml for specific implementations
+    @Modifying
+    @Query(nativeQuery = true)
+    void addCounts(Long deckId, LocalDate reviewDay, int newCards, int reviews);
+}
@@ -0,0 +1,47 @@
+package hu.traileddevice.flashcard.repository;
+
+import hu.traileddevice.flashcard.dto.learn.ForecastDayOutput;
+import hu.traileddevice.flashcard.model.DeckDueDay;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface DeckDueDayRepository extends JpaRepository<DeckDueDay, DeckDueDay.DeckDueDayId> {
+
+    // inserts the row if it does not exist yet // see ormH2.xml or ormPSQL.xml for specific implementations
+    @Modifying
+    @Query(nativeQuery = true)
+    void addCards(Long deckId, LocalDate dueDay, int cards);
+
+    @Query("SELECT new hu.traileddevice.flashcard.dto.learn.ForecastDayOutput(dd.dueDay, SUM(dd.cards)) " +
+            "FROM DeckDueDay dd WHERE dd.deckId = :deckId AND dd.dueDay < :end GROUP BY dd.dueDay ORDER BY dd.dueDay")
+    List<ForecastDayOutput> findCountsOfDeckUntil(Long deckId, LocalDate end);
+
+    @Query("SELECT new hu.traileddevice.flashcard.dto.learn.ForecastDayOutput(dd.dueDay, SUM(dd.cards)) " +
+            "FROM DeckDueDay dd JOIN Deck d ON d.id = dd.deckId " +
+            "WHERE d.user.id = :userId AND dd.dueDay < :end GROUP BY dd.dueDay ORDER BY dd.dueDay")
+    List<ForecastDayOutput> findCountsOfUserUntil(Long userId, LocalDate end);
+
+    // adds the cards of the days before the given one to the given day of each deck // see ormH2.xml or ormPSQL.xml
+    @Modifying
+    @Query(nativeQuery = true)
+    void foldCardsBefore(LocalDate overdueDay);
+
+    @Modifying
+    @Query("DELETE FROM DeckDueDay dd WHERE dd.dueDay < :day")
+    void deleteAllBefore(LocalDate day);
+
+    @Modifying
+    @Query("DELETE FROM DeckDueDay dd WHERE dd.deckId = :deckId")
+    void deleteAllOfDeck(Long deckId);
+
+    @Modifying
+    @Query(value = "INSERT INTO deck_due_days (deck_id, due_day, cards) " +
+            "SELECT deck_id, CAST(due_date AS DATE), COUNT(*) FROM timings " +
+            "WHERE deck_id = :deckId AND learned = true GROUP BY deck_id, CAST(due_date AS DATE)",
+            nativeQuery = true)
+    void insertCountsOfDeck(Long deckId);
+}
@@ -1,10 +1,55 @@
 package hu.traileddevice.flashcard.repository;
 
+import hu.traileddevice.flashcard.dto.deck.DeckOutput;
 import hu.traileddevice.flashcard.model.Deck;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+
+import static org.hibernate.jpa.QueryHints.HINT_PASS_DISTINCT_THROUGH;
 
 public interface DeckRepository extends JpaRepository<Deck, Long> {
-    List<Deck> findAllByUserId(Long userId);
+
+    // read-only projections of DeckOutput, without managed entities or cards, the first cards of a single deck are
+    // added by CardRepository.findOutputsOfDeckAfter; pages are range scans of the primary key or of the (user_id, id)
+    // index
+    @Query("SELECT new hu.traileddevice.flashcard.dto.deck.DeckOutput(d.id, d.name, d.user.id, " +
+            "d.schedulingAlgorithm, d.newCardsPerDay, d.reviewsPerDay) " +
+            "FROM Deck d WHERE d.id > :after ORDER BY d.id")
+    List<DeckOutput> findOutputsAfter(long after, Pageable pageable);
+
+    @Query("SELECT new hu.traileddevice.flashcard.dto.deck.DeckOutput(d.id, d.name, d.user.id, " +
+            "d.schedulingAlgorithm, d.newCardsPerDay, d.reviewsPerDay) " +
+            "FROM Deck d WHERE d.user.id = :userId AND d.id > :after ORDER BY d.id")
+    List<DeckOutput> findOutputsOfUserAfter(Long userId, long after, Pageable pageable);
+
+    @Query("SELECT new hu.traileddevice.flashcard.dto.deck.DeckOutput(d.id, d.name, d.user.id, " +
+            "d.schedulingAlgorithm, d.newCardsPerDay, d.reviewsPerDay) " +
+            "FROM Deck d WHERE d.user.id IN :userIds ORDER BY d.id")
+    List<DeckOutput> findOutputsOfUsers(Collection<Long> userIds);
+
+    @Query("SELECT new hu.traileddevice.flashcard.dto.deck.DeckOutput(d.id, d.name, d.user.id, " +
+            "d.schedulingAlgorithm, d.newCardsPerDay, d.reviewsPerDay) " +
+            "FROM Deck d WHERE d.id = :id")
+    Optional<DeckOutput> findOutputById(Long id);
+
+    @Query("SELECT d.id FROM Deck d WHERE d.user.id = :userId")
+    List<Long> findIdsOfUser(Long userId);
+
+    @Query("SELECT d.id FROM Deck d WHERE d.id IN :ids")
+    List<Long> findExistingIds(Collection<Long> ids);
+
+    // fetch plan of DeckOutput for updates: the user, and the cards of the deck along with their timings, are fetched
+    // in the same select, instead of one select per card; DISTINCT only drops the repeated decks of the joined rows,
+    // it is not needed in the SQL
+    @QueryHints(@QueryHint(name = HINT_PASS_DISTINCT_THROUGH, value = "false"))
+    @Query("SELECT DISTINCT d FROM Deck d JOIN FETCH d.user LEFT JOIN FETCH d.cards c LEFT JOIN FETCH c.cardTiming " +
+            "WHERE d.id = :id")
+    Optional<Deck> findWithCardsById(Long id);
 }
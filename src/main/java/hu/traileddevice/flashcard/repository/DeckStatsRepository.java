@@ -0,0 +1,44 @@
+package hu.traileddevice.flashcard.repository;
+
+import hu.traileddevice.flashcard.dto.deck.DeckStatsOutput;
+import hu.traileddevice.flashcard.model.DeckStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+public interface DeckStatsRepository extends JpaRepository<DeckStats, Long> {
+
+    @Modifying
+    @Query("UPDATE DeckStats s SET s.totalCards = s.totalCards + :totalCards, s.newCards = s.newCards + :newCards " +
+            "WHERE s.deckId = :deckId")
+    void addCards(Long deckId, int totalCards, int newCards);
+
+    @Modifying
+    @Query(value = "UPDATE deck_stats SET " +
+            "total_cards = (SELECT COUNT(*) FROM timings WHERE deck_id = :deckId), " +
+            "new_cards = (SELECT COUNT(*) FROM timings WHERE deck_id = :deckId AND learned = false) " +
+            "WHERE deck_id = :deckId",
+            nativeQuery = true)
+    void recount(Long deckId);
+
+    // due cards are the new ones, plus the learned ones due until the end of today
+    @Query("SELECT new hu.traileddevice.flashcard.dto.deck.DeckStatsOutput(d.id, d.name, s.totalCards, s.newCards, SUM(dd.cards)) " +
+            "FROM Deck d JOIN DeckStats s ON s.deckId = d.id " +
+            "LEFT JOIN DeckDueDay dd ON dd.deckId = d.id AND dd.dueDay <= :today " +
+            "WHERE d.id = :deckId GROUP BY d.id, d.name, s.totalCards, s.newCards")
+    Optional<DeckStatsOutput> findStatsOfDeck(Long deckId, LocalDate today);
+
+    @Query("SELECT new hu.traileddevice.flashcard.dto.deck.DeckStatsOutput(d.id, d.name, s.totalCards, s.newCards, SUM(dd.cards)) " +
+            "FROM Deck d JOIN DeckStats s ON s.deckId = d.id " +
+            "LEFT JOIN DeckDueDay dd ON dd.deckId = d.id AND dd.dueDay <= :today " +
+            "WHERE d.user.id = :userId GROUP BY d.id, d.name, s.totalCards, s.newCards ORDER BY d.id")
+    List<DeckStatsOutput> findStatsOfUser(Long userId, LocalDate today);
+
+    // null if the user does not exist or has no decks
+    @Query("SELECT SUM(s.newCards) FROM DeckStats s JOIN Deck d ON d.id = s.deckId WHERE d.user.id = :userId")
+    Long sumNewCardsOfUser(Long userId);
+}
@@ -0,0 +1,82 @@
+package hu.traileddevice.flashcard.repository;
+
+import hu.traileddevice.flashcard.scheduler.TimingArrays;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+
+/**
+ * Reads and writes the timings of a whole deck as {@link TimingArrays}, bypassing the persistence context.
+ * Callers are responsible for keeping the derived data (counters, caches) in sync.
+ */
+@Repository
+public class TimingArraysRepository {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TimingArraysRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public TimingArrays findAllOfDeck(Long deckId) {
+        Integer cards = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM timings WHERE deck_id = ?", Integer.class, deckId);
+        TimingArrays timingArrays = new TimingArrays(cards == null ? 0 : cards);
+
+        jdbcTemplate.query(
+                "SELECT card_id, repetition_number, easiness_factor, repetition_interval, stability, " +
+                        "memory_difficulty, last_review_date, learned FROM timings WHERE deck_id = ?",
+                resultSet -> {
+                    timingArrays.add(
+                            resultSet.getLong(1),
+                            resultSet.getInt(2),
+                            resultSet.getDouble(3),
+                            resultSet.getInt(4),
+                            resultSet.getDouble(5),
+                            resultSet.getDouble(6),
+                            resultSet.getObject(7, LocalDateTime.class),
+                            resultSet.getBoolean(8)
+                    );
+                },
+                deckId
+        );
+
+        return timingArrays;
+    }
+
+    public void updateAll(TimingArrays timingArrays) {
+        String sql = "UPDATE timings SET repetition_number = ?, easiness_factor = ?, repetition_interval = ?, " +
+                "stability = ?, memory_difficulty = ?, last_review_date = ?, due_date = ?, learned = ? WHERE card_id = ?";
+
+        for (int offset = 0; offset < timingArrays.size(); offset += BATCH_SIZE) {
+            int batchOffset = offset;
+            int batchSize = Math.min(BATCH_SIZE, timingArrays.size() - offset);
+
+            jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement preparedStatement, int j) throws SQLException {
+                    int i = batchOffset + j;
+                    preparedStatement.setInt(1, timingArrays.repetitionNumbers()[i]);
+                    preparedStatement.setDouble(2, timingArrays.easinessFactors()[i]);
+                    preparedStatement.setInt(3, timingArrays.repetitionIntervals()[i]);
+                    preparedStatement.setDouble(4, timingArrays.stabilities()[i]);
+                    preparedStatement.setDouble(5, timingArrays.memoryDifficulties()[i]);
+                    preparedStatement.setObject(6, timingArrays.lastReviewDate(i));
+                    preparedStatement.setObject(7, timingArrays.dueDate(i));
+                    preparedStatement.setBoolean(8, timingArrays.learned()[i]);
+                    preparedStatement.setLong(9, timingArrays.cardId(i));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return batchSize;
+                }
+            });
+        }
+    }
+}
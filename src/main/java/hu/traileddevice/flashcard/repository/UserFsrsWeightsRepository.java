@@ -0,0 +1,7 @@
+package hu.traileddevice.flashcard.repository;
+
+import hu.traileddevice.flashcard.model.UserFsrsWeights;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface UserFsrsWeightsRepository extends JpaRepository<UserFsrsWeights, Long> {
+}
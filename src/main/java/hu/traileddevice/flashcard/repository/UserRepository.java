@@ -1,10 +1,35 @@
 package hu.traileddevice.flashcard.repository;
 
+import hu.traileddevice.flashcard.dto.user.UserOutput;
 import hu.traileddevice.flashcard.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import javax.persistence.QueryHint;
+import java.util.List;
 import java.util.Optional;
 
+import static org.hibernate.jpa.QueryHints.HINT_PASS_DISTINCT_THROUGH;
+
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
+
+    // read-only projections of UserOutput, without managed entities, the decks are added by
+    // DeckRepository.findOutputsOfUsers; pages are range scans of the primary key
+    @Query("SELECT new hu.traileddevice.flashcard.dto.user.UserOutput(u.id, u.name, u.email) " +
+            "FROM User u WHERE u.id > :after ORDER BY u.id")
+    List<UserOutput> findOutputsAfter(long after, Pageable pageable);
+
+    @Query("SELECT new hu.traileddevice.flashcard.dto.user.UserOutput(u.id, u.name, u.email) " +
+            "FROM User u WHERE u.id = :id")
+    Optional<UserOutput> findOutputById(Long id);
+
+    // fetch plan of UserOutput for updates: the decks of the user, their cards and the timings of those in a single
+    // select, see DeckRepository.findWithCardsById
+    @QueryHints(@QueryHint(name = HINT_PASS_DISTINCT_THROUGH, value = "false"))
+    @Query("SELECT DISTINCT u FROM User u LEFT JOIN FETCH u.decks d LEFT JOIN FETCH d.cards c " +
+            "LEFT JOIN FETCH c.cardTiming WHERE u.id = :id")
+    Optional<User> findWithDecksById(Long id);
 }
@@ -0,0 +1,33 @@
+package hu.traileddevice.flashcard.reviewlog;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * A single row of the reviews table, waiting in the buffer of {@link ReviewLogWriter}.
+ */
+@Getter
+@AllArgsConstructor
+public final class ReviewLogEntry {
+
+    private final long cardId;
+
+    private final long deckId;
+
+    private final long userId;
+
+    private final int grade;
+
+    private final int previousInterval;
+
+    private final int newInterval;
+
+    private final double previousEasiness;
+
+    private final double newEasiness;
+
+    private final LocalDateTime reviewedAt;
+
+}
@@ -0,0 +1,181 @@
+package hu.traileddevice.flashcard.reviewlog;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Appends reviews to the reviews table without a synchronous database round trip. Entries are put in a bounded
+ * buffer once the review is committed, and a scheduled task drains the buffer with multi-row inserts.
+ * <p>
+ * When the buffer is full, reviewers wait up to {@code offerTimeout} for space, and write their entry themselves in
+ * a transaction of their own if there is still none, so the log is never silently truncated under load.
+ */
+@Component
+public class ReviewLogWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(ReviewLogWriter.class);
+
+    private static final String INSERT = "INSERT INTO reviews (card_id, deck_id, user_id, grade, previous_interval, " +
+            "new_interval, previous_easiness, new_easiness, reviewed_at) VALUES ";
+    private static final String VALUES = "(?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate synchronousWriteTransaction;
+    private final BlockingQueue<ReviewLogEntry> buffer;
+    private final int batchSize;
+    private final Duration offerTimeout;
+    private final String fullBatchInsert;
+
+    private final Counter writtenEntries;
+    private final Counter failedEntries;
+    private final Counter synchronousWrites;
+    private final Timer flushTimer;
+
+    public ReviewLogWriter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry,
+                           @Value("${flashcard.review-log.capacity:10000}") int capacity,
+                           @Value("${flashcard.review-log.batch-size:500}") int batchSize,
+                           @Value("${flashcard.review-log.offer-timeout:100ms}") Duration offerTimeout) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.synchronousWriteTransaction = new TransactionTemplate(transactionManager);
+        this.synchronousWriteTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.offerTimeout = offerTimeout;
+        this.fullBatchInsert = insertOf(batchSize);
+
+        this.writtenEntries = meterRegistry.counter("flashcard.review-log.entries", "result", "written");
+        this.failedEntries = meterRegistry.counter("flashcard.review-log.entries", "result", "failed");
+        this.synchronousWrites = meterRegistry.counter("flashcard.review-log.synchronous-writes");
+        this.flushTimer = meterRegistry.timer("flashcard.review-log.flush");
+        Gauge.builder("flashcard.review-log.buffer.size", buffer, BlockingQueue::size).register(meterRegistry);
+    }
+
+    /**
+     * Logs a review once the current transaction commits, or right away without a transaction.
+     */
+    public void log(ReviewLogEntry reviewLogEntry) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(reviewLogEntry);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                enqueue(reviewLogEntry);
+            }
+        });
+    }
+
+    /**
+     * Logs several reviews once the current transaction commits, e.g. of a bulk update. Entries that do not fit in
+     * the buffer right away are written in batches instead of waiting for space one by one.
+     */
+    public void logAll(List<ReviewLogEntry> reviewLogEntries) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueueAll(reviewLogEntries);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                enqueueAll(reviewLogEntries);
+            }
+        });
+    }
+
+    /**
+     * Writes all buffered entries. Runs periodically, and can be called to make sure everything logged so far is
+     * in the database.
+     */
+    @Scheduled(fixedDelayString = "${flashcard.review-log.flush-interval:200}")
+    @PreDestroy
+    public synchronized void flush() {
+        List<ReviewLogEntry> batch = new ArrayList<>(batchSize);
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void enqueue(ReviewLogEntry reviewLogEntry) {
+        try {
+            if (buffer.offer(reviewLogEntry, offerTimeout.toMillis(), TimeUnit.MILLISECONDS)) return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronousWrites.increment();
+        // called after the commit of the review, while its transaction is still bound to the thread
+        synchronousWriteTransaction.executeWithoutResult(status -> write(Collections.singletonList(reviewLogEntry)));
+    }
+
+    private void enqueueAll(List<ReviewLogEntry> reviewLogEntries) {
+        int enqueued = 0;
+        while (enqueued < reviewLogEntries.size() && buffer.offer(reviewLogEntries.get(enqueued))) enqueued++;
+        if (enqueued == reviewLogEntries.size()) return;
+
+        List<ReviewLogEntry> overflow = reviewLogEntries.subList(enqueued, reviewLogEntries.size());
+        synchronousWrites.increment();
+        synchronousWriteTransaction.executeWithoutResult(status -> {
+            for (int from = 0; from < overflow.size(); from += batchSize)
+                write(overflow.subList(from, Math.min(overflow.size(), from + batchSize)));
+        });
+    }
+
+    private void write(List<ReviewLogEntry> batch) {
+        String sql = batch.size() == batchSize ? fullBatchInsert : insertOf(batch.size());
+        try {
+            flushTimer.record(() -> jdbcTemplate.update(sql, preparedStatement -> {
+                int parameter = 1;
+                for (ReviewLogEntry entry : batch) {
+                    preparedStatement.setLong(parameter++, entry.getCardId());
+                    preparedStatement.setLong(parameter++, entry.getDeckId());
+                    preparedStatement.setLong(parameter++, entry.getUserId());
+                    preparedStatement.setInt(parameter++, entry.getGrade());
+                    preparedStatement.setInt(parameter++, entry.getPreviousInterval());
+                    preparedStatement.setInt(parameter++, entry.getNewInterval());
+                    preparedStatement.setDouble(parameter++, entry.getPreviousEasiness());
+                    preparedStatement.setDouble(parameter++, entry.getNewEasiness());
+                    preparedStatement.setObject(parameter++, entry.getReviewedAt());
+                }
+            }));
+            writtenEntries.increment(batch.size());
+        } catch (DataAccessException e) {
+            failedEntries.increment(batch.size());
+            log.error("Dropping {} review log entries: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    private static String insertOf(int rows) {
+        StringBuilder sql = new StringBuilder(INSERT.length() + rows * (VALUES.length() + 2));
+        sql.append(INSERT);
+        for (int row = 0; row < rows; row++) {
+            if (row > 0) sql.append(", ");
+            sql.append(VALUES);
+        }
+        return sql.toString();
+    }
+}
@@ -0,0 +1,137 @@
+package hu.traileddevice.flashcard.scheduler;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * Fits the FSRS weights to the review history of a user, by minimizing the log-loss of the predicted recall
+ * probability against the actual outcome of each review. The memory state of every card is replayed from its first
+ * review in the history, and the weights are moved with Adam along a forward difference gradient, kept within the
+ * ranges of the reference FSRS optimizer.
+ * <p>
+ * Reviews on the same day as the previous review of the card update the memory state, but are left out of the loss,
+ * as the model does not predict short-term recall. Instances are immutable, and can fit several histories in parallel.
+ */
+public class FsrsOptimizer {
+
+    private static final double[] LOWER_BOUNDS = {
+            0.1, 0.1, 0.1, 0.1, 1, 0.1, 0.1, 0, 0, 0, 0.01, 0.1, 0.01, 0.01, 0.01, 0, 1
+    };
+    private static final double[] UPPER_BOUNDS = {
+            100, 100, 100, 100, 10, 5, 5, 0.75, 4.5, 0.8, 3.5, 5, 0.25, 0.9, 4, 1, 6
+    };
+
+    private static final double MIN_PROBABILITY = 1e-6;
+    private static final double MIN_STABILITY = 0.01;
+    private static final double MAX_STABILITY = 36500;
+
+    private static final double BETA1 = 0.9;
+    private static final double BETA2 = 0.999;
+    private static final double EPSILON = 1e-8;
+
+    private final int iterations;
+    private final double learningRate; // relative to the magnitude of each weight
+
+    public FsrsOptimizer(int iterations, double learningRate) {
+        this.iterations = iterations;
+        this.learningRate = learningRate;
+    }
+
+    public Fit fit(ReviewHistory history) {
+        double[] stability = new double[history.getCardCount()];
+        double[] difficulty = new double[history.getCardCount()];
+
+        double[] weights = FsrsScheduler.DEFAULT_WEIGHTS.clone();
+        double initialLogLoss = logLoss(weights, history, stability, difficulty);
+        double[] bestWeights = weights.clone();
+        double bestLogLoss = initialLogLoss;
+
+        int n = FsrsScheduler.WEIGHT_COUNT;
+        double[] gradient = new double[n];
+        double[] firstMoment = new double[n];
+        double[] secondMoment = new double[n];
+
+        double logLoss = initialLogLoss;
+        for (int iteration = 1; iteration <= iterations; iteration++) {
+            for (int i = 0; i < n; i++) {
+                double original = weights[i];
+                double step = 1e-4 * Math.max(1, Math.abs(original));
+                weights[i] = original + step;
+                gradient[i] = (logLoss(weights, history, stability, difficulty) - logLoss) / step;
+                weights[i] = original;
+            }
+
+            for (int i = 0; i < n; i++) {
+                firstMoment[i] = BETA1 * firstMoment[i] + (1 - BETA1) * gradient[i];
+                secondMoment[i] = BETA2 * secondMoment[i] + (1 - BETA2) * gradient[i] * gradient[i];
+                double correctedFirst = firstMoment[i] / (1 - Math.pow(BETA1, iteration));
+                double correctedSecond = secondMoment[i] / (1 - Math.pow(BETA2, iteration));
+                double rate = learningRate * Math.max(0.1, Math.abs(weights[i]));
+                weights[i] -= rate * correctedFirst / (Math.sqrt(correctedSecond) + EPSILON);
+                weights[i] = Math.min(Math.max(weights[i], LOWER_BOUNDS[i]), UPPER_BOUNDS[i]);
+            }
+
+            logLoss = logLoss(weights, history, stability, difficulty);
+            if (logLoss < bestLogLoss) {
+                bestLogLoss = logLoss;
+                System.arraycopy(weights, 0, bestWeights, 0, n);
+            }
+        }
+
+        return new Fit(bestWeights, initialLogLoss, bestLogLoss);
+    }
+
+    /**
+     * Mean log-loss of the recall predictions made with the given weights, 0 if the history has nothing to predict.
+     * The arrays for the memory state of the cards are passed in, so repeated evaluations do not allocate.
+     */
+    static double logLoss(double[] w, ReviewHistory history, double[] stability, double[] difficulty) {
+        Arrays.fill(stability, 0);
+        double sum = 0;
+        int predictions = 0;
+
+        for (int i = 0; i < history.getSize(); i++) {
+            int card = history.cardIndex(i);
+            int rating = history.rating(i);
+            double elapsedDays = history.elapsedDays(i);
+
+            if (elapsedDays < 0) {
+                stability[card] = FsrsScheduler.initialStability(w, rating);
+                difficulty[card] = FsrsScheduler.initialDifficulty(w, rating);
+                continue;
+            }
+
+            double retrievability = FsrsScheduler.retrievability(elapsedDays, stability[card]);
+            if (elapsedDays >= 1) {
+                double p = Math.min(Math.max(retrievability, MIN_PROBABILITY), 1 - MIN_PROBABILITY);
+                sum -= rating == FsrsScheduler.AGAIN ? Math.log(1 - p) : Math.log(p);
+                predictions++;
+            }
+
+            double nextStability = rating == FsrsScheduler.AGAIN ?
+                    FsrsScheduler.forgetStability(w, difficulty[card], stability[card], retrievability) :
+                    FsrsScheduler.recallStability(w, difficulty[card], stability[card], retrievability, rating);
+            stability[card] = Math.min(Math.max(nextStability, MIN_STABILITY), MAX_STABILITY);
+            difficulty[card] = FsrsScheduler.nextDifficulty(w, difficulty[card], rating);
+        }
+
+        return predictions == 0 ? 0 : sum / predictions;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static final class Fit {
+
+        private final double[] weights;
+
+        private final double initialLogLoss; // with the default weights
+
+        private final double logLoss;
+
+        public boolean isImprovement() {
+            return logLoss < initialLogLoss;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package hu.traileddevice.flashcard.scheduler;
+
+import hu.traileddevice.flashcard.model.SchedulingAlgorithm;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * The Free Spaced Repetition Scheduler (FSRS v4.5), with the weights fitted to the user of the card if there are any,
+ * and the default weights otherwise. It models the memory of a card by its
+ * stability (the interval in days where recall probability drops to 90%) and difficulty (from 1 to 10), and schedules
+ * the next review to the day when recall probability drops to the requested retention.
+ * See <a href="https://github.com/open-spaced-repetition/fsrs4anki/wiki/The-Algorithm">https://github.com/open-spaced-repetition/fsrs4anki/wiki/The-Algorithm</a>
+ * <p>
+ * Grades are mapped to FSRS ratings as 0-2: again, 3: hard, 4: good, 5: easy.
+ */
+@Component
+public class FsrsScheduler implements Scheduler {
+
+    static final double[] DEFAULT_WEIGHTS = {
+            0.4872, 1.4003, 3.7145, 13.8206, 5.1618, 1.2298, 0.8975, 0.031, 1.6474,
+            0.1367, 1.0461, 2.1072, 0.0793, 0.3246, 1.587, 0.2272, 2.8755
+    };
+    static final int WEIGHT_COUNT = DEFAULT_WEIGHTS.length;
+
+    private static final double DECAY = -0.5;
+    private static final double FACTOR = 19.0 / 81.0; // makes retrievability 90% when elapsed days equal stability
+    private static final int MAX_INTERVAL = 36500;
+
+    static final int AGAIN = 1;
+    static final int HARD = 2;
+    static final int GOOD = 3;
+    static final int EASY = 4;
+
+    private final double intervalModifier;
+
+    public FsrsScheduler(@Value("${flashcard.fsrs.request-retention:0.9}") double requestRetention) {
+        this.intervalModifier = (Math.pow(requestRetention, 1 / DECAY) - 1) / FACTOR;
+    }
+
+    @Override
+    public SchedulingAlgorithm getAlgorithm() {
+        return SchedulingAlgorithm.FSRS;
+    }
+
+    @Override
+    public void schedule(SchedulingState state, int grade) {
+        double[] w = state.getWeights() != null ? state.getWeights() : DEFAULT_WEIGHTS;
+        int rating = toRating(grade);
+        double stability = state.getStability();
+        double difficulty = state.getMemoryDifficulty();
+
+        if (stability <= 0 && state.getRepetitionNumber() > 0) { // learned by another algorithm
+            stability = state.getRepetitionInterval();
+            difficulty = clampDifficulty(5 + (2.5 - state.getEasinessFactor()) * 5 / 1.2);
+        }
+
+        if (stability <= 0) {
+            stability = initialStability(w, rating);
+            difficulty = initialDifficulty(w, rating);
+        } else {
+            double retrievability = retrievability(state.getElapsedDays(), stability);
+            stability = rating == AGAIN ?
+                    forgetStability(w, difficulty, stability, retrievability) :
+                    recallStability(w, difficulty, stability, retrievability, rating);
+            difficulty = nextDifficulty(w, difficulty, rating);
+        }
+
+        state.setStability(stability);
+        state.setMemoryDifficulty(difficulty);
+        state.setRepetitionNumber(rating == AGAIN ? 0 : state.getRepetitionNumber() + 1);
+        state.setRepetitionInterval(rating == AGAIN ? 1 : nextInterval(stability));
+    }
+
+    static int toRating(int grade) {
+        if (grade < 3) return AGAIN;
+        if (grade == 3) return HARD;
+        if (grade == 4) return GOOD;
+        return EASY;
+    }
+
+    // probability of recall after the given days, for a card of the given stability
+    static double retrievability(double elapsedDays, double stability) {
+        return Math.pow(1 + FACTOR * elapsedDays / stability, DECAY);
+    }
+
+    static double initialStability(double[] w, int rating) {
+        return w[rating - 1];
+    }
+
+    static double initialDifficulty(double[] w, int rating) {
+        return clampDifficulty(w[4] - (rating - GOOD) * w[5]);
+    }
+
+    static double nextDifficulty(double[] w, double difficulty, int rating) {
+        double nextDifficulty = difficulty - w[6] * (rating - GOOD);
+        return clampDifficulty(w[7] * initialDifficulty(w, GOOD) + (1 - w[7]) * nextDifficulty); // mean reversion
+    }
+
+    static double recallStability(double[] w, double difficulty, double stability, double retrievability, int rating) {
+        double hardPenalty = rating == HARD ? w[15] : 1;
+        double easyBonus = rating == EASY ? w[16] : 1;
+        return stability * (1 + Math.exp(w[8]) * (11 - difficulty) * Math.pow(stability, -w[9])
+                * (Math.exp((1 - retrievability) * w[10]) - 1) * hardPenalty * easyBonus);
+    }
+
+    static double forgetStability(double[] w, double difficulty, double stability, double retrievability) {
+        return w[11] * Math.pow(difficulty, -w[12]) * (Math.pow(stability + 1, w[13]) - 1)
+                * Math.exp((1 - retrievability) * w[14]);
+    }
+
+    private int nextInterval(double stability) {
+        long interval = Math.round(stability * intervalModifier);
+        return (int) Math.min(Math.max(interval, 1), MAX_INTERVAL);
+    }
+
+    private static double clampDifficulty(double difficulty) {
+        return Math.min(Math.max(difficulty, 1), 10);
+    }
+}
@@ -0,0 +1,92 @@
+package hu.traileddevice.flashcard.scheduler;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The reviews of a single user in the order they happened, held in parallel primitive arrays so that a history of
+ * millions of reviews can be replayed many times over without allocating. Cards are numbered from 0 in the order of
+ * their first review in the history.
+ */
+public final class ReviewHistory {
+
+    private static final double SECONDS_PER_DAY = 86400.0;
+
+    @Getter
+    private final Long userId;
+
+    @Getter
+    private int size;
+
+    private int[] cardIndexes;
+    private double[] elapsedDays; // since the previous review of the card, negative for its first review
+    private byte[] ratings;
+
+    private final Map<Long, Integer> cardIndexesById = new HashMap<>();
+    private long[] lastReviewSeconds = new long[16];
+
+    public ReviewHistory(Long userId) {
+        this(userId, 64);
+    }
+
+    public ReviewHistory(Long userId, int initialCapacity) {
+        this.userId = userId;
+        this.cardIndexes = new int[initialCapacity];
+        this.elapsedDays = new double[initialCapacity];
+        this.ratings = new byte[initialCapacity];
+    }
+
+    /**
+     * Appends a review, which must not be earlier than the ones added before.
+     *
+     * @param grade the grade of the review, from 0 to 5
+     */
+    public void add(long cardId, LocalDateTime reviewedAt, int grade) {
+        if (size == cardIndexes.length) grow();
+
+        long seconds = reviewedAt.toEpochSecond(ZoneOffset.UTC);
+        Integer cardIndex = cardIndexesById.get(cardId);
+        if (cardIndex == null) {
+            cardIndex = cardIndexesById.size();
+            cardIndexesById.put(cardId, cardIndex);
+            if (cardIndex == lastReviewSeconds.length)
+                lastReviewSeconds = Arrays.copyOf(lastReviewSeconds, cardIndex * 2);
+            elapsedDays[size] = -1;
+        } else {
+            elapsedDays[size] = Math.max(0, seconds - lastReviewSeconds[cardIndex]) / SECONDS_PER_DAY;
+        }
+        lastReviewSeconds[cardIndex] = seconds;
+
+        cardIndexes[size] = cardIndex;
+        ratings[size] = (byte) FsrsScheduler.toRating(grade);
+        size++;
+    }
+
+    public int getCardCount() {
+        return cardIndexesById.size();
+    }
+
+    int cardIndex(int i) {
+        return cardIndexes[i];
+    }
+
+    double elapsedDays(int i) {
+        return elapsedDays[i];
+    }
+
+    int rating(int i) {
+        return ratings[i];
+    }
+
+    private void grow() {
+        int capacity = cardIndexes.length * 2;
+        cardIndexes = Arrays.copyOf(cardIndexes, capacity);
+        elapsedDays = Arrays.copyOf(elapsedDays, capacity);
+        ratings = Arrays.copyOf(ratings, capacity);
+    }
+}
@@ -0,0 +1,20 @@
+package hu.traileddevice.flashcard.scheduler;
+
+import hu.traileddevice.flashcard.model.SchedulingAlgorithm;
+
+/**
+ * A spaced repetition algorithm, calculating the next review of a card from its current state and the grade of
+ * the review. Implementations are stateless and must not allocate, as they run once for every reviewed card.
+ */
+public interface Scheduler {
+
+    SchedulingAlgorithm getAlgorithm();
+
+    /**
+     * Updates the state of a card after a review.
+     *
+     * @param state the state of the card, updated in place
+     * @param grade the grade of the review, from 0 (complete blackout) to 5 (perfect recall)
+     */
+    void schedule(SchedulingState state, int grade);
+}
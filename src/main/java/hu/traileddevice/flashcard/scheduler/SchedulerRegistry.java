@@ -0,0 +1,27 @@
+package hu.traileddevice.flashcard.scheduler;
+
+import hu.traileddevice.flashcard.model.SchedulingAlgorithm;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+@Component
+public class SchedulerRegistry {
+
+    private final Map<SchedulingAlgorithm, Scheduler> schedulers = new EnumMap<>(SchedulingAlgorithm.class);
+
+    public SchedulerRegistry(List<Scheduler> schedulers) {
+        schedulers.forEach(scheduler -> this.schedulers.put(scheduler.getAlgorithm(), scheduler));
+    }
+
+    /**
+     * @param algorithm the algorithm of a deck, {@code null} for the default SM-2
+     */
+    public Scheduler get(SchedulingAlgorithm algorithm) {
+        Scheduler scheduler = schedulers.get(algorithm == null ? SchedulingAlgorithm.SM2 : algorithm);
+        if (scheduler == null) throw new IllegalStateException("No scheduler for algorithm: " + algorithm);
+        return scheduler;
+    }
+}
@@ -0,0 +1,53 @@
+package hu.traileddevice.flashcard.scheduler;
+
+import hu.traileddevice.flashcard.model.CardTiming;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Mutable scheduling state of a single card, updated in place by a {@link Scheduler}.
+ * Every algorithm reads and writes only the fields it uses, so a deck may switch algorithms without losing data.
+ * An instance can be reused for any number of cards, to keep reviewing free of allocations.
+ */
+@Getter
+@Setter
+public final class SchedulingState {
+
+    private int repetitionNumber;
+
+    private double easinessFactor;
+
+    private int repetitionInterval;
+
+    private double stability;
+
+    private double memoryDifficulty;
+
+    private double elapsedDays; // since the previous review
+
+    private double[] weights; // FSRS weights fitted to the user of the card, null for the defaults
+
+    public SchedulingState load(CardTiming cardTiming, LocalDateTime reviewDate) {
+        this.repetitionNumber = cardTiming.getRepetitionNumber();
+        this.easinessFactor = cardTiming.getEasinessFactor();
+        this.repetitionInterval = cardTiming.getRepetitionInterval();
+        this.stability = cardTiming.getStability();
+        this.memoryDifficulty = cardTiming.getMemoryDifficulty();
+        this.elapsedDays = cardTiming.getLastReviewDate() == null ? 0 :
+                Math.max(0, Duration.between(cardTiming.getLastReviewDate(), reviewDate).toMinutes() / 1440.0);
+        return this;
+    }
+
+    public void store(CardTiming cardTiming, LocalDateTime reviewDate) {
+        cardTiming.setLastReviewDate(reviewDate);
+        cardTiming.setLearned(true);
+        cardTiming.setRepetitionNumber(repetitionNumber);
+        cardTiming.setEasinessFactor(easinessFactor);
+        cardTiming.setRepetitionInterval(repetitionInterval);
+        cardTiming.setStability(stability);
+        cardTiming.setMemoryDifficulty(memoryDifficulty);
+    }
+}
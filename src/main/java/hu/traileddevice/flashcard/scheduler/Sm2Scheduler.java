@@ -0,0 +1,44 @@
+package hu.traileddevice.flashcard.scheduler;
+
+import hu.traileddevice.flashcard.model.SchedulingAlgorithm;
+import org.springframework.stereotype.Component;
+
+/**
+ * SuperMemo's SM-2 algorithm.
+ * See <a href="https://en.wikipedia.org/wiki/SuperMemo#Description_of_SM-2_algorithm">https://en.wikipedia.org/wiki/SuperMemo#Description_of_SM-2_algorithm</a>
+ */
+@Component
+public class Sm2Scheduler implements Scheduler {
+
+    private static final double MIN_EASINESS = 1.3;
+
+    @Override
+    public SchedulingAlgorithm getAlgorithm() {
+        return SchedulingAlgorithm.SM2;
+    }
+
+    @Override
+    public void schedule(SchedulingState state, int grade) {
+        int repetitionNumber = state.getRepetitionNumber();
+        double easinessFactor = state.getEasinessFactor();
+        int repetitionInterval = state.getRepetitionInterval();
+
+        if (grade >= 3) {
+            if (repetitionNumber == 0) repetitionInterval = 1;
+            else if (repetitionNumber == 1) repetitionInterval = 6;
+            else repetitionInterval = (int) Math.ceil(repetitionInterval * easinessFactor);
+
+            repetitionNumber++;
+        } else {
+            repetitionNumber = 0;
+            repetitionInterval = 1;
+        }
+
+        easinessFactor = easinessFactor + (0.1 - (5 - grade) * (0.08 + (5 - grade) * 0.02));
+        if (easinessFactor < MIN_EASINESS) easinessFactor = MIN_EASINESS;
+
+        state.setRepetitionNumber(repetitionNumber);
+        state.setEasinessFactor(easinessFactor);
+        state.setRepetitionInterval(repetitionInterval);
+    }
+}
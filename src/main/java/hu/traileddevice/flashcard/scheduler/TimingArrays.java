@@ -0,0 +1,141 @@
+package hu.traileddevice.flashcard.scheduler;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * The timings of many cards held in parallel primitive arrays, one array per column, so bulk transformations run in
+ * tight loops over contiguous memory instead of over entities. Review dates are stored as microseconds of the local
+ * date-time since the epoch, to keep date arithmetic exact in whole days.
+ */
+public final class TimingArrays {
+
+    private static final long MICROS_PER_DAY = 86_400_000_000L;
+
+    private int size;
+    private long[] cardIds;
+    private int[] repetitionNumbers;
+    private double[] easinessFactors;
+    private int[] repetitionIntervals;
+    private double[] stabilities;
+    private double[] memoryDifficulties;
+    private long[] lastReviewDates;
+    private boolean[] learned;
+
+    public TimingArrays(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 16);
+        cardIds = new long[capacity];
+        repetitionNumbers = new int[capacity];
+        easinessFactors = new double[capacity];
+        repetitionIntervals = new int[capacity];
+        stabilities = new double[capacity];
+        memoryDifficulties = new double[capacity];
+        lastReviewDates = new long[capacity];
+        learned = new boolean[capacity];
+    }
+
+    public void add(long cardId, int repetitionNumber, double easinessFactor, int repetitionInterval,
+                    double stability, double memoryDifficulty, LocalDateTime lastReviewDate, boolean learned) {
+        if (size == cardIds.length) grow();
+        cardIds[size] = cardId;
+        repetitionNumbers[size] = repetitionNumber;
+        easinessFactors[size] = easinessFactor;
+        repetitionIntervals[size] = repetitionInterval;
+        stabilities[size] = stability;
+        memoryDifficulties[size] = memoryDifficulty;
+        lastReviewDates[size] = toMicros(lastReviewDate);
+        this.learned[size] = learned;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long cardId(int i) {
+        return cardIds[i];
+    }
+
+    public int[] repetitionNumbers() {
+        return repetitionNumbers;
+    }
+
+    public double[] easinessFactors() {
+        return easinessFactors;
+    }
+
+    public int[] repetitionIntervals() {
+        return repetitionIntervals;
+    }
+
+    public double[] stabilities() {
+        return stabilities;
+    }
+
+    public double[] memoryDifficulties() {
+        return memoryDifficulties;
+    }
+
+    public long[] lastReviewDates() {
+        return lastReviewDates;
+    }
+
+    public boolean[] learned() {
+        return learned;
+    }
+
+    public LocalDateTime lastReviewDate(int i) {
+        return fromMicros(lastReviewDates[i]);
+    }
+
+    // same as CardTiming.calculateDueDate
+    public LocalDateTime dueDate(int i) {
+        if (repetitionNumbers[i] == 0) return fromMicros(lastReviewDates[i]);
+        return fromMicros(lastReviewDates[i] + repetitionIntervals[i] * MICROS_PER_DAY);
+    }
+
+    public void load(int i, SchedulingState state, long reviewDate) {
+        state.setRepetitionNumber(repetitionNumbers[i]);
+        state.setEasinessFactor(easinessFactors[i]);
+        state.setRepetitionInterval(repetitionIntervals[i]);
+        state.setStability(stabilities[i]);
+        state.setMemoryDifficulty(memoryDifficulties[i]);
+        state.setElapsedDays(Math.max(0, reviewDate - lastReviewDates[i]) / (double) MICROS_PER_DAY);
+    }
+
+    public void store(int i, SchedulingState state, long reviewDate) {
+        repetitionNumbers[i] = state.getRepetitionNumber();
+        easinessFactors[i] = state.getEasinessFactor();
+        repetitionIntervals[i] = state.getRepetitionInterval();
+        stabilities[i] = state.getStability();
+        memoryDifficulties[i] = state.getMemoryDifficulty();
+        lastReviewDates[i] = reviewDate;
+        learned[i] = true;
+    }
+
+    public static long toMicros(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + dateTime.getNano() / 1_000;
+    }
+
+    public static long daysToMicros(int days) {
+        return days * MICROS_PER_DAY;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(
+                Math.floorDiv(micros, 1_000_000), (int) Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+
+    private void grow() {
+        int capacity = cardIds.length * 2;
+        cardIds = Arrays.copyOf(cardIds, capacity);
+        repetitionNumbers = Arrays.copyOf(repetitionNumbers, capacity);
+        easinessFactors = Arrays.copyOf(easinessFactors, capacity);
+        repetitionIntervals = Arrays.copyOf(repetitionIntervals, capacity);
+        stabilities = Arrays.copyOf(stabilities, capacity);
+        memoryDifficulties = Arrays.copyOf(memoryDifficulties, capacity);
+        lastReviewDates = Arrays.copyOf(lastReviewDates, capacity);
+        learned = Arrays.copyOf(learned, capacity);
+    }
+}
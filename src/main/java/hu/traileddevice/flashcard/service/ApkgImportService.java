@@ -0,0 +1,103 @@
+package hu.traileddevice.flashcard.service;
+
+import hu.traileddevice.flashcard.cardimport.AnkiCardRowReader;
+import hu.traileddevice.flashcard.cardimport.ApkgArchive;
+import hu.traileddevice.flashcard.cardimport.CardImportProgress;
+import hu.traileddevice.flashcard.cardimport.MalformedDatabaseException;
+import hu.traileddevice.flashcard.dto.card.CardImportOutput;
+import hu.traileddevice.flashcard.exception.InvalidUploadException;
+import hu.traileddevice.flashcard.model.ApkgImport;
+import hu.traileddevice.flashcard.repository.ApkgImportRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+/**
+ * Imports the notes of Anki packages (.apkg) as cards, along with their review state, through
+ * {@link CardImportService}. The progress is committed with each chunk of cards, so uploading the same collection to
+ * the same deck again after an interruption resumes the import where it stopped.
+ */
+@Service
+public class ApkgImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ApkgImportService.class);
+
+    private final CardImportService cardImportService;
+    private final ApkgImportRepository apkgImportRepository;
+    private final long maxCollectionSize;
+
+    public ApkgImportService(CardImportService cardImportService, ApkgImportRepository apkgImportRepository,
+                             @Value("${flashcard.apkg-import.max-collection-size:1GB}") DataSize maxCollectionSize) {
+        this.cardImportService = cardImportService;
+        this.apkgImportRepository = apkgImportRepository;
+        this.maxCollectionSize = maxCollectionSize.toBytes();
+    }
+
+    /**
+     * Reads the package and the collection in it before anything of the report is written, so a missing deck or an
+     * invalid upload can still be answered with an error response.
+     */
+    public CardImportOutput importApkg(Long deckId, InputStream upload, OutputStream reportStream)
+            throws IOException {
+        cardImportService.checkDeckExists(deckId);
+
+        ApkgArchive.ExtractedCollection collection;
+        try {
+            collection = ApkgArchive.extractCollection(upload, maxCollectionSize);
+        } catch (IOException e) {
+            throw new InvalidUploadException(e.getMessage());
+        }
+
+        Path path = collection.getPath();
+        String checksum = collection.getChecksum();
+        try {
+            ApkgImport apkgImport = findOrStart(deckId, checksum);
+            if (apkgImport.getHandledNotes() > 0)
+                log.info("Resuming the import of collection {} to deck {} after {} notes",
+                        checksum, deckId, apkgImport.getHandledNotes());
+
+            CardImportOutput cardImportOutput;
+            try (AnkiCardRowReader ankiCardRowReader = openCollection(path, apkgImport.getHandledNotes())) {
+                CardImportProgress progress = (rowsRead, savedCards) -> apkgImportRepository.addProgress(
+                        deckId, checksum, rowsRead, savedCards, LocalDateTime.now());
+                cardImportOutput = cardImportService.importCards(deckId, ankiCardRowReader, reportStream, progress);
+            } catch (MalformedDatabaseException e) { // a note past the ones read when opening the collection
+                throw invalidCollection(e);
+            }
+
+            long handledNotes = cardImportOutput.getSkippedRows() + cardImportOutput.getImportedCards() +
+                    cardImportOutput.getFailedRows();
+            apkgImportRepository.finish(deckId, checksum, handledNotes, LocalDateTime.now());
+            return cardImportOutput;
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    private ApkgImport findOrStart(Long deckId, String checksum) {
+        LocalDateTime now = LocalDateTime.now();
+        return apkgImportRepository.findById(new ApkgImport.ApkgImportId(deckId, checksum))
+                .orElseGet(() -> apkgImportRepository.save(new ApkgImport(deckId, checksum, 0, 0, false, now, now)));
+    }
+
+    private static AnkiCardRowReader openCollection(Path path, long handledNotes) {
+        try {
+            return new AnkiCardRowReader(path, handledNotes);
+        } catch (IOException e) {
+            throw invalidCollection(e);
+        }
+    }
+
+    private static InvalidUploadException invalidCollection(IOException e) {
+        return new InvalidUploadException("The collection of the Anki package cannot be read: " + e.getMessage());
+    }
+}
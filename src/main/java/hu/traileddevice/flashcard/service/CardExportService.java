@@ -0,0 +1,80 @@
+package hu.traileddevice.flashcard.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hu.traileddevice.flashcard.cache.TimingWriteBehind;
+import hu.traileddevice.flashcard.dto.card.CardExportOutput;
+import hu.traileddevice.flashcard.exception.QueriedDataDoesNotExistException;
+import hu.traileddevice.flashcard.model.Card;
+import hu.traileddevice.flashcard.repository.CardRepository;
+import hu.traileddevice.flashcard.repository.DeckRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes all cards of a deck, with their timings, as newline delimited JSON. Cards are read through a cursor and
+ * detached once written, so the memory used does not grow with the size of the deck.
+ */
+@Service
+public class CardExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(CardExportService.class);
+
+    private static final byte NEWLINE = '\n';
+
+    private final CardRepository cardRepository;
+    private final DeckRepository deckRepository;
+    private final TimingWriteBehind timingWriteBehind;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    public CardExportService(CardRepository cardRepository, DeckRepository deckRepository,
+                             TimingWriteBehind timingWriteBehind, EntityManager entityManager,
+                             ObjectMapper objectMapper) {
+        this.cardRepository = cardRepository;
+        this.deckRepository = deckRepository;
+        this.timingWriteBehind = timingWriteBehind;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Writes one {@link CardExportOutput} line for each card of the deck, in the order of their ids. A missing deck
+     * fails before anything is written.
+     *
+     * @return the number of cards written
+     */
+    @Transactional(readOnly = true)
+    public long exportAllOfDeck(Long deckId, OutputStream outputStream) throws IOException {
+        if (!deckRepository.existsById(deckId))
+            throw new QueriedDataDoesNotExistException("No such deck id: " + deckId);
+        long start = System.nanoTime();
+
+        long cards = 0;
+        try (Stream<Card> cardStream = cardRepository.streamAllOfDeck(deckId)) {
+            Iterator<Card> cardIterator = cardStream.iterator();
+            while (cardIterator.hasNext()) {
+                Card card = cardIterator.next();
+                timingWriteBehind.load(card.getCardTiming()); // unflushed reviews are part of the export
+
+                outputStream.write(objectMapper.writeValueAsBytes(new CardExportOutput(card)));
+                outputStream.write(NEWLINE);
+
+                entityManager.detach(card.getCardTiming());
+                entityManager.detach(card);
+                cards++;
+            }
+        }
+        outputStream.flush();
+
+        log.info("Exported {} cards of deck {} in {} ms", cards, deckId, (System.nanoTime() - start) / 1_000_000);
+        return cards;
+    }
+}
@@ -0,0 +1,244 @@
+package hu.traileddevice.flashcard.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hu.traileddevice.flashcard.cache.DueCardCache;
+import hu.traileddevice.flashcard.cardimport.CardImportProgress;
+import hu.traileddevice.flashcard.cardimport.CardImportReport;
+import hu.traileddevice.flashcard.cardimport.CardImportRow;
+import hu.traileddevice.flashcard.cardimport.CardRowReader;
+import hu.traileddevice.flashcard.cardimport.CsvCardRowReader;
+import hu.traileddevice.flashcard.cardimport.NdjsonCardRowReader;
+import hu.traileddevice.flashcard.dto.card.CardCreateInput;
+import hu.traileddevice.flashcard.dto.card.CardImportOutput;
+import hu.traileddevice.flashcard.exception.QueriedDataDoesNotExistException;
+import hu.traileddevice.flashcard.model.Card;
+import hu.traileddevice.flashcard.model.CardTiming;
+import hu.traileddevice.flashcard.repository.CardImportRepository;
+import hu.traileddevice.flashcard.repository.CardRepository;
+import hu.traileddevice.flashcard.repository.DeckRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Imports large numbers of cards to a deck from a stream of rows. Rows are validated like {@link CardCreateInput},
+ * and written in chunks of {@value #CHUNK_SIZE}, each in its own transaction, so neither the upload nor the cards are
+ * held in memory as a whole. Only the front contents are kept, to skip repeated cards.
+ */
+@Service
+public class CardImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(CardImportService.class);
+
+    public static final MediaType TEXT_CSV = MediaType.valueOf("text/csv");
+
+    static final int CHUNK_SIZE = 1000;
+
+    private final DeckRepository deckRepository;
+    private final CardRepository cardRepository;
+    private final CardImportRepository cardImportRepository;
+    private final DeckStatsService deckStatsService;
+    private final DueCardCache dueCardCache;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate chunkTransaction;
+
+    public CardImportService(DeckRepository deckRepository, CardRepository cardRepository,
+                             CardImportRepository cardImportRepository, DeckStatsService deckStatsService,
+                             DueCardCache dueCardCache, Validator validator, ObjectMapper objectMapper,
+                             PlatformTransactionManager transactionManager) {
+        this.deckRepository = deckRepository;
+        this.cardRepository = cardRepository;
+        this.cardImportRepository = cardImportRepository;
+        this.deckStatsService = deckStatsService;
+        this.dueCardCache = dueCardCache;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Fails before anything of the report is written, so a missing deck can still be answered with an error response.
+     */
+    public void checkDeckExists(Long deckId) {
+        if (!deckRepository.existsById(deckId))
+            throw new QueriedDataDoesNotExistException("No such deck id: " + deckId);
+    }
+
+    /**
+     * Same as {@link #importCards(Long, CardRowReader, OutputStream, CardImportProgress)}, reading the upload as CSV
+     * or as newline delimited JSON depending on its content type, without keeping track of the progress.
+     */
+    public CardImportOutput importCards(Long deckId, MediaType contentType, InputStream upload,
+                                        OutputStream reportStream) throws IOException {
+        Charset charset = contentType.getCharset() == null ? StandardCharsets.UTF_8 : contentType.getCharset();
+        Reader reader = new InputStreamReader(upload, charset);
+        CardRowReader cardRowReader = TEXT_CSV.isCompatibleWith(contentType)
+                ? new CsvCardRowReader(reader)
+                : new NdjsonCardRowReader(reader, objectMapper);
+        return importCards(deckId, cardRowReader, reportStream, CardImportProgress.NONE);
+    }
+
+    /**
+     * Imports the rows as cards of the deck, new ones unless a row brings its review state along, and writes the
+     * failed rows and then the summary to the report as they come. The chunks written before a failure stay imported,
+     * and the progress is told about each of them.
+     */
+    public CardImportOutput importCards(Long deckId, CardRowReader cardRowReader, OutputStream reportStream,
+                                        CardImportProgress progress) throws IOException {
+        checkDeckExists(deckId);
+        long start = System.nanoTime();
+
+        Import cardImport = new Import(deckId, new CardImportReport(reportStream, objectMapper), progress);
+        CardImportRow row;
+        while ((row = cardRowReader.next()) != null) {
+            cardImport.add(row);
+        }
+        cardImport.saveChunk();
+
+        CardImportOutput cardImportOutput = new CardImportOutput(deckId, cardImport.importedCards,
+                cardImport.failedRows, cardRowReader.skippedRows());
+        cardImport.report.finished(cardImportOutput);
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        log.info("Imported {} cards to deck {} in {} ms, {} rows failed",
+                cardImport.importedCards, deckId, elapsedMillis, cardImport.failedRows);
+        return cardImportOutput;
+    }
+
+    private List<String> validate(CardImportRow row) {
+        if (!row.isParsed()) return List.of(row.getParseError());
+        return validator.validate(row.getCard()).stream()
+                .map(CardImportService::toError)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    private static String toError(ConstraintViolation<CardCreateInput> violation) {
+        return violation.getPropertyPath() + ": " + violation.getMessage();
+    }
+
+    // blocks of ids follow the pooled optimizer of Hibernate: a sequence value is the highest id of its block
+    private long[] allocateIds(int cards) {
+        int blocks = (cards + Card.ID_ALLOCATION_SIZE - 1) / Card.ID_ALLOCATION_SIZE;
+        long[] ids = new long[cards];
+        int i = 0;
+        for (Number blockEnd : cardRepository.allocateIdBlocks(blocks)) {
+            long firstId = blockEnd.longValue() - Card.ID_ALLOCATION_SIZE + 1;
+            for (long id = firstId; id <= blockEnd.longValue() && i < cards; id++) {
+                ids[i++] = id;
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * State of one import, collecting valid rows until a chunk is full.
+     */
+    private final class Import {
+
+        private final Long deckId;
+        private final CardImportReport report;
+        private final CardImportProgress progress;
+        private final Set<Long> frontContentHashes = new HashSet<>();
+        private final List<CardImportRow> chunk = new ArrayList<>(CHUNK_SIZE);
+
+        private long rowsRead;
+        private long importedCards;
+        private long failedRows;
+
+        Import(Long deckId, CardImportReport report, CardImportProgress progress) {
+            this.deckId = deckId;
+            this.report = report;
+            this.progress = progress;
+        }
+
+        void add(CardImportRow row) throws IOException {
+            rowsRead = row.getRow();
+            List<String> errors = validate(row);
+            if (errors.isEmpty() && !frontContentHashes.add(Card.hashFrontContent(row.getCard().getFrontContent())))
+                errors = List.of("Front content is repeated in the import");
+            if (!errors.isEmpty()) {
+                rowFailed(row, errors);
+                return;
+            }
+
+            chunk.add(row);
+            if (chunk.size() == CHUNK_SIZE) saveChunk();
+        }
+
+        void saveChunk() throws IOException {
+            if (chunk.isEmpty()) return;
+
+            List<CardImportRow> duplicates = new ArrayList<>();
+            try {
+                Integer savedCards = chunkTransaction.execute(status -> {
+                    List<Long> frontContentHashes = chunk.stream()
+                            .map(row -> Card.hashFrontContent(row.getCard().getFrontContent()))
+                            .collect(Collectors.toList());
+                    Set<Long> existingFrontContentHashes =
+                            cardRepository.findExistingFrontContentHashes(deckId, frontContentHashes);
+                    LocalDateTime now = LocalDateTime.now();
+                    List<CardCreateInput> cards = new ArrayList<>(chunk.size());
+                    List<CardTiming> cardTimings = new ArrayList<>(chunk.size());
+                    for (int i = 0; i < chunk.size(); i++) {
+                        CardImportRow row = chunk.get(i);
+                        if (existingFrontContentHashes.contains(frontContentHashes.get(i))) {
+                            duplicates.add(row);
+                            continue;
+                        }
+                        cards.add(row.getCard());
+                        cardTimings.add(row.getCardTiming() == null
+                                ? new CardTiming(deckId, now)
+                                : row.getCardTiming());
+                    }
+
+                    if (!cards.isEmpty()) {
+                        long[] ids = allocateIds(cards.size());
+                        for (int i = 0; i < cardTimings.size(); i++) {
+                            CardTiming cardTiming = cardTimings.get(i);
+                            cardTiming.setId(ids[i]);
+                            cardTiming.setDeckId(deckId);
+                            cardTiming.setDueDate(cardTiming.calculateDueDate());
+                        }
+                        cardImportRepository.insertAll(cards, cardTimings);
+                        deckStatsService.cardsAdded(cardTimings);
+                        dueCardCache.evictDeck(deckId);
+                    }
+                    progress.chunkSaved(rowsRead, cards.size());
+                    return cards.size();
+                });
+                importedCards += savedCards == null ? 0 : savedCards;
+                for (CardImportRow row : duplicates) {
+                    rowFailed(row, List.of("Front content already exists!"));
+                }
+            } catch (DataAccessException e) {
+                log.error("Failed to import {} cards to deck {}: {}", chunk.size(), deckId, e.getMessage());
+                for (CardImportRow row : chunk) {
+                    rowFailed(row, List.of("Card could not be saved"));
+                }
+            }
+
+            chunk.clear();
+            report.flush();
+        }
+
+        private void rowFailed(CardImportRow row, List<String> errors) throws IOException {
+            failedRows++;
+            report.rowFailed(row.getRow(), errors);
+        }
+    }
+}
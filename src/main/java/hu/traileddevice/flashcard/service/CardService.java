@@ -1,9 +1,12 @@
 package hu.traileddevice.flashcard.service;
 
+import hu.traileddevice.flashcard.cache.DueCardCache;
+import hu.traileddevice.flashcard.cache.TimingWriteBehind;
+import hu.traileddevice.flashcard.dto.KeysetPage;
 import hu.traileddevice.flashcard.dto.card.CardCreateInput;
 import hu.traileddevice.flashcard.dto.card.CardOutput;
+import hu.traileddevice.flashcard.dto.card.CardSearchOutput;
 import hu.traileddevice.flashcard.dto.card.CardUpdateInput;
-import hu.traileddevice.flashcard.exception.DuplicateFrontContentException;
 import hu.traileddevice.flashcard.exception.QueriedDataDoesNotExistException;
 import hu.traileddevice.flashcard.model.Card;
 import hu.traileddevice.flashcard.model.CardTiming;
@@ -11,11 +14,11 @@ import hu.traileddevice.flashcard.model.Deck;
 import hu.traileddevice.flashcard.repository.CardRepository;
 import hu.traileddevice.flashcard.repository.CardTimingRepository;
 import hu.traileddevice.flashcard.repository.DeckRepository;
+import hu.traileddevice.flashcard.repository.UserRepository;
 import org.modelmapper.ModelMapper;
-import org.modelmapper.TypeToken;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
 import java.util.Optional;
 
 @Service
@@ -24,20 +27,33 @@ public class CardService {
     private final CardRepository cardRepository;
     private final CardTimingRepository cardTimingRepository;
     private final DeckRepository deckRepository;
+    private final UserRepository userRepository;
     private final ModelMapper modelMapper;
+    private final DueCardCache dueCardCache;
+    private final DeckStatsService deckStatsService;
+    private final TimingWriteBehind timingWriteBehind;
 
     public CardService(CardRepository cardRepository, CardTimingRepository cardTimingRepository,
-                       DeckRepository deckRepository, ModelMapper modelMapper) {
+                       DeckRepository deckRepository, UserRepository userRepository, ModelMapper modelMapper,
+                       DueCardCache dueCardCache, DeckStatsService deckStatsService,
+                       TimingWriteBehind timingWriteBehind) {
         this.cardRepository = cardRepository;
         this.cardTimingRepository = cardTimingRepository;
         this.deckRepository = deckRepository;
+        this.userRepository = userRepository;
         this.modelMapper = modelMapper;
+        this.dueCardCache = dueCardCache;
+        this.deckStatsService = deckStatsService;
+        this.timingWriteBehind = timingWriteBehind;
     }
 
-    public List<CardOutput> findAll() {
-        return modelMapper.map(cardRepository.findAll(), new TypeToken<List<CardOutput>>() {}.getType());
+    @Transactional(readOnly = true)
+    public KeysetPage<CardOutput> findAll(Long after, int limit) {
+        return KeysetPage.of(cardRepository.findOutputsAfter(KeysetPage.after(after), KeysetPage.request(limit)),
+                limit, CardOutput::getId);
     }
 
+    @Transactional
     public CardOutput save(Long deckId, CardCreateInput cardCreateInput) {
 
         Card cardToSave = modelMapper.map(cardCreateInput, Card.class);
@@ -49,23 +65,27 @@ public class CardService {
         existingDeck.addCard(cardToSave);
         cardToSave.setDeck(existingDeck);
 
-        Optional<Card> duplicateFrontContent = cardRepository.findByFrontContent(cardToSave.getFrontContent());
-        if (duplicateFrontContent.isPresent())
-            throw new DuplicateFrontContentException("Front content already exists!");
-
-        cardToSave = cardRepository.save(cardToSave);
+        // flushed, so a front content already in the deck fails on the unique constraint before the caches change
+        cardToSave = cardRepository.saveAndFlush(cardToSave);
 
         CardTiming cardTiming = cardTimingRepository.save(new CardTiming(cardToSave));
         cardToSave.setCardTiming(cardTiming);
+        dueCardCache.put(cardTiming);
+        deckStatsService.cardAdded(cardTiming);
 
         return modelMapper.map(cardToSave, CardOutput.class);
     }
 
+    @Transactional
     public CardOutput update(Long id, CardUpdateInput cardUpdateInput) {
         Optional<Card> optionalCard = cardRepository.findById(id);
         if (optionalCard.isEmpty()) throw new QueriedDataDoesNotExistException("No such card id: " + id);
 
         Card cardToUpdate = optionalCard.get();
+        Long oldDeckId = cardToUpdate.getDeck().getId();
+        timingWriteBehind.takeOver(cardToUpdate.getCardTiming());
+        DeckStatsService.CardState previousState = deckStatsService.snapshot(cardToUpdate.getCardTiming());
+
         if (cardUpdateInput.getFrontContent() != null) cardToUpdate.setFrontContent(cardUpdateInput.getFrontContent());
         if (cardUpdateInput.getBackContent() != null) cardToUpdate.setBackContent(cardUpdateInput.getBackContent());
 
@@ -80,30 +100,60 @@ public class CardService {
             newDeck.addCard(cardToUpdate);
 
             cardToUpdate.setDeck(newDeck);
+            cardToUpdate.getCardTiming().setDeckId(newDeck.getId()); // keep the due card index in sync
         }
 
-        Optional<Card> duplicateFrontContent = cardRepository.findByFrontContent(cardToUpdate.getFrontContent());
-        if (duplicateFrontContent.isPresent())
-            throw new DuplicateFrontContentException("Front content already exists!");
+        Card updatedCard = cardRepository.saveAndFlush(cardToUpdate); // see save, flushes the managed timing as well
+        CardTiming updatedCardTiming = updatedCard.getCardTiming();
+        if (!oldDeckId.equals(updatedCardTiming.getDeckId())) {
+            dueCardCache.remove(oldDeckId, id);
+            deckStatsService.cardRemoved(previousState);
+            deckStatsService.cardAdded(updatedCardTiming);
+        }
+        dueCardCache.put(updatedCardTiming);
 
-        return modelMapper.map(cardRepository.save(cardToUpdate), CardOutput.class);
+        return modelMapper.map(updatedCard, CardOutput.class);
     }
 
+    @Transactional(readOnly = true)
     public CardOutput findById(Long id) {
-        Optional<Card> optionalCard = cardRepository.findById(id);
+        Optional<CardOutput> optionalCard = cardRepository.findOutputById(id);
         if (optionalCard.isEmpty()) throw new QueriedDataDoesNotExistException("No such card id: " + id);
-        return modelMapper.map(optionalCard.get(), CardOutput.class);
+        return optionalCard.get();
     }
 
+    @Transactional
     public void deleteById(Long id) {
         Optional<Card> optionalCard = cardRepository.findById(id);
         if (optionalCard.isEmpty()) throw new QueriedDataDoesNotExistException("No such card id: " + id);
+        timingWriteBehind.takeOver(optionalCard.get().getCardTiming());
+        DeckStatsService.CardState previousState = deckStatsService.snapshot(optionalCard.get().getCardTiming());
         cardRepository.deleteById(id);
+        deckStatsService.cardRemoved(previousState);
+        dueCardCache.remove(optionalCard.get().getDeck().getId(), id);
+    }
+
+    @Transactional(readOnly = true)
+    public KeysetPage<CardSearchOutput> search(Long userId, String query, Float afterRank, Long after, int limit) {
+        // the first page starts before every rank, which are all finite
+        float rankBefore = afterRank == null ? Float.MAX_VALUE : afterRank;
+        KeysetPage<CardSearchOutput> page = KeysetPage.of(
+                cardRepository.search(userId, query, rankBefore, KeysetPage.after(after), KeysetPage.request(limit)),
+                limit, CardSearchOutput::getId);
+        // the user is only looked up when nothing matches
+        if (page.getContent().isEmpty() && !userRepository.existsById(userId))
+            throw new QueriedDataDoesNotExistException("No such user id: " + userId);
+        return page;
     }
 
-    public List<CardOutput> findAllOfDeck(Long deckId) {
-        List<Card> allByDeckId = cardRepository.findAllByDeckId(deckId);
-        if (allByDeckId.isEmpty()) throw new QueriedDataDoesNotExistException("Deck does not exist or is empty.");
-        return modelMapper.map(allByDeckId, new TypeToken<List<CardOutput>>() {}.getType());
+    @Transactional(readOnly = true)
+    public KeysetPage<CardOutput> findAllOfDeck(Long deckId, Long after, int limit) {
+        KeysetPage<CardOutput> page = KeysetPage.of(
+                cardRepository.findOutputsOfDeckAfter(deckId, KeysetPage.after(after), KeysetPage.request(limit)),
+                limit, CardOutput::getId);
+        // only the first page tells that there are no cards, a later one may just be past the last card
+        if (after == null && page.getContent().isEmpty())
+            throw new QueriedDataDoesNotExistException("Deck does not exist or is empty.");
+        return page;
     }
 }
@@ -1,18 +1,23 @@
 package hu.traileddevice.flashcard.service;
 
+import hu.traileddevice.flashcard.cache.DailyLimitCounters;
+import hu.traileddevice.flashcard.cache.DueCardCache;
+import hu.traileddevice.flashcard.dto.KeysetPage;
 import hu.traileddevice.flashcard.dto.deck.DeckCreateInput;
 import hu.traileddevice.flashcard.dto.deck.DeckOutput;
 import hu.traileddevice.flashcard.dto.deck.DeckUpdateInput;
 import hu.traileddevice.flashcard.exception.QueriedDataDoesNotExistException;
 import hu.traileddevice.flashcard.model.Deck;
+import hu.traileddevice.flashcard.model.SchedulingAlgorithm;
 import hu.traileddevice.flashcard.model.User;
+import hu.traileddevice.flashcard.repository.CardRepository;
 import hu.traileddevice.flashcard.repository.DeckRepository;
 import hu.traileddevice.flashcard.repository.UserRepository;
 import org.modelmapper.ModelMapper;
-import org.modelmapper.TypeToken;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
 import java.util.Optional;
 
 @Service
@@ -20,20 +25,37 @@ public class DeckService {
 
     private final DeckRepository deckRepository;
     private final UserRepository userRepository;
+    private final CardRepository cardRepository;
     private final ModelMapper modelMapper;
+    private final DueCardCache dueCardCache;
+    private final DeckStatsService deckStatsService;
+    private final DailyLimitCounters dailyLimitCounters;
 
-    public DeckService(DeckRepository deckRepository, UserRepository userRepository, ModelMapper modelMapper) {
+    public DeckService(DeckRepository deckRepository, UserRepository userRepository, CardRepository cardRepository,
+                       ModelMapper modelMapper, DueCardCache dueCardCache, DeckStatsService deckStatsService,
+                       DailyLimitCounters dailyLimitCounters) {
         this.deckRepository = deckRepository;
         this.userRepository = userRepository;
+        this.cardRepository = cardRepository;
         this.modelMapper = modelMapper;
+        this.dueCardCache = dueCardCache;
+        this.deckStatsService = deckStatsService;
+        this.dailyLimitCounters = dailyLimitCounters;
     }
 
-    public List<DeckOutput> findAll() {
-        return modelMapper.map(deckRepository.findAll(), new TypeToken<List<DeckOutput>>() {}.getType());
+    @Transactional(readOnly = true)
+    public KeysetPage<DeckOutput> findAll(Long after, int limit) {
+        return KeysetPage.of(
+                deckRepository.findOutputsAfter(KeysetPage.after(after), KeysetPage.request(limit)), limit,
+                DeckOutput::getId);
     }
 
+    @Transactional
     public DeckOutput save(Long userId, DeckCreateInput deckCreateInput) {
         Deck deckToSave = modelMapper.map(deckCreateInput, Deck.class);
+        if (deckToSave.getSchedulingAlgorithm() == null) deckToSave.setSchedulingAlgorithm(SchedulingAlgorithm.SM2);
+        if (deckCreateInput.getNewCardsPerDay() == null) deckToSave.setNewCardsPerDay(Deck.DEFAULT_NEW_CARDS_PER_DAY);
+        if (deckCreateInput.getReviewsPerDay() == null) deckToSave.setReviewsPerDay(Deck.DEFAULT_REVIEWS_PER_DAY);
 
         Optional<User> optionalUser = userRepository.findById(userId);
         if (optionalUser.isEmpty()) throw new QueriedDataDoesNotExistException("No such user id: " + userId);
@@ -42,15 +64,25 @@ public class DeckService {
         existingUser.addDeck(deckToSave);
         deckToSave.setUser(existingUser);
 
-        return modelMapper.map(deckRepository.save(deckToSave), DeckOutput.class);
+        Deck savedDeck = deckRepository.save(deckToSave);
+        deckStatsService.deckCreated(savedDeck.getId());
+        dailyLimitCounters.deckCreated(savedDeck.getId());
+
+        return modelMapper.map(savedDeck, DeckOutput.class);
     }
 
     public DeckOutput update(Long id, DeckUpdateInput deckUpdateInput) {
-        Optional<Deck> optionalDeck = deckRepository.findById(id);
+        Optional<Deck> optionalDeck = deckRepository.findWithCardsById(id);
         if (optionalDeck.isEmpty()) throw new QueriedDataDoesNotExistException("No such deck id: " + id);
 
         Deck deckToUpdate = optionalDeck.get();
         if (deckUpdateInput.getName() != null) deckToUpdate.setName(deckUpdateInput.getName());
+        if (deckUpdateInput.getSchedulingAlgorithm() != null)
+            deckToUpdate.setSchedulingAlgorithm(deckUpdateInput.getSchedulingAlgorithm());
+        if (deckUpdateInput.getNewCardsPerDay() != null)
+            deckToUpdate.setNewCardsPerDay(deckUpdateInput.getNewCardsPerDay());
+        if (deckUpdateInput.getReviewsPerDay() != null)
+            deckToUpdate.setReviewsPerDay(deckUpdateInput.getReviewsPerDay());
 
         Long newUserId = deckUpdateInput.getUserId();
         if (newUserId != null && !newUserId.equals(deckToUpdate.getUser().getId())) {
@@ -65,24 +97,38 @@ public class DeckService {
             deckToUpdate.setUser(newUser);
         }
 
-        return modelMapper.map(deckRepository.save(deckToUpdate), DeckOutput.class);
+        Deck savedDeck = deckRepository.save(deckToUpdate);
+        if (deckUpdateInput.getNewCardsPerDay() != null || deckUpdateInput.getReviewsPerDay() != null)
+            dailyLimitCounters.limitsChanged(id, savedDeck.getNewCardsPerDay(), savedDeck.getReviewsPerDay());
+
+        return modelMapper.map(savedDeck, DeckOutput.class);
     }
 
+    @Transactional(readOnly = true)
     public DeckOutput findById(Long id) {
-        Optional<Deck> optionalDeck = deckRepository.findById(id);
+        Optional<DeckOutput> optionalDeck = deckRepository.findOutputById(id);
         if (optionalDeck.isEmpty()) throw new QueriedDataDoesNotExistException("No such deck id: " + id);
-        return modelMapper.map(optionalDeck.get(), DeckOutput.class);
+        DeckOutput deck = optionalDeck.get();
+        deck.setCards(cardRepository.findOutputsOfDeckAfter(id, KeysetPage.after(null),
+                PageRequest.of(0, DeckOutput.EMBEDDED_CARDS)));
+        return deck;
     }
 
     public void deleteById(Long id) {
         Optional<Deck> optionalDeck = deckRepository.findById(id);
         if (optionalDeck.isEmpty()) throw new QueriedDataDoesNotExistException("No such deck id: " + id);
         deckRepository.deleteById(id);
+        dueCardCache.evictDeck(id);
     }
 
-    public List<DeckOutput> findAllOfUser(Long userId) {
-        List<Deck> allByUserId = deckRepository.findAllByUserId(userId);
-        if (allByUserId.isEmpty()) throw new QueriedDataDoesNotExistException("User does not exist or has no decks.");
-        return modelMapper.map(allByUserId, new TypeToken<List<DeckOutput>>() {}.getType());
+    @Transactional(readOnly = true)
+    public KeysetPage<DeckOutput> findAllOfUser(Long userId, Long after, int limit) {
+        KeysetPage<DeckOutput> page = KeysetPage.of(
+                deckRepository.findOutputsOfUserAfter(userId, KeysetPage.after(after), KeysetPage.request(limit)),
+                limit, DeckOutput::getId);
+        // only the first page tells that there are no decks, a later one may just be past the last deck
+        if (after == null && page.getContent().isEmpty())
+            throw new QueriedDataDoesNotExistException("User does not exist or has no decks.");
+        return page;
     }
 }
@@ -0,0 +1,247 @@
+package hu.traileddevice.flashcard.service;
+
+import hu.traileddevice.flashcard.dto.deck.DeckStatsOutput;
+import hu.traileddevice.flashcard.dto.learn.ForecastDayOutput;
+import hu.traileddevice.flashcard.dto.learn.ForecastOutput;
+import hu.traileddevice.flashcard.exception.QueriedDataDoesNotExistException;
+import hu.traileddevice.flashcard.model.CardTiming;
+import hu.traileddevice.flashcard.model.DeckStats;
+import hu.traileddevice.flashcard.repository.DeckDueDayRepository;
+import hu.traileddevice.flashcard.repository.DeckStatsRepository;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Maintains the card counters of decks incrementally: every change of a card or its timing is applied as a delta,
+ * so reading the counters never needs to count the cards themselves. The number of due cards is derived from the
+ * number of learned cards becoming due on each day, as it changes with time even if no card does. The overdue cards
+ * of a deck are kept on a single day, yesterday, so the counters of past days do not pile up.
+ */
+@Service
+public class DeckStatsService {
+
+    private final DeckStatsRepository deckStatsRepository;
+    private final DeckDueDayRepository deckDueDayRepository;
+
+    public DeckStatsService(DeckStatsRepository deckStatsRepository, DeckDueDayRepository deckDueDayRepository) {
+        this.deckStatsRepository = deckStatsRepository;
+        this.deckDueDayRepository = deckDueDayRepository;
+    }
+
+    public DeckStatsOutput findByDeckId(Long deckId) {
+        Optional<DeckStatsOutput> optionalDeckStats = deckStatsRepository.findStatsOfDeck(deckId, LocalDate.now());
+        if (optionalDeckStats.isEmpty()) throw new QueriedDataDoesNotExistException("No such deck id: " + deckId);
+        return optionalDeckStats.get();
+    }
+
+    public List<DeckStatsOutput> findAllOfUser(Long userId) {
+        List<DeckStatsOutput> allByUserId = deckStatsRepository.findStatsOfUser(userId, LocalDate.now());
+        if (allByUserId.isEmpty()) throw new QueriedDataDoesNotExistException("User does not exist or has no decks.");
+        return allByUserId;
+    }
+
+    /**
+     * Number of learned cards of a deck becoming due on each of the next days, read from the per day counters.
+     */
+    public ForecastOutput forecastOfDeck(Long deckId, int days) {
+        Optional<DeckStats> optionalDeckStats = deckStatsRepository.findById(deckId);
+        if (optionalDeckStats.isEmpty()) throw new QueriedDataDoesNotExistException("No such deck id: " + deckId);
+
+        LocalDate today = LocalDate.now();
+        ForecastOutput forecastOutput = new ForecastOutput();
+        forecastOutput.setDeckId(deckId);
+        forecastOutput.setNewCards(optionalDeckStats.get().getNewCards());
+        forecastOutput.setDays(toForecastDays(
+                deckDueDayRepository.findCountsOfDeckUntil(deckId, today.plusDays(days)), today, days));
+        return forecastOutput;
+    }
+
+    /**
+     * Same as {@link #forecastOfDeck(Long, int)}, summed up over all decks of a user.
+     */
+    public ForecastOutput forecastOfUser(Long userId, int days) {
+        Long newCards = deckStatsRepository.sumNewCardsOfUser(userId);
+        if (newCards == null) throw new QueriedDataDoesNotExistException("User does not exist or has no decks.");
+
+        LocalDate today = LocalDate.now();
+        ForecastOutput forecastOutput = new ForecastOutput();
+        forecastOutput.setUserId(userId);
+        forecastOutput.setNewCards(newCards.intValue());
+        forecastOutput.setDays(toForecastDays(
+                deckDueDayRepository.findCountsOfUserUntil(userId, today.plusDays(days)), today, days));
+        return forecastOutput;
+    }
+
+    public void deckCreated(Long deckId) {
+        deckStatsRepository.save(new DeckStats(deckId, 0, 0));
+    }
+
+    /**
+     * Counts the cards of a deck from scratch, for changes that bypass the incremental updates (e.g. bulk updates).
+     */
+    public void recount(Long deckId) {
+        deckStatsRepository.recount(deckId);
+        deckDueDayRepository.deleteAllOfDeck(deckId);
+        deckDueDayRepository.insertCountsOfDeck(deckId);
+    }
+
+    /**
+     * Adds the overdue cards counted on the days before yesterday to yesterday, and deletes those days. Changes only
+     * ever count overdue cards on yesterday, so the days being deleted are not written concurrently.
+     */
+    @Scheduled(cron = "${flashcard.deck-stats.compact-cron:0 5 0 * * *}")
+    @Transactional
+    public void compactPastDays() {
+        LocalDate overdueDay = LocalDate.now().minusDays(1);
+        deckDueDayRepository.foldCardsBefore(overdueDay);
+        deckDueDayRepository.deleteAllBefore(overdueDay);
+    }
+
+    /**
+     * Captures the state of a timing that matters for the counters, to be passed to {@link #cardRemoved(CardState)}
+     * or {@link #timingsChanged(Map, Collection)} after the timing is modified.
+     */
+    public CardState snapshot(CardTiming cardTiming) {
+        return CardState.of(cardTiming);
+    }
+
+    public void cardAdded(CardTiming cardTiming) {
+        cardsAdded(List.of(cardTiming));
+    }
+
+    /**
+     * Counts cards inserted in bulk, with one statement per affected deck and due day.
+     */
+    public void cardsAdded(Collection<CardTiming> cardTimings) {
+        Deltas deltas = new Deltas();
+        for (CardTiming cardTiming : cardTimings) {
+            deltas.add(CardState.of(cardTiming), 1, 1);
+        }
+        deltas.apply();
+    }
+
+    public void cardRemoved(CardState cardState) {
+        Deltas deltas = new Deltas();
+        deltas.add(cardState, -1, -1);
+        deltas.apply();
+    }
+
+    public void timingChanged(CardState before, CardTiming after) {
+        timingsChanged(Map.of(after.getId(), before), List.of(after));
+    }
+
+    /**
+     * Applies the changes of several timings at once, with one statement per affected deck and due day.
+     *
+     * @param before the state of the timings before the change, by card id
+     * @param after  the changed timings
+     */
+    public void timingsChanged(Map<Long, CardState> before, Collection<CardTiming> after) {
+        deltasOf(before, after).apply();
+    }
+
+    /**
+     * Same as {@link #timingsChanged(Map, Collection)}, but the changes are only collected, to be applied later.
+     */
+    public Deltas deltasOf(Map<Long, CardState> before, Collection<CardTiming> after) {
+        Deltas deltas = new Deltas();
+        for (CardTiming cardTiming : after) {
+            deltas.add(before.get(cardTiming.getId()), -1, 0);
+            deltas.add(CardState.of(cardTiming), 1, 0);
+        }
+        return deltas;
+    }
+
+    // one entry for each day, with the overdue cards added to today
+    private static List<ForecastDayOutput> toForecastDays(List<ForecastDayOutput> counts, LocalDate today, int days) {
+        long[] dueCards = new long[days];
+        for (ForecastDayOutput count : counts) {
+            int day = (int) Math.max(0, today.until(count.getDay(), ChronoUnit.DAYS));
+            dueCards[day] += count.getDueCards();
+        }
+
+        List<ForecastDayOutput> forecastDays = new ArrayList<>(days);
+        for (int day = 0; day < days; day++) {
+            forecastDays.add(new ForecastDayOutput(today.plusDays(day), dueCards[day]));
+        }
+        return forecastDays;
+    }
+
+    @AllArgsConstructor
+    public static final class CardState {
+
+        private final Long deckId;
+        private final boolean isNew;
+        private final LocalDate dueDay;
+
+        static CardState of(CardTiming cardTiming) {
+            return new CardState(cardTiming.getDeckId(), cardTiming.isNew(),
+                    cardTiming.calculateDueDate().toLocalDate());
+        }
+    }
+
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static final class DeckDay {
+        private final Long deckId;
+        private final LocalDate dueDay;
+    }
+
+    /**
+     * Changes of the counters, summed up per deck and due day.
+     */
+    public final class Deltas {
+
+        private final Map<Long, int[]> deckDeltas = new LinkedHashMap<>(); // total and new cards
+        private final Map<DeckDay, Integer> dueDayDeltas = new LinkedHashMap<>();
+        private final LocalDate overdueDay = LocalDate.now().minusDays(1); // see compactPastDays
+
+        void add(CardState cardState, int sign, int totalSign) {
+            int[] deckDelta = deckDeltas.computeIfAbsent(cardState.deckId, deckId -> new int[2]);
+            deckDelta[0] += totalSign;
+            if (cardState.isNew) {
+                deckDelta[1] += sign;
+                return;
+            }
+            LocalDate dueDay = cardState.dueDay.isBefore(overdueDay) ? overdueDay : cardState.dueDay;
+            dueDayDeltas.merge(new DeckDay(cardState.deckId, dueDay), sign, Integer::sum);
+        }
+
+        public void addAll(Deltas other) {
+            other.deckDeltas.forEach((deckId, deckDelta) -> {
+                int[] sum = deckDeltas.computeIfAbsent(deckId, key -> new int[2]);
+                sum[0] += deckDelta[0];
+                sum[1] += deckDelta[1];
+            });
+            other.dueDayDeltas.forEach((deckDay, cards) -> dueDayDeltas.merge(deckDay, cards, Integer::sum));
+        }
+
+        public Set<Long> deckIds() {
+            return new HashSet<>(deckDeltas.keySet());
+        }
+
+        // drops the changes of decks deleted in the meantime
+        public void retainDecks(Collection<Long> deckIds) {
+            deckDeltas.keySet().retainAll(deckIds);
+            dueDayDeltas.keySet().removeIf(deckDay -> !deckIds.contains(deckDay.deckId));
+        }
+
+        // with one statement per affected deck and due day
+        public void apply() {
+            deckDeltas.forEach((deckId, deckDelta) -> {
+                if (deckDelta[0] != 0 || deckDelta[1] != 0)
+                    deckStatsRepository.addCards(deckId, deckDelta[0], deckDelta[1]);
+            });
+            dueDayDeltas.forEach((deckDay, cards) -> {
+                if (cards != 0) deckDueDayRepository.addCards(deckDay.deckId, deckDay.dueDay, cards);
+            });
+        }
+    }
+}
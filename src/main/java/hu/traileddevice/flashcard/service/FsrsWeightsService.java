@@ -0,0 +1,80 @@
+package hu.traileddevice.flashcard.service;
+
+import hu.traileddevice.flashcard.model.UserFsrsWeights;
+import hu.traileddevice.flashcard.repository.UserFsrsWeightsRepository;
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the FSRS weights fitted to users. Weights are read on every FSRS review, so they are cached per user,
+ * including the absence of fitted weights. The cache holds the {@code maxUsers} most recently reviewing users, and
+ * reads the weights of a user again after {@code timeToLive}, so weights fitted by another instance take effect.
+ */
+@Service
+public class FsrsWeightsService {
+
+    private static final double[] DEFAULT_WEIGHTS = new double[0]; // marks users without fitted weights in the cache
+
+    private final UserFsrsWeightsRepository userFsrsWeightsRepository;
+
+    private final Duration timeToLive;
+    private final Map<Long, CachedWeights> weightsByUserId;
+
+    public FsrsWeightsService(UserFsrsWeightsRepository userFsrsWeightsRepository,
+                              @Value("${flashcard.fsrs-weights.cache-ttl:10m}") Duration timeToLive,
+                              @Value("${flashcard.fsrs-weights.cache-max-users:10000}") int maxUsers) {
+        this.userFsrsWeightsRepository = userFsrsWeightsRepository;
+        this.timeToLive = timeToLive;
+        this.weightsByUserId = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedWeights> eldest) {
+                return size() > maxUsers;
+            }
+        });
+    }
+
+    /**
+     * @return the weights fitted to the user, or null if the default weights apply
+     */
+    public double[] findWeightsOfUser(Long userId) {
+        Instant now = Instant.now();
+        CachedWeights cachedWeights = weightsByUserId.get(userId);
+        if (cachedWeights == null || cachedWeights.expiresAt.isBefore(now)) { // read outside the lock of the cache
+            double[] weights = userFsrsWeightsRepository.findById(userId)
+                    .map(userFsrsWeights -> parse(userFsrsWeights.getWeights()))
+                    .orElse(DEFAULT_WEIGHTS);
+            cachedWeights = new CachedWeights(weights, now.plus(timeToLive));
+            weightsByUserId.put(userId, cachedWeights);
+        }
+        return cachedWeights.weights == DEFAULT_WEIGHTS ? null : cachedWeights.weights;
+    }
+
+    public void store(Long userId, double[] weights, int reviews, double logLoss) {
+        userFsrsWeightsRepository.save(new UserFsrsWeights(userId, format(weights), reviews, logLoss, LocalDateTime.now()));
+        weightsByUserId.put(userId, new CachedWeights(weights.clone(), Instant.now().plus(timeToLive)));
+    }
+
+    private static String format(double[] weights) {
+        return Arrays.stream(weights).mapToObj(Double::toString).collect(Collectors.joining(","));
+    }
+
+    private static double[] parse(String weights) {
+        return Arrays.stream(weights.split(",")).mapToDouble(Double::parseDouble).toArray();
+    }
+
+    @AllArgsConstructor
+    private static final class CachedWeights {
+        private final double[] weights;
+        private final Instant expiresAt;
+    }
+}
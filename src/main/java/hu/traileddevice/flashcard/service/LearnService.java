@@ -1,41 +1,152 @@
 package hu.traileddevice.flashcard.service;
 
+import hu.traileddevice.flashcard.cache.DailyAllowance;
+import hu.traileddevice.flashcard.cache.DailyLimitCounters;
+import hu.traileddevice.flashcard.cache.DueCard;
+import hu.traileddevice.flashcard.cache.DueCardCache;
+import hu.traileddevice.flashcard.cache.TimingWriteBehind;
 import hu.traileddevice.flashcard.dto.card.CardOutput;
 import hu.traileddevice.flashcard.dto.learn.AnswerOutput;
+import hu.traileddevice.flashcard.dto.learn.NextCardOutput;
 import hu.traileddevice.flashcard.dto.learn.QuestionOutput;
+import hu.traileddevice.flashcard.dto.learn.ReviewInput;
+import hu.traileddevice.flashcard.dto.learn.ReviewStepOutput;
 import hu.traileddevice.flashcard.exception.QueriedDataDoesNotExistException;
 import hu.traileddevice.flashcard.model.Card;
 import hu.traileddevice.flashcard.model.CardTiming;
+import hu.traileddevice.flashcard.model.Deck;
 import hu.traileddevice.flashcard.model.Difficulty;
+import hu.traileddevice.flashcard.model.SchedulingAlgorithm;
 import hu.traileddevice.flashcard.repository.CardRepository;
 import hu.traileddevice.flashcard.repository.CardTimingRepository;
+import hu.traileddevice.flashcard.repository.DeckRepository;
+import hu.traileddevice.flashcard.reviewlog.ReviewLogEntry;
+import hu.traileddevice.flashcard.reviewlog.ReviewLogWriter;
+import hu.traileddevice.flashcard.scheduler.SchedulerRegistry;
+import hu.traileddevice.flashcard.scheduler.SchedulingState;
 import org.modelmapper.ModelMapper;
+import org.modelmapper.TypeToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class LearnService {
 
+    private static final Logger log = LoggerFactory.getLogger(LearnService.class);
+
     private final CardRepository cardRepository;
     private final CardTimingRepository cardTimingRepository;
+    private final DeckRepository deckRepository;
     private final ModelMapper modelMapper;
+    private final DueCardCache dueCardCache;
+    private final DeckStatsService deckStatsService;
+    private final SchedulerRegistry schedulerRegistry;
+    private final ReviewLogWriter reviewLogWriter;
+    private final TimingWriteBehind timingWriteBehind;
+    private final DailyLimitCounters dailyLimitCounters;
+    private final FsrsWeightsService fsrsWeightsService;
 
-    public LearnService(CardRepository cardRepository, CardTimingRepository cardTimingRepository, ModelMapper modelMapper) {
+    public LearnService(CardRepository cardRepository, CardTimingRepository cardTimingRepository,
+                        DeckRepository deckRepository, ModelMapper modelMapper, DueCardCache dueCardCache,
+                        DeckStatsService deckStatsService, SchedulerRegistry schedulerRegistry,
+                        ReviewLogWriter reviewLogWriter, TimingWriteBehind timingWriteBehind,
+                        DailyLimitCounters dailyLimitCounters, FsrsWeightsService fsrsWeightsService) {
         this.cardRepository = cardRepository;
         this.cardTimingRepository = cardTimingRepository;
+        this.deckRepository = deckRepository;
         this.modelMapper = modelMapper;
+        this.dueCardCache = dueCardCache;
+        this.deckStatsService = deckStatsService;
+        this.schedulerRegistry = schedulerRegistry;
+        this.reviewLogWriter = reviewLogWriter;
+        this.timingWriteBehind = timingWriteBehind;
+        this.dailyLimitCounters = dailyLimitCounters;
+        this.fsrsWeightsService = fsrsWeightsService;
     }
 
     public QuestionOutput getDueCardFromDeck(Long deckId) {
+        DailyAllowance allowance = dailyLimitCounters.getAllowance(deckId);
+        if (allowance.isExhausted())
+            throw new QueriedDataDoesNotExistException("Daily limits of the deck are reached");
+
+        if (dueCardCache.isEnabled()) {
+            Optional<DueCard> optionalDueCard = dueCardCache.findMostDueCard(deckId, LocalDate.now(),
+                    allowance.allowsNewCards(), allowance.allowsReviews());
+            if (optionalDueCard.isEmpty())
+                throw new QueriedDataDoesNotExistException("No due cards exist");
+            return toQuestionOutput(deckId, optionalDueCard.get());
+        }
+
+        if (timingWriteBehind.isEnabled() || !allowance.allowsNewCards() || !allowance.allowsReviews()) {
+            List<Card> dueCards = findDueCardsInDeck(deckId, 1, allowance);
+            if (dueCards.isEmpty())
+                throw new QueriedDataDoesNotExistException("No due cards exist");
+            return modelMapper.map(dueCards.get(0), QuestionOutput.class);
+        }
+
         Optional<CardTiming> optionalCardTiming = cardTimingRepository.findMostDueCardInDeck(deckId);
         if (optionalCardTiming.isEmpty())
             throw new QueriedDataDoesNotExistException("No due cards exist");
         return modelMapper.map(optionalCardTiming.get().getCard(), QuestionOutput.class);
     }
 
+    public List<QuestionOutput> getDueCardsFromDeck(Long deckId, int limit) {
+        DailyAllowance allowance = dailyLimitCounters.getAllowance(deckId);
+        if (allowance.isExhausted())
+            throw new QueriedDataDoesNotExistException("Daily limits of the deck are reached");
+
+        List<Card> dueCards = findDueCardsInDeck(deckId, limit, allowance);
+        if (dueCards.isEmpty())
+            throw new QueriedDataDoesNotExistException("No due cards exist");
+        return modelMapper.map(dueCards, new TypeToken<List<QuestionOutput>>() {}.getType());
+    }
+
+    /**
+     * Retrieves the most due cards across all decks of a user, leaving out the ones over the daily limits of their
+     * decks.
+     *
+     * @param userId     id of the user
+     * @param limit      maximum number of cards to retrieve
+     * @param interleave whether to alternate between decks instead of keeping the strict due order
+     * @return the questions on the retrieved cards
+     */
+    public List<QuestionOutput> getDueCardsOfUser(Long userId, int limit, boolean interleave) {
+        Map<Long, DailyAllowance> allowances = new HashMap<>();
+        for (Long deckId : deckRepository.findIdsOfUser(userId)) {
+            allowances.put(deckId, dailyLimitCounters.getAllowance(deckId));
+        }
+        List<Card> dueCards = findDueCardsWithinAllowances(allowances, limit);
+        if (dueCards.isEmpty())
+            throw new QueriedDataDoesNotExistException("No due cards exist");
+        if (interleave) dueCards = interleaveDecks(dueCards);
+        return modelMapper.map(dueCards, new TypeToken<List<QuestionOutput>>() {}.getType());
+    }
+
+    // round robin over the decks, keeping the due order within each deck
+    private List<Card> interleaveDecks(List<Card> dueCards) {
+        Map<Long, Deque<Card>> dueCardsByDeck = new LinkedHashMap<>();
+        for (Card card : dueCards) {
+            dueCardsByDeck.computeIfAbsent(card.getDeck().getId(), deckId -> new ArrayDeque<>()).add(card);
+        }
+
+        List<Card> interleaved = new ArrayList<>(dueCards.size());
+        while (interleaved.size() < dueCards.size()) {
+            for (Deque<Card> deckCards : dueCardsByDeck.values()) {
+                if (!deckCards.isEmpty()) interleaved.add(deckCards.poll());
+            }
+        }
+        return interleaved;
+    }
+
     public AnswerOutput getSolution(Long cardId) {
         Optional<Card> optionalCard = cardRepository.findById(cardId);
         if (optionalCard.isEmpty())
@@ -43,54 +154,216 @@ public class LearnService {
         return modelMapper.map(optionalCard.get(), AnswerOutput.class);
     }
 
+    @Transactional
     public CardOutput updateTiming(Long cardId, Difficulty difficulty) {
         Optional<CardTiming> optionalCardTiming = cardTimingRepository.findByCardId(cardId);
         if (optionalCardTiming.isEmpty())
             throw new QueriedDataDoesNotExistException("Unable to find card with id: " + cardId);
 
         CardTiming cardTiming = optionalCardTiming.get();
-        modifyTimings(cardTiming, difficulty);
-        cardTiming = cardTimingRepository.save(cardTiming);
+        timingWriteBehind.load(cardTiming);
+        DeckStatsService.CardState previousState = deckStatsService.snapshot(cardTiming);
+        modifyTimings(cardTiming, difficulty, LocalDateTime.now(), new SchedulingState());
+        if (timingWriteBehind.isEnabled()) {
+            timingWriteBehind.save(cardTiming, previousState);
+        } else {
+            cardTiming = cardTimingRepository.save(cardTiming);
+            deckStatsService.timingChanged(previousState, cardTiming);
+        }
+        dueCardCache.put(cardTiming);
 
-        CardOutput cardOutput = modelMapper.map(cardTiming.getCard(), CardOutput.class);
-        cardOutput.setDueDate(calculateDueDate(cardTiming));
-        return cardOutput;
+        return toCardOutput(cardTiming);
     }
 
-    private LocalDate calculateDueDate(CardTiming cardTiming) {
-        return cardTiming.getLastReviewDate().plusDays(cardTiming.getRepetitionInterval()).toLocalDate();
+    /**
+     * Reviews a card, and looks up the next due card of its deck along with its solution, so a learning step needs a
+     * single request instead of an update, a question and a solution request.
+     *
+     * @param cardId     id of the reviewed card
+     * @param difficulty the perceived difficulty of the question
+     * @return the reviewed card, and the next due card of the deck if there is one
+     */
+    @Transactional
+    public ReviewStepOutput updateTimingAndGetNext(Long cardId, Difficulty difficulty) {
+        CardOutput reviewedCard = updateTiming(cardId, difficulty);
+
+        List<Card> nextCards = findDueCardsInDeck(reviewedCard.getDeckId(), 1,
+                dailyLimitCounters.getAllowance(reviewedCard.getDeckId()));
+
+        ReviewStepOutput reviewStepOutput = new ReviewStepOutput();
+        reviewStepOutput.setReviewedCard(reviewedCard);
+        if (!nextCards.isEmpty())
+            reviewStepOutput.setNextCard(modelMapper.map(nextCards.get(0), NextCardOutput.class));
+        return reviewStepOutput;
     }
 
     /**
-     * Calculates spaced repetition timings of a CardTiming entity based on SuperMemo's SM-2 algorithm.
-     * See <a href="https://en.wikipedia.org/wiki/SuperMemo#Description_of_SM-2_algorithm">https://en.wikipedia.org/wiki/SuperMemo#Description_of_SM-2_algorithm</a>
+     * Applies a batch of reviews in a single transaction. Timings are loaded with one query, reviews of the same card
+     * are applied in the order they happened, and the modified timings are written back in JDBC batches.
      *
-     * @param cardTiming the CardTiming object to update timings of
-     * @param difficulty the perceived difficulty of the question
+     * @param reviewInputs the reviews to apply
+     * @return the reviewed cards with their new due dates, in the order they first appear in the input
      */
-    private void modifyTimings(CardTiming cardTiming, Difficulty difficulty) {
-        int currentDifficulty = difficulty.getValue();
-        int repetitionNumber = cardTiming.getRepetitionNumber();
-        double easinessFactor = cardTiming.getEasinessFactor();
-        int repetitionInterval = cardTiming.getRepetitionInterval();
-
-        if (currentDifficulty >= 3) {
-            if (repetitionNumber == 0) repetitionInterval = 1;
-            else if (repetitionNumber == 1) repetitionInterval = 6;
-            else repetitionInterval = (int) Math.ceil(repetitionInterval * easinessFactor);
-
-            repetitionNumber++;
+    @Transactional
+    public List<CardOutput> updateTimings(List<ReviewInput> reviewInputs) {
+        return updateTimings(reviewInputs, false);
+    }
+
+    /**
+     * Same as {@link #updateTimings(List)}, but the reviews of cards deleted since they were reviewed are dropped
+     * instead of failing the whole batch, for reviews collected over time, e.g. in a study session.
+     */
+    @Transactional
+    public List<CardOutput> updateTimingsOfExistingCards(List<ReviewInput> reviewInputs) {
+        return updateTimings(reviewInputs, true);
+    }
+
+    private List<CardOutput> updateTimings(List<ReviewInput> reviewInputs, boolean skipDeletedCards) {
+        Set<Long> cardIds = reviewInputs.stream().map(ReviewInput::getCardId).collect(Collectors.toSet());
+        Map<Long, CardTiming> cardTimingsByCardId = cardTimingRepository.findAllByCardIdIn(cardIds).stream()
+                .collect(Collectors.toMap(CardTiming::getId, Function.identity()));
+
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, CardTiming> reviewedCardTimings = new LinkedHashMap<>();
+        for (ReviewInput reviewInput : reviewInputs) {
+            CardTiming cardTiming = cardTimingsByCardId.get(reviewInput.getCardId());
+            if (cardTiming == null) {
+                if (skipDeletedCards) continue;
+                throw new QueriedDataDoesNotExistException("Unable to find card with id: " + reviewInput.getCardId());
+            }
+            timingWriteBehind.load(cardTiming);
+            reviewedCardTimings.put(reviewInput.getCardId(), cardTiming);
+        }
+        if (reviewedCardTimings.size() < cardIds.size())
+            log.info("Dropping the reviews of {} deleted cards", cardIds.size() - reviewedCardTimings.size());
+
+        Map<Long, DeckStatsService.CardState> previousStates = new HashMap<>();
+        reviewedCardTimings.forEach((cardId, cardTiming) -> previousStates.put(cardId, deckStatsService.snapshot(cardTiming)));
+
+        SchedulingState schedulingState = new SchedulingState();
+        reviewInputs.stream()
+                .filter(reviewInput -> reviewedCardTimings.containsKey(reviewInput.getCardId()))
+                .sorted(Comparator.comparing(reviewInput -> reviewDateOf(reviewInput, now)))
+                .forEach(reviewInput -> modifyTimings(
+                        reviewedCardTimings.get(reviewInput.getCardId()),
+                        reviewInput.getDifficulty(),
+                        reviewDateOf(reviewInput, now),
+                        schedulingState)
+                );
+
+        List<CardTiming> savedCardTimings;
+        if (timingWriteBehind.isEnabled()) {
+            savedCardTimings = new ArrayList<>(reviewedCardTimings.values());
+            savedCardTimings.forEach(cardTiming ->
+                    timingWriteBehind.save(cardTiming, previousStates.get(cardTiming.getId())));
         } else {
-            repetitionNumber = 0;
-            repetitionInterval = 1;
+            savedCardTimings = cardTimingRepository.saveAll(reviewedCardTimings.values());
+            deckStatsService.timingsChanged(previousStates, savedCardTimings);
+        }
+        savedCardTimings.forEach(dueCardCache::put);
+
+        return savedCardTimings.stream()
+                .map(this::toCardOutput)
+                .collect(Collectors.toList());
+    }
+
+    // due cards of a deck in due order within its daily limits, including the state of timings not written to the
+    // database yet
+    List<Card> findDueCardsInDeck(Long deckId, int limit, DailyAllowance allowance) {
+        return findDueCardsWithinAllowances(Map.of(deckId, allowance), limit);
+    }
+
+    // due cards of the decks in due order within their daily allowances; the cards are read a page at a time from the
+    // last card of the previous page, and the kinds of cards a deck runs out of are left out of the next query, so
+    // cards over the limits of one deck do not crowd out the cards of the others
+    private List<Card> findDueCardsWithinAllowances(Map<Long, DailyAllowance> allowances, int limit) {
+        LocalDateTime startOfTomorrow = LocalDate.now().plusDays(1).atStartOfDay();
+        Map<Long, int[]> remaining = new HashMap<>(); // new cards and reviews, by deck id
+        allowances.forEach((deckId, allowance) -> remaining.put(deckId,
+                new int[]{allowance.getRemainingNewCards(), allowance.getRemainingReviews()}));
+
+        List<Card> dueCards = new ArrayList<>();
+        LocalDateTime afterDueDate = null;
+        Long after = null;
+        while (dueCards.size() < limit) {
+            Set<Long> newCardDeckIds = decksWithRemaining(remaining, 0);
+            Set<Long> reviewDeckIds = decksWithRemaining(remaining, 1);
+            if (newCardDeckIds.isEmpty() && reviewDeckIds.isEmpty()) break;
+
+            int pageSize = limit - dueCards.size();
+            List<Card> page = timingWriteBehind.isEnabled()
+                    ? timingWriteBehind.findDueCardsInDecks(newCardDeckIds, reviewDeckIds, startOfTomorrow,
+                            afterDueDate, after, pageSize)
+                    : cardRepository.findDueCardsInDecks(newCardDeckIds, reviewDeckIds, startOfTomorrow,
+                            afterDueDate, after, PageRequest.of(0, pageSize));
+            for (Card card : page) {
+                int[] remainingOfDeck = remaining.get(card.getDeck().getId());
+                int kind = timingWriteBehind.isNew(card) ? 0 : 1;
+                if (remainingOfDeck == null || remainingOfDeck[kind] == 0) continue;
+                remainingOfDeck[kind]--;
+                dueCards.add(card);
+            }
+            if (page.size() < pageSize) break;
+
+            Card last = page.get(page.size() - 1);
+            afterDueDate = timingWriteBehind.dueDateOf(last);
+            after = last.getId();
         }
+        return dueCards;
+    }
+
+    private Set<Long> decksWithRemaining(Map<Long, int[]> remaining, int kind) {
+        return remaining.entrySet().stream()
+                .filter(entry -> entry.getValue()[kind] > 0)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toSet());
+    }
+
+    private LocalDateTime reviewDateOf(ReviewInput reviewInput, LocalDateTime defaultReviewDate) {
+        return reviewInput.getReviewedAt() != null ? reviewInput.getReviewedAt() : defaultReviewDate;
+    }
+
+    private QuestionOutput toQuestionOutput(Long deckId, DueCard dueCard) {
+        QuestionOutput questionOutput = new QuestionOutput();
+        questionOutput.setId(dueCard.getCardId());
+        questionOutput.setDeckId(deckId);
+        questionOutput.setFrontContent(dueCard.getFrontContent());
+        return questionOutput;
+    }
+
+    private CardOutput toCardOutput(CardTiming cardTiming) {
+        CardOutput cardOutput = modelMapper.map(cardTiming.getCard(), CardOutput.class);
+        cardOutput.setDueDate(cardTiming.calculateDueDate().toLocalDate());
+        return cardOutput;
+    }
+
+    /**
+     * Calculates spaced repetition timings of a CardTiming entity with the scheduling algorithm of its deck,
+     * and with the FSRS weights fitted to the owner of the deck if there are any,
+     * counts the review towards the daily limits of the deck, and logs the review.
+     *
+     * @param cardTiming      the CardTiming object to update timings of
+     * @param difficulty      the perceived difficulty of the question
+     * @param reviewDate      the time the question was answered
+     * @param schedulingState a reusable holder for the state of the card
+     */
+    private void modifyTimings(CardTiming cardTiming, Difficulty difficulty, LocalDateTime reviewDate,
+                               SchedulingState schedulingState) {
+        Deck deck = cardTiming.getCard().getDeck();
+        SchedulingAlgorithm algorithm = deck.getSchedulingAlgorithm();
+
+        dailyLimitCounters.reviewed(deck.getId(), cardTiming.isNew());
 
-        easinessFactor = easinessFactor + (0.1 - (5 - currentDifficulty) * (0.08 + (5 - currentDifficulty) * 0.02));
-        if (easinessFactor < 1.3) easinessFactor = 1.3;
+        schedulingState.load(cardTiming, reviewDate);
+        schedulingState.setWeights(algorithm == SchedulingAlgorithm.FSRS ?
+                fsrsWeightsService.findWeightsOfUser(deck.getUser().getId()) : null);
+        int previousInterval = schedulingState.getRepetitionInterval();
+        double previousEasiness = schedulingState.getEasinessFactor();
+        schedulerRegistry.get(algorithm).schedule(schedulingState, difficulty.getValue());
+        schedulingState.store(cardTiming, reviewDate);
 
-        cardTiming.setLastReviewDate(LocalDateTime.now());
-        cardTiming.setRepetitionNumber(repetitionNumber);
-        cardTiming.setEasinessFactor(easinessFactor);
-        cardTiming.setRepetitionInterval(repetitionInterval);
+        reviewLogWriter.log(new ReviewLogEntry(cardTiming.getId(), deck.getId(), deck.getUser().getId(),
+                difficulty.getValue(), previousInterval, schedulingState.getRepetitionInterval(),
+                previousEasiness, schedulingState.getEasinessFactor(), reviewDate));
     }
 }
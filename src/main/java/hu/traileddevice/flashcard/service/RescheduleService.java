@@ -0,0 +1,207 @@
+package hu.traileddevice.flashcard.service;
+
+import hu.traileddevice.flashcard.cache.DailyLimitCounters;
+import hu.traileddevice.flashcard.cache.DueCardCache;
+import hu.traileddevice.flashcard.cache.TimingWriteBehind;
+import hu.traileddevice.flashcard.dto.reschedule.RescheduleOutput;
+import hu.traileddevice.flashcard.exception.QueriedDataDoesNotExistException;
+import hu.traileddevice.flashcard.exception.TemporarilyUnavailableException;
+import hu.traileddevice.flashcard.model.CardTiming;
+import hu.traileddevice.flashcard.model.Deck;
+import hu.traileddevice.flashcard.model.Difficulty;
+import hu.traileddevice.flashcard.model.SchedulingAlgorithm;
+import hu.traileddevice.flashcard.repository.DeckRepository;
+import hu.traileddevice.flashcard.repository.TimingArraysRepository;
+import hu.traileddevice.flashcard.reviewlog.ReviewLogEntry;
+import hu.traileddevice.flashcard.reviewlog.ReviewLogWriter;
+import hu.traileddevice.flashcard.scheduler.Scheduler;
+import hu.traileddevice.flashcard.scheduler.SchedulerRegistry;
+import hu.traileddevice.flashcard.scheduler.SchedulingState;
+import hu.traileddevice.flashcard.scheduler.TimingArrays;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+/**
+ * Reschedules all cards of a deck at once. The timings are loaded into primitive arrays, transformed in place
+ * (in parallel chunks for large decks), and written back in JDBC batches.
+ */
+@Service
+public class RescheduleService {
+
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+    private static final int CHUNK_SIZE = 1 << 14;
+
+    private final DeckRepository deckRepository;
+    private final TimingArraysRepository timingArraysRepository;
+    private final SchedulerRegistry schedulerRegistry;
+    private final DeckStatsService deckStatsService;
+    private final DueCardCache dueCardCache;
+    private final TimingWriteBehind timingWriteBehind;
+    private final DailyLimitCounters dailyLimitCounters;
+    private final FsrsWeightsService fsrsWeightsService;
+    private final ReviewLogWriter reviewLogWriter;
+
+    public RescheduleService(DeckRepository deckRepository, TimingArraysRepository timingArraysRepository,
+                             SchedulerRegistry schedulerRegistry, DeckStatsService deckStatsService,
+                             DueCardCache dueCardCache, TimingWriteBehind timingWriteBehind,
+                             DailyLimitCounters dailyLimitCounters, FsrsWeightsService fsrsWeightsService,
+                             ReviewLogWriter reviewLogWriter) {
+        this.deckRepository = deckRepository;
+        this.timingArraysRepository = timingArraysRepository;
+        this.schedulerRegistry = schedulerRegistry;
+        this.deckStatsService = deckStatsService;
+        this.dueCardCache = dueCardCache;
+        this.timingWriteBehind = timingWriteBehind;
+        this.dailyLimitCounters = dailyLimitCounters;
+        this.fsrsWeightsService = fsrsWeightsService;
+        this.reviewLogWriter = reviewLogWriter;
+    }
+
+    /**
+     * Makes every card of a deck new again, as if it was never reviewed.
+     */
+    @Transactional
+    public RescheduleOutput reset(Long deckId) {
+        long now = TimingArrays.toMicros(LocalDateTime.now());
+
+        return reschedule(findDeck(deckId), (timingArrays, from, to) -> {
+            Arrays.fill(timingArrays.repetitionNumbers(), from, to, 0);
+            Arrays.fill(timingArrays.easinessFactors(), from, to, CardTiming.DEFAULT_EASINESS);
+            Arrays.fill(timingArrays.repetitionIntervals(), from, to, 1);
+            Arrays.fill(timingArrays.stabilities(), from, to, 0);
+            Arrays.fill(timingArrays.memoryDifficulties(), from, to, 0);
+            Arrays.fill(timingArrays.lastReviewDates(), from, to, now);
+            Arrays.fill(timingArrays.learned(), from, to, false);
+        });
+    }
+
+    /**
+     * Moves the due date of every card of a deck, e.g. to make up for a vacation.
+     *
+     * @param days the number of days to move the due dates with, negative to bring them earlier
+     */
+    @Transactional
+    public RescheduleOutput shift(Long deckId, int days) {
+        long shift = TimingArrays.daysToMicros(days);
+
+        return reschedule(findDeck(deckId), (timingArrays, from, to) -> {
+            long[] lastReviewDates = timingArrays.lastReviewDates();
+            for (int i = from; i < to; i++) lastReviewDates[i] += shift;
+        });
+    }
+
+    /**
+     * Sets the SM-2 easiness factor of every card of a deck, scaling the intervals of mature cards accordingly.
+     */
+    @Transactional
+    public RescheduleOutput setEasiness(Long deckId, double easinessFactor) {
+        return reschedule(findDeck(deckId), (timingArrays, from, to) -> {
+            int[] repetitionNumbers = timingArrays.repetitionNumbers();
+            double[] easinessFactors = timingArrays.easinessFactors();
+            int[] repetitionIntervals = timingArrays.repetitionIntervals();
+            for (int i = from; i < to; i++) {
+                if (repetitionNumbers[i] >= 2) // the first two intervals do not depend on the easiness
+                    repetitionIntervals[i] = Math.max(1,
+                            (int) Math.ceil(repetitionIntervals[i] * easinessFactor / easinessFactors[i]));
+                easinessFactors[i] = easinessFactor;
+            }
+        });
+    }
+
+    /**
+     * Reviews every card of a deck now with the same difficulty, using the scheduling algorithm of the deck and the
+     * FSRS weights fitted to its owner, the same way as single reviews: the reviews are logged, and counted towards
+     * the daily limits of the deck.
+     */
+    @Transactional
+    public RescheduleOutput grade(Long deckId, Difficulty difficulty) {
+        Deck deck = findDeck(deckId);
+        Long userId = deck.getUser().getId();
+        SchedulingAlgorithm algorithm = deck.getSchedulingAlgorithm();
+        Scheduler scheduler = schedulerRegistry.get(algorithm);
+        double[] weights = algorithm == SchedulingAlgorithm.FSRS ? fsrsWeightsService.findWeightsOfUser(userId) : null;
+        int grade = difficulty.getValue();
+        LocalDateTime reviewDate = LocalDateTime.now();
+        long now = TimingArrays.toMicros(reviewDate);
+
+        TimingArrays timingArrays = loadTimings(deck);
+        int size = timingArrays.size();
+        int[] previousIntervals = Arrays.copyOf(timingArrays.repetitionIntervals(), size);
+        double[] previousEasiness = Arrays.copyOf(timingArrays.easinessFactors(), size);
+        int newCards = 0;
+        for (int i = 0; i < size; i++) if (!timingArrays.learned()[i]) newCards++;
+
+        transform(timingArrays, (arrays, from, to) -> {
+            SchedulingState state = new SchedulingState(); // one per chunk, as chunks may run in parallel
+            state.setWeights(weights);
+            for (int i = from; i < to; i++) {
+                arrays.load(i, state, now);
+                scheduler.schedule(state, grade);
+                arrays.store(i, state, now);
+            }
+        });
+        RescheduleOutput rescheduleOutput = saveTimings(deck, timingArrays);
+
+        dailyLimitCounters.reviewed(deck.getId(), newCards, size - newCards);
+        List<ReviewLogEntry> reviewLogEntries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            reviewLogEntries.add(new ReviewLogEntry(timingArrays.cardId(i), deck.getId(), userId, grade,
+                    previousIntervals[i], timingArrays.repetitionIntervals()[i],
+                    previousEasiness[i], timingArrays.easinessFactors()[i], reviewDate));
+        }
+        reviewLogWriter.logAll(reviewLogEntries);
+
+        return rescheduleOutput;
+    }
+
+    private Deck findDeck(Long deckId) {
+        Optional<Deck> optionalDeck = deckRepository.findById(deckId);
+        if (optionalDeck.isEmpty()) throw new QueriedDataDoesNotExistException("No such deck id: " + deckId);
+        return optionalDeck.get();
+    }
+
+    private RescheduleOutput reschedule(Deck deck, TimingTransform timingTransform) {
+        TimingArrays timingArrays = loadTimings(deck);
+        transform(timingArrays, timingTransform);
+        return saveTimings(deck, timingArrays);
+    }
+
+    private TimingArrays loadTimings(Deck deck) {
+        // the bulk update starts from the database, so reviews not written yet would be lost, or overwrite it later
+        if (!timingWriteBehind.flush())
+            throw new TemporarilyUnavailableException("Unable to write pending reviews, try again later");
+        return timingArraysRepository.findAllOfDeck(deck.getId());
+    }
+
+    private static void transform(TimingArrays timingArrays, TimingTransform timingTransform) {
+        int size = timingArrays.size();
+        if (size < PARALLEL_THRESHOLD) {
+            timingTransform.apply(timingArrays, 0, size);
+        } else {
+            IntStream.range(0, (size + CHUNK_SIZE - 1) / CHUNK_SIZE)
+                    .parallel()
+                    .forEach(chunk -> timingTransform.apply(
+                            timingArrays, chunk * CHUNK_SIZE, Math.min(size, (chunk + 1) * CHUNK_SIZE)));
+        }
+    }
+
+    private RescheduleOutput saveTimings(Deck deck, TimingArrays timingArrays) {
+        timingArraysRepository.updateAll(timingArrays);
+        deckStatsService.recount(deck.getId());
+        dueCardCache.evictDeck(deck.getId());
+
+        return new RescheduleOutput(deck.getId(), timingArrays.size());
+    }
+
+    @FunctionalInterface
+    private interface TimingTransform {
+        void apply(TimingArrays timingArrays, int from, int to);
+    }
+}
@@ -0,0 +1,200 @@
+package hu.traileddevice.flashcard.service;
+
+import hu.traileddevice.flashcard.cache.DailyLimitCounters;
+import hu.traileddevice.flashcard.cache.TimingWriteBehind;
+import hu.traileddevice.flashcard.dto.card.CardOutput;
+import hu.traileddevice.flashcard.dto.learn.AnswerOutput;
+import hu.traileddevice.flashcard.dto.learn.QuestionOutput;
+import hu.traileddevice.flashcard.dto.learn.ReviewInput;
+import hu.traileddevice.flashcard.dto.session.StudySessionOutput;
+import hu.traileddevice.flashcard.exception.QueriedDataDoesNotExistException;
+import hu.traileddevice.flashcard.exception.TemporarilyUnavailableException;
+import hu.traileddevice.flashcard.model.Card;
+import hu.traileddevice.flashcard.model.Difficulty;
+import hu.traileddevice.flashcard.session.SessionCard;
+import hu.traileddevice.flashcard.session.StudySession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Serves a batch of due cards from memory: the cards and their answers are read with a single query when the session
+ * starts, and the reviews are written back in one batch when it is finished, or when it has been idle for too long.
+ * At most {@code maxSessions} sessions are open at a time, as each one holds its cards in memory.
+ */
+@Service
+public class StudySessionService {
+
+    private static final Logger log = LoggerFactory.getLogger(StudySessionService.class);
+
+    private final LearnService learnService;
+    private final DailyLimitCounters dailyLimitCounters;
+    private final TimingWriteBehind timingWriteBehind;
+    private final Duration timeout;
+    private final int maxSessions;
+
+    private final Map<String, StudySession> studySessions = new ConcurrentHashMap<>();
+
+    public StudySessionService(LearnService learnService, DailyLimitCounters dailyLimitCounters,
+                               TimingWriteBehind timingWriteBehind,
+                               @Value("${flashcard.study-session.timeout:30m}") Duration timeout,
+                               @Value("${flashcard.study-session.max-sessions:10000}") int maxSessions) {
+        this.learnService = learnService;
+        this.dailyLimitCounters = dailyLimitCounters;
+        this.timingWriteBehind = timingWriteBehind;
+        this.timeout = timeout;
+        this.maxSessions = maxSessions;
+    }
+
+    /**
+     * Starts a study session of the due cards of a deck, reserving its new cards in the daily limits of the deck until
+     * the session is finished, so concurrent sessions do not get more new cards than the deck allows.
+     */
+    public StudySessionOutput start(Long deckId, int size) {
+        if (studySessions.size() >= maxSessions)
+            throw new TemporarilyUnavailableException("Too many open study sessions, try again later");
+        LocalDate today = LocalDate.now();
+        Predicate<Card> isNew = timingWriteBehind::isNew;
+        List<Card> dueCards = learnService.findDueCardsInDeck(deckId, size, dailyLimitCounters.getAllowance(deckId));
+
+        int newCards = (int) dueCards.stream().filter(isNew).count();
+        int reservedNewCards = dailyLimitCounters.reserveNewCards(deckId, today, newCards);
+        if (reservedNewCards < newCards) dueCards = dropNewCards(dueCards, isNew, newCards - reservedNewCards);
+        if (dueCards.isEmpty())
+            throw new QueriedDataDoesNotExistException("No due cards exist");
+
+        List<SessionCard> sessionCards = dueCards.stream()
+                .map(card -> new SessionCard(card.getId(), card.getFrontContent(), card.getBackContent()))
+                .collect(Collectors.toList());
+
+        StudySession studySession = new StudySession(UUID.randomUUID().toString(), deckId, sessionCards, today,
+                reservedNewCards);
+        studySessions.put(studySession.getId(), studySession);
+        return toStudySessionOutput(studySession);
+    }
+
+    public StudySessionOutput findById(String id) {
+        return toStudySessionOutput(getStudySession(id));
+    }
+
+    public QuestionOutput getQuestion(String id) {
+        StudySession studySession = getStudySession(id);
+        SessionCard sessionCard = getCurrentCard(studySession);
+
+        QuestionOutput questionOutput = new QuestionOutput();
+        questionOutput.setId(sessionCard.getCardId());
+        questionOutput.setDeckId(studySession.getDeckId());
+        questionOutput.setFrontContent(sessionCard.getFrontContent());
+        return questionOutput;
+    }
+
+    public AnswerOutput getSolution(String id) {
+        StudySession studySession = getStudySession(id);
+        SessionCard sessionCard = getCurrentCard(studySession);
+
+        AnswerOutput answerOutput = new AnswerOutput();
+        answerOutput.setId(sessionCard.getCardId());
+        answerOutput.setDeckId(studySession.getDeckId());
+        answerOutput.setBackContent(sessionCard.getBackContent());
+        return answerOutput;
+    }
+
+    public StudySessionOutput grade(String id, Difficulty difficulty) {
+        StudySession studySession = getStudySession(id);
+        if (studySession.grade(difficulty, LocalDateTime.now()).isEmpty())
+            throw new QueriedDataDoesNotExistException("No cards left in study session: " + id);
+        return toStudySessionOutput(studySession);
+    }
+
+    /**
+     * Writes the reviews of the session to the database, and closes it. Reviews of cards deleted while the session
+     * was open are dropped, so they do not keep the other reviews from being written.
+     *
+     * @return the reviewed cards with their new due dates
+     */
+    public List<CardOutput> finish(String id) {
+        StudySession studySession = studySessions.remove(id); // no more reviews can be added while flushing
+        if (studySession == null) throw new QueriedDataDoesNotExistException("No such study session: " + id);
+        try {
+            return flush(studySession);
+        } catch (RuntimeException e) {
+            studySessions.put(id, studySession);
+            throw e;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${flashcard.study-session.sweep-interval:60000}")
+    public void finishExpiredSessions() {
+        Instant expiredBefore = Instant.now().minus(timeout);
+        for (StudySession studySession : studySessions.values()) {
+            if (studySession.getLastAccess().isAfter(expiredBefore)) continue;
+            if (!studySessions.remove(studySession.getId(), studySession)) continue; // finished in the meantime
+            try {
+                flush(studySession);
+            } catch (RuntimeException e) {
+                releaseNewCards(studySession);
+                log.warn("Dropping reviews of expired study session {}: {}", studySession.getId(), e.getMessage());
+            }
+        }
+    }
+
+    private List<CardOutput> flush(StudySession studySession) {
+        List<ReviewInput> reviews = studySession.getReviews();
+        if (reviews.isEmpty()) {
+            releaseNewCards(studySession);
+            return Collections.emptyList();
+        }
+        List<CardOutput> reviewedCards = learnService.updateTimingsOfExistingCards(reviews);
+        releaseNewCards(studySession); // counted as reviews by now
+        return reviewedCards;
+    }
+
+    private void releaseNewCards(StudySession studySession) {
+        dailyLimitCounters.releaseNewCards(studySession.getDeckId(), studySession.getDay(),
+                studySession.getReservedNewCards());
+    }
+
+    // drops the given number of new cards from the end of the due cards
+    private static List<Card> dropNewCards(List<Card> dueCards, Predicate<Card> isNew, int count) {
+        List<Card> kept = new ArrayList<>(dueCards);
+        for (int i = kept.size() - 1; i >= 0 && count > 0; i--) {
+            if (!isNew.test(kept.get(i))) continue;
+            kept.remove(i);
+            count--;
+        }
+        return kept;
+    }
+
+    private StudySession getStudySession(String id) {
+        StudySession studySession = studySessions.get(id);
+        if (studySession == null) throw new QueriedDataDoesNotExistException("No such study session: " + id);
+        return studySession;
+    }
+
+    private SessionCard getCurrentCard(StudySession studySession) {
+        Optional<SessionCard> optionalSessionCard = studySession.getCurrentCard();
+        if (optionalSessionCard.isEmpty())
+            throw new QueriedDataDoesNotExistException("No cards left in study session: " + studySession.getId());
+        return optionalSessionCard.get();
+    }
+
+    private StudySessionOutput toStudySessionOutput(StudySession studySession) {
+        StudySessionOutput studySessionOutput = new StudySessionOutput();
+        studySessionOutput.setId(studySession.getId());
+        studySessionOutput.setDeckId(studySession.getDeckId());
+        studySessionOutput.setRemainingCards(studySession.getRemainingCardCount());
+        studySessionOutput.setReviewedCards(studySession.getReviewedCardCount());
+        return studySessionOutput;
+    }
+}
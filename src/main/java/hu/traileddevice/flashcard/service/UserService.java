@@ -1,32 +1,49 @@
 package hu.traileddevice.flashcard.service;
 
+import hu.traileddevice.flashcard.cache.DueCardCache;
+import hu.traileddevice.flashcard.dto.KeysetPage;
 import hu.traileddevice.flashcard.dto.user.UserCreateInput;
 import hu.traileddevice.flashcard.dto.user.UserOutput;
 import hu.traileddevice.flashcard.dto.user.UserUpdateInput;
 import hu.traileddevice.flashcard.exception.DuplicateEmailException;
 import hu.traileddevice.flashcard.exception.QueriedDataDoesNotExistException;
+import hu.traileddevice.flashcard.model.Deck;
 import hu.traileddevice.flashcard.model.User;
+import hu.traileddevice.flashcard.repository.DeckRepository;
 import hu.traileddevice.flashcard.repository.UserRepository;
 import org.modelmapper.ModelMapper;
-import org.modelmapper.TypeToken;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class UserService {
 
     private final UserRepository userRepository;
+    private final DeckRepository deckRepository;
     private final ModelMapper modelMapper;
+    private final DueCardCache dueCardCache;
 
-    public UserService(UserRepository userRepository, ModelMapper modelMapper) {
+    public UserService(UserRepository userRepository, DeckRepository deckRepository, ModelMapper modelMapper,
+                       DueCardCache dueCardCache) {
         this.userRepository = userRepository;
+        this.deckRepository = deckRepository;
         this.modelMapper = modelMapper;
+        this.dueCardCache = dueCardCache;
     }
 
-    public List<UserOutput> findAll() {
-        return modelMapper.map(userRepository.findAll(), new TypeToken<List<UserOutput>>() {}.getType());
+    @Transactional(readOnly = true)
+    public KeysetPage<UserOutput> findAll(Long after, int limit) {
+        KeysetPage<UserOutput> page = KeysetPage.of(
+                userRepository.findOutputsAfter(KeysetPage.after(after), KeysetPage.request(limit)), limit,
+                UserOutput::getId);
+        addDecks(page.getContent());
+        return page;
     }
 
     public UserOutput save(UserCreateInput userCreateInput) {
@@ -37,7 +54,7 @@ public class UserService {
     }
 
     public UserOutput update(Long id, UserUpdateInput userUpdateInput) {
-        Optional<User> optionalUser = userRepository.findById(id);
+        Optional<User> optionalUser = userRepository.findWithDecksById(id);
         if (optionalUser.isEmpty()) throw new QueriedDataDoesNotExistException("No such user id: " + id);
 
         User userToUpdate = optionalUser.get();
@@ -52,15 +69,28 @@ public class UserService {
         return modelMapper.map(userRepository.save(userToUpdate), UserOutput.class);
     }
 
+    @Transactional(readOnly = true)
     public UserOutput findById(Long id) {
-        Optional<User> optionalUser = userRepository.findById(id);
+        Optional<UserOutput> optionalUser = userRepository.findOutputById(id);
         if (optionalUser.isEmpty()) throw new QueriedDataDoesNotExistException("No such user id: " + id);
-        return modelMapper.map(optionalUser.get(), UserOutput.class);
+        addDecks(List.of(optionalUser.get()));
+        return optionalUser.get();
     }
 
     public void deleteById(Long id) {
         Optional<User> optionalUser = userRepository.findById(id);
         if (optionalUser.isEmpty()) throw new QueriedDataDoesNotExistException("No such user id: " + id);
+        List<Long> deckIds = optionalUser.get().getDecks().stream().map(Deck::getId).collect(Collectors.toList());
         userRepository.deleteById(id);
+        deckIds.forEach(dueCardCache::evictDeck);
+    }
+
+    // the decks of all the users in a single select, without their cards
+    private void addDecks(List<UserOutput> users) {
+        if (users.isEmpty()) return;
+        Map<Long, UserOutput> usersById = users.stream()
+                .collect(Collectors.toMap(UserOutput::getId, Function.identity()));
+        deckRepository.findOutputsOfUsers(usersById.keySet())
+                .forEach(deck -> usersById.get(deck.getUserId()).getDecks().add(deck));
     }
 }
@@ -0,0 +1,15 @@
+package hu.traileddevice.flashcard.session;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class SessionCard {
+
+    private final Long cardId;
+
+    private final String frontContent;
+
+    private final String backContent;
+}
@@ -0,0 +1,83 @@
+package hu.traileddevice.flashcard.session;
+
+import hu.traileddevice.flashcard.dto.learn.ReviewInput;
+import hu.traileddevice.flashcard.model.Difficulty;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Cards prefetched for a study session, and the reviews given so far. The reviews are only written to the database
+ * when the session is finished or expires.
+ */
+public class StudySession {
+
+    @Getter
+    private final String id;
+
+    @Getter
+    private final Long deckId;
+
+    @Getter
+    private final LocalDate day;
+
+    @Getter
+    private final int reservedNewCards;
+
+    private final Deque<SessionCard> remainingCards;
+
+    private final List<ReviewInput> reviews = new ArrayList<>();
+
+    @Getter
+    private volatile Instant lastAccess = Instant.now();
+
+    /**
+     * @param day              the day the new cards of the session are reserved on in the daily limits of the deck
+     * @param reservedNewCards the number of new cards reserved
+     */
+    public StudySession(String id, Long deckId, Collection<SessionCard> cards, LocalDate day, int reservedNewCards) {
+        this.id = id;
+        this.deckId = deckId;
+        this.day = day;
+        this.reservedNewCards = reservedNewCards;
+        this.remainingCards = new ArrayDeque<>(cards);
+    }
+
+    public synchronized Optional<SessionCard> getCurrentCard() {
+        lastAccess = Instant.now();
+        return Optional.ofNullable(remainingCards.peekFirst());
+    }
+
+    /**
+     * Records the review of the current card, and moves on to the next one.
+     *
+     * @return the reviewed card, or empty if there are no cards left
+     */
+    public synchronized Optional<SessionCard> grade(Difficulty difficulty, LocalDateTime reviewedAt) {
+        lastAccess = Instant.now();
+        SessionCard reviewedCard = remainingCards.pollFirst();
+        if (reviewedCard == null) return Optional.empty();
+        reviews.add(new ReviewInput(reviewedCard.getCardId(), difficulty, reviewedAt));
+        return Optional.of(reviewedCard);
+    }
+
+    public synchronized List<ReviewInput> getReviews() {
+        return new ArrayList<>(reviews);
+    }
+
+    public synchronized int getRemainingCardCount() {
+        return remainingCards.size();
+    }
+
+    public synchronized int getReviewedCardCount() {
+        return reviews.size();
+    }
+}
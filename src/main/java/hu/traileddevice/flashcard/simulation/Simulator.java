@@ -0,0 +1,235 @@
+package hu.traileddevice.flashcard.simulation;
+
+import hu.traileddevice.flashcard.dto.simulation.SimulationDayOutput;
+import hu.traileddevice.flashcard.dto.simulation.SimulationInput;
+import hu.traileddevice.flashcard.dto.simulation.SimulationOutput;
+import hu.traileddevice.flashcard.model.CardTiming;
+import hu.traileddevice.flashcard.model.Difficulty;
+import hu.traileddevice.flashcard.scheduler.Scheduler;
+import hu.traileddevice.flashcard.scheduler.SchedulerRegistry;
+import hu.traileddevice.flashcard.scheduler.SchedulingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Simulates synthetic users learning their decks day by day with the schedulers of the application, entirely in
+ * memory, to estimate the review load of a cohort before it arrives. Every day each deck reviews its due learned
+ * cards, then learns never reviewed cards, and then reviews the cards failed on the day again until they are recalled,
+ * within the daily limits of the deck, the same way the learn service serves failed cards right away and counts their
+ * reviews against the limits. Answers are drawn at random with the given grade probabilities.
+ * <p>
+ * Decks are independent, so they are simulated in parallel on {@code parallelism} threads, each deck over primitive
+ * arrays with a random generator of its own, which keeps the results the same for the same seed on any number of
+ * threads. Cards are picked in a fixed order instead of the most overdue first, which only matters once the daily
+ * limits leave due cards behind.
+ */
+@Component
+public class Simulator {
+
+    private static final Logger log = LoggerFactory.getLogger(Simulator.class);
+
+    private static final double[] DEFAULT_GRADE_PROBABILITIES = {0.02, 0.03, 0.05, 0.15, 0.5, 0.25};
+
+    private final SchedulerRegistry schedulerRegistry;
+    private final int parallelism;
+
+    public Simulator(SchedulerRegistry schedulerRegistry,
+                     @Value("${flashcard.simulation.parallelism:0}") int parallelism) {
+        this.schedulerRegistry = schedulerRegistry;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    public SimulationOutput simulate(SimulationInput simulationInput) {
+        Scheduler scheduler = schedulerRegistry.get(simulationInput.getSchedulingAlgorithm());
+        double[] cumulativeProbabilities = cumulativeProbabilities(simulationInput.getGradeProbabilities());
+        int decks = simulationInput.getUsers() * simulationInput.getDecksPerUser();
+        int days = simulationInput.getDays();
+
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        DayCounts dayCounts;
+        try {
+            dayCounts = pool.submit(() -> IntStream.range(0, decks).parallel().collect(
+                    () -> new DayCounts(days),
+                    (counts, deck) -> simulateDeck(simulationInput, scheduler, cumulativeProbabilities, deck, counts),
+                    DayCounts::add)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Simulation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Simulation failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        SimulationOutput simulationOutput = dayCounts.toOutput((long) decks * simulationInput.getCardsPerDeck(),
+                elapsedNanos);
+        log.info("Simulated {} card reviews of {} cards over {} days in {} ms, {} card reviews/s",
+                simulationOutput.getCardReviews(), simulationOutput.getCards(), days,
+                simulationOutput.getElapsedMillis(), Math.round(simulationOutput.getCardReviewsPerSecond()));
+        return simulationOutput;
+    }
+
+    private static void simulateDeck(SimulationInput simulationInput, Scheduler scheduler,
+                                     double[] cumulativeProbabilities, int deck, DayCounts counts) {
+        SplittableRandom random = new SplittableRandom(simulationInput.getSeed() * 31 + deck);
+        SchedulingState state = new SchedulingState();
+        int cards = simulationInput.getCardsPerDeck();
+
+        int[] repetitionNumbers = new int[cards];
+        double[] easinessFactors = new double[cards];
+        int[] repetitionIntervals = new int[cards];
+        double[] stabilities = new double[cards];
+        double[] memoryDifficulties = new double[cards];
+        int[] lastReviewDays = new int[cards];
+        Arrays.fill(easinessFactors, CardTiming.DEFAULT_EASINESS);
+        Arrays.fill(lastReviewDays, -1);
+        int[] relearning = new int[cards]; // ring of the cards failed on the day, in the order they failed
+
+        for (int day = 0; day < simulationInput.getDays(); day++) {
+            int reviewsLeft = simulationInput.getReviewsPerDay();
+            int newCardsLeft = simulationInput.getNewCardsPerDay();
+            int relearningHead = 0;
+            int relearningSize = 0;
+
+            long dueCards = 0;
+            long reviews = 0;
+            long newCards = 0;
+            long failedCards = 0;
+            for (int step = 0; ; step++) {
+                int i;
+                if (step < cards) {
+                    i = step;
+                    boolean isNew = lastReviewDays[i] < 0;
+                    if (isNew) {
+                        if (newCardsLeft == 0) continue;
+                        newCardsLeft--;
+                        newCards++;
+                    } else {
+                        // failed cards are due right away, like CardTiming.calculateDueDate
+                        int interval = repetitionNumbers[i] == 0 ? 0 : repetitionIntervals[i];
+                        if (lastReviewDays[i] + interval > day) continue;
+                        dueCards++;
+                        if (reviewsLeft == 0) continue;
+                        reviewsLeft--;
+                        reviews++;
+                    }
+                } else {
+                    if (relearningSize == 0 || reviewsLeft == 0) break;
+                    i = relearning[relearningHead];
+                    relearningHead = (relearningHead + 1) % cards;
+                    relearningSize--;
+                    reviewsLeft--;
+                    reviews++;
+                }
+
+                state.setRepetitionNumber(repetitionNumbers[i]);
+                state.setEasinessFactor(easinessFactors[i]);
+                state.setRepetitionInterval(repetitionIntervals[i]);
+                state.setStability(stabilities[i]);
+                state.setMemoryDifficulty(memoryDifficulties[i]);
+                state.setElapsedDays(lastReviewDays[i] < 0 ? 0 : day - lastReviewDays[i]);
+
+                int grade = grade(random, cumulativeProbabilities);
+                scheduler.schedule(state, grade);
+                if (grade < 3) failedCards++;
+
+                repetitionNumbers[i] = state.getRepetitionNumber();
+                easinessFactors[i] = state.getEasinessFactor();
+                repetitionIntervals[i] = state.getRepetitionInterval();
+                stabilities[i] = state.getStability();
+                memoryDifficulties[i] = state.getMemoryDifficulty();
+                lastReviewDays[i] = day;
+
+                if (repetitionNumbers[i] == 0) {
+                    relearning[(relearningHead + relearningSize) % cards] = i;
+                    relearningSize++;
+                }
+            }
+            counts.add(day, dueCards, reviews, newCards, failedCards);
+        }
+    }
+
+    private static int grade(SplittableRandom random, double[] cumulativeProbabilities) {
+        double r = random.nextDouble();
+        int grade = 0;
+        while (grade < cumulativeProbabilities.length - 1 && r >= cumulativeProbabilities[grade]) grade++;
+        return grade;
+    }
+
+    private static double[] cumulativeProbabilities(Map<Difficulty, Double> gradeProbabilities) {
+        double[] probabilities = DEFAULT_GRADE_PROBABILITIES.clone();
+        if (gradeProbabilities != null) {
+            Arrays.fill(probabilities, 0);
+            gradeProbabilities.forEach((difficulty, probability) -> probabilities[difficulty.getValue()] = probability);
+        }
+        double total = Arrays.stream(probabilities).sum();
+        double[] cumulativeProbabilities = new double[probabilities.length];
+        double sum = 0;
+        for (int grade = 0; grade < probabilities.length; grade++) {
+            sum += probabilities[grade] / total;
+            cumulativeProbabilities[grade] = sum;
+        }
+        return cumulativeProbabilities;
+    }
+
+    /**
+     * Counts of each simulated day, summed over the decks simulated by one thread, then over the threads.
+     */
+    private static final class DayCounts {
+
+        private final long[] dueCards;
+        private final long[] reviews;
+        private final long[] newCards;
+        private final long[] failedCards;
+
+        DayCounts(int days) {
+            dueCards = new long[days];
+            reviews = new long[days];
+            newCards = new long[days];
+            failedCards = new long[days];
+        }
+
+        void add(int day, long dueCards, long reviews, long newCards, long failedCards) {
+            this.dueCards[day] += dueCards;
+            this.reviews[day] += reviews;
+            this.newCards[day] += newCards;
+            this.failedCards[day] += failedCards;
+        }
+
+        void add(DayCounts other) {
+            for (int day = 0; day < dueCards.length; day++)
+                add(day, other.dueCards[day], other.reviews[day], other.newCards[day], other.failedCards[day]);
+        }
+
+        SimulationOutput toOutput(long cards, long elapsedNanos) {
+            List<SimulationDayOutput> days = new ArrayList<>(dueCards.length);
+            long cardReviews = 0;
+            long peakDueCards = 0;
+            long peakCardReviews = 0;
+            for (int day = 0; day < dueCards.length; day++) {
+                days.add(new SimulationDayOutput(day + 1, dueCards[day], reviews[day], newCards[day], failedCards[day]));
+                cardReviews += reviews[day] + newCards[day];
+                peakDueCards = Math.max(peakDueCards, dueCards[day]);
+                peakCardReviews = Math.max(peakCardReviews, reviews[day] + newCards[day]);
+            }
+            double elapsedSeconds = elapsedNanos / 1e9;
+            return new SimulationOutput(cards, cardReviews, peakDueCards, peakCardReviews,
+                    TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                    elapsedSeconds > 0 ? cardReviews / elapsedSeconds : 0, days);
+        }
+    }
+}
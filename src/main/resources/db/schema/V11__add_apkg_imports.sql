@@ -0,0 +1,17 @@
+-- progress of the imports of Anki collections, to resume an interrupted import when the same collection is uploaded
+create table apkg_imports (
+    deck_id int8 not null,
+    checksum varchar(64) not null,
+    handled_notes int8 not null,
+    imported_cards int8 not null,
+    finished boolean not null,
+    started_at timestamp not null,
+    updated_at timestamp not null,
+    primary key (deck_id, checksum)
+);
+
+alter table apkg_imports
+    add constraint FK_apkg_imports_deck_id
+        foreign key (deck_id)
+            references decks(id)
+            on delete cascade;
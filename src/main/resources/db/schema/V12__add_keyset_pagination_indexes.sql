@@ -0,0 +1,14 @@
+create index IDX_cards_deck_id_id on cards (deck_id, id);
+
+create index IDX_decks_user_id_id on decks (user_id, id);
+
+-- the (user_id, id) index covers the lookups by user_id of V7, but H2 keeps using the old index for the foreign key,
+-- so the foreign key is added again after the old index is dropped
+alter table decks drop constraint FKj0ey511pphfxbxbh8ri1616uv;
+
+drop index IDX_decks_user_id;
+
+alter table decks
+    add constraint FKj0ey511pphfxbxbh8ri1616uv
+        foreign key (user_id)
+            references users(id);
@@ -0,0 +1,5 @@
+-- never learned and failed cards are due from their last review, so the (deck_id, due_date) index alone finds the
+-- most due card of a deck, without scanning the timings of the deck for new cards
+update timings
+set due_date = last_review_date
+where repetition_number = 0;
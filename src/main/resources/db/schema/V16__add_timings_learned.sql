@@ -0,0 +1,18 @@
+-- failed cards start over with repetition number 0 as well, so whether a card has ever been reviewed is kept apart
+alter table timings add column learned boolean default false not null;
+
+update timings
+set learned = true
+where repetition_number > 0
+   or card_id in (select card_id from reviews);
+
+update deck_stats
+set new_cards = (select count(*) from timings where timings.deck_id = deck_stats.deck_id and timings.learned = false);
+
+delete from deck_due_days;
+
+insert into deck_due_days (deck_id, due_day, cards)
+select deck_id, cast(due_date as date), count(*)
+from timings
+where learned = true
+group by deck_id, cast(due_date as date);
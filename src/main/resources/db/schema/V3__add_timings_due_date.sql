@@ -0,0 +1,16 @@
+alter table timings
+    add column deck_id int8;
+
+alter table timings
+    add column due_date timestamp;
+
+update timings
+set deck_id  = (select cards.deck_id from cards where cards.id = timings.card_id),
+    due_date = last_review_date + repetition_interval * interval '1' day;
+
+alter table timings
+    add constraint FK_timings_deck_id
+        foreign key (deck_id)
+            references decks(id);
+
+create index IDX_timings_deck_id_due_date on timings (deck_id, due_date);
@@ -0,0 +1,37 @@
+create table deck_stats (
+    deck_id int8 not null,
+    total_cards int4 not null,
+    new_cards int4 not null,
+    primary key (deck_id)
+);
+
+create table deck_due_days (
+    deck_id int8 not null,
+    due_day date not null,
+    cards int4 not null,
+    primary key (deck_id, due_day)
+);
+
+alter table deck_stats
+    add constraint FK_deck_stats_deck_id
+        foreign key (deck_id)
+            references decks(id)
+            on delete cascade;
+
+alter table deck_due_days
+    add constraint FK_deck_due_days_deck_id
+        foreign key (deck_id)
+            references decks(id)
+            on delete cascade;
+
+insert into deck_stats (deck_id, total_cards, new_cards)
+select decks.id, count(timings.card_id), count(case when timings.repetition_number = 0 then 1 end)
+from decks
+         left join timings on timings.deck_id = decks.id
+group by decks.id;
+
+insert into deck_due_days (deck_id, due_day, cards)
+select deck_id, cast(due_date as date), count(*)
+from timings
+where repetition_number > 0
+group by deck_id, cast(due_date as date);
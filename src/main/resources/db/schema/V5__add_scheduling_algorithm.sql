@@ -0,0 +1,8 @@
+alter table decks
+    add column scheduling_algorithm varchar(10) default 'SM2' not null;
+
+alter table timings
+    add column stability float8 default 0 not null;
+
+alter table timings
+    add column memory_difficulty float8 default 0 not null;
@@ -0,0 +1,18 @@
+-- append-only log of reviews, without foreign keys: it outlives deleted cards, and is written asynchronously
+create table reviews (
+    id  bigserial not null,
+    card_id int8 not null,
+    deck_id int8 not null,
+    user_id int8 not null,
+    grade int4 not null,
+    previous_interval int4 not null,
+    new_interval int4 not null,
+    previous_easiness float8 not null,
+    new_easiness float8 not null,
+    reviewed_at timestamp not null,
+    primary key (id)
+);
+
+create index IDX_reviews_card_id_reviewed_at on reviews (card_id, reviewed_at);
+
+create index IDX_reviews_user_id_reviewed_at on reviews (user_id, reviewed_at);
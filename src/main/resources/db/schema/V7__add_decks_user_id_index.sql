@@ -0,0 +1 @@
+create index IDX_decks_user_id on decks (user_id);
@@ -0,0 +1,19 @@
+alter table decks
+    add column new_cards_per_day int4 default 20 not null;
+
+alter table decks
+    add column reviews_per_day int4 default 200 not null;
+
+create table deck_daily_counts (
+    deck_id int8 not null,
+    review_day date not null,
+    new_cards int4 not null,
+    reviews int4 not null,
+    primary key (deck_id, review_day)
+);
+
+alter table deck_daily_counts
+    add constraint FK_deck_daily_counts_deck_id
+        foreign key (deck_id)
+            references decks(id)
+            on delete cascade;
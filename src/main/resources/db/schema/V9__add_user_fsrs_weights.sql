@@ -0,0 +1,15 @@
+-- FSRS weights fitted to the review history of a user, comma separated in the order of the FSRS paper
+create table user_fsrs_weights (
+    user_id int8 not null,
+    weights varchar(512) not null,
+    reviews int4 not null,
+    log_loss float8 not null,
+    fitted_at timestamp not null,
+    primary key (user_id)
+);
+
+alter table user_fsrs_weights
+    add constraint FK_user_fsrs_weights_user_id
+        foreign key (user_id)
+            references users(id)
+            on delete cascade;
@@ -0,0 +1,120 @@
+package db.schema;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Migrates a database of its own up to the version before {@link V13__scope_front_content_uniqueness_to_decks}, fills
+ * it with cards that were unique before, then applies the migration.
+ */
+class ScopeFrontContentUniquenessMigrationIT {
+
+    private static final String URL = "jdbc:h2:mem:flashcard-db-migration-test;DB_CLOSE_DELAY=-1";
+
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = DriverManager.getConnection(URL, "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop all objects");
+        }
+        flyway("12").migrate();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("insert into users (id, name, email) values (1, 'user', 'user@example.com')");
+            statement.execute("insert into decks (id, name, user_id) values (1, 'deck 1', 1), (2, 'deck 2', 1)");
+        }
+    }
+
+    @Test
+    void migrate_frontsDifferingInWhitespaceInDeck_laterCardsRenamed() throws SQLException {
+        insertCard(1, "Hello", 1);
+        insertCard(2, " Hello", 1);
+        insertCard(3, "Hello\t", 1);
+        insertCard(4, "Hello (2)", 1);
+
+        flyway("13").migrate();
+
+        assertEquals(List.of("Hello", "Hello (3)", "Hello (4)", "Hello (2)"), frontContentsOfDeck(1));
+        assertEquals(4, distinctHashesOfDeck(1));
+    }
+
+    @Test
+    void migrate_frontsDifferingInWhitespaceInDifferentDecks_notRenamed() throws SQLException {
+        insertCard(1, "Hello", 1);
+        insertCard(2, " Hello", 2);
+
+        flyway("13").migrate();
+
+        assertEquals(List.of("Hello"), frontContentsOfDeck(1));
+        assertEquals(List.of(" Hello"), frontContentsOfDeck(2));
+    }
+
+    @Test
+    void migrate_longFrontsCollide_renamedWithinColumnLength() throws SQLException {
+        String frontContent = "a".repeat(747) + " bb";
+        insertCard(1, frontContent, 1);
+        insertCard(2, frontContent.replace(' ', '\t'), 1);
+
+        flyway("13").migrate();
+
+        List<String> frontContents = frontContentsOfDeck(1);
+        assertEquals(frontContent, frontContents.get(0));
+        assertEquals("a".repeat(746) + " (2)", frontContents.get(1));
+    }
+
+    private Flyway flyway(String target) {
+        return Flyway.configure()
+                .dataSource(URL, "sa", "")
+                .locations("classpath:/db/schema", "classpath:/db/vendor/h2")
+                .target(target)
+                .load();
+    }
+
+    private void insertCard(long id, String frontContent, long deckId) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(
+                "insert into cards (id, front_content, back_content, deck_id) values (?, ?, 'back', ?)")) {
+            insert.setLong(1, id);
+            insert.setString(2, frontContent);
+            insert.setLong(3, deckId);
+            insert.executeUpdate();
+        }
+    }
+
+    private List<String> frontContentsOfDeck(long deckId) throws SQLException {
+        List<String> frontContents = new ArrayList<>();
+        try (PreparedStatement select = connection.prepareStatement(
+                "select front_content from cards where deck_id = ? order by id")) {
+            select.setLong(1, deckId);
+            try (ResultSet rows = select.executeQuery()) {
+                while (rows.next()) {
+                    frontContents.add(rows.getString(1));
+                }
+            }
+        }
+        return frontContents;
+    }
+
+    private long distinctHashesOfDeck(long deckId) throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement(
+                "select count(distinct front_content_hash) from cards where deck_id = ?")) {
+            select.setLong(1, deckId);
+            try (ResultSet rows = select.executeQuery()) {
+                rows.next();
+                return rows.getLong(1);
+            }
+        }
+    }
+}
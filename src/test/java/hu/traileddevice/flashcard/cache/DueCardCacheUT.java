@@ -0,0 +1,177 @@
+package hu.traileddevice.flashcard.cache;
+
+import hu.traileddevice.flashcard.model.Card;
+import hu.traileddevice.flashcard.model.CardTiming;
+import hu.traileddevice.flashcard.repository.CardTimingRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DueCardCacheUT {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    @Mock
+    private CardTimingRepository cardTimingRepository;
+
+    private MeterRegistry meterRegistry;
+
+    private DueCardCache dueCardCache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        dueCardCache = new DueCardCache(cardTimingRepository, meterRegistry, true, 3);
+    }
+
+    @Test
+    void findMostDueCard_calledTwice_deckLoadedOnce() {
+        when(cardTimingRepository.findDueCardQueueOfDeck(1L)).thenReturn(List.of(
+                new DueCard(1L, "front 1", TODAY.atTime(10, 0), true),
+                new DueCard(2L, "front 2", TODAY.atTime(8, 0), true)
+        ));
+
+        assertEquals(2L, dueCardCache.findMostDueCard(1L, TODAY).get().getCardId());
+        assertEquals(2L, dueCardCache.findMostDueCard(1L, TODAY).get().getCardId());
+
+        verify(cardTimingRepository, times(1)).findDueCardQueueOfDeck(1L);
+        assertEquals(1, meterRegistry.counter("flashcard.due-card-cache.requests", "result", "hit").count());
+        assertEquals(1, meterRegistry.counter("flashcard.due-card-cache.requests", "result", "miss").count());
+        assertEquals(2, meterRegistry.get("flashcard.due-card-cache.cards").gauge().value());
+    }
+
+    @Test
+    void findMostDueCard_newCardsOrReviewsExcluded_returnsMostDueOfTheOthers() {
+        when(cardTimingRepository.findDueCardQueueOfDeck(1L)).thenReturn(List.of(
+                new DueCard(1L, "front 1", TODAY.atTime(8, 0), false),
+                new DueCard(2L, "front 2", TODAY.atTime(9, 0), true),
+                new DueCard(3L, "front 3", TODAY.plusDays(2).atStartOfDay(), true)
+        ));
+
+        assertEquals(1L, dueCardCache.findMostDueCard(1L, TODAY, true, true).get().getCardId());
+        assertEquals(1L, dueCardCache.findMostDueCard(1L, TODAY, true, false).get().getCardId());
+        assertEquals(2L, dueCardCache.findMostDueCard(1L, TODAY, false, true).get().getCardId());
+        assertTrue(dueCardCache.findMostDueCard(1L, TODAY.minusDays(1), false, true).isEmpty());
+        assertTrue(dueCardCache.findMostDueCard(1L, TODAY, false, false).isEmpty());
+    }
+
+    @Test
+    void findMostDueCard_onlyNewCardIsDue_returnsNewCard() {
+        when(cardTimingRepository.findDueCardQueueOfDeck(1L)).thenReturn(List.of(
+                new DueCard(1L, "front 1", TODAY.plusDays(2).atStartOfDay(), true),
+                new DueCard(2L, "front 2", TODAY.plusDays(3).atStartOfDay(), false)
+        ));
+
+        assertEquals(2L, dueCardCache.findMostDueCard(1L, TODAY).get().getCardId());
+    }
+
+    @Test
+    void findMostDueCard_noCardIsDue_returnsEmpty() {
+        when(cardTimingRepository.findDueCardQueueOfDeck(1L)).thenReturn(List.of(
+                new DueCard(1L, "front 1", TODAY.plusDays(1).atStartOfDay(), true)
+        ));
+
+        assertTrue(dueCardCache.findMostDueCard(1L, TODAY).isEmpty());
+    }
+
+    @Test
+    void put_reviewedMostDueCard_nextCardIsServed() {
+        when(cardTimingRepository.findDueCardQueueOfDeck(1L)).thenReturn(List.of(
+                new DueCard(1L, "front 1", TODAY.atTime(8, 0), true),
+                new DueCard(2L, "front 2", TODAY.atTime(10, 0), true)
+        ));
+        dueCardCache.findMostDueCard(1L, TODAY);
+
+        dueCardCache.put(cardTiming(1L, 1L, LocalDateTime.now(), 6, 2));
+
+        assertEquals(2L, dueCardCache.findMostDueCard(1L, TODAY).get().getCardId());
+        assertEquals(2, meterRegistry.get("flashcard.due-card-cache.cards").gauge().value());
+    }
+
+    @Test
+    void put_deckNotCached_deckIsNotLoaded() {
+        dueCardCache.put(cardTiming(1L, 1L, LocalDateTime.now(), 1, 0));
+
+        verifyNoInteractions(cardTimingRepository);
+        assertEquals(0, meterRegistry.get("flashcard.due-card-cache.cards").gauge().value());
+    }
+
+    @Test
+    void findMostDueCard_overCapacity_leastRecentlyUsedDeckEvicted() {
+        when(cardTimingRepository.findDueCardQueueOfDeck(1L)).thenReturn(List.of(
+                new DueCard(1L, "front 1", TODAY.atTime(8, 0), true),
+                new DueCard(2L, "front 2", TODAY.atTime(10, 0), true)
+        ));
+        when(cardTimingRepository.findDueCardQueueOfDeck(2L)).thenReturn(List.of(
+                new DueCard(3L, "front 3", TODAY.atTime(8, 0), true),
+                new DueCard(4L, "front 4", TODAY.atTime(10, 0), true)
+        ));
+
+        dueCardCache.findMostDueCard(1L, TODAY);
+        dueCardCache.findMostDueCard(2L, TODAY);
+        dueCardCache.findMostDueCard(1L, TODAY);
+
+        verify(cardTimingRepository, times(2)).findDueCardQueueOfDeck(1L);
+        assertEquals(2, meterRegistry.counter("flashcard.due-card-cache.evictions").count());
+    }
+
+    @Test
+    void put_cachedDeckGrownOverCapacity_leastRecentlyUsedDeckEvicted() {
+        when(cardTimingRepository.findDueCardQueueOfDeck(1L)).thenReturn(List.of(
+                new DueCard(1L, "front 1", TODAY.atTime(8, 0), true)
+        ));
+        when(cardTimingRepository.findDueCardQueueOfDeck(2L)).thenReturn(List.of(
+                new DueCard(3L, "front 3", TODAY.atTime(8, 0), true),
+                new DueCard(4L, "front 4", TODAY.atTime(10, 0), true)
+        ));
+        dueCardCache.findMostDueCard(1L, TODAY);
+        dueCardCache.findMostDueCard(2L, TODAY);
+
+        dueCardCache.put(cardTiming(5L, 2L, LocalDateTime.now(), 1, 0)); // a new card of deck 2
+
+        assertEquals(3, meterRegistry.get("flashcard.due-card-cache.cards").gauge().value());
+        assertEquals(1, meterRegistry.counter("flashcard.due-card-cache.evictions").count());
+    }
+
+    @Test
+    void findMostDueCard_deckModifiedWhileLoading_loadedDeckNotCached() {
+        when(cardTimingRepository.findDueCardQueueOfDeck(1L)).thenAnswer(invocation -> {
+            dueCardCache.remove(1L, 1L); // committed after the query read the card
+            return List.of(new DueCard(1L, "front 1", TODAY.atTime(8, 0), true));
+        });
+
+        assertEquals(1L, dueCardCache.findMostDueCard(1L, TODAY).get().getCardId());
+        dueCardCache.findMostDueCard(1L, TODAY);
+
+        verify(cardTimingRepository, times(2)).findDueCardQueueOfDeck(1L);
+        assertEquals(0, meterRegistry.get("flashcard.due-card-cache.decks").gauge().value());
+    }
+
+    private CardTiming cardTiming(Long cardId, Long deckId, LocalDateTime lastReviewDate, int repetitionInterval,
+                                  int repetitionNumber) {
+        Card card = new Card();
+        card.setId(cardId);
+        card.setFrontContent("front " + cardId);
+        CardTiming cardTiming = new CardTiming();
+        cardTiming.setId(cardId);
+        cardTiming.setCard(card);
+        cardTiming.setDeckId(deckId);
+        cardTiming.setLastReviewDate(lastReviewDate);
+        cardTiming.setRepetitionInterval(repetitionInterval);
+        cardTiming.setRepetitionNumber(repetitionNumber);
+        cardTiming.setLearned(repetitionNumber > 0);
+        return cardTiming;
+    }
+}
@@ -0,0 +1,160 @@
+package hu.traileddevice.flashcard.cardimport;
+
+import hu.traileddevice.flashcard.model.CardTiming;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnkiCardRowReaderUT {
+
+    // creation time of the test collection: 300 notes, the first one with a back content spanning overflow pages
+    private static final LocalDateTime COLLECTION_CREATED =
+            LocalDateTime.ofInstant(Instant.ofEpochSecond(1609459200), ZoneId.systemDefault());
+
+    // layout of the test collection: 1 KiB pages, the notes table under interior page 3
+    private static final int PAGE_SIZE = 1024;
+    private static final int NOTES_ROOT_PAGE = 3;
+
+    private static final long MAX_COLLECTION_SIZE = 1024 * 1024;
+
+    private ApkgArchive.ExtractedCollection collection;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        try (InputStream upload = getClass().getResourceAsStream("/apkg/collection.apkg")) {
+            collection = ApkgArchive.extractCollection(upload, MAX_COLLECTION_SIZE);
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(collection.getPath());
+    }
+
+    @Test
+    void next_wholeCollection_notesReadInOrderAsPlainText() throws IOException {
+        List<CardImportRow> rows = readAll(0);
+
+        assertEquals(300, rows.size());
+        for (int i = 0; i < rows.size(); i++) assertEquals(i + 1, rows.get(i).getRow());
+        assertEquals("a".repeat(2500), rows.get(0).getCard().getBackContent());
+        assertEquals("The note has a single field", rows.get(1).getParseError());
+        assertEquals("Front 3", rows.get(3).getCard().getFrontContent());
+        assertEquals("Front 300", rows.get(299).getCard().getFrontContent());
+        assertEquals("Back 300 x", rows.get(299).getCard().getBackContent());
+    }
+
+    @Test
+    void next_reviewedCards_reviewStateMappedToTiming() throws IOException {
+        List<CardImportRow> rows = readAll(0);
+
+        CardTiming reviewed = rows.get(4).getCardTiming();
+        assertEquals(10, reviewed.getRepetitionInterval());
+        assertEquals(2.3, reviewed.getEasinessFactor());
+        assertEquals(4, reviewed.getRepetitionNumber()); // reviews without the lapses
+        assertEquals(COLLECTION_CREATED.plusDays(390), reviewed.getLastReviewDate()); // due on day 400
+
+        assertNull(rows.get(5).getCardTiming()); // only the reversed card of the note was reviewed
+
+        CardTiming relearning = rows.get(6).getCardTiming();
+        assertEquals(0, relearning.getRepetitionNumber());
+        assertEquals(1.3, relearning.getEasinessFactor());
+
+        CardTiming inFilteredDeck = rows.get(7).getCardTiming();
+        assertEquals(COLLECTION_CREATED.plusDays(97), inFilteredDeck.getLastReviewDate()); // originally due on day 100
+
+        assertNull(rows.get(8).getCardTiming());
+    }
+
+    @Test
+    void next_earlierImportInterrupted_handledNotesSkipped() throws IOException {
+        List<CardImportRow> rows = new ArrayList<>();
+        try (AnkiCardRowReader reader = new AnkiCardRowReader(collection.getPath(), 120)) {
+            CardImportRow row;
+            while ((row = reader.next()) != null) rows.add(row);
+            assertEquals(120, reader.skippedRows());
+        }
+
+        assertEquals(180, rows.size());
+        assertEquals(121, rows.get(0).getRow());
+        assertEquals("Front 121", rows.get(0).getCard().getFrontContent());
+    }
+
+    @Test
+    void next_interiorPageReferencingItself_failsInsteadOfLooping() throws IOException {
+        overwrite(NOTES_ROOT_PAGE, 8, ByteBuffer.allocate(4).putInt(0, NOTES_ROOT_PAGE)); // right-most child
+
+        MalformedDatabaseException e = assertThrows(MalformedDatabaseException.class, () -> readAll(0));
+        assertTrue(e.getMessage().startsWith("[SQLITE_CORRUPT]"));
+    }
+
+    @Test
+    void new_headerOverwritten_failsAsNotADatabase() throws IOException {
+        overwrite(1, 0, ByteBuffer.wrap("Not a database".getBytes()));
+
+        MalformedDatabaseException e = assertThrows(MalformedDatabaseException.class,
+                () -> new AnkiCardRowReader(collection.getPath(), 0));
+        assertTrue(e.getMessage().startsWith("[SQLITE_NOTADB]"));
+    }
+
+    @Test
+    void new_truncatedCollection_fails() throws IOException {
+        try (FileChannel channel = FileChannel.open(collection.getPath(), StandardOpenOption.WRITE)) {
+            channel.truncate(NOTES_ROOT_PAGE * PAGE_SIZE);
+        }
+
+        assertThrows(MalformedDatabaseException.class, () -> readAll(0));
+    }
+
+    @Test
+    void extractCollection_notAnArchive_fails() {
+        assertThrows(IOException.class,
+                () -> ApkgArchive.extractCollection(InputStream.nullInputStream(), MAX_COLLECTION_SIZE));
+    }
+
+    @Test
+    void extractCollection_collectionLargerThanMaxSize_failsWithoutCopyingTheRest() throws IOException {
+        long collectionSize = Files.size(collection.getPath());
+        try (InputStream upload = getClass().getResourceAsStream("/apkg/collection.apkg")) {
+            IOException e = assertThrows(IOException.class,
+                    () -> ApkgArchive.extractCollection(upload, collectionSize - 1));
+            assertEquals("The collection of the Anki package is larger than " + (collectionSize - 1) + " bytes",
+                    e.getMessage());
+        }
+    }
+
+    @Test
+    void toPlainText_ankiHtml_tagsAndEntitiesReplaced() {
+        assertEquals("a < b\nc & d",
+                AnkiCardRowReader.toPlainText("<div>a &lt; <i>b</i></div><div>c&nbsp;&amp;&nbsp;d<br/></div>"));
+    }
+
+    private List<CardImportRow> readAll(long skippedRows) throws IOException {
+        List<CardImportRow> rows = new ArrayList<>();
+        try (AnkiCardRowReader reader = new AnkiCardRowReader(collection.getPath(), skippedRows)) {
+            CardImportRow row;
+            while ((row = reader.next()) != null) rows.add(row);
+        }
+        return rows;
+    }
+
+    private void overwrite(int page, int offset, ByteBuffer bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(collection.getPath(), StandardOpenOption.WRITE)) {
+            channel.write(bytes, (long) (page - 1) * PAGE_SIZE + offset);
+        }
+    }
+}
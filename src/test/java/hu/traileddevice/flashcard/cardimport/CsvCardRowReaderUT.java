@@ -0,0 +1,60 @@
+package hu.traileddevice.flashcard.cardimport;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvCardRowReaderUT {
+
+    @Test
+    void next_headerAndBlankLines_skippedAndRowsNumberedFromFirstCard() throws IOException {
+        List<CardImportRow> rows = readAll("frontContent,backContent\r\nfront 1,back 1\r\n\r\nfront 2,back 2");
+
+        assertEquals(2, rows.size());
+        assertEquals(1, rows.get(0).getRow());
+        assertEquals("front 1", rows.get(0).getCard().getFrontContent());
+        assertEquals("back 1", rows.get(0).getCard().getBackContent());
+        assertEquals(2, rows.get(1).getRow());
+        assertEquals("back 2", rows.get(1).getCard().getBackContent());
+    }
+
+    @Test
+    void next_quotedFields_commasQuotesAndLineBreaksKept() throws IOException {
+        List<CardImportRow> rows = readAll("\"a, \"\"quoted\"\" front\",\"line 1\nline 2\"\n");
+
+        assertEquals(1, rows.size());
+        assertEquals("a, \"quoted\" front", rows.get(0).getCard().getFrontContent());
+        assertEquals("line 1\nline 2", rows.get(0).getCard().getBackContent());
+    }
+
+    @Test
+    void next_wrongColumnCountOrUnterminatedQuote_rowFailsAndReadingGoesOn() throws IOException {
+        List<CardImportRow> rows = readAll("only front\nfront,back,extra\nfront,back\nfront,\"back");
+
+        assertEquals(4, rows.size());
+        assertEquals("Expected 2 columns, found 1", rows.get(0).getParseError());
+        assertEquals("Expected 2 columns, found 3", rows.get(1).getParseError());
+        assertTrue(rows.get(2).isParsed());
+        assertEquals("Quoted field is not terminated", rows.get(3).getParseError());
+    }
+
+    @Test
+    void next_overlongField_keptOnlyUpToLimit() throws IOException {
+        List<CardImportRow> rows = readAll("front," + "x".repeat(10_000));
+
+        assertEquals(CsvCardRowReader.MAX_FIELD_LENGTH, rows.get(0).getCard().getBackContent().length());
+    }
+
+    private static List<CardImportRow> readAll(String csv) throws IOException {
+        CsvCardRowReader reader = new CsvCardRowReader(new StringReader(csv));
+        List<CardImportRow> rows = new ArrayList<>();
+        CardImportRow row;
+        while ((row = reader.next()) != null) rows.add(row);
+        return rows;
+    }
+}
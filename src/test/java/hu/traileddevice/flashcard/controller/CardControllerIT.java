@@ -1,12 +1,19 @@
 package hu.traileddevice.flashcard.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hu.traileddevice.flashcard.cardimport.ApkgArchive;
 import hu.traileddevice.flashcard.dto.card.CardCreateInput;
 import hu.traileddevice.flashcard.dto.card.CardOfDeckOutputModel;
 import hu.traileddevice.flashcard.dto.card.CardOutputModel;
+import hu.traileddevice.flashcard.dto.card.CardSearchOutputModel;
+import hu.traileddevice.flashcard.dto.card.CardUpdateInput;
 import hu.traileddevice.flashcard.dto.deck.DeckCreateInput;
 import hu.traileddevice.flashcard.dto.deck.DeckOutputModel;
 import hu.traileddevice.flashcard.dto.user.UserCreateInput;
 import hu.traileddevice.flashcard.dto.user.UserOutputModel;
+import hu.traileddevice.flashcard.model.ApkgImport;
+import hu.traileddevice.flashcard.repository.ApkgImportRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,18 +22,23 @@ import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.web.server.LocalServerPort;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.hateoas.Link;
 import org.springframework.hateoas.mediatype.problem.Problem;
 import org.springframework.http.*;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
@@ -41,6 +53,12 @@ class CardControllerIT {
     @Autowired
     private TestRestTemplate testRestTemplate;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApkgImportRepository apkgImportRepository;
+
     private List<UserCreateInput> users;
     private List<DeckCreateInput> decks;
     private List<CardCreateInput> cards;
@@ -70,6 +88,73 @@ class CardControllerIT {
         cards.add(new CardCreateInput("Singleton?", "The scope of bean definition while using this would be single instance per IoC container."));
     }
 
+    @Test
+    void findAll_limitBelowCardCount_pagedWithNextLinks() {
+        List<Long> cardIds = new ArrayList<>();
+        for (CardCreateInput card : cards) {
+            cardIds.add(testRestTemplate.postForObject(BASE_URL + "?deckId=1", card, CardOutputModel.class).getId());
+        }
+
+        CollectionModel<CardOutputModel> firstPage = testRestTemplate.exchange(
+                BASE_URL + "?limit=2",
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<CollectionModel<CardOutputModel>>() {}
+        ).getBody();
+
+        assertEquals(cardIds.subList(0, 2),
+                firstPage.getContent().stream().map(CardOutputModel::getId).collect(Collectors.toList()));
+        String nextHref = firstPage.getRequiredLink(IanaLinkRelations.NEXT).getHref();
+        assertEquals(BASE_URL + "?after=" + cardIds.get(1) + "&limit=2", nextHref);
+
+        CollectionModel<CardOutputModel> lastPage = testRestTemplate.exchange(
+                nextHref,
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<CollectionModel<CardOutputModel>>() {}
+        ).getBody();
+
+        assertEquals(List.of(cardIds.get(2)),
+                lastPage.getContent().stream().map(CardOutputModel::getId).collect(Collectors.toList()));
+        assertTrue(lastPage.getLink(IanaLinkRelations.NEXT).isEmpty());
+    }
+
+    @Test
+    void findAllOfDeck_limitBelowCardCount_pagedWithNextLinks() {
+        List<Long> cardIds = new ArrayList<>();
+        for (CardCreateInput card : cards) {
+            cardIds.add(testRestTemplate.postForObject(BASE_URL + "?deckId=2", card, CardOutputModel.class).getId());
+        }
+
+        CollectionModel<CardOfDeckOutputModel> firstPage = testRestTemplate.exchange(
+                BASE_URL + "/deck/2?limit=2",
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<CollectionModel<CardOfDeckOutputModel>>() {}
+        ).getBody();
+
+        assertEquals(2, firstPage.getContent().size());
+        assertEquals(BASE_URL + "/deck/2?limit=2", firstPage.getRequiredLink(IanaLinkRelations.SELF).getHref());
+        String nextHref = firstPage.getRequiredLink(IanaLinkRelations.NEXT).getHref();
+        assertEquals(BASE_URL + "/deck/2?after=" + cardIds.get(1) + "&limit=2", nextHref);
+
+        CollectionModel<CardOfDeckOutputModel> lastPage = testRestTemplate.exchange(
+                nextHref,
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<CollectionModel<CardOfDeckOutputModel>>() {}
+        ).getBody();
+
+        assertEquals(List.of(cardIds.get(2)),
+                lastPage.getContent().stream().map(CardOfDeckOutputModel::getId).collect(Collectors.toList()));
+        assertTrue(lastPage.getLink(IanaLinkRelations.NEXT).isEmpty());
+
+        // past the last card, the page is empty instead of the deck missing
+        ResponseEntity<String> pastLastPage = testRestTemplate.getForEntity(
+                BASE_URL + "/deck/2?after=" + cardIds.get(2), String.class);
+        assertEquals(HttpStatus.OK, pastLastPage.getStatusCode());
+    }
+
     @Test
     void findAll_databaseHas3Cards_allRetrieved() {
 
@@ -91,7 +176,7 @@ class CardControllerIT {
         CollectionModel<CardOutputModel> collectionModel = collectionModelResponseEntity.getBody();
 
         String receivedCollectionHref = collectionModel.getLinks().toList().get(0).getHref();
-        assertEquals(BASE_URL, receivedCollectionHref);
+        assertEquals(BASE_URL + "?limit=100", receivedCollectionHref);
 
         List<Optional<Link>> cardHrefs = collectionModel
                 .getContent().stream()
@@ -145,6 +230,34 @@ class CardControllerIT {
         assertEquals("[frontContent: Front content must not be null.]", problem.getDetail());
     }
 
+    @Test
+    void save_frontContentAlreadyInDeck_returns400WithDetail() {
+        testRestTemplate.postForObject(BASE_URL + "?deckId=1", cards.get(0), CardOutputModel.class);
+
+        // the same front content apart from the surrounding whitespace
+        ResponseEntity<Problem> problemResponseEntity = testRestTemplate.postForEntity(BASE_URL + "?deckId=1",
+                new CardCreateInput(" " + cards.get(0).getFrontContent() + "\n", "Another back"), Problem.class);
+
+        assertEquals(HttpStatus.BAD_REQUEST, problemResponseEntity.getStatusCode());
+        assertEquals(MediaType.APPLICATION_PROBLEM_JSON, problemResponseEntity.getHeaders().getContentType());
+
+        Problem problem = problemResponseEntity.getBody();
+
+        assertEquals("Input constraint violation", problem.getTitle());
+        assertEquals("Front content already exists!", problem.getDetail());
+    }
+
+    @Test
+    void save_frontContentInAnotherDeck_returns201() {
+        testRestTemplate.postForObject(BASE_URL + "?deckId=1", cards.get(0), CardOutputModel.class);
+
+        ResponseEntity<CardOutputModel> cardOutputModelResponseEntity = testRestTemplate
+                .postForEntity(BASE_URL + "?deckId=2", cards.get(0), CardOutputModel.class);
+
+        assertEquals(HttpStatus.CREATED, cardOutputModelResponseEntity.getStatusCode());
+        assertEquals(2L, cardOutputModelResponseEntity.getBody().getDeckId());
+    }
+
     @Test
     void update_existingCard_returns200AndIsModified() {
         // init database
@@ -171,6 +284,34 @@ class CardControllerIT {
         assertEquals("updatedFront", cardOutputModelResponseEntity.getBody().getFrontContent());
     }
 
+    @Test
+    void update_onlyBackContent_returns200AndFrontContentKept() {
+        testRestTemplate.postForObject(BASE_URL + "?deckId=1", cards.get(0), CardOutputModel.class);
+
+        CardUpdateInput cardUpdateInput = new CardUpdateInput();
+        cardUpdateInput.setBackContent("updatedBack");
+        ResponseEntity<CardOutputModel> cardOutputModelResponseEntity = testRestTemplate
+                .exchange(BASE_URL + "/1", HttpMethod.PUT, new HttpEntity<>(cardUpdateInput), CardOutputModel.class);
+
+        assertEquals(HttpStatus.OK, cardOutputModelResponseEntity.getStatusCode());
+        assertEquals(cards.get(0).getFrontContent(), cardOutputModelResponseEntity.getBody().getFrontContent());
+        assertEquals("updatedBack", cardOutputModelResponseEntity.getBody().getBackContent());
+    }
+
+    @Test
+    void update_frontContentOfAnotherCardInDeck_returns400WithDetail() {
+        testRestTemplate.postForObject(BASE_URL + "?deckId=1", cards.get(0), CardOutputModel.class);
+        testRestTemplate.postForObject(BASE_URL + "?deckId=1", cards.get(1), CardOutputModel.class);
+
+        CardUpdateInput cardUpdateInput = new CardUpdateInput();
+        cardUpdateInput.setFrontContent(cards.get(0).getFrontContent());
+        ResponseEntity<Problem> problemResponseEntity = testRestTemplate
+                .exchange(BASE_URL + "/2", HttpMethod.PUT, new HttpEntity<>(cardUpdateInput), Problem.class);
+
+        assertEquals(HttpStatus.BAD_REQUEST, problemResponseEntity.getStatusCode());
+        assertEquals("Front content already exists!", problemResponseEntity.getBody().getDetail());
+    }
+
     @Test
     void update_nonexistentCardId_returns404WithDetail() {
 
@@ -325,7 +466,7 @@ class CardControllerIT {
         assertEquals(HttpStatus.OK, collectionModelResponseEntity.getStatusCode());
 
         assertEquals(
-                urlForCardsOfDeck,
+                urlForCardsOfDeck + "?limit=100",
                 collectionModelResponseEntity.getBody().getLink("self").get().toUri().toString()
         );
 
@@ -360,4 +501,271 @@ class CardControllerIT {
         assertEquals("Deck does not exist or is empty.", problem.getDetail());
         assertEquals(HttpStatus.NOT_FOUND, problem.getStatus());
     }
-}
\ No newline at end of file
+
+    @Test
+    void search_cardsOfUserMatch_rankedAndPagedWithNextLinks() {
+        Long frontAndBackMatch = testRestTemplate.postForObject(BASE_URL + "?deckId=1", cards.get(0),
+                CardOutputModel.class).getId();
+        testRestTemplate.postForObject(BASE_URL + "?deckId=1", cards.get(1), CardOutputModel.class);
+        Long backMatch = testRestTemplate.postForObject(BASE_URL + "?deckId=2",
+                new CardCreateInput("What is a bean?", "An object managed by the Spring IoC container."),
+                CardOutputModel.class).getId();
+        testRestTemplate.postForObject("http://localhost:" + port + "/deck?userId=2", new DeckCreateInput("Boot"),
+                DeckOutputModel.class);
+        testRestTemplate.postForObject(BASE_URL + "?deckId=4",
+                new CardCreateInput("Spring Boot?", "Convention over configuration."), CardOutputModel.class);
+
+        CollectionModel<CardSearchOutputModel> firstPage = testRestTemplate.exchange(
+                BASE_URL + "/search?userId=1&query=Spring&limit=1",
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<CollectionModel<CardSearchOutputModel>>() {}
+        ).getBody();
+
+        List<CardSearchOutputModel> firstCards = new ArrayList<>(firstPage.getContent());
+        assertEquals(List.of(frontAndBackMatch),
+                firstCards.stream().map(CardSearchOutputModel::getId).collect(Collectors.toList()));
+        assertEquals(BASE_URL + "/search?userId=1&query=Spring&limit=1",
+                firstPage.getRequiredLink(IanaLinkRelations.SELF).getHref());
+        String nextHref = firstPage.getRequiredLink(IanaLinkRelations.NEXT).getHref();
+
+        CollectionModel<CardSearchOutputModel> lastPage = testRestTemplate.exchange(
+                nextHref,
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<CollectionModel<CardSearchOutputModel>>() {}
+        ).getBody();
+
+        List<CardSearchOutputModel> lastCards = new ArrayList<>(lastPage.getContent());
+        assertEquals(List.of(backMatch),
+                lastCards.stream().map(CardSearchOutputModel::getId).collect(Collectors.toList()));
+        assertTrue(firstCards.get(0).getRank() > lastCards.get(0).getRank());
+        assertTrue(lastPage.getLink(IanaLinkRelations.NEXT).isEmpty());
+    }
+
+    @Test
+    void search_nothingMatches_returns200WithoutCards() {
+        testRestTemplate.postForObject(BASE_URL + "?deckId=1", cards.get(0), CardOutputModel.class);
+
+        ResponseEntity<CollectionModel<CardSearchOutputModel>> response = testRestTemplate.exchange(
+                BASE_URL + "/search?userId=2&query=Spring",
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<CollectionModel<CardSearchOutputModel>>() {}
+        );
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(response.getBody().getContent().isEmpty());
+    }
+
+    @Test
+    void search_nonexistentUser_returns404WithDetail() {
+        ResponseEntity<Problem> problemResponseEntity = testRestTemplate.getForEntity(
+                BASE_URL + "/search?userId=9&query=Spring", Problem.class);
+
+        assertEquals(HttpStatus.NOT_FOUND, problemResponseEntity.getStatusCode());
+        assertEquals("No such user id: 9", problemResponseEntity.getBody().getDetail());
+    }
+
+    @Test
+    void search_blankQuery_returns400WithDetail() {
+        ResponseEntity<Problem> problemResponseEntity = testRestTemplate.getForEntity(
+                BASE_URL + "/search?userId=1&query= ", Problem.class);
+
+        assertEquals(HttpStatus.BAD_REQUEST, problemResponseEntity.getStatusCode());
+        assertEquals("[Query must not be blank]", problemResponseEntity.getBody().getDetail());
+    }
+
+    @Test
+    void importCards_csvWithInvalidAndDuplicateRows_validCardsImportedAndFailedRowsReported() throws Exception {
+        testRestTemplate.postForObject(BASE_URL + "?deckId=1", cards.get(0), CardOutputModel.class);
+
+        String csv = "frontContent,backContent\r\n" +
+                "\"" + cards.get(1).getFrontContent() + "\",\"" + cards.get(1).getBackContent() + "\"\r\n" +
+                ",back of a card without front\r\n" +
+                cards.get(2).getFrontContent() + "," + "\"" + cards.get(2).getBackContent() + "\"\r\n" +
+                cards.get(1).getFrontContent() + ",repeated front\r\n" +
+                "\"" + cards.get(0).getFrontContent() + "\",existing front\r\n";
+
+        List<JsonNode> report = importCards(1, csv, "text/csv");
+
+        assertEquals(4, report.size());
+        assertEquals(2, report.get(0).get("row").asInt());
+        assertEquals("frontContent: Length of text on the front of the card should be between 1-750 characters",
+                report.get(0).get("errors").get(0).asText());
+        assertEquals(4, report.get(1).get("row").asInt());
+        assertEquals("Front content is repeated in the import", report.get(1).get("errors").get(0).asText());
+        assertEquals(5, report.get(2).get("row").asInt());
+        assertEquals("Front content already exists!", report.get(2).get("errors").get(0).asText());
+        assertEquals(2, report.get(3).get("importedCards").asInt());
+        assertEquals(3, report.get(3).get("failedRows").asInt());
+
+        CollectionModel<CardOfDeckOutputModel> cardsOfDeck = testRestTemplate.exchange(
+                BASE_URL + "/deck/1",
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<CollectionModel<CardOfDeckOutputModel>>() {}
+        ).getBody();
+        assertEquals(cards.stream().map(CardCreateInput::getFrontContent).collect(Collectors.toSet()),
+                cardsOfDeck.getContent().stream().map(CardOfDeckOutputModel::getFrontContent).collect(Collectors.toSet()));
+    }
+
+    @Test
+    void importCards_ndjsonOverSeveralChunks_allValidLinesImported() throws Exception {
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 1; i <= 2500; i++) {
+            ndjson.append("{\"frontContent\":\"front ").append(i).append("\",\"backContent\":\"back\"}\n");
+        }
+        ndjson.append("{not json}\n");
+
+        List<JsonNode> report = importCards(2, ndjson.toString(), MediaType.APPLICATION_NDJSON_VALUE);
+
+        assertEquals(2, report.size());
+        assertEquals(2501, report.get(0).get("row").asInt());
+        assertEquals(2500, report.get(1).get("importedCards").asInt());
+        assertEquals(1, report.get(1).get("failedRows").asInt());
+
+        // ids taken by the import are not handed out again
+        ResponseEntity<CardOutputModel> savedCard = testRestTemplate
+                .postForEntity(BASE_URL + "?deckId=2", cards.get(0), CardOutputModel.class);
+        assertEquals(HttpStatus.CREATED, savedCard.getStatusCode());
+    }
+
+    @Test
+    void importCards_nonexistentDeck_returns404() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.valueOf("text/csv"));
+
+        ResponseEntity<Problem> problemResponseEntity = testRestTemplate.postForEntity(
+                BASE_URL + "/import?deckId=4", new HttpEntity<>("front,back", headers), Problem.class);
+
+        assertEquals(HttpStatus.NOT_FOUND, problemResponseEntity.getStatusCode());
+        assertEquals("No such deck id: 4", problemResponseEntity.getBody().getDetail());
+    }
+
+    @Test
+    void exportAllOfDeck_deckHas3Cards_allStreamedWithTimings() throws Exception {
+        for (CardCreateInput card : cards) {
+            testRestTemplate.postForObject(BASE_URL + "?deckId=1", card, CardOutputModel.class);
+        }
+        testRestTemplate.postForObject(BASE_URL + "?deckId=2", new CardCreateInput("Other deck", "back"),
+                CardOutputModel.class);
+
+        ResponseEntity<String> responseEntity = testRestTemplate.getForEntity(BASE_URL + "/deck/1/export", String.class);
+
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertTrue(MediaType.APPLICATION_NDJSON.isCompatibleWith(responseEntity.getHeaders().getContentType()));
+        String[] lines = responseEntity.getBody().split("\n");
+        assertEquals(cards.size(), lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            JsonNode card = objectMapper.readTree(lines[i]);
+            assertEquals(cards.get(i).getFrontContent(), card.get("frontContent").asText());
+            assertEquals(cards.get(i).getBackContent(), card.get("backContent").asText());
+            assertEquals(0, card.get("repetitionNumber").asInt());
+            assertEquals(2.5, card.get("easinessFactor").asDouble());
+            assertTrue(card.hasNonNull("dueDate"));
+        }
+    }
+
+    @Test
+    void exportAllOfDeck_nonexistentDeck_returns404() {
+        ResponseEntity<Problem> problemResponseEntity =
+                testRestTemplate.getForEntity(BASE_URL + "/deck/4/export", Problem.class);
+
+        assertEquals(HttpStatus.NOT_FOUND, problemResponseEntity.getStatusCode());
+        assertEquals(MediaType.APPLICATION_PROBLEM_JSON, problemResponseEntity.getHeaders().getContentType());
+        assertEquals("No such deck id: 4", problemResponseEntity.getBody().getDetail());
+    }
+
+    @Test
+    void importApkg_ankiPackage_notesImportedWithReviewState() throws Exception {
+        List<JsonNode> report = importApkg(1);
+
+        assertEquals(3, report.size());
+        assertEquals("The note has a single field", report.get(0).get("errors").get(0).asText());
+        assertEquals("Front content is repeated in the import", report.get(1).get("errors").get(0).asText());
+        assertEquals(298, report.get(2).get("importedCards").asInt());
+        assertEquals(2, report.get(2).get("failedRows").asInt());
+
+        String export = testRestTemplate.getForObject(BASE_URL + "/deck/1/export", String.class);
+        List<JsonNode> exportedCards = new ArrayList<>();
+        for (String line : export.split("\n")) exportedCards.add(objectMapper.readTree(line));
+        assertEquals(298, exportedCards.size());
+        JsonNode reviewedCard = exportedCards.stream()
+                .filter(card -> card.get("frontContent").asText().equals("Front 5"))
+                .findFirst().orElseThrow();
+        assertEquals(4, reviewedCard.get("repetitionNumber").asInt());
+        assertEquals(10, reviewedCard.get("repetitionInterval").asInt());
+        assertEquals(2.3, reviewedCard.get("easinessFactor").asDouble());
+    }
+
+    @Test
+    void importApkg_interruptedImportUploadedAgain_resumedAfterHandledNotes() throws Exception {
+        String checksum;
+        try (InputStream upload = getClass().getResourceAsStream("/apkg/collection.apkg")) {
+            ApkgArchive.ExtractedCollection collection = ApkgArchive.extractCollection(upload, Long.MAX_VALUE);
+            Files.delete(collection.getPath());
+            checksum = collection.getChecksum();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        apkgImportRepository.save(new ApkgImport(1L, checksum, 200, 0, false, now, now));
+
+        List<JsonNode> report = importApkg(1);
+
+        assertEquals(1, report.size());
+        assertEquals(100, report.get(0).get("importedCards").asInt());
+        assertEquals(200, report.get(0).get("skippedRows").asInt());
+
+        report = importApkg(1);
+
+        assertEquals(0, report.get(0).get("importedCards").asInt());
+        assertEquals(300, report.get(0).get("skippedRows").asInt());
+    }
+
+    @Test
+    void importApkg_notAnAnkiPackage_returns400() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+
+        ResponseEntity<Problem> problemResponseEntity = testRestTemplate.postForEntity(
+                BASE_URL + "/import/apkg?deckId=1", new HttpEntity<>(new byte[]{1, 2, 3}, headers), Problem.class);
+
+        assertEquals(HttpStatus.BAD_REQUEST, problemResponseEntity.getStatusCode());
+        assertEquals("The upload is not an Anki package", problemResponseEntity.getBody().getDetail());
+    }
+
+    private List<JsonNode> importApkg(long deckId) throws Exception {
+        byte[] upload;
+        try (InputStream inputStream = getClass().getResourceAsStream("/apkg/collection.apkg")) {
+            upload = inputStream.readAllBytes();
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+
+        ResponseEntity<String> responseEntity = testRestTemplate.postForEntity(
+                BASE_URL + "/import/apkg?deckId=" + deckId, new HttpEntity<>(upload, headers), String.class);
+
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        List<JsonNode> report = new ArrayList<>();
+        for (String line : responseEntity.getBody().split("\n")) {
+            report.add(objectMapper.readTree(line));
+        }
+        return report;
+    }
+
+    private List<JsonNode> importCards(long deckId, String upload, String contentType) throws Exception {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.valueOf(contentType));
+
+        ResponseEntity<String> responseEntity = testRestTemplate.postForEntity(
+                BASE_URL + "/import?deckId=" + deckId, new HttpEntity<>(upload, headers), String.class);
+
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertTrue(MediaType.APPLICATION_NDJSON.isCompatibleWith(responseEntity.getHeaders().getContentType()));
+        List<JsonNode> report = new ArrayList<>();
+        for (String line : responseEntity.getBody().split("\n")) {
+            report.add(objectMapper.readTree(line));
+        }
+        return report;
+    }
+}
@@ -1,8 +1,13 @@
 package hu.traileddevice.flashcard.controller;
 
+import hu.traileddevice.flashcard.dto.card.CardCreateInput;
+import hu.traileddevice.flashcard.dto.card.CardOutputModel;
+import hu.traileddevice.flashcard.dto.card.CardUpdateInput;
 import hu.traileddevice.flashcard.dto.deck.DeckCreateInput;
 import hu.traileddevice.flashcard.dto.deck.DeckOfUserOutputModel;
 import hu.traileddevice.flashcard.dto.deck.DeckOutputModel;
+import hu.traileddevice.flashcard.dto.deck.DeckUpdateInput;
+import hu.traileddevice.flashcard.dto.deck.DeckStatsOutputModel;
 import hu.traileddevice.flashcard.dto.user.UserCreateInput;
 import hu.traileddevice.flashcard.dto.user.UserOutputModel;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,6 +18,7 @@ import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.web.server.LocalServerPort;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.hateoas.Link;
 import org.springframework.hateoas.mediatype.problem.Problem;
 import org.springframework.http.*;
@@ -25,6 +31,8 @@ import java.util.Optional;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
@@ -80,7 +88,7 @@ class DeckControllerIT {
         CollectionModel<DeckOutputModel> collectionModel = collectionModelResponseEntity.getBody();
 
         String receivedCollectionHref = collectionModel.getLinks().toList().get(0).getHref();
-        assertEquals(BASE_URL, receivedCollectionHref);
+        assertEquals(BASE_URL + "?limit=20", receivedCollectionHref);
 
         List<Optional<Link>> deckHrefs = collectionModel
                 .getContent().stream()
@@ -103,6 +111,41 @@ class DeckControllerIT {
         assertEquals(expectedNames, receivedNames);
     }
 
+    @Test
+    void findAll_deckWithCards_cardsLinkedInsteadOfEmbedded() {
+        testRestTemplate.postForObject(BASE_URL + "?userId=1", decks.get(0), DeckOutputModel.class);
+        testRestTemplate.postForObject("http://localhost:" + port + "/card?deckId=1",
+                new CardCreateInput("What is Spring Framework?", "An application framework."), CardOutputModel.class);
+
+        ResponseEntity<CollectionModel<DeckOutputModel>> collectionModelResponseEntity = testRestTemplate.exchange(
+                BASE_URL,
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<>() {
+                }
+        );
+
+        DeckOutputModel deckOutputModel = collectionModelResponseEntity.getBody().getContent().iterator().next();
+        assertNull(deckOutputModel.getCards());
+        assertTrue(deckOutputModel.getLink("create-card").isEmpty());
+        assertEquals("http://localhost:" + port + "/card/deck/1?limit=100",
+                deckOutputModel.getLink("cards").get().toUri().toString());
+    }
+
+    @Test
+    void findById_deckWithCards_firstCardsEmbeddedAndLinked() {
+        testRestTemplate.postForObject(BASE_URL + "?userId=1", decks.get(0), DeckOutputModel.class);
+        testRestTemplate.postForObject("http://localhost:" + port + "/card?deckId=1",
+                new CardCreateInput("What is Spring Framework?", "An application framework."), CardOutputModel.class);
+
+        DeckOutputModel deckOutputModel = testRestTemplate.getForObject(BASE_URL + "/" + 1, DeckOutputModel.class);
+
+        assertEquals(1, deckOutputModel.getCards().size());
+        assertEquals("What is Spring Framework?", deckOutputModel.getCards().get(0).getFrontContent());
+        assertEquals("http://localhost:" + port + "/card/deck/1?limit=100",
+                deckOutputModel.getLink("cards").get().toUri().toString());
+    }
+
     @Test
     void save_postForDeck_returns201WithProperLinks() {
         ResponseEntity<DeckOutputModel> deckOutputModelResponseEntity = testRestTemplate
@@ -172,6 +215,36 @@ class DeckControllerIT {
         assertEquals("updated", deckOutputModelResponseEntity.getBody().getName());
     }
 
+    @Test
+    void update_dailyLimits_returnedWithDefaultsForTheOther() {
+        DeckOutputModel savedDeck = testRestTemplate.postForObject(BASE_URL + "?userId=1", decks.get(0), DeckOutputModel.class);
+        assertEquals(20, savedDeck.getNewCardsPerDay());
+        assertEquals(200, savedDeck.getReviewsPerDay());
+
+        DeckUpdateInput deckUpdateInput = new DeckUpdateInput();
+        deckUpdateInput.setNewCardsPerDay(5);
+
+        ResponseEntity<DeckOutputModel> deckOutputModelResponseEntity = testRestTemplate.exchange(
+                BASE_URL + "/" + 1, HttpMethod.PUT, new HttpEntity<>(deckUpdateInput), DeckOutputModel.class);
+
+        assertEquals(HttpStatus.OK, deckOutputModelResponseEntity.getStatusCode());
+        assertEquals(5, deckOutputModelResponseEntity.getBody().getNewCardsPerDay());
+        assertEquals(200, deckOutputModelResponseEntity.getBody().getReviewsPerDay());
+        assertEquals("Spring", deckOutputModelResponseEntity.getBody().getName());
+    }
+
+    @Test
+    void save_negativeDailyLimit_returns400WithDetailedProblem() {
+        DeckCreateInput deckCreateInput = new DeckCreateInput("Spring");
+        deckCreateInput.setReviewsPerDay(-1);
+
+        ResponseEntity<Problem> problemResponseEntity = testRestTemplate
+                .postForEntity(BASE_URL + "?userId=1", deckCreateInput, Problem.class);
+
+        assertEquals(HttpStatus.BAD_REQUEST, problemResponseEntity.getStatusCode());
+        assertEquals("[reviewsPerDay: Reviews per day must not be negative]", problemResponseEntity.getBody().getDetail());
+    }
+
     @Test
     void update_nonexistentDeckId_returns404WithDetail() {
 
@@ -326,7 +399,7 @@ class DeckControllerIT {
         assertEquals(HttpStatus.OK, collectionModelResponseEntity.getStatusCode());
 
         assertEquals(
-                urlForDecksOfUser1,
+                urlForDecksOfUser1 + "?limit=20",
                 collectionModelResponseEntity.getBody().getLink("self").get().toUri().toString()
         );
 
@@ -341,6 +414,38 @@ class DeckControllerIT {
         }
     }
 
+    @Test
+    void findAllOfUser_limitBelowDeckCount_pagedWithNextLinks() {
+        List<Long> deckIds = new ArrayList<>();
+        for (DeckCreateInput deck : decks) {
+            deckIds.add(testRestTemplate.postForObject(BASE_URL + "?userId=2", deck, DeckOutputModel.class).getId());
+        }
+
+        String urlForDecksOfUser2 = BASE_URL + "/user/2";
+        CollectionModel<DeckOfUserOutputModel> firstPage = testRestTemplate.exchange(
+                urlForDecksOfUser2 + "?limit=2",
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<CollectionModel<DeckOfUserOutputModel>>() {}
+        ).getBody();
+
+        assertEquals(deckIds.subList(0, 2),
+                firstPage.getContent().stream().map(DeckOfUserOutputModel::getId).collect(Collectors.toList()));
+        String nextHref = firstPage.getRequiredLink(IanaLinkRelations.NEXT).getHref();
+        assertEquals(urlForDecksOfUser2 + "?after=" + deckIds.get(1) + "&limit=2", nextHref);
+
+        CollectionModel<DeckOfUserOutputModel> lastPage = testRestTemplate.exchange(
+                nextHref,
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<CollectionModel<DeckOfUserOutputModel>>() {}
+        ).getBody();
+
+        assertEquals(List.of(deckIds.get(2)),
+                lastPage.getContent().stream().map(DeckOfUserOutputModel::getId).collect(Collectors.toList()));
+        assertTrue(lastPage.getLink(IanaLinkRelations.NEXT).isEmpty());
+    }
+
     @Test
     void findAllOfUser_nonexistentUser_returns404() {
 
@@ -361,4 +466,76 @@ class DeckControllerIT {
         assertEquals("User does not exist or has no decks.", problem.getDetail());
         assertEquals(HttpStatus.NOT_FOUND, problem.getStatus());
     }
-}
\ No newline at end of file
+
+    @Test
+    void findStatsById_3cardsOneOfThemReviewed_countersUpdated() {
+        // init database - add 3 cards to a deck, then review one of them successfully
+        testRestTemplate.postForObject(BASE_URL + "?userId=1", decks.get(0), DeckOutputModel.class);
+        for (int i = 1; i <= 3; i++) {
+            testRestTemplate.postForObject("http://localhost:" + port + "/card?deckId=1",
+                    new CardCreateInput("Question " + i, "Answer " + i), CardOutputModel.class);
+        }
+        testRestTemplate.exchange("http://localhost:" + port + "/learn/1?difficulty=SUCCESS_EASY",
+                HttpMethod.PUT, null, CardOutputModel.class);
+
+        ResponseEntity<DeckStatsOutputModel> deckStatsResponseEntity = testRestTemplate
+                .getForEntity(BASE_URL + "/1/stats", DeckStatsOutputModel.class);
+
+        assertEquals(HttpStatus.OK, deckStatsResponseEntity.getStatusCode());
+
+        DeckStatsOutputModel deckStats = deckStatsResponseEntity.getBody();
+
+        assertEquals(1L, deckStats.getDeckId());
+        assertEquals("Spring", deckStats.getName());
+        assertEquals(3, deckStats.getTotalCards());
+        assertEquals(2, deckStats.getNewCards());
+        assertEquals(2L, deckStats.getDueCards()); // the reviewed card is due tomorrow
+        assertEquals(BASE_URL + "/1/stats", deckStats.getRequiredLink(IanaLinkRelations.SELF).getHref());
+    }
+
+    @Test
+    void findStatsOfUser_cardDeletedAndMoved_countersOfBothDecksUpdated() {
+        // init database - 2 decks with 2 cards, then move one and delete the other
+        testRestTemplate.postForObject(BASE_URL + "?userId=1", decks.get(0), DeckOutputModel.class);
+        testRestTemplate.postForObject(BASE_URL + "?userId=1", decks.get(1), DeckOutputModel.class);
+        testRestTemplate.postForObject(BASE_URL + "?userId=2", decks.get(2), DeckOutputModel.class);
+        testRestTemplate.postForObject("http://localhost:" + port + "/card?deckId=1",
+                new CardCreateInput("Question 1", "Answer 1"), CardOutputModel.class);
+        testRestTemplate.postForObject("http://localhost:" + port + "/card?deckId=1",
+                new CardCreateInput("Question 2", "Answer 2"), CardOutputModel.class);
+        CardUpdateInput cardUpdateInput = new CardUpdateInput();
+        cardUpdateInput.setFrontContent("Moved question");
+        cardUpdateInput.setDeckId(2L);
+        testRestTemplate.exchange("http://localhost:" + port + "/card/1",
+                HttpMethod.PUT, new HttpEntity<>(cardUpdateInput), CardOutputModel.class);
+        testRestTemplate.delete("http://localhost:" + port + "/card/2");
+
+        ResponseEntity<CollectionModel<DeckStatsOutputModel>> collectionModelResponseEntity = testRestTemplate.exchange(
+                BASE_URL + "/user/1/stats",
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<>() {
+                }
+        );
+
+        assertEquals(HttpStatus.OK, collectionModelResponseEntity.getStatusCode());
+
+        List<DeckStatsOutputModel> deckStats = new ArrayList<>(collectionModelResponseEntity.getBody().getContent());
+
+        assertEquals(2, deckStats.size());
+        assertEquals(0, deckStats.get(0).getTotalCards());
+        assertEquals(0L, deckStats.get(0).getDueCards());
+        assertEquals(1, deckStats.get(1).getTotalCards());
+        assertEquals(1, deckStats.get(1).getNewCards());
+        assertEquals(1L, deckStats.get(1).getDueCards());
+    }
+
+    @Test
+    void findStatsById_nonexistentDeck_returns404WithDetail() {
+        ResponseEntity<Problem> problemResponseEntity = testRestTemplate
+                .getForEntity(BASE_URL + "/1/stats", Problem.class);
+
+        assertEquals(HttpStatus.NOT_FOUND, problemResponseEntity.getStatusCode());
+        assertEquals("No such deck id: 1", problemResponseEntity.getBody().getDetail());
+    }
+}
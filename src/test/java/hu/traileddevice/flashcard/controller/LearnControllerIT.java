@@ -1,15 +1,27 @@
 package hu.traileddevice.flashcard.controller;
 
+import hu.traileddevice.flashcard.cache.DailyLimitCounters;
 import hu.traileddevice.flashcard.dto.card.CardCreateInput;
 import hu.traileddevice.flashcard.dto.card.CardOutputModel;
+import hu.traileddevice.flashcard.dto.card.CardUpdateInput;
 import hu.traileddevice.flashcard.dto.deck.DeckCreateInput;
 import hu.traileddevice.flashcard.dto.deck.DeckOutputModel;
+import hu.traileddevice.flashcard.dto.deck.DeckStatsOutputModel;
+import hu.traileddevice.flashcard.dto.deck.DeckUpdateInput;
 import hu.traileddevice.flashcard.dto.learn.AnswerOutputModel;
+import hu.traileddevice.flashcard.dto.learn.ForecastDayOutput;
+import hu.traileddevice.flashcard.dto.learn.ForecastOutputModel;
 import hu.traileddevice.flashcard.dto.learn.QuestionOutputModel;
+import hu.traileddevice.flashcard.dto.learn.ReviewInput;
+import hu.traileddevice.flashcard.dto.learn.ReviewStepOutputModel;
 import hu.traileddevice.flashcard.dto.user.UserCreateInput;
 import hu.traileddevice.flashcard.dto.user.UserOutputModel;
 import hu.traileddevice.flashcard.model.CardTiming;
+import hu.traileddevice.flashcard.model.Difficulty;
+import hu.traileddevice.flashcard.model.SchedulingAlgorithm;
 import hu.traileddevice.flashcard.repository.CardTimingRepository;
+import hu.traileddevice.flashcard.reviewlog.ReviewLogWriter;
+import hu.traileddevice.flashcard.service.DeckStatsService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -18,11 +30,16 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.SpyBean;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.hateoas.mediatype.problem.Problem;
+import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 
@@ -31,12 +48,17 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.datasource.url=jdbc:h2:mem:flashcard-db-learn-test") // not shared with other test classes
 @DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD) // @SpyBean breaks other test classes with BEFORE
 @ActiveProfiles("test")
 class LearnControllerIT {
@@ -52,6 +74,18 @@ class LearnControllerIT {
     @SpyBean
     private CardTimingRepository cardTimingRepository;
 
+    @Autowired
+    private ReviewLogWriter reviewLogWriter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DailyLimitCounters dailyLimitCounters;
+
+    @Autowired
+    private DeckStatsService deckStatsService;
+
     private List<UserCreateInput> users;
     private List<DeckCreateInput> decks;
     private List<CardCreateInput> cards;
@@ -101,6 +135,7 @@ class LearnControllerIT {
         for (int i = 1; i <= 3; i++) { // set cards to reviewed, and due tomorrow
             CardTiming cardTiming = cardTimingRepository.findByCardId((long) i).get();
             cardTiming.setRepetitionNumber(1);
+            cardTiming.setLearned(true);
             cardTiming.setRepetitionInterval(i);// only id 1 is ready now
             cardTiming.setLastReviewDate(
                     LocalDateTime.of(
@@ -125,6 +160,26 @@ class LearnControllerIT {
         assertEquals(cards.get(0).getFrontContent(), questionOutputModel.getFrontContent());
     }
 
+    @Test
+    void getDueCardFromDeck_cardMovedToOtherDeck_getsMovedCard() {
+        CardUpdateInput cardUpdateInput = new CardUpdateInput();
+        cardUpdateInput.setFrontContent("Prototype?");
+        cardUpdateInput.setDeckId(2L);
+        testRestTemplate.put("http://localhost:" + port + "/card/" + 3, cardUpdateInput);
+
+        String requestUrl = BASE_URL + "/" + 2;
+
+        ResponseEntity<QuestionOutputModel> questionOutputModelResponseEntity =
+                testRestTemplate.getForEntity(requestUrl, QuestionOutputModel.class);
+
+        assertEquals(HttpStatus.OK, questionOutputModelResponseEntity.getStatusCode());
+
+        QuestionOutputModel questionOutputModel = questionOutputModelResponseEntity.getBody();
+
+        assertEquals(2L, questionOutputModel.getDeckId());
+        assertEquals("Prototype?", questionOutputModel.getFrontContent());
+    }
+
     @Test
     void getDueCardFromDeck_0CardsInDeck_returns404WithDetail() {
 
@@ -148,6 +203,7 @@ class LearnControllerIT {
         for (int i = 1; i <= 3; i++) { // set cards to reviewed, and due tomorrow
             CardTiming cardTiming = cardTimingRepository.findByCardId((long) i).get();
             cardTiming.setRepetitionNumber(1);
+            cardTiming.setLearned(true);
             cardTimingRepository.save(cardTiming);
         }
 
@@ -184,6 +240,291 @@ class LearnControllerIT {
         assertEquals("[Deck id must be positive]", problem.getDetail());
     }
 
+    @Test
+    void getDueCardsFromDeck_3CardsInDeck_getsCardsInDueOrder() {
+
+        String requestUrl = BASE_URL + "/" + 1 + "/queue?limit=2";
+
+        ResponseEntity<CollectionModel<QuestionOutputModel>> collectionModelResponseEntity = testRestTemplate.exchange(
+                requestUrl,
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<>() {
+                }
+        );
+
+        assertEquals(HttpStatus.OK, collectionModelResponseEntity.getStatusCode());
+        assertEquals("application/hal+json", collectionModelResponseEntity.getHeaders().getContentType().toString());
+
+        CollectionModel<QuestionOutputModel> collectionModel = collectionModelResponseEntity.getBody();
+
+        assertEquals(requestUrl, collectionModel.getRequiredLink(IanaLinkRelations.SELF).toUri().toString());
+
+        List<QuestionOutputModel> questionOutputModels = new ArrayList<>(collectionModel.getContent());
+        assertEquals(2, questionOutputModels.size());
+        assertEquals(cards.get(0).getFrontContent(), questionOutputModels.get(0).getFrontContent());
+        assertEquals(cards.get(1).getFrontContent(), questionOutputModels.get(1).getFrontContent());
+        assertEquals(BASE_URL + "/solution/" + questionOutputModels.get(1).getId(),
+                questionOutputModels.get(1).getLink("get-solution").get().toUri().toString());
+    }
+
+    @Test
+    void getDueCardFromDeck_dailyLimitsReached_returns404WithDetail() {
+        updateDailyLimits(1, 0);
+        review(1L, Difficulty.SUCCESS_EASY);
+
+        ResponseEntity<Problem> problemResponseEntity =
+                testRestTemplate.getForEntity(BASE_URL + "/" + 1, Problem.class);
+
+        assertEquals(HttpStatus.NOT_FOUND, problemResponseEntity.getStatusCode());
+        assertEquals("Daily limits of the deck are reached", problemResponseEntity.getBody().getDetail());
+
+        dailyLimitCounters.flush();
+
+        assertEquals(Map.of("NEW_CARDS", 1, "REVIEWS", 0), jdbcTemplate.queryForMap(
+                "SELECT new_cards, reviews FROM deck_daily_counts WHERE deck_id = 1 AND review_day = ?",
+                LocalDate.now()));
+    }
+
+    @Test
+    void getDueCardsFromDeck_newCardLimitReached_onlyReviewsLeft() {
+        CardTiming learnedCardTiming = cardTimingRepository.findByCardId(2L).get();
+        learnedCardTiming.setRepetitionNumber(1);
+        learnedCardTiming.setLearned(true);
+        learnedCardTiming.setLastReviewDate(LocalDateTime.now().minusDays(2)); // due yesterday
+        cardTimingRepository.save(learnedCardTiming);
+        CardTiming newCardTiming = cardTimingRepository.findByCardId(3L).get();
+        newCardTiming.setLastReviewDate(LocalDateTime.now().minusDays(5)); // more due than the learned card
+        cardTimingRepository.save(newCardTiming);
+
+        updateDailyLimits(1, 10);
+        review(1L, Difficulty.SUCCESS_EASY);
+
+        assertEquals(List.of(2L), getIdsOfQueue(BASE_URL + "/1/queue"));
+        assertEquals(2L, testRestTemplate.getForObject(BASE_URL + "/" + 1, QuestionOutputModel.class).getId());
+    }
+
+    @Test
+    void getDueCardsFromDeck_failedCardWithNewCardLimitReached_servedAsReview() {
+        updateDailyLimits(1, 10);
+        review(1L, Difficulty.SUCCESS_EASY);
+        review(1L, Difficulty.BLACKOUT); // starts over, but is not new again
+
+        assertEquals(List.of(1L), getIdsOfQueue(BASE_URL + "/1/queue"));
+        dailyLimitCounters.flush();
+        assertEquals(Map.of("NEW_CARDS", 1, "REVIEWS", 1), jdbcTemplate.queryForMap(
+                "SELECT new_cards, reviews FROM deck_daily_counts WHERE deck_id = 1 AND review_day = ?",
+                LocalDate.now()));
+        assertEquals(2, testRestTemplate.getForObject(
+                "http://localhost:" + port + "/deck/1/stats", DeckStatsOutputModel.class).getNewCards());
+    }
+
+    @Test
+    void getDueCardsFromDeck_newCardLimitBelowQueueLimit_filledWithLessDueReviews() {
+        for (long cardId = 1; cardId <= 2; cardId++) {
+            CardTiming newCardTiming = cardTimingRepository.findByCardId(cardId).get();
+            newCardTiming.setLastReviewDate(LocalDateTime.now().minusDays(5)); // more due than the learned card
+            cardTimingRepository.save(newCardTiming);
+        }
+        CardTiming learnedCardTiming = cardTimingRepository.findByCardId(3L).get();
+        learnedCardTiming.setRepetitionNumber(1);
+        learnedCardTiming.setLearned(true);
+        learnedCardTiming.setLastReviewDate(LocalDateTime.now().minusDays(2)); // due yesterday
+        cardTimingRepository.save(learnedCardTiming);
+
+        updateDailyLimits(1, 10);
+
+        assertEquals(List.of(1L, 3L), getIdsOfQueue(BASE_URL + "/1/queue?limit=2"));
+    }
+
+    private void updateDailyLimits(int newCardsPerDay, int reviewsPerDay) {
+        DeckUpdateInput deckUpdateInput = new DeckUpdateInput();
+        deckUpdateInput.setNewCardsPerDay(newCardsPerDay);
+        deckUpdateInput.setReviewsPerDay(reviewsPerDay);
+        testRestTemplate.put("http://localhost:" + port + "/deck/1", deckUpdateInput);
+    }
+
+    private List<Long> getIdsOfQueue(String requestUrl) {
+        ResponseEntity<CollectionModel<QuestionOutputModel>> collectionModelResponseEntity = testRestTemplate.exchange(
+                requestUrl,
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<>() {
+                }
+        );
+        assertEquals(HttpStatus.OK, collectionModelResponseEntity.getStatusCode());
+        return collectionModelResponseEntity.getBody().getContent().stream()
+                .map(QuestionOutputModel::getId)
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    void getDueCardsFromDeck_invalidLimit_returns400WithDetail() {
+
+        String requestUrl = BASE_URL + "/" + 1 + "/queue?limit=0";
+
+        ResponseEntity<Problem> problemResponseEntity =
+                testRestTemplate.getForEntity(requestUrl, Problem.class);
+
+        assertEquals(HttpStatus.BAD_REQUEST, problemResponseEntity.getStatusCode());
+        assertEquals(MediaType.APPLICATION_PROBLEM_JSON, problemResponseEntity.getHeaders().getContentType());
+
+        Problem problem = problemResponseEntity.getBody();
+
+        assertEquals("Input constraint violation", problem.getTitle());
+        assertEquals("[Limit must be positive]", problem.getDetail());
+    }
+
+    @Test
+    void getDueCardsOfUser_cardsInTwoDecks_interleavedByDeck() {
+        testRestTemplate.postForObject("http://localhost:" + port + "/card?deckId=2",
+                new CardCreateInput("What is a record?", "A transparent carrier for immutable data."),
+                CardOutputModel.class);
+
+        List<String> dueOrder = getFrontContentsOfUserQueue(BASE_URL + "/user/" + 1);
+        assertEquals(List.of(cards.get(0).getFrontContent(), cards.get(1).getFrontContent(),
+                cards.get(2).getFrontContent(), "What is a record?"), dueOrder);
+
+        List<String> interleavedOrder = getFrontContentsOfUserQueue(BASE_URL + "/user/" + 1 + "?interleave=true");
+        assertEquals(List.of(cards.get(0).getFrontContent(), "What is a record?",
+                cards.get(1).getFrontContent(), cards.get(2).getFrontContent()), interleavedOrder);
+    }
+
+    @Test
+    void getDueCardsOfUser_moreDueDeckOverItsLimits_cardsOfOtherDeckServed() {
+        updateDailyLimits(1, 0);
+        review(1L, Difficulty.SUCCESS_EASY);
+        testRestTemplate.postForObject("http://localhost:" + port + "/card?deckId=2",
+                new CardCreateInput("What is a record?", "A transparent carrier for immutable data."),
+                CardOutputModel.class);
+
+        assertEquals(List.of("What is a record?"), getFrontContentsOfUserQueue(BASE_URL + "/user/1?limit=2"));
+    }
+
+    private List<String> getFrontContentsOfUserQueue(String requestUrl) {
+        ResponseEntity<CollectionModel<QuestionOutputModel>> collectionModelResponseEntity = testRestTemplate.exchange(
+                requestUrl,
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<>() {
+                }
+        );
+        assertEquals(HttpStatus.OK, collectionModelResponseEntity.getStatusCode());
+        return collectionModelResponseEntity.getBody().getContent().stream()
+                .map(QuestionOutputModel::getFrontContent)
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    void getForecastOfDeck_reviewedCards_countedOnTheirDueDays() {
+        review(1L, Difficulty.SUCCESS_EASY); // due tomorrow
+        review(2L, Difficulty.SUCCESS_EASY);
+        review(2L, Difficulty.SUCCESS_EASY); // due in 6 days
+
+        String requestUrl = BASE_URL + "/1/forecast?days=7";
+
+        ResponseEntity<ForecastOutputModel> forecastOutputModelResponseEntity =
+                testRestTemplate.getForEntity(requestUrl, ForecastOutputModel.class);
+
+        assertEquals(HttpStatus.OK, forecastOutputModelResponseEntity.getStatusCode());
+
+        ForecastOutputModel forecastOutputModel = forecastOutputModelResponseEntity.getBody();
+
+        assertEquals(requestUrl, forecastOutputModel.getLink("self").get().toUri().toString());
+        assertEquals("http://localhost:" + port + "/deck/1", forecastOutputModel.getLink("deck").get().toUri().toString());
+        assertEquals(1L, forecastOutputModel.getDeckId());
+        assertNull(forecastOutputModel.getUserId());
+        assertEquals(1, forecastOutputModel.getNewCards());
+        assertEquals(LocalDate.now(), forecastOutputModel.getDays().get(0).getDay());
+        assertEquals(LocalDate.now().plusDays(6), forecastOutputModel.getDays().get(6).getDay());
+        assertEquals(List.of(0L, 1L, 0L, 0L, 0L, 0L, 1L), getDueCardsOfDays(forecastOutputModel));
+    }
+
+    @Test
+    void getForecastOfDeck_overdueCards_countedToday() {
+        review(1L, Difficulty.SUCCESS_EASY); // due tomorrow
+        review(2L, Difficulty.SUCCESS_EASY);
+        review(2L, Difficulty.SUCCESS_EASY); // due in 6 days
+        testRestTemplate.put("http://localhost:" + port + "/reschedule/1/shift?days=-3", null);
+
+        ForecastOutputModel forecastOutputModel =
+                testRestTemplate.getForObject(BASE_URL + "/1/forecast?days=4", ForecastOutputModel.class);
+
+        assertEquals(List.of(1L, 0L, 0L, 1L), getDueCardsOfDays(forecastOutputModel));
+    }
+
+    @Test
+    void getForecastOfDeck_pastDaysCompacted_overdueCardsKept() {
+        review(1L, Difficulty.SUCCESS_EASY); // due tomorrow
+        review(2L, Difficulty.SUCCESS_EASY);
+        review(2L, Difficulty.SUCCESS_EASY); // due in 6 days
+        testRestTemplate.put("http://localhost:" + port + "/reschedule/1/shift?days=-3", null);
+
+        deckStatsService.compactPastDays();
+
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM deck_due_days WHERE due_day < ?",
+                Integer.class, LocalDate.now().minusDays(1)));
+        ForecastOutputModel forecastOutputModel =
+                testRestTemplate.getForObject(BASE_URL + "/1/forecast?days=4", ForecastOutputModel.class);
+        assertEquals(List.of(1L, 0L, 0L, 1L), getDueCardsOfDays(forecastOutputModel));
+
+        review(1L, Difficulty.SUCCESS_EASY); // overdue card due again in the future
+
+        forecastOutputModel = testRestTemplate.getForObject(BASE_URL + "/1/forecast?days=4", ForecastOutputModel.class);
+        assertEquals(0L, getDueCardsOfDays(forecastOutputModel).get(0));
+    }
+
+    @Test
+    void getForecastOfUser_cardsInTwoDecks_summedUp() {
+        testRestTemplate.postForObject("http://localhost:" + port + "/card?deckId=2",
+                new CardCreateInput("What is a record?", "A transparent carrier for immutable data."),
+                CardOutputModel.class);
+        review(1L, Difficulty.SUCCESS_EASY);
+        review(4L, Difficulty.SUCCESS_EASY);
+        review(2L, Difficulty.SUCCESS_EASY);
+        review(2L, Difficulty.SUCCESS_EASY);
+
+        String requestUrl = BASE_URL + "/user/1/forecast?days=7";
+
+        ForecastOutputModel forecastOutputModel = testRestTemplate.getForObject(requestUrl, ForecastOutputModel.class);
+
+        assertEquals(requestUrl, forecastOutputModel.getLink("self").get().toUri().toString());
+        assertEquals("http://localhost:" + port + "/user/1", forecastOutputModel.getLink("user").get().toUri().toString());
+        assertEquals(1L, forecastOutputModel.getUserId());
+        assertEquals(1, forecastOutputModel.getNewCards());
+        assertEquals(List.of(0L, 2L, 0L, 0L, 0L, 0L, 1L), getDueCardsOfDays(forecastOutputModel));
+    }
+
+    @Test
+    void getForecastOfDeck_nonexistentDeck_returns404WithDetail() {
+
+        ResponseEntity<Problem> problemResponseEntity =
+                testRestTemplate.getForEntity(BASE_URL + "/99/forecast", Problem.class);
+
+        assertEquals(HttpStatus.NOT_FOUND, problemResponseEntity.getStatusCode());
+        assertEquals("No such deck id: 99", problemResponseEntity.getBody().getDetail());
+    }
+
+    @Test
+    void getForecastOfUser_invalidDays_returns400WithDetail() {
+
+        ResponseEntity<Problem> problemResponseEntity =
+                testRestTemplate.getForEntity(BASE_URL + "/user/1/forecast?days=366", Problem.class);
+
+        assertEquals(HttpStatus.BAD_REQUEST, problemResponseEntity.getStatusCode());
+        assertEquals("[Days must not be greater than 365]", problemResponseEntity.getBody().getDetail());
+    }
+
+    private void review(Long cardId, Difficulty difficulty) {
+        testRestTemplate.put(BASE_URL + "/" + cardId + "?difficulty=" + difficulty, null);
+    }
+
+    private List<Long> getDueCardsOfDays(ForecastOutputModel forecastOutputModel) {
+        return forecastOutputModel.getDays().stream()
+                .map(ForecastDayOutput::getDueCards)
+                .collect(Collectors.toList());
+    }
+
     @Test
     void getSolutionToQuestion_existingCard_returns200() {
         String requestUrl = BASE_URL + "/solution/" + 1;
@@ -261,6 +602,54 @@ class LearnControllerIT {
         assertEquals(LocalDate.now().plusDays(1), cardOutputModelResponseEntity.getBody().getDueDate());
     }
 
+    @Test
+    void updateTimings_setFailOnExistingCard_returnsCardDueToday() {
+        ResponseEntity<CardOutputModel> cardOutputModelResponseEntity = testRestTemplate.exchange(
+                BASE_URL + "/" + 1 + "?difficulty=BLACKOUT", HttpMethod.PUT, null, CardOutputModel.class);
+
+        assertEquals(HttpStatus.OK, cardOutputModelResponseEntity.getStatusCode());
+        assertEquals(LocalDate.now(), cardOutputModelResponseEntity.getBody().getDueDate()); // served again right away
+    }
+
+    @Test
+    void updateTimings_deckSwitchedToFsrs_scheduledByFsrs() {
+        DeckUpdateInput deckUpdateInput = new DeckUpdateInput();
+        deckUpdateInput.setSchedulingAlgorithm(SchedulingAlgorithm.FSRS);
+        testRestTemplate.exchange("http://localhost:" + port + "/deck/1",
+                HttpMethod.PUT, new HttpEntity<>(deckUpdateInput), DeckOutputModel.class);
+
+        ResponseEntity<CardOutputModel> cardOutputModelResponseEntity = testRestTemplate
+                .exchange(
+                        BASE_URL + "/" + 1 + "?difficulty=SUCCESS_MEDIUM",
+                        HttpMethod.PUT,
+                        null,
+                        CardOutputModel.class
+                );
+
+        assertEquals(HttpStatus.OK, cardOutputModelResponseEntity.getStatusCode());
+        assertEquals(LocalDate.now().plusDays(4), cardOutputModelResponseEntity.getBody().getDueDate()); // initial stability of "good"
+
+        CardTiming cardTiming = cardTimingRepository.findByCardId(1L).get();
+        assertEquals(3.7145, cardTiming.getStability(), 1e-9);
+        assertEquals(2.5, cardTiming.getEasinessFactor(), 1e-9); // SM-2 state left untouched
+    }
+
+    @Test
+    void updateTimings_2reviewsOfCard_bothLogged() {
+        testRestTemplate.exchange(BASE_URL + "/1?difficulty=SUCCESS_EASY", HttpMethod.PUT, null, CardOutputModel.class);
+        testRestTemplate.exchange(BASE_URL + "/1?difficulty=SUCCESS_EASY", HttpMethod.PUT, null, CardOutputModel.class);
+
+        reviewLogWriter.flush();
+
+        List<Map<String, Object>> reviews = jdbcTemplate.queryForList(
+                "SELECT grade, previous_interval, new_interval, user_id FROM reviews WHERE card_id = 1 ORDER BY id");
+        assertEquals(2, reviews.size());
+        assertEquals(5, ((Number) reviews.get(0).get("GRADE")).intValue());
+        assertEquals(1, ((Number) reviews.get(1).get("PREVIOUS_INTERVAL")).intValue());
+        assertEquals(6, ((Number) reviews.get(1).get("NEW_INTERVAL")).intValue());
+        assertEquals(1L, ((Number) reviews.get(1).get("USER_ID")).longValue());
+    }
+
     @Test
     void updateTimings_missingParameter_returns400WithDetail() {
 
@@ -330,6 +719,7 @@ class LearnControllerIT {
         CardTiming cardTiming = cardTimingRepository.findByCardId(1L).get();
         cardTiming.setLastReviewDate(LocalDateTime.now().minusDays(1)); // set last review to yesterday (not necessary here)
         cardTiming.setRepetitionNumber(1);
+        cardTiming.setLearned(true);
         cardTiming.setEasinessFactor(2.6);
         cardTiming.setRepetitionInterval(1);
         cardTimingRepository.save(cardTiming);
@@ -354,6 +744,7 @@ class LearnControllerIT {
         CardTiming cardTiming = cardTimingRepository.findByCardId(1L).get();
         cardTiming.setLastReviewDate(LocalDateTime.now().minusDays(1)); // set last review to yesterday (not necessary here)
         cardTiming.setRepetitionNumber(1);
+        cardTiming.setLearned(true);
         cardTiming.setEasinessFactor(2.6);
         cardTiming.setRepetitionInterval(1);
         cardTimingRepository.save(cardTiming);
@@ -373,4 +764,98 @@ class LearnControllerIT {
         assertEquals(1, cardTiming.getRepetitionInterval()); // reset to default
     }
 
-}
\ No newline at end of file
+    @Test
+    void updateTimingsAndGetNext_easyOnFirstCard_returnsSecondCardWithSolution() {
+
+        String requestUrl = BASE_URL + "/" + 1 + "/next?difficulty=SUCCESS_EASY";
+
+        ResponseEntity<ReviewStepOutputModel> reviewStepOutputModelResponseEntity = testRestTemplate
+                .exchange(requestUrl, HttpMethod.PUT, null, ReviewStepOutputModel.class);
+
+        assertEquals(HttpStatus.OK, reviewStepOutputModelResponseEntity.getStatusCode());
+
+        ReviewStepOutputModel reviewStepOutputModel = reviewStepOutputModelResponseEntity.getBody();
+
+        assertEquals(requestUrl, reviewStepOutputModel.getRequiredLink(IanaLinkRelations.SELF).toUri().toString());
+        assertEquals(1L, reviewStepOutputModel.getReviewedCard().getId());
+        assertEquals(LocalDate.now().plusDays(1), reviewStepOutputModel.getReviewedCard().getDueDate());
+        assertEquals(2L, reviewStepOutputModel.getNextCard().getId());
+        assertEquals(cards.get(1).getFrontContent(), reviewStepOutputModel.getNextCard().getFrontContent());
+        assertEquals(cards.get(1).getBackContent(), reviewStepOutputModel.getNextCard().getBackContent());
+        assertEquals(BASE_URL + "/" + 2 + "/next?difficulty={difficulty}",
+                reviewStepOutputModel.getLink("update-next-timings").get().getHref());
+    }
+
+    @Test
+    void updateTimingsAndGetNext_lastDueCard_returnsNoNextCard() {
+        for (int i = 2; i <= 3; i++) { // only card 1 remains due
+            CardTiming cardTiming = cardTimingRepository.findByCardId((long) i).get();
+            cardTiming.setRepetitionNumber(1);
+            cardTiming.setLearned(true);
+            cardTimingRepository.save(cardTiming);
+        }
+
+        String requestUrl = BASE_URL + "/" + 1 + "/next?difficulty=SUCCESS_EASY";
+
+        ReviewStepOutputModel reviewStepOutputModel = testRestTemplate
+                .exchange(requestUrl, HttpMethod.PUT, null, ReviewStepOutputModel.class).getBody();
+
+        assertEquals(1L, reviewStepOutputModel.getReviewedCard().getId());
+        assertNull(reviewStepOutputModel.getNextCard());
+        assertTrue(reviewStepOutputModel.getLink("update-next-timings").isEmpty());
+    }
+
+    @Test
+    void updateTimingsInBulk_twoReviewsOfSameCard_appliedInReviewOrder() {
+        List<ReviewInput> reviewInputs = List.of(
+                new ReviewInput(1L, Difficulty.SUCCESS_EASY, LocalDateTime.now().minusMinutes(1)),
+                new ReviewInput(2L, Difficulty.BLACKOUT, null),
+                new ReviewInput(1L, Difficulty.SUCCESS_EASY, LocalDateTime.now().minusMinutes(2))
+        );
+
+        String requestUrl = BASE_URL + "/reviews";
+
+        ResponseEntity<CollectionModel<CardOutputModel>> collectionModelResponseEntity = testRestTemplate.exchange(
+                requestUrl,
+                HttpMethod.POST,
+                new HttpEntity<>(reviewInputs),
+                new ParameterizedTypeReference<>() {
+                }
+        );
+
+        assertEquals(HttpStatus.OK, collectionModelResponseEntity.getStatusCode());
+
+        CollectionModel<CardOutputModel> collectionModel = collectionModelResponseEntity.getBody();
+        assertEquals(requestUrl, collectionModel.getRequiredLink(IanaLinkRelations.SELF).toUri().toString());
+
+        List<CardOutputModel> cardOutputModels = new ArrayList<>(collectionModel.getContent());
+        assertEquals(2, cardOutputModels.size());
+        assertEquals(1L, cardOutputModels.get(0).getId());
+        assertEquals(2L, cardOutputModels.get(1).getId());
+
+        CardTiming cardTiming = cardTimingRepository.findByCardId(1L).get();
+        assertEquals(2, cardTiming.getRepetitionNumber());
+        assertEquals(6, cardTiming.getRepetitionInterval());
+        assertEquals(2.7, cardTiming.getEasinessFactor(), 1e-9);
+
+        cardTiming = cardTimingRepository.findByCardId(2L).get();
+        assertEquals(0, cardTiming.getRepetitionNumber());
+        assertEquals(1.7, cardTiming.getEasinessFactor(), 1e-9);
+    }
+
+    @Test
+    void updateTimingsInBulk_nonExistentCard_returns404AndNothingIsUpdated() {
+        List<ReviewInput> reviewInputs = List.of(
+                new ReviewInput(1L, Difficulty.SUCCESS_EASY, null),
+                new ReviewInput(4L, Difficulty.SUCCESS_EASY, null)
+        );
+
+        ResponseEntity<Problem> problemResponseEntity = testRestTemplate
+                .postForEntity(BASE_URL + "/reviews", reviewInputs, Problem.class);
+
+        assertEquals(HttpStatus.NOT_FOUND, problemResponseEntity.getStatusCode());
+        assertEquals("Unable to find card with id: 4", problemResponseEntity.getBody().getDetail());
+        assertEquals(0, cardTimingRepository.findByCardId(1L).get().getRepetitionNumber());
+    }
+
+}
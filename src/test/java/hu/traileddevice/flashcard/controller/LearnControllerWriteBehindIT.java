@@ -0,0 +1,179 @@
+package hu.traileddevice.flashcard.controller;
+
+import hu.traileddevice.flashcard.cache.TimingWriteBehind;
+import hu.traileddevice.flashcard.dto.card.CardCreateInput;
+import hu.traileddevice.flashcard.dto.card.CardOutputModel;
+import hu.traileddevice.flashcard.dto.card.CardUpdateInput;
+import hu.traileddevice.flashcard.dto.deck.DeckCreateInput;
+import hu.traileddevice.flashcard.dto.deck.DeckOutputModel;
+import hu.traileddevice.flashcard.dto.deck.DeckStatsOutputModel;
+import hu.traileddevice.flashcard.dto.learn.QuestionOutputModel;
+import hu.traileddevice.flashcard.dto.session.StudySessionOutputModel;
+import hu.traileddevice.flashcard.dto.user.UserCreateInput;
+import hu.traileddevice.flashcard.dto.user.UserOutputModel;
+import hu.traileddevice.flashcard.model.CardTiming;
+import hu.traileddevice.flashcard.repository.CardTimingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "flashcard.timing-write-behind.enabled=true",
+        "flashcard.timing-write-behind.flush-interval=3600000", // flushed by the tests only
+        "spring.datasource.url=jdbc:h2:mem:flashcard-db-write-behind-test" // not shared with other test classes
+})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@ActiveProfiles("test")
+class LearnControllerWriteBehindIT {
+
+    @LocalServerPort
+    private int port;
+
+    private String BASE_URL;
+
+    @Autowired
+    private TestRestTemplate testRestTemplate;
+
+    @Autowired
+    private CardTimingRepository cardTimingRepository;
+
+    @Autowired
+    private TimingWriteBehind timingWriteBehind;
+
+    @BeforeEach
+    void setUp() {
+        BASE_URL = "http://localhost:" + port + "/learn";
+
+        testRestTemplate.postForObject("http://localhost:" + port + "/user",
+                new UserCreateInput("Rupert Terrance", "fake1@gmail.com"), UserOutputModel.class);
+        testRestTemplate.postForObject("http://localhost:" + port + "/deck?userId=1",
+                new DeckCreateInput("Spring"), DeckOutputModel.class);
+        testRestTemplate.postForObject("http://localhost:" + port + "/deck?userId=1",
+                new DeckCreateInput("Core Java"), DeckOutputModel.class);
+        for (int i = 1; i <= 2; i++) {
+            testRestTemplate.postForObject("http://localhost:" + port + "/card?deckId=1",
+                    new CardCreateInput("Question " + i, "Answer " + i), CardOutputModel.class);
+        }
+    }
+
+    @Test
+    void updateTimings_reviewedTwiceBeforeFlush_coalescedIntoOneWrite() {
+        ResponseEntity<CardOutputModel> cardOutputModelResponseEntity = review(1L);
+        assertEquals(HttpStatus.OK, cardOutputModelResponseEntity.getStatusCode());
+        assertEquals(LocalDate.now().plusDays(1), cardOutputModelResponseEntity.getBody().getDueDate());
+        assertEquals(0, cardTimingRepository.findByCardId(1L).get().getRepetitionNumber()); // not written yet
+
+        cardOutputModelResponseEntity = review(1L); // builds on the unflushed state
+        assertEquals(LocalDate.now().plusDays(6), cardOutputModelResponseEntity.getBody().getDueDate());
+
+        timingWriteBehind.flush();
+
+        CardTiming cardTiming = cardTimingRepository.findByCardId(1L).get();
+        assertEquals(2, cardTiming.getRepetitionNumber());
+        assertEquals(6, cardTiming.getRepetitionInterval());
+        assertEquals(LocalDate.now().plusDays(6), cardTiming.getDueDate().toLocalDate());
+    }
+
+    @Test
+    void getDueCardFromDeck_mostDueCardReviewedBeforeFlush_skipped() {
+        review(1L);
+
+        QuestionOutputModel questionOutputModel =
+                testRestTemplate.getForObject(BASE_URL + "/1", QuestionOutputModel.class);
+        assertEquals(2L, questionOutputModel.getId());
+
+        review(2L);
+
+        ResponseEntity<QuestionOutputModel> questionOutputModelResponseEntity =
+                testRestTemplate.getForEntity(BASE_URL + "/1", QuestionOutputModel.class);
+        assertEquals(HttpStatus.NOT_FOUND, questionOutputModelResponseEntity.getStatusCode());
+
+        timingWriteBehind.flush(); // the counters are written along with the timings
+        DeckStatsOutputModel deckStats =
+                testRestTemplate.getForObject("http://localhost:" + port + "/deck/1/stats", DeckStatsOutputModel.class);
+        assertEquals(0L, deckStats.getDueCards());
+    }
+
+    @Test
+    void getDueCardsOfUser_cardReviewedBeforeFlush_skipped() {
+        review(1L);
+
+        ResponseEntity<CollectionModel<QuestionOutputModel>> collectionModelResponseEntity = testRestTemplate.exchange(
+                BASE_URL + "/user/1",
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<>() {
+                }
+        );
+
+        assertEquals(List.of(2L), collectionModelResponseEntity.getBody().getContent().stream()
+                .map(QuestionOutputModel::getId)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void startStudySession_cardReviewedBeforeFlush_skipped() {
+        review(1L);
+
+        StudySessionOutputModel studySession = testRestTemplate.postForObject(
+                "http://localhost:" + port + "/session?deckId=1", null, StudySessionOutputModel.class);
+
+        assertEquals(1, studySession.getRemainingCards());
+        QuestionOutputModel question = testRestTemplate.getForObject(
+                "http://localhost:" + port + "/session/" + studySession.getId() + "/question", QuestionOutputModel.class);
+        assertEquals(2L, question.getId());
+    }
+
+    @Test
+    void getDeckStats_cardReviewedBeforeFlush_countedWhenFlushed() {
+        review(1L);
+
+        String statsUrl = "http://localhost:" + port + "/deck/1/stats";
+        assertEquals(2, testRestTemplate.getForObject(statsUrl, DeckStatsOutputModel.class).getNewCards());
+
+        timingWriteBehind.flush();
+
+        assertEquals(1, testRestTemplate.getForObject(statsUrl, DeckStatsOutputModel.class).getNewCards());
+    }
+
+    @Test
+    void update_reviewedCardMovedBeforeFlush_reviewKept() {
+        review(1L);
+
+        CardUpdateInput cardUpdateInput = new CardUpdateInput();
+        cardUpdateInput.setFrontContent("Moved question");
+        cardUpdateInput.setDeckId(2L);
+        testRestTemplate.exchange("http://localhost:" + port + "/card/1",
+                HttpMethod.PUT, new HttpEntity<>(cardUpdateInput), CardOutputModel.class);
+
+        CardTiming cardTiming = cardTimingRepository.findByCardId(1L).get();
+        assertEquals(1, cardTiming.getRepetitionNumber());
+        assertEquals(2L, cardTiming.getDeckId());
+
+        timingWriteBehind.flush(); // nothing left to write
+
+        assertEquals(2L, cardTimingRepository.findByCardId(1L).get().getDeckId());
+    }
+
+    private ResponseEntity<CardOutputModel> review(Long cardId) {
+        return testRestTemplate.exchange(BASE_URL + "/" + cardId + "?difficulty=SUCCESS_EASY",
+                HttpMethod.PUT, null, CardOutputModel.class);
+    }
+}
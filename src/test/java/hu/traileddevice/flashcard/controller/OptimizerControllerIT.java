@@ -0,0 +1,126 @@
+package hu.traileddevice.flashcard.controller;
+
+import hu.traileddevice.flashcard.dto.optimizer.OptimizationOutputModel;
+import hu.traileddevice.flashcard.dto.user.UserCreateInput;
+import hu.traileddevice.flashcard.dto.user.UserOutputModel;
+import hu.traileddevice.flashcard.model.UserFsrsWeights;
+import hu.traileddevice.flashcard.repository.UserFsrsWeightsRepository;
+import hu.traileddevice.flashcard.service.FsrsWeightsService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "flashcard.optimizer.min-reviews=100",
+        "spring.datasource.url=jdbc:h2:mem:flashcard-db-optimizer-test" // not shared with other test classes
+})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@ActiveProfiles("test")
+class OptimizerControllerIT {
+
+    private static final LocalDateTime START = LocalDateTime.of(2021, 1, 1, 8, 0);
+    private static final int[] GAPS_IN_DAYS = {5, 15, 40, 100}; // 5 reviews per card, all recalled
+
+    @LocalServerPort
+    private int port;
+
+    private String BASE_URL;
+
+    @Autowired
+    private TestRestTemplate testRestTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserFsrsWeightsRepository userFsrsWeightsRepository;
+
+    @Autowired
+    private FsrsWeightsService fsrsWeightsService;
+
+    @BeforeEach
+    void setUp() {
+        BASE_URL = "http://localhost:" + port + "/optimizer";
+
+        testRestTemplate.postForObject("http://localhost:" + port + "/user",
+                new UserCreateInput("Rupert Terrance", "fake1@gmail.com"), UserOutputModel.class);
+        testRestTemplate.postForObject("http://localhost:" + port + "/user",
+                new UserCreateInput("Ronald Darwin", "fake2@gmail.com"), UserOutputModel.class);
+    }
+
+    @Test
+    void optimizeFsrsWeights_noReviews_nothingFitted() {
+        ResponseEntity<OptimizationOutputModel> responseEntity =
+                testRestTemplate.postForEntity(BASE_URL + "/fsrs", null, OptimizationOutputModel.class);
+
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertEquals(0, responseEntity.getBody().getUsers());
+        assertEquals(0, responseEntity.getBody().getReviews());
+        assertNull(responseEntity.getBody().getMeanLogLossAfter());
+        assertEquals(0, userFsrsWeightsRepository.count());
+    }
+
+    @Test
+    void optimizeFsrsWeights_userRecallsLongAfterDefaultIntervals_weightsOfUserFittedAndUsed() {
+        insertReviews(1L, 30); // 150 reviews
+        insertReviews(2L, 2); // below the minimum, 10 reviews
+        assertNull(fsrsWeightsService.findWeightsOfUser(1L));
+
+        ResponseEntity<OptimizationOutputModel> responseEntity =
+                testRestTemplate.postForEntity(BASE_URL + "/fsrs", null, OptimizationOutputModel.class);
+
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        OptimizationOutputModel optimizationOutputModel = responseEntity.getBody();
+        assertEquals(2, optimizationOutputModel.getUsers());
+        assertEquals(1, optimizationOutputModel.getFittedUsers());
+        assertEquals(1, optimizationOutputModel.getSkippedUsers());
+        assertEquals(0, optimizationOutputModel.getFailedUsers());
+        assertEquals(160, optimizationOutputModel.getReviews());
+        assertTrue(optimizationOutputModel.getMeanLogLossAfter() < optimizationOutputModel.getMeanLogLossBefore());
+        assertTrue(optimizationOutputModel.getLink("self").isPresent());
+
+        Optional<UserFsrsWeights> userFsrsWeights = userFsrsWeightsRepository.findById(1L);
+        assertTrue(userFsrsWeights.isPresent());
+        assertEquals(150, userFsrsWeights.get().getReviews());
+        assertFalse(userFsrsWeightsRepository.existsById(2L));
+
+        double[] weights = fsrsWeightsService.findWeightsOfUser(1L);
+        assertNotNull(weights);
+        assertEquals(17, weights.length);
+        assertNull(fsrsWeightsService.findWeightsOfUser(2L));
+    }
+
+    private void insertReviews(Long userId, int cards) {
+        List<Object[]> rows = new ArrayList<>();
+        for (long cardId = userId * 1000; cardId < userId * 1000 + cards; cardId++) {
+            LocalDateTime reviewedAt = START;
+            rows.add(reviewRow(cardId, userId, reviewedAt));
+            for (int gap : GAPS_IN_DAYS) {
+                reviewedAt = reviewedAt.plusDays(gap);
+                rows.add(reviewRow(cardId, userId, reviewedAt));
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO reviews (card_id, deck_id, user_id, grade, previous_interval, " +
+                "new_interval, previous_easiness, new_easiness, reviewed_at) VALUES (?, 1, ?, 4, 0, 0, 2.5, 2.5, ?)", rows);
+    }
+
+    private static Object[] reviewRow(long cardId, Long userId, LocalDateTime reviewedAt) {
+        return new Object[]{cardId, userId, Timestamp.valueOf(reviewedAt)};
+    }
+}
@@ -0,0 +1,163 @@
+package hu.traileddevice.flashcard.controller;
+
+import hu.traileddevice.flashcard.cache.DailyAllowance;
+import hu.traileddevice.flashcard.cache.DailyLimitCounters;
+import hu.traileddevice.flashcard.dto.card.CardCreateInput;
+import hu.traileddevice.flashcard.dto.card.CardOutputModel;
+import hu.traileddevice.flashcard.dto.deck.DeckCreateInput;
+import hu.traileddevice.flashcard.dto.deck.DeckOutputModel;
+import hu.traileddevice.flashcard.dto.deck.DeckStatsOutputModel;
+import hu.traileddevice.flashcard.dto.reschedule.RescheduleOutputModel;
+import hu.traileddevice.flashcard.dto.user.UserCreateInput;
+import hu.traileddevice.flashcard.dto.user.UserOutputModel;
+import hu.traileddevice.flashcard.model.CardTiming;
+import hu.traileddevice.flashcard.repository.CardTimingRepository;
+import hu.traileddevice.flashcard.reviewlog.ReviewLogWriter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.mediatype.problem.Problem;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@ActiveProfiles("test")
+class RescheduleControllerIT {
+
+    @LocalServerPort
+    private int port;
+
+    private String BASE_URL;
+
+    @Autowired
+    private TestRestTemplate testRestTemplate;
+
+    @Autowired
+    private CardTimingRepository cardTimingRepository;
+
+    @Autowired
+    private ReviewLogWriter reviewLogWriter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DailyLimitCounters dailyLimitCounters;
+
+    @BeforeEach
+    void setUp() {
+        BASE_URL = "http://localhost:" + port + "/reschedule";
+
+        testRestTemplate.postForObject("http://localhost:" + port + "/user",
+                new UserCreateInput("Rupert Terrance", "fake1@gmail.com"), UserOutputModel.class);
+        testRestTemplate.postForObject("http://localhost:" + port + "/deck?userId=1",
+                new DeckCreateInput("Spring"), DeckOutputModel.class);
+        for (int i = 1; i <= 3; i++) {
+            testRestTemplate.postForObject("http://localhost:" + port + "/card?deckId=1",
+                    new CardCreateInput("Question " + i, "Answer " + i), CardOutputModel.class);
+        }
+    }
+
+    @Test
+    void grade_3newCardsOfDeck_allLearnedAndCountersUpdated() {
+        String requestUrl = BASE_URL + "/1/grade?difficulty=SUCCESS_EASY";
+
+        ResponseEntity<RescheduleOutputModel> rescheduleResponseEntity =
+                testRestTemplate.exchange(requestUrl, HttpMethod.PUT, null, RescheduleOutputModel.class);
+
+        assertEquals(HttpStatus.OK, rescheduleResponseEntity.getStatusCode());
+        assertEquals(3, rescheduleResponseEntity.getBody().getRescheduledCards());
+        assertEquals(requestUrl, rescheduleResponseEntity.getBody().getRequiredLink(IanaLinkRelations.SELF).getHref());
+
+        for (long cardId = 1; cardId <= 3; cardId++) {
+            CardTiming cardTiming = cardTimingRepository.findByCardId(cardId).get();
+            assertEquals(1, cardTiming.getRepetitionNumber());
+            assertEquals(2.6, cardTiming.getEasinessFactor(), 1e-9);
+            assertEquals(LocalDate.now().plusDays(1), cardTiming.getDueDate().toLocalDate());
+        }
+
+        DeckStatsOutputModel deckStats = getDeckStats();
+        assertEquals(0, deckStats.getNewCards());
+        assertEquals(0L, deckStats.getDueCards());
+    }
+
+    @Test
+    void grade_3newCardsOfDeck_reviewsLoggedAndCountedTowardsDailyLimits() {
+        testRestTemplate.exchange(BASE_URL + "/1/grade?difficulty=SUCCESS_EASY", HttpMethod.PUT, null, RescheduleOutputModel.class);
+        reviewLogWriter.flush();
+
+        assertEquals(List.of(1L, 2L, 3L), jdbcTemplate.queryForList(
+                "SELECT card_id FROM reviews WHERE grade = 5 AND previous_interval = 1 AND new_interval = 1 " +
+                        "ORDER BY card_id", Long.class));
+        DailyAllowance allowance = dailyLimitCounters.getAllowance(1L);
+        assertEquals(17, allowance.getRemainingNewCards());
+        assertEquals(200, allowance.getRemainingReviews());
+    }
+
+    @Test
+    void shift_learnedCardsMovedEarlier_becomeDue() {
+        testRestTemplate.exchange(BASE_URL + "/1/grade?difficulty=SUCCESS_EASY", HttpMethod.PUT, null, RescheduleOutputModel.class);
+
+        ResponseEntity<RescheduleOutputModel> rescheduleResponseEntity =
+                testRestTemplate.exchange(BASE_URL + "/1/shift?days=-1", HttpMethod.PUT, null, RescheduleOutputModel.class);
+
+        assertEquals(HttpStatus.OK, rescheduleResponseEntity.getStatusCode());
+        assertEquals(LocalDate.now(), cardTimingRepository.findByCardId(1L).get().getDueDate().toLocalDate());
+        assertEquals(3L, getDeckStats().getDueCards());
+    }
+
+    @Test
+    void reset_learnedCards_newAgain() {
+        testRestTemplate.exchange(BASE_URL + "/1/grade?difficulty=SUCCESS_EASY", HttpMethod.PUT, null, RescheduleOutputModel.class);
+        testRestTemplate.exchange(BASE_URL + "/1/easiness?easinessFactor=1.3", HttpMethod.PUT, null, RescheduleOutputModel.class);
+
+        ResponseEntity<RescheduleOutputModel> rescheduleResponseEntity =
+                testRestTemplate.exchange(BASE_URL + "/1/reset", HttpMethod.PUT, null, RescheduleOutputModel.class);
+
+        assertEquals(HttpStatus.OK, rescheduleResponseEntity.getStatusCode());
+
+        CardTiming cardTiming = cardTimingRepository.findByCardId(1L).get();
+        assertEquals(0, cardTiming.getRepetitionNumber());
+        assertEquals(2.5, cardTiming.getEasinessFactor(), 1e-9);
+
+        DeckStatsOutputModel deckStats = getDeckStats();
+        assertEquals(3, deckStats.getTotalCards());
+        assertEquals(3, deckStats.getNewCards());
+        assertEquals(3L, deckStats.getDueCards());
+    }
+
+    @Test
+    void reset_nonexistentDeck_returns404WithDetail() {
+        ResponseEntity<Problem> problemResponseEntity =
+                testRestTemplate.exchange(BASE_URL + "/2/reset", HttpMethod.PUT, null, Problem.class);
+
+        assertEquals(HttpStatus.NOT_FOUND, problemResponseEntity.getStatusCode());
+        assertEquals("No such deck id: 2", problemResponseEntity.getBody().getDetail());
+    }
+
+    @Test
+    void setEasiness_tooLowEasinessFactor_returns400() {
+        ResponseEntity<Problem> problemResponseEntity =
+                testRestTemplate.exchange(BASE_URL + "/1/easiness?easinessFactor=1.2", HttpMethod.PUT, null, Problem.class);
+
+        assertEquals(HttpStatus.BAD_REQUEST, problemResponseEntity.getStatusCode());
+    }
+
+    private DeckStatsOutputModel getDeckStats() {
+        return testRestTemplate.getForObject("http://localhost:" + port + "/deck/1/stats", DeckStatsOutputModel.class);
+    }
+}
@@ -0,0 +1,83 @@
+package hu.traileddevice.flashcard.controller;
+
+import hu.traileddevice.flashcard.dto.simulation.SimulationInput;
+import hu.traileddevice.flashcard.dto.simulation.SimulationOutputModel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.hateoas.mediatype.problem.Problem;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class SimulationControllerIT {
+
+    @LocalServerPort
+    private int port;
+
+    private String BASE_URL;
+
+    @Autowired
+    private TestRestTemplate testRestTemplate;
+
+    @BeforeEach
+    void setUp() {
+        BASE_URL = "http://localhost:" + port + "/simulation";
+    }
+
+    @Test
+    void simulate_validInput_returnsCountsOfEachDay() {
+        SimulationInput simulationInput = new SimulationInput();
+        simulationInput.setUsers(10);
+        simulationInput.setDecksPerUser(2);
+        simulationInput.setDays(14);
+
+        ResponseEntity<SimulationOutputModel> responseEntity =
+                testRestTemplate.postForEntity(BASE_URL, simulationInput, SimulationOutputModel.class);
+
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        SimulationOutputModel simulationOutputModel = responseEntity.getBody();
+        assertEquals(2000, simulationOutputModel.getCards());
+        assertEquals(14, simulationOutputModel.getDays().size());
+        assertEquals(400, simulationOutputModel.getDays().get(0).getNewCards());
+        assertTrue(simulationOutputModel.getCardReviews() > 14 * 400);
+        assertTrue(simulationOutputModel.getLink("self").isPresent());
+    }
+
+    @Test
+    void simulate_tooManyCards_returns400WithDetailedProblem() {
+        SimulationInput simulationInput = new SimulationInput();
+        simulationInput.setUsers(1_000_000);
+        simulationInput.setDecksPerUser(10);
+        simulationInput.setCardsPerDeck(100);
+
+        ResponseEntity<Problem> problemResponseEntity =
+                testRestTemplate.postForEntity(BASE_URL, simulationInput, Problem.class);
+
+        assertEquals(HttpStatus.BAD_REQUEST, problemResponseEntity.getStatusCode());
+        assertEquals(MediaType.APPLICATION_PROBLEM_JSON, problemResponseEntity.getHeaders().getContentType());
+        assertEquals("[withinMaxCards: Users, decks per user and cards per deck must not exceed 100000000 cards in total]",
+                problemResponseEntity.getBody().getDetail());
+    }
+
+    @Test
+    void simulate_zeroDays_returns400WithDetailedProblem() {
+        SimulationInput simulationInput = new SimulationInput();
+        simulationInput.setDays(0);
+
+        ResponseEntity<Problem> problemResponseEntity =
+                testRestTemplate.postForEntity(BASE_URL, simulationInput, Problem.class);
+
+        assertEquals(HttpStatus.BAD_REQUEST, problemResponseEntity.getStatusCode());
+        assertEquals("[days: Days must be between 1 and 3650]", problemResponseEntity.getBody().getDetail());
+    }
+}
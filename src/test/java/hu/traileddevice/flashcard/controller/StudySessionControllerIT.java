@@ -0,0 +1,215 @@
+package hu.traileddevice.flashcard.controller;
+
+import hu.traileddevice.flashcard.dto.card.CardCreateInput;
+import hu.traileddevice.flashcard.dto.card.CardOutputModel;
+import hu.traileddevice.flashcard.dto.deck.DeckCreateInput;
+import hu.traileddevice.flashcard.dto.deck.DeckOutputModel;
+import hu.traileddevice.flashcard.dto.deck.DeckUpdateInput;
+import hu.traileddevice.flashcard.dto.learn.AnswerOutputModel;
+import hu.traileddevice.flashcard.dto.learn.QuestionOutputModel;
+import hu.traileddevice.flashcard.dto.session.StudySessionOutputModel;
+import hu.traileddevice.flashcard.dto.user.UserCreateInput;
+import hu.traileddevice.flashcard.dto.user.UserOutputModel;
+import hu.traileddevice.flashcard.model.CardTiming;
+import hu.traileddevice.flashcard.repository.CardTimingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.mediatype.problem.Problem;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "flashcard.study-session.max-sessions=2",
+        "spring.datasource.url=jdbc:h2:mem:flashcard-db-study-session-test" // not shared with other test classes
+})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@ActiveProfiles("test")
+class StudySessionControllerIT {
+
+    @LocalServerPort
+    private int port;
+
+    private String BASE_URL;
+
+    @Autowired
+    private TestRestTemplate testRestTemplate;
+
+    @Autowired
+    private CardTimingRepository cardTimingRepository;
+
+    private List<CardCreateInput> cards;
+
+    @BeforeEach
+    void setUp() {
+        BASE_URL = "http://localhost:" + port + "/session";
+
+        testRestTemplate.postForObject("http://localhost:" + port + "/user",
+                new UserCreateInput("Rupert Terrance", "fake1@gmail.com"), UserOutputModel.class);
+        testRestTemplate.postForObject("http://localhost:" + port + "/deck?userId=1",
+                new DeckCreateInput("Spring"), DeckOutputModel.class);
+
+        cards = new ArrayList<>();
+        cards.add(new CardCreateInput("What is Spring Framework?", "Spring is a powerful open source, loosely coupled, light weight, java based application framework meant for reducing the complexity of developing enterprise level applications."));
+        cards.add(new CardCreateInput("Is HATEOAS required in REST?", "Well, it turns out it is."));
+        for (CardCreateInput card : cards) {
+            testRestTemplate.postForObject("http://localhost:" + port + "/card?deckId=1", card, CardOutputModel.class);
+        }
+    }
+
+    @Test
+    void studySession_reviewBothCards_timingsSavedOnlyWhenFinished() {
+        ResponseEntity<StudySessionOutputModel> studySessionResponseEntity = testRestTemplate
+                .postForEntity(BASE_URL + "?deckId=1", null, StudySessionOutputModel.class);
+
+        assertEquals(HttpStatus.CREATED, studySessionResponseEntity.getStatusCode());
+        StudySessionOutputModel studySession = studySessionResponseEntity.getBody();
+        assertEquals(2, studySession.getRemainingCards());
+
+        String sessionUrl = BASE_URL + "/" + studySession.getId();
+        assertEquals(sessionUrl, studySessionResponseEntity.getHeaders().getLocation().toString());
+
+        for (CardCreateInput card : cards) {
+            QuestionOutputModel question = testRestTemplate
+                    .getForObject(sessionUrl + "/question", QuestionOutputModel.class);
+            assertEquals(card.getFrontContent(), question.getFrontContent());
+
+            AnswerOutputModel answer = testRestTemplate.getForObject(sessionUrl + "/solution", AnswerOutputModel.class);
+            assertEquals(card.getBackContent(), answer.getBackContent());
+            assertTrue(answer.getLink("grade").get().getHref().startsWith(sessionUrl));
+
+            testRestTemplate.put(sessionUrl + "?difficulty=SUCCESS_EASY", null);
+        }
+
+        assertEquals(0, cardTimingRepository.findByCardId(1L).get().getRepetitionNumber());
+
+        ResponseEntity<CollectionModel<CardOutputModel>> finishResponseEntity = testRestTemplate.exchange(
+                sessionUrl,
+                HttpMethod.DELETE,
+                null,
+                new ParameterizedTypeReference<>() {
+                }
+        );
+
+        assertEquals(HttpStatus.OK, finishResponseEntity.getStatusCode());
+        assertEquals(2, finishResponseEntity.getBody().getContent().size());
+
+        for (long cardId = 1; cardId <= 2; cardId++) {
+            CardTiming cardTiming = cardTimingRepository.findByCardId(cardId).get();
+            assertEquals(1, cardTiming.getRepetitionNumber());
+            assertEquals(2.6, cardTiming.getEasinessFactor(), 1e-9);
+        }
+
+        assertEquals(HttpStatus.NOT_FOUND, testRestTemplate.getForEntity(sessionUrl, Problem.class).getStatusCode());
+    }
+
+    @Test
+    void getQuestion_allCardsReviewed_returns404WithDetail() {
+        StudySessionOutputModel studySession = testRestTemplate
+                .postForObject(BASE_URL + "?deckId=1&size=1", null, StudySessionOutputModel.class);
+        String sessionUrl = BASE_URL + "/" + studySession.getId();
+        testRestTemplate.put(sessionUrl + "?difficulty=SUCCESS_EASY", null);
+
+        StudySessionOutputModel progress = testRestTemplate.getForObject(sessionUrl, StudySessionOutputModel.class);
+        assertEquals(0, progress.getRemainingCards());
+        assertEquals(1, progress.getReviewedCards());
+        assertTrue(progress.getLink("get-question").isEmpty());
+
+        ResponseEntity<Problem> problemResponseEntity =
+                testRestTemplate.getForEntity(sessionUrl + "/question", Problem.class);
+
+        assertEquals(HttpStatus.NOT_FOUND, problemResponseEntity.getStatusCode());
+        assertEquals(MediaType.APPLICATION_PROBLEM_JSON, problemResponseEntity.getHeaders().getContentType());
+        assertEquals("No cards left in study session: " + studySession.getId(),
+                problemResponseEntity.getBody().getDetail());
+    }
+
+    @Test
+    void start_newCardsReservedByOpenSession_returns404WithDetail() {
+        DeckUpdateInput deckUpdateInput = new DeckUpdateInput();
+        deckUpdateInput.setNewCardsPerDay(1);
+        deckUpdateInput.setReviewsPerDay(200);
+        testRestTemplate.put("http://localhost:" + port + "/deck/1", deckUpdateInput);
+
+        StudySessionOutputModel studySession = testRestTemplate
+                .postForObject(BASE_URL + "?deckId=1", null, StudySessionOutputModel.class);
+        assertEquals(1, studySession.getRemainingCards());
+
+        ResponseEntity<Problem> problemResponseEntity =
+                testRestTemplate.postForEntity(BASE_URL + "?deckId=1", null, Problem.class);
+        assertEquals(HttpStatus.NOT_FOUND, problemResponseEntity.getStatusCode());
+        assertEquals("No due cards exist", problemResponseEntity.getBody().getDetail());
+
+        testRestTemplate.delete(BASE_URL + "/" + studySession.getId());
+
+        ResponseEntity<StudySessionOutputModel> nextStudySessionResponseEntity = testRestTemplate
+                .postForEntity(BASE_URL + "?deckId=1", null, StudySessionOutputModel.class);
+        assertEquals(HttpStatus.CREATED, nextStudySessionResponseEntity.getStatusCode());
+        assertEquals(1, nextStudySessionResponseEntity.getBody().getRemainingCards());
+    }
+
+    @Test
+    void finish_reviewedCardDeletedMeanwhile_otherReviewsSaved() {
+        StudySessionOutputModel studySession = testRestTemplate
+                .postForObject(BASE_URL + "?deckId=1", null, StudySessionOutputModel.class);
+        String sessionUrl = BASE_URL + "/" + studySession.getId();
+        testRestTemplate.put(sessionUrl + "?difficulty=SUCCESS_EASY", null);
+        testRestTemplate.put(sessionUrl + "?difficulty=SUCCESS_EASY", null);
+
+        testRestTemplate.delete("http://localhost:" + port + "/card/2");
+
+        ResponseEntity<CollectionModel<CardOutputModel>> finishResponseEntity = testRestTemplate.exchange(
+                sessionUrl,
+                HttpMethod.DELETE,
+                null,
+                new ParameterizedTypeReference<>() {
+                }
+        );
+
+        assertEquals(HttpStatus.OK, finishResponseEntity.getStatusCode());
+        assertEquals(1, finishResponseEntity.getBody().getContent().size());
+        assertEquals(1, cardTimingRepository.findByCardId(1L).get().getRepetitionNumber());
+        assertEquals(HttpStatus.NOT_FOUND, testRestTemplate.getForEntity(sessionUrl, Problem.class).getStatusCode());
+    }
+
+    @Test
+    void start_tooManyOpenSessions_returns503WithDetail() {
+        for (int i = 0; i < 2; i++) {
+            assertEquals(HttpStatus.CREATED, testRestTemplate
+                    .postForEntity(BASE_URL + "?deckId=1", null, StudySessionOutputModel.class).getStatusCode());
+        }
+
+        ResponseEntity<Problem> problemResponseEntity =
+                testRestTemplate.postForEntity(BASE_URL + "?deckId=1", null, Problem.class);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, problemResponseEntity.getStatusCode());
+        assertEquals("Too many open study sessions, try again later", problemResponseEntity.getBody().getDetail());
+    }
+
+    @Test
+    void start_emptyDeck_returns404WithDetail() {
+        testRestTemplate.postForObject("http://localhost:" + port + "/deck?userId=1",
+                new DeckCreateInput("Core Java"), DeckOutputModel.class);
+
+        ResponseEntity<Problem> problemResponseEntity =
+                testRestTemplate.postForEntity(BASE_URL + "?deckId=2", null, Problem.class);
+
+        assertEquals(HttpStatus.NOT_FOUND, problemResponseEntity.getStatusCode());
+        assertEquals("No due cards exist", problemResponseEntity.getBody().getDetail());
+    }
+}
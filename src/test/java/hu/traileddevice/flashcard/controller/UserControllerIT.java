@@ -10,6 +10,7 @@ import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.web.server.LocalServerPort;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.hateoas.Link;
 import org.springframework.hateoas.mediatype.problem.Problem;
 import org.springframework.http.*;
@@ -23,6 +24,7 @@ import java.util.Optional;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
@@ -70,7 +72,7 @@ class UserControllerIT {
         CollectionModel<UserOutputModel> collectionModel = userOutputModelsResponseEntity.getBody();
 
         String receivedCollectionHref = collectionModel.getLinks().toList().get(0).getHref();
-        assertEquals(BASE_URL, receivedCollectionHref);
+        assertEquals(BASE_URL + "?limit=20", receivedCollectionHref);
 
         List<Optional<Link>> userHrefs = collectionModel
                 .getContent().stream()
@@ -93,6 +95,50 @@ class UserControllerIT {
         assertEquals(expectedNames, receivedNames);
     }
 
+    @Test
+    void findAll_limitBelowUserCount_pagedWithNextLinks() {
+        List<Long> userIds = new ArrayList<>();
+        for (UserCreateInput user : users) {
+            userIds.add(testRestTemplate.postForObject(BASE_URL, user, UserOutputModel.class).getId());
+        }
+
+        CollectionModel<UserOutputModel> firstPage = testRestTemplate.exchange(
+                BASE_URL + "?limit=2",
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<CollectionModel<UserOutputModel>>() {}
+        ).getBody();
+
+        assertEquals(userIds.subList(0, 2),
+                firstPage.getContent().stream().map(UserOutputModel::getId).collect(Collectors.toList()));
+        String nextHref = firstPage.getRequiredLink(IanaLinkRelations.NEXT).getHref();
+        assertEquals(BASE_URL + "?after=" + userIds.get(1) + "&limit=2", nextHref);
+
+        CollectionModel<UserOutputModel> lastPage = testRestTemplate.exchange(
+                nextHref,
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<CollectionModel<UserOutputModel>>() {}
+        ).getBody();
+
+        assertEquals(List.of(userIds.get(2)),
+                lastPage.getContent().stream().map(UserOutputModel::getId).collect(Collectors.toList()));
+        assertTrue(lastPage.getLink(IanaLinkRelations.NEXT).isEmpty());
+    }
+
+    @Test
+    void findAll_limitTooLarge_returns400WithDetail() {
+        ResponseEntity<Problem> problemResponseEntity = testRestTemplate
+                .getForEntity(BASE_URL + "?limit=101", Problem.class);
+
+        assertEquals(HttpStatus.BAD_REQUEST, problemResponseEntity.getStatusCode());
+
+        Problem problem = problemResponseEntity.getBody();
+
+        assertEquals("Input constraint violation", problem.getTitle());
+        assertEquals("[Limit must not be greater than 100]", problem.getDetail());
+    }
+
     @Test
     void save_postForUser_returns201WithProperLinks() {
         ResponseEntity<UserOutputModel> userOutputModelResponseEntity = testRestTemplate
@@ -0,0 +1,104 @@
+package hu.traileddevice.flashcard.repository;
+
+import hu.traileddevice.flashcard.model.Card;
+import hu.traileddevice.flashcard.model.CardTiming;
+import hu.traileddevice.flashcard.model.Deck;
+import hu.traileddevice.flashcard.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Inserts 10k cards with their timings in a single transaction, and counts the JDBC round trips it takes. With ids
+ * from pooled sequences, the inserts go out in batches of {@code hibernate.jdbc.batch_size}, instead of a round trip
+ * for every card and timing.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false", // 20k logged inserts would dominate the run
+        "spring.datasource.url=jdbc:h2:mem:flashcard-db-batch-insert-test" // not shared with other test classes
+})
+@ActiveProfiles("test")
+class CardBatchInsertIT {
+
+    private static final Logger log = LoggerFactory.getLogger(CardBatchInsertIT.class);
+
+    private static final int CARDS = 10_000;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DeckRepository deckRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private CardTimingRepository cardTimingRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    private Deck deck;
+
+    @TestConfiguration
+    static class StatementCounterConfiguration {
+
+        @Bean
+        static StatementCounter statementCounter() {
+            return new StatementCounter();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setName("Rupert Terrance");
+        user.setEmail("fake1@gmail.com");
+        user = userRepository.save(user);
+
+        Deck newDeck = new Deck();
+        newDeck.setName("Spring");
+        newDeck.setUser(user);
+        deck = deckRepository.save(newDeck);
+    }
+
+    @Test
+    void saveAll_10kCardsWithTimings_insertedInBatches() {
+        statementCounter.clear();
+
+        long start = System.nanoTime();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (int i = 0; i < CARDS; i++) {
+                Card card = new Card();
+                card.setDeck(deck);
+                card.setFrontContent("Question " + i);
+                card.setBackContent("Answer " + i);
+                card = cardRepository.save(card);
+                cardTimingRepository.save(new CardTiming(card));
+            }
+        });
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        log.info("Inserted {} cards and timings with {} round trips, {} of them batches, in {} ms",
+                CARDS, statementCounter.getRoundTrips(), statementCounter.getBatches(), elapsedMillis);
+
+        assertEquals(2L * CARDS, statementCounter.getBatchedStatements());
+        assertEquals(2L * CARDS / 50, statementCounter.getBatches()); // 50 cards or 50 timings in each
+        assertEquals(3L * CARDS / 50, statementCounter.getRoundTrips()); // and a sequence call for every 50 cards
+        assertEquals(CARDS, cardRepository.count());
+    }
+}
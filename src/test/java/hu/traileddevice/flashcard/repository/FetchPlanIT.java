@@ -0,0 +1,156 @@
+package hu.traileddevice.flashcard.repository;
+
+import hu.traileddevice.flashcard.model.Card;
+import hu.traileddevice.flashcard.model.CardTiming;
+import hu.traileddevice.flashcard.model.Deck;
+import hu.traileddevice.flashcard.model.User;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Counts the statements behind the listing and detail endpoints of users, decks and cards. Their outputs take the
+ * decks of the users, the cards of the decks and the timings of the cards, and their fetch plans have to load all of
+ * that in a bounded number of selects, however many decks and cards there are: one select per deck or per card
+ * fails these tests. The outputs are projected level by level, a select for the users, one for their decks and one
+ * for the cards of those.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.jpa.show-sql=false",
+        "spring.datasource.url=jdbc:h2:mem:flashcard-db-fetch-plan-test" // not shared with other test classes
+})
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class FetchPlanIT {
+
+    private static final int USERS = 3;
+    private static final int DECKS_PER_USER = 3;
+    private static final int CARDS_PER_DECK = 10;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate testRestTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DeckRepository deckRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private CardTimingRepository cardTimingRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    private User user;
+    private Deck deck;
+    private Card card;
+
+    @TestConfiguration
+    static class StatementCounterConfiguration {
+
+        @Bean
+        static StatementCounter statementCounter() {
+            return new StatementCounter();
+        }
+    }
+
+    @BeforeAll
+    void setUp() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (int u = 0; u < USERS; u++) {
+                User newUser = new User();
+                newUser.setName("User " + u);
+                newUser.setEmail("fake" + u + "@gmail.com");
+                user = userRepository.save(newUser);
+
+                for (int d = 0; d < DECKS_PER_USER; d++) {
+                    Deck newDeck = new Deck();
+                    newDeck.setName("Deck " + u + "-" + d);
+                    newDeck.setUser(user);
+                    deck = deckRepository.save(newDeck);
+
+                    for (int c = 0; c < CARDS_PER_DECK; c++) {
+                        Card newCard = new Card();
+                        newCard.setDeck(deck);
+                        newCard.setFrontContent("Question " + u + "-" + d + "-" + c);
+                        newCard.setBackContent("Answer " + c);
+                        card = cardRepository.save(newCard);
+                        cardTimingRepository.save(new CardTiming(card));
+                    }
+                }
+            }
+        });
+    }
+
+    @Test
+    void findAllUsers_decksFetchedWithUsers() {
+        assertSelects("/user", 2);
+    }
+
+    @Test
+    void findUserById_decksFetchedWithUser() {
+        assertSelects("/user/" + user.getId(), 2);
+    }
+
+    @Test
+    void findAllDecks_cardsNotFetched() {
+        assertSelects("/deck", 1);
+    }
+
+    @Test
+    void findDeckById_cardsFetchedWithDeck() {
+        assertSelects("/deck/" + deck.getId(), 2);
+    }
+
+    @Test
+    void findAllDecksOfUser_cardsNotFetched() {
+        assertSelects("/deck/user/" + user.getId(), 1);
+    }
+
+    @Test
+    void findAllCards_decksAndTimingsFetchedWithCards() {
+        assertSelects("/card", 1);
+    }
+
+    @Test
+    void findCardById_deckAndTimingFetchedWithCard() {
+        assertSelects("/card/" + card.getId(), 1);
+    }
+
+    @Test
+    void findAllCardsOfDeck_timingsFetchedWithCards() {
+        assertSelects("/card/deck/" + deck.getId(), 1);
+    }
+
+    private void assertSelects(String path, long expectedSelects) {
+        statementCounter.clear();
+
+        ResponseEntity<String> response = testRestTemplate.getForEntity("http://localhost:" + port + path, String.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(expectedSelects, statementCounter.getRoundTrips());
+    }
+}
@@ -0,0 +1,65 @@
+package hu.traileddevice.flashcard.repository;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Wraps the data source of the application to count its JDBC round trips: every executed statement once, and every
+ * executed batch once, however many statements it holds.
+ */
+class StatementCounter implements BeanPostProcessor {
+
+    private final AtomicLong statements = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong batchedStatements = new AtomicLong();
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        return bean instanceof DataSource ? proxy(DataSource.class, bean) : bean;
+    }
+
+    void clear() {
+        statements.set(0);
+        batches.set(0);
+        batchedStatements.set(0);
+    }
+
+    long getRoundTrips() {
+        return statements.get() + batches.get();
+    }
+
+    long getBatches() {
+        return batches.get();
+    }
+
+    long getBatchedStatements() {
+        return batchedStatements.get();
+    }
+
+    private <T> T proxy(Class<T> type, Object target) {
+        return type.cast(Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (name.equals("addBatch")) batchedStatements.incrementAndGet();
+                    else if (name.equals("executeBatch") || name.equals("executeLargeBatch")) batches.incrementAndGet();
+                    else if (name.startsWith("execute")) statements.incrementAndGet();
+
+                    Object result;
+                    try {
+                        result = method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    Class<?> returnType = method.getReturnType();
+                    if (result != null && (returnType == Connection.class || Statement.class.isAssignableFrom(returnType)))
+                        return proxy(returnType, result);
+                    return result;
+                }));
+    }
+}
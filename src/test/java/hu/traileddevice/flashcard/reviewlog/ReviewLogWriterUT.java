@@ -0,0 +1,72 @@
+package hu.traileddevice.flashcard.reviewlog;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReviewLogWriterUT {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void flush_2entriesBuffered_writtenWithOneMultiRowInsert() {
+        ReviewLogWriter reviewLogWriter =
+                new ReviewLogWriter(jdbcTemplate, transactionManager, meterRegistry, 10, 500, Duration.ZERO);
+        ArgumentCaptor<String> sqlArgument = ArgumentCaptor.forClass(String.class);
+
+        reviewLogWriter.log(entryOf(1));
+        reviewLogWriter.log(entryOf(2));
+        verifyNoInteractions(jdbcTemplate);
+        assertEquals(2, meterRegistry.get("flashcard.review-log.buffer.size").gauge().value());
+
+        reviewLogWriter.flush();
+
+        verify(jdbcTemplate, times(1)).update(sqlArgument.capture(), any(PreparedStatementSetter.class));
+        assertEquals(2, sqlArgument.getValue().split("\\(\\?").length - 1);
+        assertEquals(0, meterRegistry.get("flashcard.review-log.buffer.size").gauge().value());
+        assertEquals(2, meterRegistry.get("flashcard.review-log.entries").tag("result", "written").counter().count());
+    }
+
+    @Test
+    void log_bufferFull_entryWrittenSynchronously() {
+        ReviewLogWriter reviewLogWriter =
+                new ReviewLogWriter(jdbcTemplate, transactionManager, meterRegistry, 1, 500, Duration.ZERO);
+
+        reviewLogWriter.log(entryOf(1));
+        reviewLogWriter.log(entryOf(2));
+
+        verify(jdbcTemplate, times(1)).update(anyString(), any(PreparedStatementSetter.class));
+        verify(transactionManager, times(1)).getTransaction(argThat(definition ->
+                definition.getPropagationBehavior() == TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+        assertEquals(1, meterRegistry.get("flashcard.review-log.synchronous-writes").counter().count());
+        assertEquals(1, meterRegistry.get("flashcard.review-log.buffer.size").gauge().value());
+    }
+
+    private static ReviewLogEntry entryOf(long cardId) {
+        return new ReviewLogEntry(cardId, 1, 1, 5, 1, 1, 2.5, 2.6, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,95 @@
+package hu.traileddevice.flashcard.scheduler;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FsrsOptimizerUT {
+
+    private static final LocalDateTime START = LocalDateTime.of(2021, 1, 1, 8, 0);
+
+    private final FsrsOptimizer fsrsOptimizer = new FsrsOptimizer(40, 0.05);
+
+    @Test
+    void fit_userRemembersBetterThanDefaults_lossDecreasesAndStabilityGrows() {
+        double[] trueWeights = FsrsScheduler.DEFAULT_WEIGHTS.clone();
+        for (int i = 0; i < 4; i++) trueWeights[i] *= 4;
+        ReviewHistory history = simulate(trueWeights, 200, 8, new Random(42));
+
+        FsrsOptimizer.Fit fit = fsrsOptimizer.fit(history);
+
+        assertTrue(fit.isImprovement());
+        assertTrue(fit.getWeights()[2] > 2 * FsrsScheduler.DEFAULT_WEIGHTS[2]); // initial stability after "good"
+    }
+
+    @Test
+    void fit_onlyFirstReviews_defaultWeightsKept() {
+        ReviewHistory history = new ReviewHistory(1L);
+        for (long cardId = 1; cardId <= 50; cardId++) history.add(cardId, START.plusMinutes(cardId), 4);
+
+        FsrsOptimizer.Fit fit = fsrsOptimizer.fit(history);
+
+        assertFalse(fit.isImprovement());
+        assertArrayEquals(FsrsScheduler.DEFAULT_WEIGHTS, fit.getWeights());
+    }
+
+    @Test
+    void add_reviewsOfCards_elapsedDaysSincePreviousReviewOfSameCard() {
+        ReviewHistory history = new ReviewHistory(1L);
+        history.add(10, START, 4);
+        history.add(20, START.plusHours(12), 1);
+        history.add(10, START.plusDays(3), 5);
+
+        assertEquals(3, history.getSize());
+        assertEquals(2, history.getCardCount());
+        assertTrue(history.elapsedDays(1) < 0);
+        assertEquals(3, history.elapsedDays(2), 1e-9);
+        assertEquals(history.cardIndex(0), history.cardIndex(2));
+        assertEquals(FsrsScheduler.AGAIN, history.rating(1));
+        assertEquals(FsrsScheduler.EASY, history.rating(2));
+    }
+
+    /**
+     * Reviews of a user whose memory follows the given weights: each card is learned on the first day, then reviewed
+     * after a random number of days up to twice its stability, and recalled with the predicted probability.
+     */
+    private static ReviewHistory simulate(double[] w, int cards, int reviewsPerCard, Random random) {
+        ReviewHistory history = new ReviewHistory(1L);
+        double[] stability = new double[cards];
+        double[] difficulty = new double[cards];
+        double[] elapsedDays = new double[cards];
+        int[] reviews = new int[cards];
+        PriorityQueue<double[]> dueCards = new PriorityQueue<>(Comparator.comparingDouble(dueCard -> dueCard[0]));
+
+        for (int card = 0; card < cards; card++) {
+            stability[card] = FsrsScheduler.initialStability(w, FsrsScheduler.GOOD);
+            difficulty[card] = FsrsScheduler.initialDifficulty(w, FsrsScheduler.GOOD);
+            history.add(card, START, 4);
+            elapsedDays[card] = 1 + random.nextInt((int) Math.ceil(2 * stability[card]));
+            dueCards.add(new double[]{elapsedDays[card], card});
+        }
+
+        while (!dueCards.isEmpty()) {
+            double[] dueCard = dueCards.poll();
+            int card = (int) dueCard[1];
+            double retrievability = FsrsScheduler.retrievability(elapsedDays[card], stability[card]);
+            int rating = random.nextDouble() < retrievability ? FsrsScheduler.GOOD : FsrsScheduler.AGAIN;
+            history.add(card, START.plusDays((long) dueCard[0]), rating == FsrsScheduler.GOOD ? 4 : 1);
+
+            stability[card] = rating == FsrsScheduler.GOOD ?
+                    FsrsScheduler.recallStability(w, difficulty[card], stability[card], retrievability, rating) :
+                    FsrsScheduler.forgetStability(w, difficulty[card], stability[card], retrievability);
+            difficulty[card] = FsrsScheduler.nextDifficulty(w, difficulty[card], rating);
+            if (++reviews[card] == reviewsPerCard) continue;
+
+            elapsedDays[card] = 1 + random.nextInt((int) Math.ceil(2 * stability[card]));
+            dueCards.add(new double[]{dueCard[0] + elapsedDays[card], card});
+        }
+        return history;
+    }
+}
@@ -0,0 +1,81 @@
+package hu.traileddevice.flashcard.scheduler;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FsrsSchedulerUT {
+
+    private final FsrsScheduler fsrsScheduler = new FsrsScheduler(0.9);
+
+    @Test
+    void schedule_newCardRatedGood_initialStabilityUsedAsInterval() {
+        SchedulingState state = new SchedulingState();
+
+        fsrsScheduler.schedule(state, 4);
+
+        assertEquals(3.7145, state.getStability(), 1e-9);
+        assertEquals(5.1618, state.getMemoryDifficulty(), 1e-9);
+        assertEquals(4, state.getRepetitionInterval());
+        assertEquals(1, state.getRepetitionNumber());
+    }
+
+    @Test
+    void schedule_reviewedOnDueDate_stabilityAndIntervalGrow() {
+        SchedulingState state = new SchedulingState();
+        fsrsScheduler.schedule(state, 4);
+        double previousStability = state.getStability();
+        state.setElapsedDays(state.getRepetitionInterval());
+
+        fsrsScheduler.schedule(state, 4);
+
+        assertTrue(state.getStability() > previousStability);
+        assertTrue(state.getRepetitionInterval() > 4);
+        assertEquals(2, state.getRepetitionNumber());
+    }
+
+    @Test
+    void schedule_forgottenCard_stabilityDropsAndCardIsDueAgain() {
+        SchedulingState state = new SchedulingState();
+        state.setRepetitionNumber(3);
+        state.setStability(30);
+        state.setMemoryDifficulty(5);
+        state.setElapsedDays(30);
+
+        fsrsScheduler.schedule(state, 1);
+
+        assertTrue(state.getStability() < 30);
+        assertTrue(state.getMemoryDifficulty() > 5);
+        assertEquals(0, state.getRepetitionNumber());
+        assertEquals(1, state.getRepetitionInterval());
+    }
+
+    @Test
+    void schedule_cardLearnedWithSm2_stateSeededFromInterval() {
+        SchedulingState state = new SchedulingState();
+        state.setRepetitionNumber(4);
+        state.setEasinessFactor(2.5);
+        state.setRepetitionInterval(15);
+        state.setElapsedDays(15);
+
+        fsrsScheduler.schedule(state, 4);
+
+        assertTrue(state.getStability() > 15);
+        assertTrue(state.getRepetitionInterval() > 15);
+        assertEquals(5, state.getRepetitionNumber());
+    }
+
+    @Test
+    void schedule_weightsOfUserSet_usedInsteadOfDefaults() {
+        SchedulingState state = new SchedulingState();
+        double[] weights = FsrsScheduler.DEFAULT_WEIGHTS.clone();
+        weights[2] = 10;
+        state.setWeights(weights);
+
+        fsrsScheduler.schedule(state, 4);
+
+        assertEquals(10, state.getStability(), 1e-9);
+        assertEquals(10, state.getRepetitionInterval());
+    }
+}
@@ -0,0 +1,70 @@
+package hu.traileddevice.flashcard.scheduler;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of scheduling a single review with each algorithm.
+ * Run with {@code mvnw -P benchmark test}, see the README.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SchedulerBenchmark {
+
+    private static final int CARDS = 1024; // power of two, to pick the next card with a mask
+
+    @Param({"SM2", "FSRS"})
+    private String algorithm;
+
+    private Scheduler scheduler;
+
+    private final SchedulingState state = new SchedulingState();
+
+    private final int[] repetitionNumbers = new int[CARDS];
+    private final int[] repetitionIntervals = new int[CARDS];
+    private final double[] easinessFactors = new double[CARDS];
+    private final double[] stabilities = new double[CARDS];
+    private final double[] memoryDifficulties = new double[CARDS];
+    private final double[] elapsedDays = new double[CARDS];
+    private final int[] grades = new int[CARDS];
+
+    private int card;
+
+    @Setup
+    public void setUp() {
+        scheduler = "SM2".equals(algorithm) ? new Sm2Scheduler() : new FsrsScheduler(0.9);
+
+        Random random = new Random(42);
+        for (int i = 0; i < CARDS; i++) {
+            repetitionNumbers[i] = random.nextInt(10);
+            repetitionIntervals[i] = 1 + random.nextInt(100);
+            easinessFactors[i] = 1.3 + random.nextDouble() * 1.5;
+            stabilities[i] = repetitionNumbers[i] == 0 ? 0 : 1 + random.nextDouble() * 100;
+            memoryDifficulties[i] = 1 + random.nextDouble() * 9;
+            elapsedDays[i] = repetitionIntervals[i] * (0.5 + random.nextDouble());
+            grades[i] = random.nextInt(6);
+        }
+    }
+
+    @Benchmark
+    public void schedule(Blackhole blackhole) {
+        int i = card++ & (CARDS - 1);
+        state.setRepetitionNumber(repetitionNumbers[i]);
+        state.setRepetitionInterval(repetitionIntervals[i]);
+        state.setEasinessFactor(easinessFactors[i]);
+        state.setStability(stabilities[i]);
+        state.setMemoryDifficulty(memoryDifficulties[i]);
+        state.setElapsedDays(elapsedDays[i]);
+
+        scheduler.schedule(state, grades[i]);
+
+        blackhole.consume(state.getRepetitionInterval());
+    }
+}
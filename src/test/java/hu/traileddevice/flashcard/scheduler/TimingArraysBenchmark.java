@@ -0,0 +1,65 @@
+package hu.traileddevice.flashcard.scheduler;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Measures rescheduling a deck of a million cards held in {@link TimingArrays}, without the database round trips.
+ * Run with {@code mvnw -P benchmark test -Dbenchmark=TimingArraysBenchmark}, see the README.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TimingArraysBenchmark {
+
+    private static final int CARDS = 1_000_000;
+    private static final int CHUNK_SIZE = 1 << 14;
+
+    private final Scheduler scheduler = new Sm2Scheduler();
+
+    private TimingArrays timingArrays;
+
+    private long now;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        Random random = new Random(42);
+        LocalDateTime start = LocalDateTime.now().minusDays(100);
+        timingArrays = new TimingArrays(CARDS);
+        for (int i = 0; i < CARDS; i++) {
+            timingArrays.add(i, random.nextInt(10), 1.3 + random.nextDouble() * 1.5, 1 + random.nextInt(100),
+                    0, 0, start.plusMinutes(random.nextInt(100 * 1440)), true);
+        }
+        now = TimingArrays.toMicros(LocalDateTime.now());
+    }
+
+    @Benchmark
+    public TimingArrays gradeSequential() {
+        grade(0, CARDS);
+        return timingArrays;
+    }
+
+    @Benchmark
+    public TimingArrays gradeParallel() {
+        IntStream.range(0, (CARDS + CHUNK_SIZE - 1) / CHUNK_SIZE)
+                .parallel()
+                .forEach(chunk -> grade(chunk * CHUNK_SIZE, Math.min(CARDS, (chunk + 1) * CHUNK_SIZE)));
+        return timingArrays;
+    }
+
+    private void grade(int from, int to) {
+        SchedulingState state = new SchedulingState();
+        for (int i = from; i < to; i++) {
+            timingArrays.load(i, state, now);
+            scheduler.schedule(state, 4);
+            timingArrays.store(i, state, now);
+        }
+    }
+}
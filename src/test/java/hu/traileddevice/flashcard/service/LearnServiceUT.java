@@ -1,23 +1,37 @@
 package hu.traileddevice.flashcard.service;
 
+import hu.traileddevice.flashcard.cache.DailyAllowance;
+import hu.traileddevice.flashcard.cache.DailyLimitCounters;
+import hu.traileddevice.flashcard.cache.DueCardCache;
+import hu.traileddevice.flashcard.cache.TimingWriteBehind;
 import hu.traileddevice.flashcard.dto.card.CardOutput;
 import hu.traileddevice.flashcard.dto.learn.AnswerOutput;
 import hu.traileddevice.flashcard.dto.learn.QuestionOutput;
 import hu.traileddevice.flashcard.model.Card;
 import hu.traileddevice.flashcard.model.CardTiming;
+import hu.traileddevice.flashcard.model.Deck;
 import hu.traileddevice.flashcard.model.Difficulty;
+import hu.traileddevice.flashcard.model.SchedulingAlgorithm;
+import hu.traileddevice.flashcard.model.User;
 import hu.traileddevice.flashcard.repository.CardRepository;
 import hu.traileddevice.flashcard.repository.CardTimingRepository;
+import hu.traileddevice.flashcard.reviewlog.ReviewLogEntry;
+import hu.traileddevice.flashcard.reviewlog.ReviewLogWriter;
+import hu.traileddevice.flashcard.scheduler.FsrsScheduler;
+import hu.traileddevice.flashcard.scheduler.SchedulerRegistry;
+import hu.traileddevice.flashcard.scheduler.Sm2Scheduler;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.modelmapper.ModelMapper;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -36,6 +50,28 @@ class LearnServiceUT {
     @Mock
     private ModelMapper modelMapper;
 
+    @Mock
+    private DueCardCache dueCardCache;
+
+    @Mock
+    private DeckStatsService deckStatsService;
+
+    @Mock
+    private ReviewLogWriter reviewLogWriter;
+
+    @Mock
+    private TimingWriteBehind timingWriteBehind;
+
+    @Mock
+    private DailyLimitCounters dailyLimitCounters;
+
+    @Mock
+    private FsrsWeightsService fsrsWeightsService; // no fitted weights, so the defaults apply
+
+    @Spy
+    private SchedulerRegistry schedulerRegistry =
+            new SchedulerRegistry(List.of(new Sm2Scheduler(), new FsrsScheduler(0.9)));
+
     @InjectMocks
     private LearnService learnService;
 
@@ -49,6 +85,7 @@ class LearnServiceUT {
         final CardTiming cardTiming = mock(CardTiming.class);
         final Card card = mock(Card.class);
         final QuestionOutput questionOutput = mock(QuestionOutput.class);
+        when(dailyLimitCounters.getAllowance(deckId)).thenReturn(DailyAllowance.UNLIMITED);
         when(cardTimingRepository.findMostDueCardInDeck(deckId)).thenReturn(Optional.of(cardTiming));
         when(cardTiming.getCard()).thenReturn(card);
         when(modelMapper.map(card, QuestionOutput.class)).thenReturn(questionOutput);
@@ -74,6 +111,8 @@ class LearnServiceUT {
         final Difficulty difficulty = Difficulty.SUCCESS_EASY;
         final LocalDateTime beforeTestTime = LocalDateTime.now();
         final Card card = mock(Card.class);
+        final Deck deck = mock(Deck.class);
+        final User user = mock(User.class);
         final CardOutput cardOutput = mock(CardOutput.class);
         ArgumentCaptor<LocalDateTime> savedTimeArgument = ArgumentCaptor.forClass(LocalDateTime.class);
         ArgumentCaptor<Integer> repetitionNumberArgument = ArgumentCaptor.forClass(Integer.class);
@@ -83,7 +122,14 @@ class LearnServiceUT {
         when(cardTiming.getRepetitionInterval()).thenReturn(1);
         when(cardTimingRepository.save(cardTiming)).thenReturn(cardTiming);
         when(cardTiming.getCard()).thenReturn(card);
+        when(card.getDeck()).thenReturn(deck);
+        when(deck.getSchedulingAlgorithm()).thenReturn(SchedulingAlgorithm.SM2);
+        when(deck.getId()).thenReturn(1L);
+        when(deck.getUser()).thenReturn(user);
+        when(user.getId()).thenReturn(1L);
+        when(cardTiming.getId()).thenReturn(cardId);
         when(cardTiming.getLastReviewDate()).thenReturn(beforeTestTime);
+        when(cardTiming.calculateDueDate()).thenReturn(beforeTestTime.plusDays(1));
         when(modelMapper.map(card, CardOutput.class)).thenReturn(cardOutput);
 
 
@@ -94,5 +140,6 @@ class LearnServiceUT {
 
         assertEquals(1, repetitionNumberArgument.getValue());
         assertTrue(savedTimeArgument.getValue().isAfter(beforeTestTime));
+        verify(reviewLogWriter, times(1)).log(any(ReviewLogEntry.class));
     }
 }
\ No newline at end of file
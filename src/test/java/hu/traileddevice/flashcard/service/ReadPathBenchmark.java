@@ -0,0 +1,214 @@
+package hu.traileddevice.flashcard.service;
+
+import hu.traileddevice.flashcard.FlashcardApplication;
+import hu.traileddevice.flashcard.dto.KeysetPage;
+import hu.traileddevice.flashcard.dto.card.CardOutput;
+import hu.traileddevice.flashcard.dto.deck.DeckOutput;
+import hu.traileddevice.flashcard.dto.user.UserOutput;
+import hu.traileddevice.flashcard.model.Card;
+import hu.traileddevice.flashcard.model.CardTiming;
+import hu.traileddevice.flashcard.model.Deck;
+import hu.traileddevice.flashcard.model.User;
+import hu.traileddevice.flashcard.repository.CardRepository;
+import hu.traileddevice.flashcard.repository.CardTimingRepository;
+import hu.traileddevice.flashcard.repository.DeckRepository;
+import hu.traileddevice.flashcard.repository.UserRepository;
+import org.modelmapper.ModelMapper;
+import org.modelmapper.TypeToken;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.TypeExcludeFilter;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hibernate.jpa.QueryHints.HINT_PASS_DISTINCT_THROUGH;
+
+/**
+ * Measures the read paths of users, decks and cards: the outputs projected in read-only transactions, against the
+ * entities loaded with their fetch plans and mapped by ModelMapper. The database in H2 in memory holds 20 users with
+ * 5 decks of 50 cards each, and the listings take pages of 20.
+ * Run with {@code mvnw -P benchmark test -Dbenchmark=ReadPathBenchmark}, see the README, the gc profiler reports the
+ * allocations per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReadPathBenchmark {
+
+    private static final int USERS = 20;
+    private static final int DECKS_PER_USER = 5;
+    private static final int CARDS_PER_DECK = 50;
+    private static final int PAGE = 20;
+
+    private static final Type DECK_OUTPUTS = new TypeToken<List<DeckOutput>>() {}.getType();
+    private static final Type USER_OUTPUTS = new TypeToken<List<UserOutput>>() {}.getType();
+
+    private ConfigurableApplicationContext context;
+
+    private CardService cardService;
+    private DeckService deckService;
+    private UserService userService;
+
+    private CardRepository cardRepository;
+    private DeckRepository deckRepository;
+    private UserRepository userRepository;
+    private EntityManager entityManager;
+    private ModelMapper modelMapper;
+    private TransactionTemplate readOnlyTransaction;
+
+    private long userId;
+    private long deckId;
+    private long cardId;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(FlashcardApplication.class)
+                .profiles("test")
+                // the test configurations of the integration tests are left out, as @SpringBootTest does
+                .initializers(applicationContext -> applicationContext.getBeanFactory()
+                        .registerSingleton("testConfigurationExcludeFilter", new TestConfigurationExcludeFilter()))
+                .properties("server.port=0", "spring.jpa.show-sql=false", "logging.level.root=warn")
+                .run();
+
+        cardService = context.getBean(CardService.class);
+        deckService = context.getBean(DeckService.class);
+        userService = context.getBean(UserService.class);
+        cardRepository = context.getBean(CardRepository.class);
+        deckRepository = context.getBean(DeckRepository.class);
+        userRepository = context.getBean(UserRepository.class);
+        entityManager = context.getBean(EntityManager.class);
+        modelMapper = context.getBean(ModelMapper.class);
+        PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+
+        CardTimingRepository cardTimingRepository = context.getBean(CardTimingRepository.class);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (int u = 0; u < USERS; u++) {
+                User user = new User();
+                user.setName("User " + u);
+                user.setEmail("fake" + u + "@gmail.com");
+                user = userRepository.save(user);
+                userId = user.getId();
+
+                for (int d = 0; d < DECKS_PER_USER; d++) {
+                    Deck deck = new Deck();
+                    deck.setName("Deck " + u + "-" + d);
+                    deck.setUser(user);
+                    deck = deckRepository.save(deck);
+                    deckId = deck.getId();
+
+                    for (int c = 0; c < CARDS_PER_DECK; c++) {
+                        Card card = new Card();
+                        card.setDeck(deck);
+                        card.setFrontContent("Question " + u + "-" + d + "-" + c);
+                        card.setBackContent("Answer " + c);
+                        card = cardRepository.save(card);
+                        cardTimingRepository.save(new CardTiming(card));
+                        cardId = card.getId();
+                    }
+                }
+            }
+        });
+    }
+
+    private static final class TestConfigurationExcludeFilter extends TypeExcludeFilter {
+
+        @Override
+        public boolean match(MetadataReader metadataReader, MetadataReaderFactory metadataReaderFactory) {
+            return metadataReader.getAnnotationMetadata().hasAnnotation(TestConfiguration.class.getName());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public CardOutput findCardByIdProjected() {
+        return cardService.findById(cardId);
+    }
+
+    @Benchmark
+    public CardOutput findCardByIdHydrated() {
+        return readOnlyTransaction.execute(status ->
+                modelMapper.map(cardRepository.findById(cardId).orElseThrow(), CardOutput.class));
+    }
+
+    @Benchmark
+    public DeckOutput findDeckByIdProjected() {
+        return deckService.findById(deckId);
+    }
+
+    @Benchmark
+    public DeckOutput findDeckByIdHydrated() {
+        return readOnlyTransaction.execute(status ->
+                modelMapper.map(deckRepository.findWithCardsById(deckId).orElseThrow(), DeckOutput.class));
+    }
+
+    @Benchmark
+    public KeysetPage<DeckOutput> findAllDecksProjected() {
+        return deckService.findAll(null, PAGE);
+    }
+
+    @Benchmark
+    public List<DeckOutput> findAllDecksHydrated() {
+        return readOnlyTransaction.execute(status -> {
+            List<Long> ids = entityManager.createQuery("SELECT d.id FROM Deck d ORDER BY d.id", Long.class)
+                    .setMaxResults(PAGE)
+                    .getResultList();
+            List<Deck> decks = entityManager.createQuery("SELECT DISTINCT d FROM Deck d JOIN FETCH d.user " +
+                            "LEFT JOIN FETCH d.cards c LEFT JOIN FETCH c.cardTiming WHERE d.id IN :ids ORDER BY d.id",
+                    Deck.class)
+                    .setParameter("ids", ids)
+                    .setHint(HINT_PASS_DISTINCT_THROUGH, false)
+                    .getResultList();
+            return modelMapper.map(decks, DECK_OUTPUTS);
+        });
+    }
+
+    @Benchmark
+    public UserOutput findUserByIdProjected() {
+        return userService.findById(userId);
+    }
+
+    @Benchmark
+    public UserOutput findUserByIdHydrated() {
+        return readOnlyTransaction.execute(status ->
+                modelMapper.map(userRepository.findWithDecksById(userId).orElseThrow(), UserOutput.class));
+    }
+
+    @Benchmark
+    public KeysetPage<UserOutput> findAllUsersProjected() {
+        return userService.findAll(null, PAGE);
+    }
+
+    @Benchmark
+    public List<UserOutput> findAllUsersHydrated() {
+        return readOnlyTransaction.execute(status -> {
+            List<Long> ids = entityManager.createQuery("SELECT u.id FROM User u ORDER BY u.id", Long.class)
+                    .setMaxResults(PAGE)
+                    .getResultList();
+            List<User> users = entityManager.createQuery("SELECT DISTINCT u FROM User u LEFT JOIN FETCH u.decks d " +
+                            "LEFT JOIN FETCH d.cards c LEFT JOIN FETCH c.cardTiming WHERE u.id IN :ids ORDER BY u.id",
+                    User.class)
+                    .setParameter("ids", ids)
+                    .setHint(HINT_PASS_DISTINCT_THROUGH, false)
+                    .getResultList();
+            return modelMapper.map(users, USER_OUTPUTS);
+        });
+    }
+}
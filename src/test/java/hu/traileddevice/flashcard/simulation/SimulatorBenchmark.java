@@ -0,0 +1,45 @@
+package hu.traileddevice.flashcard.simulation;
+
+import hu.traileddevice.flashcard.dto.simulation.SimulationInput;
+import hu.traileddevice.flashcard.dto.simulation.SimulationOutput;
+import hu.traileddevice.flashcard.scheduler.FsrsScheduler;
+import hu.traileddevice.flashcard.scheduler.SchedulerRegistry;
+import hu.traileddevice.flashcard.scheduler.Sm2Scheduler;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures simulating a cohort of a thousand users with a deck of a thousand cards each for 90 days, about 6 million
+ * card reviews, on a single thread and on all cores.
+ * Run with {@code mvnw -P benchmark test -Dbenchmark=SimulatorBenchmark}, see the README.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SimulatorBenchmark {
+
+    @Param({"1", "0"}) // 0 for all cores
+    private int parallelism;
+
+    private Simulator simulator;
+
+    private final SimulationInput simulationInput = new SimulationInput();
+
+    @Setup
+    public void setUp() {
+        simulator = new Simulator(new SchedulerRegistry(List.of(new Sm2Scheduler(), new FsrsScheduler(0.9))), parallelism);
+        simulationInput.setUsers(1000);
+        simulationInput.setCardsPerDeck(1000);
+        simulationInput.setDays(90);
+    }
+
+    @Benchmark
+    public SimulationOutput simulate() {
+        return simulator.simulate(simulationInput);
+    }
+}
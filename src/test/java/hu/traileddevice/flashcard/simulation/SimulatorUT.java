@@ -0,0 +1,98 @@
+package hu.traileddevice.flashcard.simulation;
+
+import hu.traileddevice.flashcard.dto.simulation.SimulationDayOutput;
+import hu.traileddevice.flashcard.dto.simulation.SimulationInput;
+import hu.traileddevice.flashcard.dto.simulation.SimulationOutput;
+import hu.traileddevice.flashcard.model.Difficulty;
+import hu.traileddevice.flashcard.model.SchedulingAlgorithm;
+import hu.traileddevice.flashcard.scheduler.FsrsScheduler;
+import hu.traileddevice.flashcard.scheduler.SchedulerRegistry;
+import hu.traileddevice.flashcard.scheduler.Sm2Scheduler;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimulatorUT {
+
+    private final SchedulerRegistry schedulerRegistry =
+            new SchedulerRegistry(List.of(new Sm2Scheduler(), new FsrsScheduler(0.9)));
+
+    @Test
+    void simulate_alwaysRecalled_sm2IntervalsDriveDueCards() {
+        SimulationInput simulationInput = input(1, 200, 20, 200, 8);
+        simulationInput.setGradeProbabilities(Map.of(Difficulty.SUCCESS_MEDIUM, 1.0));
+
+        List<SimulationDayOutput> days = new Simulator(schedulerRegistry, 1).simulate(simulationInput).getDays();
+
+        assertEquals(8, days.size());
+        assertDay(days.get(0), 1, 0, 0, 20);
+        assertDay(days.get(1), 2, 20, 20, 20); // learned on day 1 with an interval of 1 day
+        assertDay(days.get(2), 3, 20, 20, 20); // learned on day 2, the ones of day 1 are due in 6 days
+        assertDay(days.get(7), 8, 40, 40, 20); // learned on day 7, and the second review of the ones of day 1
+        days.forEach(day -> assertEquals(0, day.getFailedCards()));
+    }
+
+    @Test
+    void simulate_alwaysFailed_failedCardsReviewedAgainUntilReviewLimit() {
+        SimulationInput simulationInput = input(3, 50, 10, 200, 10);
+        simulationInput.setGradeProbabilities(Map.of(Difficulty.FAIL_FAMILIAR, 1.0));
+
+        SimulationOutput simulationOutput = new Simulator(schedulerRegistry, 2).simulate(simulationInput);
+
+        assertEquals(150, simulationOutput.getCards());
+        assertEquals(6150, simulationOutput.getCardReviews());
+        List<SimulationDayOutput> days = simulationOutput.getDays();
+        for (int i = 0; i < days.size(); i++) { // every card is new once, then failed again all day long
+            long newCards = i < 5 ? 30 : 0;
+            long dueCards = 30L * Math.min(i, 5);
+            assertDay(days.get(i), i + 1, dueCards, 600, newCards);
+            assertEquals(600 + newCards, days.get(i).getFailedCards());
+        }
+    }
+
+    @Test
+    void simulate_reviewLimitReached_dueCardsLeftBehind() {
+        SimulationInput simulationInput = input(2, 500, 50, 30, 30);
+
+        SimulationOutput simulationOutput = new Simulator(schedulerRegistry, 2).simulate(simulationInput);
+
+        simulationOutput.getDays().forEach(day -> assertTrue(day.getReviews() <= 60));
+        assertTrue(simulationOutput.getPeakDueCards() > 60);
+    }
+
+    @Test
+    void simulate_sameSeedOnDifferentThreadCounts_sameResults() {
+        SimulationInput simulationInput = input(40, 200, 20, 100, 60);
+        simulationInput.setSchedulingAlgorithm(SchedulingAlgorithm.FSRS);
+
+        SimulationOutput singleThreaded = new Simulator(schedulerRegistry, 1).simulate(simulationInput);
+        SimulationOutput multiThreaded = new Simulator(schedulerRegistry, 4).simulate(simulationInput);
+
+        assertEquals(singleThreaded.getCardReviews(), multiThreaded.getCardReviews());
+        assertEquals(singleThreaded.getPeakDueCards(), multiThreaded.getPeakDueCards());
+        for (int i = 0; i < 60; i++) {
+            assertEquals(singleThreaded.getDays().get(i).getDueCards(), multiThreaded.getDays().get(i).getDueCards());
+            assertEquals(singleThreaded.getDays().get(i).getFailedCards(), multiThreaded.getDays().get(i).getFailedCards());
+        }
+    }
+
+    private static SimulationInput input(int users, int cardsPerDeck, int newCardsPerDay, int reviewsPerDay, int days) {
+        SimulationInput simulationInput = new SimulationInput();
+        simulationInput.setUsers(users);
+        simulationInput.setCardsPerDeck(cardsPerDeck);
+        simulationInput.setNewCardsPerDay(newCardsPerDay);
+        simulationInput.setReviewsPerDay(reviewsPerDay);
+        simulationInput.setDays(days);
+        return simulationInput;
+    }
+
+    private static void assertDay(SimulationDayOutput day, int number, long dueCards, long reviews, long newCards) {
+        assertEquals(number, day.getDay());
+        assertEquals(dueCards, day.getDueCards());
+        assertEquals(reviews, day.getReviews());
+        assertEquals(newCards, day.getNewCards());
+    }
+}